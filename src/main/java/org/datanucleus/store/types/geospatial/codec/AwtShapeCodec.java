@@ -0,0 +1,415 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.codec;
+
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.vividsolutions.jts.algorithm.CGAlgorithms;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.Point;
+
+/**
+ * Converts java.awt shapes and points to JTS geometries and back, for storing them in a geometry column.
+ * Shapes are converted from their flattened outline, i.e. curves are replaced by lines deviating at most by the
+ * given flatness from the curve. Closed subpaths become polygons, nested ones holes following the even-odd rule,
+ * and open subpaths line strings. A value is rebuilt from the geometry as the type of the field: rectangles and
+ * ellipses from the bounding box, lines from the first and last point, polygons from the exterior ring and
+ * paths and areas from the outline of the geometry. Shapes that cannot be rebuilt from their outline (arcs, round
+ * rectangles and curves) are not supported, see {@link #isSupportedType(Class)}.
+ */
+public final class AwtShapeCodec
+{
+    /** Default flatness of the outlines of curved shapes, in units of the coordinates. */
+    public static final double DEFAULT_FLATNESS = 0.01;
+
+    private AwtShapeCodec()
+    {
+    }
+
+    /**
+     * Checks whether values of the given type can be rebuilt from their geometry.
+     * @param type The type
+     * @return Whether the type is supported
+     */
+    public static boolean isSupportedType(Class type)
+    {
+        return Point2D.class.isAssignableFrom(type) || type == Line2D.class || type == Line2D.Double.class || type == Line2D.Float.class ||
+            type == Rectangle2D.class || type == Rectangle2D.Double.class || type == Rectangle2D.Float.class || type == Rectangle.class ||
+            type == Ellipse2D.class || type == Ellipse2D.Double.class || type == Ellipse2D.Float.class || type == Polygon.class ||
+            type == Area.class || type == Shape.class || type == Path2D.class || type == Path2D.Double.class || type == GeneralPath.class;
+    }
+
+    /**
+     * Converts a shape or point to a geometry.
+     * @param value The shape or point
+     * @param flatness Maximum deviation of the lines replacing curves from the curves
+     * @param factory Factory of the geometry, defining its SRID
+     * @return The geometry
+     * @throws IllegalArgumentException If the value is neither a Shape nor a Point2D
+     */
+    public static Geometry toGeometry(Object value, double flatness, GeometryFactory factory)
+    {
+        if (value instanceof Point2D)
+        {
+            Point2D point = (Point2D) value;
+            return factory.createPoint(new Coordinate(point.getX(), point.getY()));
+        }
+        else if (!(value instanceof Shape))
+        {
+            throw new IllegalArgumentException("Cannot convert a " + value.getClass().getName() + " to a geometry");
+        }
+
+        List<Coordinate[]> rings = new ArrayList<Coordinate[]>();
+        List<Coordinate[]> lines = new ArrayList<Coordinate[]>();
+        List<Coordinate> path = null;
+        Coordinate start = null;
+        double[] coords = new double[6];
+        for (PathIterator iter = ((Shape) value).getPathIterator(null, flatness); !iter.isDone(); iter.next())
+        {
+            int segmentType = iter.currentSegment(coords);
+            if (segmentType == PathIterator.SEG_MOVETO)
+            {
+                addPath(path, false, rings, lines);
+                start = new Coordinate(coords[0], coords[1]);
+                path = new ArrayList<Coordinate>();
+                path.add(start);
+            }
+            else if (segmentType == PathIterator.SEG_LINETO)
+            {
+                if (path == null)
+                {
+                    // A line after closing a subpath starts at the start of that subpath
+                    path = new ArrayList<Coordinate>();
+                    path.add(start != null ? new Coordinate(start) : new Coordinate(0, 0));
+                }
+                Coordinate coord = new Coordinate(coords[0], coords[1]);
+                if (!coord.equals2D(path.get(path.size() - 1)))
+                {
+                    path.add(coord);
+                }
+            }
+            else if (segmentType == PathIterator.SEG_CLOSE)
+            {
+                addPath(path, true, rings, lines);
+                path = null;
+            }
+        }
+        addPath(path, false, rings, lines);
+
+        List<Geometry> polygons = createPolygons(rings, factory);
+        List<Geometry> lineStrings = new ArrayList<Geometry>();
+        for (Coordinate[] line : lines)
+        {
+            lineStrings.add(factory.createLineString(line));
+        }
+
+        if (lineStrings.isEmpty() && polygons.size() == 1)
+        {
+            return polygons.get(0);
+        }
+        else if (lineStrings.isEmpty() && !polygons.isEmpty())
+        {
+            return factory.createMultiPolygon(polygons.toArray(new com.vividsolutions.jts.geom.Polygon[polygons.size()]));
+        }
+        else if (polygons.isEmpty() && lineStrings.size() == 1)
+        {
+            return lineStrings.get(0);
+        }
+        else if (polygons.isEmpty() && !lineStrings.isEmpty())
+        {
+            return factory.createMultiLineString(lineStrings.toArray(new LineString[lineStrings.size()]));
+        }
+        polygons.addAll(lineStrings);
+        return factory.createGeometryCollection(polygons.toArray(new Geometry[polygons.size()]));
+    }
+
+    /**
+     * Converts a geometry to a shape or point of the given type.
+     * @param geom The geometry
+     * @param type The type, see {@link #isSupportedType(Class)}
+     * @return The shape or point, <code>null</code> if the geometry is <code>null</code>, or is empty and the type
+     * is a point or a line
+     * @throws IllegalArgumentException If the type is not supported
+     */
+    public static Object fromGeometry(Geometry geom, Class type)
+    {
+        if (geom == null)
+        {
+            return null;
+        }
+
+        if (Point2D.class.isAssignableFrom(type))
+        {
+            Coordinate coord = geom.getCoordinate();
+            if (coord == null)
+            {
+                return null;
+            }
+            else if (type == java.awt.Point.class)
+            {
+                return new java.awt.Point((int) Math.round(coord.x), (int) Math.round(coord.y));
+            }
+            else if (type == Point2D.Float.class)
+            {
+                return new Point2D.Float((float) coord.x, (float) coord.y);
+            }
+            return new Point2D.Double(coord.x, coord.y);
+        }
+        else if (type == Line2D.class || type == Line2D.Double.class || type == Line2D.Float.class)
+        {
+            Coordinate[] coords = geom.getCoordinates();
+            if (coords.length == 0)
+            {
+                return null;
+            }
+            Coordinate last = coords[coords.length - 1];
+            if (type == Line2D.Float.class)
+            {
+                return new Line2D.Float((float) coords[0].x, (float) coords[0].y, (float) last.x, (float) last.y);
+            }
+            return new Line2D.Double(coords[0].x, coords[0].y, last.x, last.y);
+        }
+
+        Envelope env = geom.getEnvelopeInternal();
+        if (type == Rectangle.class)
+        {
+            if (env.isNull())
+            {
+                return new Rectangle();
+            }
+            int x = (int) Math.round(env.getMinX());
+            int y = (int) Math.round(env.getMinY());
+            return new Rectangle(x, y, (int) Math.round(env.getMaxX()) - x, (int) Math.round(env.getMaxY()) - y);
+        }
+        else if (type == Rectangle2D.class || type == Rectangle2D.Double.class || type == Rectangle2D.Float.class)
+        {
+            Rectangle2D rect = (type == Rectangle2D.Float.class ? new Rectangle2D.Float() : new Rectangle2D.Double());
+            if (!env.isNull())
+            {
+                rect.setFrame(env.getMinX(), env.getMinY(), env.getWidth(), env.getHeight());
+            }
+            return rect;
+        }
+        else if (type == Ellipse2D.class || type == Ellipse2D.Double.class || type == Ellipse2D.Float.class)
+        {
+            Ellipse2D ellipse = (type == Ellipse2D.Float.class ? new Ellipse2D.Float() : new Ellipse2D.Double());
+            if (!env.isNull())
+            {
+                ellipse.setFrame(env.getMinX(), env.getMinY(), env.getWidth(), env.getHeight());
+            }
+            return ellipse;
+        }
+        else if (type == Polygon.class)
+        {
+            Coordinate[] coords = (geom instanceof com.vividsolutions.jts.geom.Polygon ?
+                    ((com.vividsolutions.jts.geom.Polygon) geom).getExteriorRing().getCoordinates() : geom.getCoordinates());
+            int npoints = coords.length;
+            if (npoints > 1 && coords[0].equals2D(coords[npoints - 1]))
+            {
+                // awt polygons are closed implicitly
+                npoints--;
+            }
+            Polygon polygon = new Polygon();
+            for (int i = 0; i < npoints; i++)
+            {
+                polygon.addPoint((int) Math.round(coords[i].x), (int) Math.round(coords[i].y));
+            }
+            return polygon;
+        }
+        else if (type == Area.class)
+        {
+            return new Area(toPath(geom));
+        }
+        else if (type == GeneralPath.class)
+        {
+            return new GeneralPath(toPath(geom));
+        }
+        else if (type == Shape.class || type == Path2D.class || type == Path2D.Double.class)
+        {
+            return toPath(geom);
+        }
+        throw new IllegalArgumentException("Cannot convert a geometry to a " + type.getName());
+    }
+
+    /**
+     * Converts a geometry to a path, with a closed subpath for every ring and an open one for every line string.
+     * @param geom The geometry
+     * @return The path, using the even-odd winding rule
+     */
+    public static Path2D toPath(Geometry geom)
+    {
+        Path2D.Double path = new Path2D.Double(Path2D.WIND_EVEN_ODD);
+        appendToPath(path, geom);
+        return path;
+    }
+
+    private static void appendToPath(Path2D path, Geometry geom)
+    {
+        if (geom instanceof Point)
+        {
+            if (!geom.isEmpty())
+            {
+                Coordinate coord = geom.getCoordinate();
+                path.moveTo(coord.x, coord.y);
+            }
+        }
+        else if (geom instanceof LineString)
+        {
+            Coordinate[] coords = geom.getCoordinates();
+            for (int i = 0; i < coords.length; i++)
+            {
+                if (i == 0)
+                {
+                    path.moveTo(coords[i].x, coords[i].y);
+                }
+                else
+                {
+                    path.lineTo(coords[i].x, coords[i].y);
+                }
+            }
+            if (geom instanceof LinearRing && coords.length > 0)
+            {
+                path.closePath();
+            }
+        }
+        else if (geom instanceof com.vividsolutions.jts.geom.Polygon)
+        {
+            com.vividsolutions.jts.geom.Polygon polygon = (com.vividsolutions.jts.geom.Polygon) geom;
+            appendToPath(path, polygon.getExteriorRing());
+            for (int i = 0; i < polygon.getNumInteriorRing(); i++)
+            {
+                appendToPath(path, polygon.getInteriorRingN(i));
+            }
+        }
+        else
+        {
+            for (int i = 0; i < geom.getNumGeometries(); i++)
+            {
+                appendToPath(path, geom.getGeometryN(i));
+            }
+        }
+    }
+
+    /**
+     * Adds a subpath of the outline to the rings or lines. Closed subpaths without an area (e.g. of an empty
+     * rectangle) are added as line.
+     */
+    private static void addPath(List<Coordinate> path, boolean closed, List<Coordinate[]> rings, List<Coordinate[]> lines)
+    {
+        if (path == null || path.size() < 2)
+        {
+            return;
+        }
+
+        if (closed)
+        {
+            List<Coordinate> ring = new ArrayList<Coordinate>(path);
+            if (!ring.get(0).equals2D(ring.get(ring.size() - 1)))
+            {
+                ring.add(new Coordinate(ring.get(0)));
+            }
+            Coordinate[] coords = ring.toArray(new Coordinate[ring.size()]);
+            if (coords.length >= 4 && CGAlgorithms.signedArea(coords) != 0)
+            {
+                rings.add(coords);
+                return;
+            }
+        }
+        lines.add(path.toArray(new Coordinate[path.size()]));
+    }
+
+    /**
+     * Creates the polygons of the closed subpaths of an outline. A ring inside an odd number of other rings is a
+     * hole of the smallest of them, otherwise it is the shell of a polygon (the even-odd rule).
+     */
+    private static List<Geometry> createPolygons(List<Coordinate[]> rings, GeometryFactory factory)
+    {
+        int count = rings.size();
+        Coordinate[][] sorted = rings.toArray(new Coordinate[count][]);
+        double[] areas = new double[count];
+        for (int i = 0; i < count; i++)
+        {
+            areas[i] = Math.abs(CGAlgorithms.signedArea(sorted[i]));
+        }
+        // Largest first, so that the rings containing a ring come before it (insertion sort, there are few rings)
+        for (int i = 1; i < count; i++)
+        {
+            for (int j = i; j > 0 && areas[j - 1] < areas[j]; j--)
+            {
+                double area = areas[j];
+                areas[j] = areas[j - 1];
+                areas[j - 1] = area;
+                Coordinate[] ring = sorted[j];
+                sorted[j] = sorted[j - 1];
+                sorted[j - 1] = ring;
+            }
+        }
+
+        int[] depths = new int[count];
+        int[] parents = new int[count];
+        for (int i = 0; i < count; i++)
+        {
+            parents[i] = -1;
+            for (int j = i - 1; j >= 0; j--)
+            {
+                if (CGAlgorithms.isPointInRing(sorted[i][0], sorted[j]))
+                {
+                    parents[i] = j;
+                    depths[i] = depths[j] + 1;
+                    break;
+                }
+            }
+        }
+
+        List<Geometry> polygons = new ArrayList<Geometry>();
+        for (int i = 0; i < count; i++)
+        {
+            if (depths[i] % 2 != 0)
+            {
+                continue;
+            }
+            List<LinearRing> holes = new ArrayList<LinearRing>();
+            for (int j = i + 1; j < count; j++)
+            {
+                if (parents[j] == i && depths[j] % 2 != 0)
+                {
+                    holes.add(factory.createLinearRing(sorted[j]));
+                }
+            }
+            polygons.add(factory.createPolygon(factory.createLinearRing(sorted[i]), holes.toArray(new LinearRing[holes.size()])));
+        }
+        return polygons;
+    }
+}
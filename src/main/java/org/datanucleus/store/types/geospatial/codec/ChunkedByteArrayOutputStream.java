@@ -0,0 +1,155 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.codec;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Output stream collecting its data in fixed size chunks rather than one growing array, and which can then be
+ * read back as an InputStream. Used to encode very large geometries for JDBC binary streams without ever
+ * allocating an array of the whole payload, which the G1 collector would have to treat as humongous object.
+ */
+public class ChunkedByteArrayOutputStream extends OutputStream
+{
+    /** Default chunk size, well below the humongous object threshold of the smallest G1 region size. */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private final int chunkSize;
+
+    private final List<byte[]> chunks = new ArrayList<byte[]>();
+
+    private byte[] current;
+
+    private int position;
+
+    private long size;
+
+    public ChunkedByteArrayOutputStream()
+    {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public ChunkedByteArrayOutputStream(int chunkSize)
+    {
+        this.chunkSize = chunkSize;
+    }
+
+    public void write(int b)
+    {
+        if (current == null || position == chunkSize)
+        {
+            nextChunk();
+        }
+        current[position++] = (byte) b;
+        size++;
+    }
+
+    public void write(byte[] b, int off, int len)
+    {
+        while (len > 0)
+        {
+            if (current == null || position == chunkSize)
+            {
+                nextChunk();
+            }
+            int count = Math.min(len, chunkSize - position);
+            System.arraycopy(b, off, current, position, count);
+            position += count;
+            off += count;
+            len -= count;
+            size += count;
+        }
+    }
+
+    private void nextChunk()
+    {
+        current = new byte[chunkSize];
+        chunks.add(current);
+        position = 0;
+    }
+
+    /**
+     * Accessor for the number of bytes written.
+     * @return The size
+     */
+    public long size()
+    {
+        return size;
+    }
+
+    /**
+     * Accessor for an InputStream reading the bytes written so far.
+     * @return The input stream
+     */
+    public InputStream toInputStream()
+    {
+        return new InputStream()
+        {
+            private int chunk = 0;
+
+            private int chunkPosition = 0;
+
+            private long remaining = size;
+
+            public int read()
+            {
+                if (remaining == 0)
+                {
+                    return -1;
+                }
+                if (chunkPosition == chunkSize)
+                {
+                    chunk++;
+                    chunkPosition = 0;
+                }
+                remaining--;
+                return chunks.get(chunk)[chunkPosition++] & 0xFF;
+            }
+
+            public int read(byte[] b, int off, int len)
+            {
+                if (len == 0)
+                {
+                    return 0;
+                }
+                if (remaining == 0)
+                {
+                    return -1;
+                }
+                if (chunkPosition == chunkSize)
+                {
+                    chunk++;
+                    chunkPosition = 0;
+                }
+                int count = (int) Math.min(Math.min(len, chunkSize - chunkPosition), remaining);
+                System.arraycopy(chunks.get(chunk), chunkPosition, b, off, count);
+                chunkPosition += count;
+                remaining -= count;
+                return count;
+            }
+
+            public int available()
+            {
+                return (int) Math.min(remaining, Integer.MAX_VALUE);
+            }
+        };
+    }
+}
@@ -0,0 +1,364 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * UserDataCodec with a compact binary form for the usual user data of geometries: maps with String keys whose
+ * values are null, Boolean, Integer, Long, Double, String, byte[], or lists and maps of these. Other user data is
+ * written using Java serialization. Maps are decoded lazily: {@link #decode(byte[])} returns a Map that only
+ * decodes its entries when first accessed, and that is written back as is when it wasn't accessed.
+ */
+public class CompactUserDataCodec implements UserDataCodec
+{
+    /** Format of user data written in the compact form. */
+    private static final byte FORMAT_COMPACT = 1;
+
+    /** Format of user data written using Java serialization. */
+    private static final byte FORMAT_SERIALIZED = 2;
+
+    private static final byte NULL = 0;
+
+    private static final byte TRUE = 1;
+
+    private static final byte FALSE = 2;
+
+    private static final byte INT = 3;
+
+    private static final byte LONG = 4;
+
+    private static final byte DOUBLE = 5;
+
+    private static final byte STRING = 6;
+
+    private static final byte BYTES = 7;
+
+    private static final byte LIST = 8;
+
+    private static final byte MAP = 9;
+
+    private final SerializingUserDataCodec serializingCodec = new SerializingUserDataCodec();
+
+    public byte[] encode(Object userData)
+    {
+        if (userData instanceof LazyMap)
+        {
+            byte[] bytes = ((LazyMap) userData).getUndecodedBytes();
+            if (bytes != null)
+            {
+                return bytes;
+            }
+        }
+
+        if (userData instanceof Map && isEncodable(userData))
+        {
+            try
+            {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream(256);
+                DataOutputStream out = new DataOutputStream(baos);
+                out.writeByte(FORMAT_COMPACT);
+                writeValue(out, userData);
+                out.flush();
+                return baos.toByteArray();
+            }
+            catch (IOException ioe)
+            {
+                // Cannot happen when writing to a ByteArrayOutputStream
+                throw new IllegalStateException(ioe);
+            }
+        }
+
+        byte[] serialized = serializingCodec.encode(userData);
+        byte[] bytes = new byte[serialized.length + 1];
+        bytes[0] = FORMAT_SERIALIZED;
+        System.arraycopy(serialized, 0, bytes, 1, serialized.length);
+        return bytes;
+    }
+
+    public Object decode(byte[] bytes)
+    {
+        if (bytes.length > 0 && bytes[0] == FORMAT_COMPACT)
+        {
+            return new LazyMap(bytes);
+        }
+        else if (bytes.length > 0 && bytes[0] == FORMAT_SERIALIZED)
+        {
+            byte[] serialized = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, serialized, 0, serialized.length);
+            return serializingCodec.decode(serialized);
+        }
+        throw new IllegalArgumentException("Unknown user data format " + (bytes.length > 0 ? bytes[0] : -1));
+    }
+
+    private static boolean isEncodable(Object value)
+    {
+        if (value == null || value instanceof Boolean || value instanceof Integer || value instanceof Long || value instanceof Double ||
+            value instanceof String || value instanceof byte[])
+        {
+            return true;
+        }
+        else if (value instanceof List)
+        {
+            Iterator iter = ((List) value).iterator();
+            while (iter.hasNext())
+            {
+                if (!isEncodable(iter.next()))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        else if (value instanceof Map)
+        {
+            Iterator<Map.Entry> iter = ((Map) value).entrySet().iterator();
+            while (iter.hasNext())
+            {
+                Map.Entry entry = iter.next();
+                if (!(entry.getKey() instanceof String) || !isEncodable(entry.getValue()))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException
+    {
+        if (value == null)
+        {
+            out.writeByte(NULL);
+        }
+        else if (value instanceof Boolean)
+        {
+            out.writeByte(((Boolean) value).booleanValue() ? TRUE : FALSE);
+        }
+        else if (value instanceof Integer)
+        {
+            out.writeByte(INT);
+            out.writeInt(((Integer) value).intValue());
+        }
+        else if (value instanceof Long)
+        {
+            out.writeByte(LONG);
+            out.writeLong(((Long) value).longValue());
+        }
+        else if (value instanceof Double)
+        {
+            out.writeByte(DOUBLE);
+            out.writeDouble(((Double) value).doubleValue());
+        }
+        else if (value instanceof String)
+        {
+            out.writeByte(STRING);
+            writeBytes(out, ((String) value).getBytes(StandardCharsets.UTF_8));
+        }
+        else if (value instanceof byte[])
+        {
+            out.writeByte(BYTES);
+            writeBytes(out, (byte[]) value);
+        }
+        else if (value instanceof List)
+        {
+            List list = (List) value;
+            out.writeByte(LIST);
+            out.writeInt(list.size());
+            for (int i = 0; i < list.size(); i++)
+            {
+                writeValue(out, list.get(i));
+            }
+        }
+        else
+        {
+            Map map = (Map) value;
+            out.writeByte(MAP);
+            out.writeInt(map.size());
+            Iterator<Map.Entry> iter = map.entrySet().iterator();
+            while (iter.hasNext())
+            {
+                Map.Entry entry = iter.next();
+                writeBytes(out, ((String) entry.getKey()).getBytes(StandardCharsets.UTF_8));
+                writeValue(out, entry.getValue());
+            }
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException
+    {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException
+    {
+        byte type = in.readByte();
+        switch (type)
+        {
+            case NULL :
+                return null;
+            case TRUE :
+                return Boolean.TRUE;
+            case FALSE :
+                return Boolean.FALSE;
+            case INT :
+                return Integer.valueOf(in.readInt());
+            case LONG :
+                return Long.valueOf(in.readLong());
+            case DOUBLE :
+                return Double.valueOf(in.readDouble());
+            case STRING :
+                return new String(readBytes(in), StandardCharsets.UTF_8);
+            case BYTES :
+                return readBytes(in);
+            case LIST :
+                int size = in.readInt();
+                List<Object> list = new ArrayList<Object>(Math.min(size, 1024));
+                for (int i = 0; i < size; i++)
+                {
+                    list.add(readValue(in));
+                }
+                return list;
+            case MAP :
+                int count = in.readInt();
+                Map<String, Object> map = new LinkedHashMap<String, Object>();
+                for (int i = 0; i < count; i++)
+                {
+                    String key = new String(readBytes(in), StandardCharsets.UTF_8);
+                    map.put(key, readValue(in));
+                }
+                return map;
+            default :
+                throw new IOException("Unknown user data value type " + type);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException
+    {
+        int length = in.readInt();
+        if (length < 0 || length > in.available())
+        {
+            throw new IOException("Invalid user data length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Map holding the compact form of user data until one of its entries is accessed. Any access (even a read)
+     * decodes it, since entries and nested values may be changed through the map.
+     */
+    private static class LazyMap extends AbstractMap<String, Object> implements Serializable
+    {
+        private static final long serialVersionUID = -2786457381924517604L;
+
+        private byte[] bytes;
+
+        private Map<String, Object> map;
+
+        LazyMap(byte[] bytes)
+        {
+            this.bytes = bytes;
+        }
+
+        synchronized byte[] getUndecodedBytes()
+        {
+            return bytes;
+        }
+
+        private synchronized Map<String, Object> decoded()
+        {
+            if (map == null)
+            {
+                try
+                {
+                    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1));
+                    map = (Map<String, Object>) readValue(in);
+                }
+                catch (IOException ioe)
+                {
+                    throw new IllegalArgumentException("User data cannot be decoded", ioe);
+                }
+                bytes = null;
+            }
+            return map;
+        }
+
+        public Set<Map.Entry<String, Object>> entrySet()
+        {
+            return decoded().entrySet();
+        }
+
+        public int size()
+        {
+            return decoded().size();
+        }
+
+        public boolean containsKey(Object key)
+        {
+            return decoded().containsKey(key);
+        }
+
+        public Object get(Object key)
+        {
+            return decoded().get(key);
+        }
+
+        public Object put(String key, Object value)
+        {
+            return decoded().put(key, value);
+        }
+
+        public Object remove(Object key)
+        {
+            return decoded().remove(key);
+        }
+
+        public void clear()
+        {
+            decoded().clear();
+        }
+
+        /**
+         * Serialized as a plain LinkedHashMap, so that readers don't depend on this class.
+         * @return The map to serialize
+         * @throws ObjectStreamException Never
+         */
+        protected Object writeReplace() throws ObjectStreamException
+        {
+            return new LinkedHashMap<String, Object>(decoded());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.codec;
+
+import oracle.spatial.geometry.JGeometry;
+import oracle.spatial.util.ByteOrder;
+import oracle.spatial.util.GeometryExceptionWithContext;
+import oracle.spatial.util.WKB;
+
+/**
+ * Encodes and decodes Oracle JGeometry objects to/from WKB. The Oracle WKB converter keeps conversion state,
+ * so each thread gets its own (little endian) converter, which is then reused.
+ */
+public final class JGeometryCodec
+{
+    private static final ThreadLocal<WKB> WKB_CONVERTER = new ThreadLocal<WKB>()
+    {
+        protected WKB initialValue()
+        {
+            return new WKB(ByteOrder.LITTLE_ENDIAN);
+        }
+    };
+
+    private JGeometryCodec()
+    {
+    }
+
+    /**
+     * Parses a geometry from WKB.
+     * @param wkb The WKB
+     * @return The geometry
+     * @throws GeometryExceptionWithContext If the WKB is invalid
+     */
+    public static JGeometry readWkb(byte[] wkb) throws GeometryExceptionWithContext
+    {
+        return WKB_CONVERTER.get().toJGeometry(wkb);
+    }
+
+    /**
+     * Encodes a geometry as little endian WKB.
+     * @param geom The geometry
+     * @return The WKB
+     * @throws GeometryExceptionWithContext If the geometry cannot be represented as WKB
+     */
+    public static byte[] writeWkb(JGeometry geom) throws GeometryExceptionWithContext
+    {
+        return WKB_CONVERTER.get().fromJGeometry(geom);
+    }
+}
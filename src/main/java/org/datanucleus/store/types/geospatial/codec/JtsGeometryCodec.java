@@ -0,0 +1,608 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.io.ByteOrderValues;
+import com.vividsolutions.jts.io.InStream;
+import com.vividsolutions.jts.io.OutputStreamOutStream;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKBReader;
+import com.vividsolutions.jts.io.WKBWriter;
+import com.vividsolutions.jts.io.WKTReader;
+
+/**
+ * Encodes and decodes JTS geometries to/from WKT and (E)WKB. The JTS readers and writers are not thread-safe,
+ * so each thread gets its own instances, which are then reused for every value the thread handles. The
+ * output buffer is reused too, unless a value made it grow beyond {@link #MAX_RETAINED_BUFFER_SIZE}, in which
+ * case it is released so that one huge geometry doesn't stay pinned to the thread.
+ */
+public final class JtsGeometryCodec
+{
+    /** Maximum size of output buffer that is kept for reuse by a thread. */
+    public static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    /** Factory of the geometries read lazily, the same as the one used by the WKBReader. GeometryFactory is immutable. */
+    private static final GeometryFactory LAZY_FACTORY = new GeometryFactory();
+
+    private static final ThreadLocal<WKTReader> WKT_READER = new ThreadLocal<WKTReader>()
+    {
+        protected WKTReader initialValue()
+        {
+            return new WKTReader();
+        }
+    };
+
+    private static final ThreadLocal<WKBReader> WKB_READER = new ThreadLocal<WKBReader>()
+    {
+        protected WKBReader initialValue()
+        {
+            return new WKBReader();
+        }
+    };
+
+    private static final ThreadLocal<OffsetByteArrayInStream> IN_STREAM = new ThreadLocal<OffsetByteArrayInStream>()
+    {
+        protected OffsetByteArrayInStream initialValue()
+        {
+            return new OffsetByteArrayInStream();
+        }
+    };
+
+    private static final ThreadLocal<Encoder> ENCODER = new ThreadLocal<Encoder>()
+    {
+        protected Encoder initialValue()
+        {
+            return new Encoder();
+        }
+    };
+
+    private JtsGeometryCodec()
+    {
+    }
+
+    /**
+     * Parses a geometry from its WKT form.
+     * @param wkt The WKT
+     * @return The geometry
+     * @throws ParseException If the WKT is invalid
+     */
+    public static Geometry readWkt(String wkt) throws ParseException
+    {
+        return WKT_READER.get().read(wkt);
+    }
+
+    /**
+     * Parses a geometry from WKB or EWKB. Any SRID present in the EWKB is set on the geometry.
+     * @param wkb The (E)WKB
+     * @return The geometry
+     * @throws ParseException If the WKB is invalid
+     */
+    public static Geometry readWkb(byte[] wkb) throws ParseException
+    {
+        return WKB_READER.get().read(wkb);
+    }
+
+    /**
+     * Parses a geometry from WKB or EWKB starting at the given offset of the buffer, without copying it.
+     * This allows reading formats that prefix the WKB with a header, such as the MySQL internal format.
+     * @param buffer The buffer
+     * @param offset Offset of the (E)WKB in the buffer
+     * @return The geometry
+     * @throws ParseException If the WKB is invalid
+     */
+    public static Geometry readWkb(byte[] buffer, int offset) throws ParseException
+    {
+        OffsetByteArrayInStream in = IN_STREAM.get();
+        in.setBytes(buffer, offset);
+        try
+        {
+            return WKB_READER.get().read(in);
+        }
+        catch (IOException ioe)
+        {
+            throw new ParseException(ioe);
+        }
+        finally
+        {
+            in.setBytes(null, 0);
+        }
+    }
+
+    /**
+     * Parses the structure of a geometry from WKB or EWKB starting at the given offset of the buffer, leaving its points
+     * in the buffer. The points are read by {@link WkbCoordinateSequence}s, which decode their Coordinates only when
+     * these are requested, so the buffer is kept until then and must not be changed by the caller. The SRID and the
+     * envelope of the geometry are available without decoding any Coordinate.
+     * @param buffer The buffer
+     * @param offset Offset of the (E)WKB in the buffer
+     * @return The geometry
+     * @throws ParseException If the WKB is invalid
+     */
+    public static Geometry readWkbLazily(byte[] buffer, int offset) throws ParseException
+    {
+        LazyWkbParser parser = new LazyWkbParser(buffer, offset);
+        return parser.readGeometry();
+    }
+
+    /**
+     * Parses a geometry from WKB or EWKB read incrementally from a stream.
+     * @param in The stream
+     * @return The geometry
+     * @throws IOException If reading from the stream fails
+     * @throws ParseException If the WKB is invalid
+     */
+    public static Geometry readWkb(InputStream in) throws IOException, ParseException
+    {
+        return WKB_READER.get().read(new StreamInStream(in, -1));
+    }
+
+    /**
+     * Parses a geometry in the MySQL internal format (SRID as 4 byte integer followed by WKB) read
+     * incrementally from a stream. The SRID is read using the byte order of the WKB.
+     * @param in The stream
+     * @return The geometry, with its SRID set
+     * @throws IOException If reading from the stream fails
+     * @throws ParseException If the data is invalid
+     */
+    public static Geometry readSridPrefixedWkb(InputStream in) throws IOException, ParseException
+    {
+        byte[] header = new byte[5];
+        StreamInStream.readFully(in, header);
+        int byteOrder;
+        if (header[4] == 0)
+        {
+            byteOrder = ByteOrderValues.BIG_ENDIAN;
+        }
+        else if (header[4] == 1)
+        {
+            byteOrder = ByteOrderValues.LITTLE_ENDIAN;
+        }
+        else
+        {
+            throw new ParseException("Unknown WKB byte order flag: " + header[4]);
+        }
+
+        // The byte order flag has been consumed, so hand it back to the reader
+        Geometry geom = WKB_READER.get().read(new StreamInStream(in, header[4]));
+        geom.setSRID(ByteOrderValues.getInt(header, byteOrder));
+        return geom;
+    }
+
+    /**
+     * Parses a geometry from hex-encoded WKB or EWKB.
+     * @param hex The hex-encoded (E)WKB
+     * @return The geometry
+     * @throws ParseException If the WKB is invalid
+     */
+    public static Geometry readHexWkb(String hex) throws ParseException
+    {
+        return WKB_READER.get().read(WKBReader.hexToBytes(hex));
+    }
+
+    /**
+     * Encodes a geometry as WKB, or as EWKB when the SRID is included. The Z ordinate is written only when the
+     * geometry has one (see {@link #getOutputDimension(Geometry)}).
+     * @param geom The geometry
+     * @param byteOrder Byte order, one of the {@link ByteOrderValues} constants
+     * @param includeSRID Whether to write EWKB including the SRID of the geometry
+     * @return The encoded geometry
+     */
+    public static byte[] writeWkb(Geometry geom, int byteOrder, boolean includeSRID)
+    {
+        return writeWkb(geom, getOutputDimension(geom), byteOrder, includeSRID);
+    }
+
+    /**
+     * Encodes a geometry as WKB, or as EWKB when the SRID is included.
+     * @param geom The geometry
+     * @param outputDimension Number of ordinates to write (2 or 3)
+     * @param byteOrder Byte order, one of the {@link ByteOrderValues} constants
+     * @param includeSRID Whether to write EWKB including the SRID of the geometry
+     * @return The encoded geometry
+     */
+    public static byte[] writeWkb(Geometry geom, int outputDimension, int byteOrder, boolean includeSRID)
+    {
+        Encoder encoder = ENCODER.get();
+        try
+        {
+            encoder.getWriter(outputDimension, byteOrder, includeSRID).write(geom, encoder.outStream);
+            return encoder.buffer.toByteArray();
+        }
+        catch (IOException ioe)
+        {
+            // Cannot happen when writing to a ByteArrayOutputStream
+            throw new IllegalStateException(ioe);
+        }
+        finally
+        {
+            encoder.reset();
+        }
+    }
+
+    /**
+     * Encodes a geometry as WKB prefixed by its SRID as 4 byte integer, as used by the MySQL internal format.
+     * The SRID is written straight into the output buffer, using the same byte order as the WKB.
+     * @param geom The geometry
+     * @param outputDimension Number of ordinates to write (2 or 3)
+     * @param byteOrder Byte order, one of the {@link ByteOrderValues} constants
+     * @return The encoded geometry
+     */
+    public static byte[] writeSridPrefixedWkb(Geometry geom, int outputDimension, int byteOrder)
+    {
+        Encoder encoder = ENCODER.get();
+        try
+        {
+            ByteOrderValues.putInt(geom.getSRID(), encoder.sridBuffer, byteOrder);
+            encoder.outStream.write(encoder.sridBuffer, 4);
+            encoder.getWriter(outputDimension, byteOrder, false).write(geom, encoder.outStream);
+            return encoder.buffer.toByteArray();
+        }
+        catch (IOException ioe)
+        {
+            // Cannot happen when writing to a ByteArrayOutputStream
+            throw new IllegalStateException(ioe);
+        }
+        finally
+        {
+            encoder.reset();
+        }
+    }
+
+    /**
+     * Encodes a geometry in the MySQL internal format (SRID as 4 byte integer followed by WKB) straight to a
+     * stream, so that no array of the complete payload is needed.
+     * @param geom The geometry
+     * @param outputDimension Number of ordinates to write (2 or 3)
+     * @param byteOrder Byte order, one of the {@link ByteOrderValues} constants
+     * @param out The stream
+     * @throws IOException If writing to the stream fails
+     */
+    public static void writeSridPrefixedWkb(Geometry geom, int outputDimension, int byteOrder, OutputStream out) throws IOException
+    {
+        Encoder encoder = ENCODER.get();
+        OutputStreamOutStream outStream = new OutputStreamOutStream(out);
+        ByteOrderValues.putInt(geom.getSRID(), encoder.sridBuffer, byteOrder);
+        outStream.write(encoder.sridBuffer, 4);
+        encoder.getWriter(outputDimension, byteOrder, false).write(geom, outStream);
+    }
+
+    /**
+     * Encodes a geometry as WKB, or EWKB when the SRID is included, straight to a stream, so that no array of
+     * the complete payload is needed.
+     * @param geom The geometry
+     * @param outputDimension Number of ordinates to write (2 or 3)
+     * @param byteOrder Byte order, one of the {@link ByteOrderValues} constants
+     * @param includeSRID Whether to write EWKB including the SRID of the geometry
+     * @param out The stream
+     * @throws IOException If writing to the stream fails
+     */
+    public static void writeWkb(Geometry geom, int outputDimension, int byteOrder, boolean includeSRID, OutputStream out) throws IOException
+    {
+        ENCODER.get().getWriter(outputDimension, byteOrder, includeSRID).write(geom, new OutputStreamOutStream(out));
+    }
+
+    /**
+     * Estimates the size of the WKB of a geometry, from its number of points. Good enough to decide whether a
+     * geometry is large, without encoding it.
+     * @param geom The geometry
+     * @param outputDimension Number of ordinates written (2 or 3)
+     * @return The estimated size in bytes
+     */
+    public static long estimateWkbSize(Geometry geom, int outputDimension)
+    {
+        return 9L + (long) geom.getNumPoints() * outputDimension * 8;
+    }
+
+    /**
+     * Encodes a geometry as hex-encoded WKB, or EWKB when the SRID is included.
+     * @param geom The geometry
+     * @param byteOrder Byte order, one of the {@link ByteOrderValues} constants
+     * @param includeSRID Whether to write EWKB including the SRID of the geometry
+     * @return The hex-encoded geometry
+     */
+    public static String writeHexWkb(Geometry geom, int byteOrder, boolean includeSRID)
+    {
+        return WKBWriter.toHex(writeWkb(geom, byteOrder, includeSRID));
+    }
+
+    /**
+     * Accessor for the number of ordinates to write for the geometry. JTS coordinate sequences are 3D by
+     * default, so the Z ordinate is only written when the geometry actually has one.
+     * @param geom The geometry
+     * @return 3 if the geometry has a Z ordinate, otherwise 2
+     */
+    public static int getOutputDimension(Geometry geom)
+    {
+        Coordinate coord = geom.getCoordinate();
+        return (coord != null && !Double.isNaN(coord.z)) ? 3 : 2;
+    }
+
+    /**
+     * Parser of the structure of (E)WKB, creating geometries whose points stay in the buffer. Reads the same EWKB
+     * flags as the JTS WKBReader, and skips any measure ordinate, which JTS doesn't support.
+     */
+    private static class LazyWkbParser
+    {
+        private final byte[] buffer;
+
+        private int position;
+
+        LazyWkbParser(byte[] buffer, int offset)
+        {
+            this.buffer = buffer;
+            this.position = offset;
+        }
+
+        Geometry readGeometry() throws ParseException
+        {
+            int byteOrder = readByteOrder();
+            int typeInt = readInt(byteOrder);
+            int geometryType = typeInt & 0xff;
+            boolean hasZ = (typeInt & 0x80000000) != 0;
+            boolean hasM = (typeInt & 0x40000000) != 0;
+            int srid = ((typeInt & 0x20000000) != 0) ? readInt(byteOrder) : 0;
+            int dimension = hasZ ? 3 : 2;
+            int stride = dimension + (hasM ? 1 : 0);
+
+            Geometry geom;
+            switch (geometryType)
+            {
+                case 1 :
+                    geom = LAZY_FACTORY.createPoint(readSequence(1, dimension, stride, byteOrder));
+                    break;
+                case 2 :
+                    geom = LAZY_FACTORY.createLineString(readSequence(readInt(byteOrder), dimension, stride, byteOrder));
+                    break;
+                case 3 :
+                    geom = readPolygon(dimension, stride, byteOrder);
+                    break;
+                case 4 :
+                    geom = LAZY_FACTORY.createMultiPoint(GeometryFactory.toPointArray(readGeometries(byteOrder, Point.class)));
+                    break;
+                case 5 :
+                    geom = LAZY_FACTORY.createMultiLineString(GeometryFactory.toLineStringArray(readGeometries(byteOrder, LineString.class)));
+                    break;
+                case 6 :
+                    geom = LAZY_FACTORY.createMultiPolygon(GeometryFactory.toPolygonArray(readGeometries(byteOrder, Polygon.class)));
+                    break;
+                case 7 :
+                    geom = LAZY_FACTORY.createGeometryCollection(GeometryFactory.toGeometryArray(readGeometries(byteOrder, Geometry.class)));
+                    break;
+                default :
+                    throw new ParseException("Unknown WKB type " + geometryType);
+            }
+            geom.setSRID(srid);
+            return geom;
+        }
+
+        private Polygon readPolygon(int dimension, int stride, int byteOrder) throws ParseException
+        {
+            int numRings = readInt(byteOrder);
+            if (numRings == 0)
+            {
+                return LAZY_FACTORY.createPolygon((LinearRing) null, null);
+            }
+            LinearRing shell = LAZY_FACTORY.createLinearRing(readSequence(readInt(byteOrder), dimension, stride, byteOrder));
+            LinearRing[] holes = new LinearRing[numRings - 1];
+            for (int i = 0; i < holes.length; i++)
+            {
+                holes[i] = LAZY_FACTORY.createLinearRing(readSequence(readInt(byteOrder), dimension, stride, byteOrder));
+            }
+            return LAZY_FACTORY.createPolygon(shell, holes);
+        }
+
+        private List<Geometry> readGeometries(int byteOrder, Class<? extends Geometry> elementType) throws ParseException
+        {
+            int count = readInt(byteOrder);
+            if (count < 0)
+            {
+                throw new ParseException("Invalid number of WKB geometries: " + count);
+            }
+            List<Geometry> geoms = new ArrayList<Geometry>(Math.min(count, 1024));
+            for (int i = 0; i < count; i++)
+            {
+                Geometry geom = readGeometry();
+                if (!elementType.isInstance(geom))
+                {
+                    throw new ParseException("Invalid geometry type in collection: " + geom.getGeometryType());
+                }
+                geoms.add(geom);
+            }
+            return geoms;
+        }
+
+        private WkbCoordinateSequence readSequence(int size, int dimension, int stride, int byteOrder) throws ParseException
+        {
+            long length = (long) size * stride * 8;
+            if (size < 0 || position + length > buffer.length)
+            {
+                throw new ParseException("Unexpected end of WKB at position " + position);
+            }
+            WkbCoordinateSequence seq = new WkbCoordinateSequence(buffer, position, size, dimension, stride, byteOrder);
+            position += (int) length;
+            return seq;
+        }
+
+        private int readByteOrder() throws ParseException
+        {
+            checkAvailable(1);
+            byte flag = buffer[position++];
+            if (flag == 0)
+            {
+                return ByteOrderValues.BIG_ENDIAN;
+            }
+            else if (flag == 1)
+            {
+                return ByteOrderValues.LITTLE_ENDIAN;
+            }
+            throw new ParseException("Unknown WKB byte order flag: " + flag);
+        }
+
+        private int readInt(int byteOrder) throws ParseException
+        {
+            checkAvailable(4);
+            int b0 = buffer[position] & 0xff;
+            int b1 = buffer[position + 1] & 0xff;
+            int b2 = buffer[position + 2] & 0xff;
+            int b3 = buffer[position + 3] & 0xff;
+            position += 4;
+            if (byteOrder == ByteOrderValues.BIG_ENDIAN)
+            {
+                return (b0 << 24) | (b1 << 16) | (b2 << 8) | b3;
+            }
+            return (b3 << 24) | (b2 << 16) | (b1 << 8) | b0;
+        }
+
+        private void checkAvailable(int length) throws ParseException
+        {
+            if (position + length > buffer.length)
+            {
+                throw new ParseException("Unexpected end of WKB at position " + position);
+            }
+        }
+    }
+
+    /**
+     * InStream reading from a byte array starting at an offset. Unlike the JTS ByteArrayInStream it signals
+     * reads beyond the end of the array, rather than padding them with zeros.
+     */
+    private static class OffsetByteArrayInStream implements InStream
+    {
+        private byte[] buffer;
+
+        private int position;
+
+        void setBytes(byte[] buffer, int offset)
+        {
+            this.buffer = buffer;
+            this.position = offset;
+        }
+
+        public void read(byte[] buf) throws IOException
+        {
+            if (position + buf.length > buffer.length)
+            {
+                throw new IOException("Unexpected end of WKB at position " + position);
+            }
+            System.arraycopy(buffer, position, buf, 0, buf.length);
+            position += buf.length;
+        }
+    }
+
+    /**
+     * InStream reading from an InputStream. Unlike the JTS InputStreamInStream it keeps reading until the
+     * buffer is full, since a stream may return fewer bytes than requested. Optionally starts with one byte
+     * that was already consumed from the stream by the caller.
+     */
+    private static class StreamInStream implements InStream
+    {
+        private final InputStream in;
+
+        private int pending;
+
+        StreamInStream(InputStream in, int pending)
+        {
+            this.in = in;
+            this.pending = pending;
+        }
+
+        public void read(byte[] buf) throws IOException
+        {
+            int offset = 0;
+            if (pending >= 0 && buf.length > 0)
+            {
+                buf[0] = (byte) pending;
+                pending = -1;
+                offset = 1;
+            }
+            readFully(in, buf, offset);
+        }
+
+        static void readFully(InputStream in, byte[] buf) throws IOException
+        {
+            readFully(in, buf, 0);
+        }
+
+        static void readFully(InputStream in, byte[] buf, int offset) throws IOException
+        {
+            while (offset < buf.length)
+            {
+                int count = in.read(buf, offset, buf.length - offset);
+                if (count < 0)
+                {
+                    throw new EOFException("Unexpected end of WKB stream");
+                }
+                offset += count;
+            }
+        }
+    }
+
+    /**
+     * Thread-confined set of WKB writers, one per output configuration, sharing one output buffer.
+     */
+    private static class Encoder
+    {
+        final WKBWriter[] writers = new WKBWriter[8];
+
+        final byte[] sridBuffer = new byte[4];
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+
+        OutputStreamOutStream outStream = new OutputStreamOutStream(buffer);
+
+        WKBWriter getWriter(int dimension, int byteOrder, boolean includeSRID)
+        {
+            int index = (dimension == 3 ? 4 : 0) + (byteOrder == ByteOrderValues.LITTLE_ENDIAN ? 2 : 0) + (includeSRID ? 1 : 0);
+            WKBWriter writer = writers[index];
+            if (writer == null)
+            {
+                writer = new WKBWriter(dimension, byteOrder, includeSRID);
+                writers[index] = writer;
+            }
+            return writer;
+        }
+
+        void reset()
+        {
+            if (buffer.size() > MAX_RETAINED_BUFFER_SIZE)
+            {
+                buffer = new ByteArrayOutputStream(256);
+                outStream = new OutputStreamOutStream(buffer);
+            }
+            else
+            {
+                buffer.reset();
+            }
+        }
+    }
+}
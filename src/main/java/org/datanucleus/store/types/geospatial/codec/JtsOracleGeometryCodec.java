@@ -0,0 +1,520 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.codec;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import oracle.jdbc.OracleConnection;
+import oracle.sql.ARRAY;
+import oracle.sql.Datum;
+import oracle.sql.NUMBER;
+import oracle.sql.STRUCT;
+
+import com.vividsolutions.jts.algorithm.CGAlgorithms;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryCollection;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.MultiLineString;
+import com.vividsolutions.jts.geom.MultiPoint;
+import com.vividsolutions.jts.geom.MultiPolygon;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.io.oracle.OraReader;
+
+/**
+ * Encodes and decodes JTS geometries to/from Oracle SDO_GEOMETRY structs. Structs are decoded straight from
+ * the primitive SDO_ELEM_INFO and SDO_ORDINATES arrays into coordinate sequences. Geometries using elements JTS
+ * has no equivalent for (arcs, circles, compound elements) and LRS geometries are handed to the JTS Oracle reader,
+ * which linearises them. Structs are encoded using the type descriptors cached on the connection (see
+ * {@link SdoGeometryDescriptors}), with exterior rings counterclockwise and interior rings clockwise as Oracle
+ * requires.
+ */
+public final class JtsOracleGeometryCodec
+{
+    private static final int ETYPE_POINT = 1;
+
+    private static final int ETYPE_LINE = 2;
+
+    private static final int ETYPE_EXTERIOR_RING = 1003;
+
+    private static final int ETYPE_INTERIOR_RING = 2003;
+
+    private static final int INTERPRETATION_LINEAR = 1;
+
+    private static final int INTERPRETATION_RECTANGLE = 3;
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    private static final ThreadLocal<OraReader> READER = new ThreadLocal<OraReader>()
+    {
+        protected OraReader initialValue()
+        {
+            return new OraReader();
+        }
+    };
+
+    private JtsOracleGeometryCodec()
+    {
+    }
+
+    /**
+     * Decodes a SDO_GEOMETRY struct.
+     * @param struct The struct
+     * @return The geometry
+     * @throws SQLException If the struct cannot be read
+     */
+    public static Geometry read(STRUCT struct) throws SQLException
+    {
+        Datum[] attributes = struct.getOracleAttributes();
+        if (attributes[0] == null)
+        {
+            return READER.get().read(struct);
+        }
+
+        int gtype = ((NUMBER) attributes[0]).intValue();
+        int dimension = gtype / 1000;
+        int lrsDimension = (gtype % 1000) / 100;
+        if (dimension < 2 || dimension > 3 || lrsDimension != 0)
+        {
+            return READER.get().read(struct);
+        }
+
+        Geometry geom;
+        if (attributes[3] == null || attributes[4] == null)
+        {
+            geom = attributes[2] != null ? readPoint((STRUCT) attributes[2], dimension) : null;
+        }
+        else
+        {
+            int[] elemInfo = ((ARRAY) attributes[3]).getIntArray();
+            double[] ordinates = ((ARRAY) attributes[4]).getDoubleArray();
+            geom = decode(gtype % 100, dimension, elemInfo, ordinates);
+        }
+
+        if (geom == null)
+        {
+            return READER.get().read(struct);
+        }
+        if (attributes[1] != null)
+        {
+            geom.setSRID(((NUMBER) attributes[1]).intValue());
+        }
+        return geom;
+    }
+
+    /**
+     * Encodes a geometry as SDO_GEOMETRY struct.
+     * @param geom The geometry
+     * @param conn The connection the struct is to be used with
+     * @return The struct, or null if the geometry is empty (Oracle has no empty geometries)
+     * @throws SQLException If the struct cannot be created
+     */
+    public static STRUCT write(Geometry geom, OracleConnection conn) throws SQLException
+    {
+        if (geom == null || geom.isEmpty())
+        {
+            return null;
+        }
+
+        SdoGeometryDescriptors descriptors = SdoGeometryDescriptors.getDescriptors(conn);
+        int dimension = JtsGeometryCodec.getOutputDimension(geom);
+        Integer gtype = Integer.valueOf(dimension * 1000 + getGeometryType(geom));
+        Integer srid = Integer.valueOf(geom.getSRID());
+
+        if (geom instanceof Point)
+        {
+            // Single points go into SDO_POINT, which is what Oracle itself does
+            Coordinate coord = geom.getCoordinate();
+            Object[] pointAttributes = new Object[] {Double.valueOf(coord.x), Double.valueOf(coord.y),
+                    dimension == 3 ? Double.valueOf(coord.z) : null};
+            STRUCT point = new STRUCT(descriptors.getPointDescriptor(), conn, pointAttributes);
+            return new STRUCT(descriptors.getGeometryDescriptor(), conn, new Object[] {gtype, srid, point, null, null});
+        }
+
+        Encoder encoder = encode(geom, dimension);
+        ARRAY elemInfo = new ARRAY(descriptors.getElemInfoDescriptor(), conn, encoder.elemInfo);
+        ARRAY ordinates = new ARRAY(descriptors.getOrdinatesDescriptor(), conn, encoder.ordinates);
+        return new STRUCT(descriptors.getGeometryDescriptor(), conn, new Object[] {gtype, srid, null, elemInfo, ordinates});
+    }
+
+    /**
+     * Encodes the elements and ordinates of a (non empty) geometry.
+     * @param geom The geometry
+     * @param dimension Number of ordinates per coordinate
+     * @return The encoder holding the SDO_ELEM_INFO and SDO_ORDINATES arrays
+     */
+    static Encoder encode(Geometry geom, int dimension)
+    {
+        Encoder encoder = new Encoder(dimension, countElements(geom), geom.getNumPoints());
+        encoder.encode(geom);
+        return encoder;
+    }
+
+    /**
+     * Decodes the elements of a geometry.
+     * @param type Geometry type, i.e the last two digits of SDO_GTYPE
+     * @param dimension Number of ordinates per coordinate
+     * @param elemInfo The SDO_ELEM_INFO array
+     * @param ordinates The SDO_ORDINATES array
+     * @return The geometry, or null if it uses elements that are not supported here
+     */
+    static Geometry decode(int type, int dimension, int[] elemInfo, double[] ordinates)
+    {
+        List<Geometry> parts = new ArrayList<Geometry>();
+        int elements = elemInfo.length / 3;
+        int i = 0;
+        while (i < elements)
+        {
+            int start = elemInfo[i * 3] - 1;
+            int etype = elemInfo[i * 3 + 1];
+            int interpretation = elemInfo[i * 3 + 2];
+            int end = getElementEnd(elemInfo, ordinates, i);
+            i++;
+
+            if (etype == ETYPE_POINT)
+            {
+                // Interpretation 0 is an orientation point, which has no JTS equivalent
+                if (interpretation > 0)
+                {
+                    // Either a single point, or a cluster of points
+                    for (int offset = start; offset < end; offset += dimension)
+                    {
+                        parts.add(FACTORY.createPoint(toSequence(ordinates, offset, offset + dimension, dimension)));
+                    }
+                }
+            }
+            else if (etype == ETYPE_LINE && interpretation == INTERPRETATION_LINEAR)
+            {
+                parts.add(FACTORY.createLineString(toSequence(ordinates, start, end, dimension)));
+            }
+            else if (etype == ETYPE_EXTERIOR_RING)
+            {
+                LinearRing shell = toRing(ordinates, start, end, dimension, interpretation, true);
+                if (shell == null)
+                {
+                    return null;
+                }
+
+                List<LinearRing> holes = new ArrayList<LinearRing>();
+                while (i < elements && elemInfo[i * 3 + 1] == ETYPE_INTERIOR_RING)
+                {
+                    LinearRing hole = toRing(ordinates, elemInfo[i * 3] - 1, getElementEnd(elemInfo, ordinates, i), dimension,
+                        elemInfo[i * 3 + 2], false);
+                    if (hole == null)
+                    {
+                        return null;
+                    }
+                    holes.add(hole);
+                    i++;
+                }
+                parts.add(FACTORY.createPolygon(shell, holes.toArray(new LinearRing[holes.size()])));
+            }
+            else
+            {
+                // Arcs, circles, compound elements and unknown element types
+                return null;
+            }
+        }
+
+        return assemble(type, parts);
+    }
+
+    private static Geometry assemble(int type, List<Geometry> parts)
+    {
+        switch (type)
+        {
+            case 1 :
+            case 2 :
+            case 3 :
+                if (parts.size() == 1 && getGeometryType(parts.get(0)) == type)
+                {
+                    return parts.get(0);
+                }
+                return null;
+            case 4 :
+                return FACTORY.createGeometryCollection(parts.toArray(new Geometry[parts.size()]));
+            case 5 :
+                Point[] points = new Point[parts.size()];
+                for (int i = 0; i < points.length; i++)
+                {
+                    if (!(parts.get(i) instanceof Point))
+                    {
+                        return null;
+                    }
+                    points[i] = (Point) parts.get(i);
+                }
+                return FACTORY.createMultiPoint(points);
+            case 6 :
+                LineString[] lineStrings = new LineString[parts.size()];
+                for (int i = 0; i < lineStrings.length; i++)
+                {
+                    if (!(parts.get(i) instanceof LineString))
+                    {
+                        return null;
+                    }
+                    lineStrings[i] = (LineString) parts.get(i);
+                }
+                return FACTORY.createMultiLineString(lineStrings);
+            case 7 :
+                Polygon[] polygons = new Polygon[parts.size()];
+                for (int i = 0; i < polygons.length; i++)
+                {
+                    if (!(parts.get(i) instanceof Polygon))
+                    {
+                        return null;
+                    }
+                    polygons[i] = (Polygon) parts.get(i);
+                }
+                return FACTORY.createMultiPolygon(polygons);
+            default :
+                return null;
+        }
+    }
+
+    private static int getElementEnd(int[] elemInfo, double[] ordinates, int element)
+    {
+        int next = (element + 1) * 3;
+        return next < elemInfo.length ? elemInfo[next] - 1 : ordinates.length;
+    }
+
+    private static LinearRing toRing(double[] ordinates, int start, int end, int dimension, int interpretation, boolean exterior)
+    {
+        if (interpretation == INTERPRETATION_LINEAR)
+        {
+            return FACTORY.createLinearRing(toSequence(ordinates, start, end, dimension));
+        }
+        else if (interpretation == INTERPRETATION_RECTANGLE && dimension == 2 && end - start == 4)
+        {
+            // Rectangle given by its lower left and upper right corner
+            double minX = ordinates[start];
+            double minY = ordinates[start + 1];
+            double maxX = ordinates[start + 2];
+            double maxY = ordinates[start + 3];
+            double[] ring;
+            if (exterior)
+            {
+                ring = new double[] {minX, minY, maxX, minY, maxX, maxY, minX, maxY, minX, minY};
+            }
+            else
+            {
+                ring = new double[] {minX, minY, minX, maxY, maxX, maxY, maxX, minY, minX, minY};
+            }
+            return FACTORY.createLinearRing(toSequence(ring, 0, ring.length, 2));
+        }
+        return null;
+    }
+
+    private static CoordinateSequence toSequence(double[] ordinates, int start, int end, int dimension)
+    {
+        int size = (end - start) / dimension;
+        CoordinateSequence seq = FACTORY.getCoordinateSequenceFactory().create(size, dimension);
+        int offset = start;
+        for (int i = 0; i < size; i++)
+        {
+            seq.setOrdinate(i, CoordinateSequence.X, ordinates[offset]);
+            seq.setOrdinate(i, CoordinateSequence.Y, ordinates[offset + 1]);
+            if (dimension == 3)
+            {
+                seq.setOrdinate(i, CoordinateSequence.Z, ordinates[offset + 2]);
+            }
+            offset += dimension;
+        }
+        return seq;
+    }
+
+    private static Geometry readPoint(STRUCT point, int dimension) throws SQLException
+    {
+        Datum[] attributes = point.getOracleAttributes();
+        if (attributes[0] == null || attributes[1] == null)
+        {
+            return null;
+        }
+
+        double z = (dimension == 3 && attributes[2] != null) ? ((NUMBER) attributes[2]).doubleValue() : Double.NaN;
+        return FACTORY.createPoint(new Coordinate(((NUMBER) attributes[0]).doubleValue(), ((NUMBER) attributes[1]).doubleValue(), z));
+    }
+
+    /**
+     * Accessor for the SDO geometry type of a geometry, i.e the last two digits of SDO_GTYPE.
+     * @param geom The geometry
+     * @return The geometry type
+     */
+    private static int getGeometryType(Geometry geom)
+    {
+        if (geom instanceof Point)
+        {
+            return 1;
+        }
+        else if (geom instanceof LineString)
+        {
+            return 2;
+        }
+        else if (geom instanceof Polygon)
+        {
+            return 3;
+        }
+        else if (geom instanceof MultiPoint)
+        {
+            return 5;
+        }
+        else if (geom instanceof MultiLineString)
+        {
+            return 6;
+        }
+        else if (geom instanceof MultiPolygon)
+        {
+            return 7;
+        }
+        return 4;
+    }
+
+    /**
+     * Counts the SDO elements needed for a geometry. Points of a MultiPoint are written as one point cluster.
+     * @param geom The geometry
+     * @return The number of elements
+     */
+    private static int countElements(Geometry geom)
+    {
+        if (geom.isEmpty())
+        {
+            return 0;
+        }
+        else if (geom instanceof Polygon)
+        {
+            return 1 + ((Polygon) geom).getNumInteriorRing();
+        }
+        else if (geom instanceof GeometryCollection && !(geom instanceof MultiPoint))
+        {
+            int count = 0;
+            for (int i = 0; i < geom.getNumGeometries(); i++)
+            {
+                count += countElements(geom.getGeometryN(i));
+            }
+            return count;
+        }
+        return 1;
+    }
+
+    /**
+     * Writes the elements and ordinates of a geometry into preallocated SDO_ELEM_INFO and SDO_ORDINATES arrays.
+     */
+    static class Encoder
+    {
+        final int dimension;
+
+        final int[] elemInfo;
+
+        final double[] ordinates;
+
+        int elemInfoPosition = 0;
+
+        int ordinatesPosition = 0;
+
+        Encoder(int dimension, int elements, int coordinates)
+        {
+            this.dimension = dimension;
+            this.elemInfo = new int[elements * 3];
+            this.ordinates = new double[coordinates * dimension];
+        }
+
+        void encode(Geometry geom)
+        {
+            if (geom.isEmpty())
+            {
+                return;
+            }
+
+            if (geom instanceof Point)
+            {
+                addElement(ETYPE_POINT, 1);
+                addCoordinates(((Point) geom).getCoordinateSequence(), false);
+            }
+            else if (geom instanceof LineString)
+            {
+                addElement(ETYPE_LINE, INTERPRETATION_LINEAR);
+                addCoordinates(((LineString) geom).getCoordinateSequence(), false);
+            }
+            else if (geom instanceof Polygon)
+            {
+                Polygon polygon = (Polygon) geom;
+                addElement(ETYPE_EXTERIOR_RING, INTERPRETATION_LINEAR);
+                addRing(polygon.getExteriorRing(), true);
+                for (int i = 0; i < polygon.getNumInteriorRing(); i++)
+                {
+                    addElement(ETYPE_INTERIOR_RING, INTERPRETATION_LINEAR);
+                    addRing(polygon.getInteriorRingN(i), false);
+                }
+            }
+            else if (geom instanceof MultiPoint)
+            {
+                int points = 0;
+                for (int i = 0; i < geom.getNumGeometries(); i++)
+                {
+                    points += geom.getGeometryN(i).isEmpty() ? 0 : 1;
+                }
+                addElement(ETYPE_POINT, points);
+                for (int i = 0; i < geom.getNumGeometries(); i++)
+                {
+                    addCoordinates(((Point) geom.getGeometryN(i)).getCoordinateSequence(), false);
+                }
+            }
+            else
+            {
+                for (int i = 0; i < geom.getNumGeometries(); i++)
+                {
+                    encode(geom.getGeometryN(i));
+                }
+            }
+        }
+
+        private void addElement(int etype, int interpretation)
+        {
+            elemInfo[elemInfoPosition++] = ordinatesPosition + 1;
+            elemInfo[elemInfoPosition++] = etype;
+            elemInfo[elemInfoPosition++] = interpretation;
+        }
+
+        private void addRing(LineString ring, boolean counterClockwise)
+        {
+            CoordinateSequence seq = ring.getCoordinateSequence();
+            boolean reverse = seq.size() >= 4 && CGAlgorithms.isCCW(seq.toCoordinateArray()) != counterClockwise;
+            addCoordinates(seq, reverse);
+        }
+
+        private void addCoordinates(CoordinateSequence seq, boolean reverse)
+        {
+            int size = seq.size();
+            for (int i = 0; i < size; i++)
+            {
+                int index = reverse ? size - 1 - i : i;
+                ordinates[ordinatesPosition++] = seq.getX(index);
+                ordinates[ordinatesPosition++] = seq.getY(index);
+                if (dimension == 3)
+                {
+                    ordinates[ordinatesPosition++] = seq.getOrdinate(index, CoordinateSequence.Z);
+                }
+            }
+        }
+    }
+}
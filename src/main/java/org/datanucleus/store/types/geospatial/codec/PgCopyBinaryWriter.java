@@ -0,0 +1,138 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.codec;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes rows in the binary format of PostgreSQL's <code>COPY ... FROM STDIN (FORMAT binary)</code>. Each row is started
+ * with {@link #startRow(int)} and followed by one write per field, in the binary form of the type of the target column
+ * (e.g {@link #writeInt4(int)} for an integer column). Geometry columns take EWKB, which is the binary form of the PostGIS
+ * geometry type. The stream is completed with {@link #finish()}.
+ * All values are written in network byte order.
+ */
+public class PgCopyBinaryWriter
+{
+    /** Signature starting the binary COPY format. */
+    private static final byte[] SIGNATURE = new byte[] {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0};
+
+    private final DataOutputStream out;
+
+    /**
+     * Constructor, writing the header of the format.
+     * @param out The stream to write to
+     * @throws IOException If the header cannot be written
+     */
+    public PgCopyBinaryWriter(OutputStream out) throws IOException
+    {
+        this.out = new DataOutputStream(out);
+        this.out.write(SIGNATURE);
+        this.out.writeInt(0); // Flags
+        this.out.writeInt(0); // Length of the header extension
+    }
+
+    /**
+     * Starts a row.
+     * @param fieldCount Number of fields of the row
+     * @throws IOException If the row cannot be written
+     */
+    public void startRow(int fieldCount) throws IOException
+    {
+        out.writeShort(fieldCount);
+    }
+
+    public void writeNull() throws IOException
+    {
+        out.writeInt(-1);
+    }
+
+    public void writeBool(boolean value) throws IOException
+    {
+        out.writeInt(1);
+        out.writeByte(value ? 1 : 0);
+    }
+
+    public void writeInt2(short value) throws IOException
+    {
+        out.writeInt(2);
+        out.writeShort(value);
+    }
+
+    public void writeInt4(int value) throws IOException
+    {
+        out.writeInt(4);
+        out.writeInt(value);
+    }
+
+    public void writeInt8(long value) throws IOException
+    {
+        out.writeInt(8);
+        out.writeLong(value);
+    }
+
+    public void writeFloat4(float value) throws IOException
+    {
+        out.writeInt(4);
+        out.writeFloat(value);
+    }
+
+    public void writeFloat8(double value) throws IOException
+    {
+        out.writeInt(8);
+        out.writeDouble(value);
+    }
+
+    /**
+     * Writes a value of a text column (text, varchar or char), encoded as UTF-8, the encoding of the connection.
+     * @param value The value, or <code>null</code>
+     * @throws IOException If the value cannot be written
+     */
+    public void writeText(String value) throws IOException
+    {
+        writeBytes(value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes a value in its binary form as is, e.g of a bytea column or EWKB of a geometry column.
+     * @param value The value, or <code>null</code>
+     * @throws IOException If the value cannot be written
+     */
+    public void writeBytes(byte[] value) throws IOException
+    {
+        if (value == null)
+        {
+            writeNull();
+            return;
+        }
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    /**
+     * Writes the trailer of the format and flushes the stream. The stream is not closed.
+     * @throws IOException If the trailer cannot be written
+     */
+    public void finish() throws IOException
+    {
+        out.writeShort(-1);
+        out.flush();
+    }
+}
@@ -0,0 +1,204 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.codec;
+
+import org.postgis.Geometry;
+import org.postgis.binary.BinaryParser;
+import org.postgis.binary.BinaryWriter;
+import org.postgis.binary.ByteGetter;
+import org.postgis.binary.ByteSetter;
+
+/**
+ * Encodes and decodes PostGIS-JDBC geometries to/from (E)WKB. The postgis-jdbc parser serialises all callers
+ * on one instance, so each thread gets its own parser and writer, which are then reused.
+ * WKB can also be read from, and written to, an offset within a buffer, so that formats which prefix the WKB
+ * with a header (such as the MySQL internal format) are handled without copying the payload.
+ */
+public final class PostGISGeometryCodec
+{
+    private static final ThreadLocal<OffsetBinaryParser> PARSER = new ThreadLocal<OffsetBinaryParser>()
+    {
+        protected OffsetBinaryParser initialValue()
+        {
+            return new OffsetBinaryParser();
+        }
+    };
+
+    private static final ThreadLocal<OffsetBinaryWriter> WRITER = new ThreadLocal<OffsetBinaryWriter>()
+    {
+        protected OffsetBinaryWriter initialValue()
+        {
+            return new OffsetBinaryWriter();
+        }
+    };
+
+    private PostGISGeometryCodec()
+    {
+    }
+
+    /**
+     * Parses a geometry from WKB or EWKB.
+     * @param wkb The (E)WKB
+     * @return The geometry
+     */
+    public static Geometry parse(byte[] wkb)
+    {
+        return PARSER.get().parse(wkb);
+    }
+
+    /**
+     * Parses a geometry from WKB or EWKB starting at the given offset of the buffer, without copying it.
+     * @param buffer The buffer
+     * @param offset Offset of the (E)WKB in the buffer
+     * @return The geometry
+     */
+    public static Geometry parse(byte[] buffer, int offset)
+    {
+        return PARSER.get().parse(buffer, offset);
+    }
+
+    /**
+     * Parses a geometry from hex-encoded WKB or EWKB.
+     * @param hex The hex-encoded (E)WKB
+     * @return The geometry
+     */
+    public static Geometry parse(String hex)
+    {
+        return PARSER.get().parse(hex);
+    }
+
+    /**
+     * Encodes a geometry as hex-encoded EWKB, in NDR byte order.
+     * @param geom The geometry
+     * @return The hex-encoded EWKB
+     */
+    public static String writeHexed(Geometry geom)
+    {
+        return WRITER.get().writeHexed(geom);
+    }
+
+    /**
+     * Encodes a geometry as EWKB.
+     * @param geom The geometry
+     * @param endian Byte order, either ValueSetter.NDR.NUMBER or ValueSetter.XDR.NUMBER
+     * @return The EWKB
+     */
+    public static byte[] writeBinary(Geometry geom, byte endian)
+    {
+        return WRITER.get().writeBinary(geom, endian);
+    }
+
+    /**
+     * Encodes a geometry as plain WKB, i.e without its SRID. BinaryWriter always writes the SRID when one is
+     * set, so it is cleared for the duration of the call and restored afterwards.
+     * @param geom The geometry
+     * @param endian Byte order, either ValueSetter.NDR.NUMBER or ValueSetter.XDR.NUMBER
+     * @return The WKB
+     */
+    public static byte[] writeBinaryWithoutSrid(Geometry geom, byte endian)
+    {
+        return writeBinaryWithoutSrid(geom, endian, 0);
+    }
+
+    /**
+     * Encodes a geometry as plain WKB, i.e without its SRID, starting at the given offset of the returned
+     * buffer. The bytes before the offset are left for the caller to fill in, e.g with a header.
+     * @param geom The geometry
+     * @param endian Byte order, either ValueSetter.NDR.NUMBER or ValueSetter.XDR.NUMBER
+     * @param offset Number of bytes to reserve before the WKB
+     * @return The buffer holding the WKB from the offset onwards
+     */
+    public static byte[] writeBinaryWithoutSrid(Geometry geom, byte endian, int offset)
+    {
+        int srid = geom.getSrid();
+        if (0 < srid || (0 == srid && 2 > org.postgis.Version.MAJOR))
+        {
+            // postgis-jdbc 2 onwards uses 0 as UNKNOWN_SRID, older versions used -1
+            geom.srid = (1 < org.postgis.Version.MAJOR) ? 0 : -1;
+            try
+            {
+                return WRITER.get().writeBinary(geom, endian, offset);
+            }
+            finally
+            {
+                geom.srid = srid;
+            }
+        }
+        return WRITER.get().writeBinary(geom, endian, offset);
+    }
+
+    /**
+     * BinaryParser that can start parsing at an offset within a buffer.
+     */
+    private static class OffsetBinaryParser extends BinaryParser
+    {
+        Geometry parse(byte[] buffer, int offset)
+        {
+            return parseGeometry(valueGetterForEndian(new OffsetByteGetter(buffer, offset)));
+        }
+    }
+
+    /**
+     * BinaryWriter that can start writing at an offset within the buffer it creates.
+     */
+    private static class OffsetBinaryWriter extends BinaryWriter
+    {
+        byte[] writeBinary(Geometry geom, byte endian, int offset)
+        {
+            byte[] buffer = new byte[offset + estimateBytes(geom)];
+            writeGeometry(geom, valueSetterForEndian(new OffsetByteSetter(buffer, offset), endian));
+            return buffer;
+        }
+    }
+
+    private static class OffsetByteGetter extends ByteGetter
+    {
+        private final byte[] buffer;
+
+        private final int offset;
+
+        OffsetByteGetter(byte[] buffer, int offset)
+        {
+            this.buffer = buffer;
+            this.offset = offset;
+        }
+
+        public int get(int index)
+        {
+            return buffer[offset + index] & 0xFF;
+        }
+    }
+
+    private static class OffsetByteSetter extends ByteSetter
+    {
+        private final byte[] buffer;
+
+        private final int offset;
+
+        OffsetByteSetter(byte[] buffer, int offset)
+        {
+            this.buffer = buffer;
+            this.offset = offset;
+        }
+
+        public void set(byte b, int index)
+        {
+            buffer[offset + index] = b;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.codec;
+
+import java.sql.SQLException;
+
+import oracle.jdbc.OracleConnection;
+import oracle.spatial.geometry.JGeometry;
+import oracle.sql.ArrayDescriptor;
+import oracle.sql.StructDescriptor;
+
+/**
+ * Type descriptors of the Oracle SDO_GEOMETRY object type and its attribute types, as needed to create
+ * SDO_GEOMETRY structs. Looking up a descriptor by name involves parsing the name and may involve a round trip to
+ * the database, so the descriptors are looked up once per physical connection and cached on that connection.
+ * Caching them on the connection itself (rather than in a weak map keyed by the connection) ties their lifetime
+ * to that of the connection, which the descriptors reference.
+ */
+public final class SdoGeometryDescriptors
+{
+    public static final String SDO_GEOMETRY = "MDSYS.SDO_GEOMETRY";
+
+    public static final String SDO_POINT_TYPE = "MDSYS.SDO_POINT_TYPE";
+
+    public static final String SDO_ELEM_INFO_ARRAY = "MDSYS.SDO_ELEM_INFO_ARRAY";
+
+    public static final String SDO_ORDINATE_ARRAY = "MDSYS.SDO_ORDINATE_ARRAY";
+
+    /** Key of the descriptors in the descriptor cache of the connection. Not a valid SQL name, so never clashes. */
+    private static final String CACHE_KEY = SdoGeometryDescriptors.class.getName();
+
+    /** Key of the descriptors used by JGeometry in the descriptor cache of the connection. */
+    private static final String JGEOMETRY_CACHE_KEY = CACHE_KEY + "#JGeometry";
+
+    private final StructDescriptor geometryDescriptor;
+
+    private final StructDescriptor pointDescriptor;
+
+    private final ArrayDescriptor elemInfoDescriptor;
+
+    private final ArrayDescriptor ordinatesDescriptor;
+
+    private SdoGeometryDescriptors(OracleConnection conn) throws SQLException
+    {
+        geometryDescriptor = StructDescriptor.createDescriptor(SDO_GEOMETRY, conn);
+        pointDescriptor = StructDescriptor.createDescriptor(SDO_POINT_TYPE, conn);
+        elemInfoDescriptor = ArrayDescriptor.createDescriptor(SDO_ELEM_INFO_ARRAY, conn);
+        ordinatesDescriptor = ArrayDescriptor.createDescriptor(SDO_ORDINATE_ARRAY, conn);
+    }
+
+    /**
+     * Accessor for the descriptors of the given connection, looking them up on first use.
+     * @param conn The connection
+     * @return The descriptors
+     * @throws SQLException If the descriptors cannot be looked up
+     */
+    public static SdoGeometryDescriptors getDescriptors(OracleConnection conn) throws SQLException
+    {
+        Object cached = conn.getDescriptor(CACHE_KEY);
+        if (cached instanceof SdoGeometryDescriptors)
+        {
+            return (SdoGeometryDescriptors) cached;
+        }
+
+        // Concurrent lookups on the same connection are harmless, the last one is kept
+        SdoGeometryDescriptors descriptors = new SdoGeometryDescriptors(conn);
+        conn.putDescriptor(CACHE_KEY, descriptors);
+        return descriptors;
+    }
+
+    /**
+     * Accessor for the descriptors used by {@link JGeometry#store(JGeometry, java.sql.Connection, Object[])} for
+     * the given connection, looking them up on first use.
+     * @param conn The connection
+     * @return The descriptors
+     * @throws SQLException If the descriptors cannot be looked up
+     */
+    public static Object[] getJGeometryDescriptors(OracleConnection conn) throws SQLException
+    {
+        Object cached = conn.getDescriptor(JGEOMETRY_CACHE_KEY);
+        if (cached instanceof Object[])
+        {
+            return (Object[]) cached;
+        }
+
+        Object[] descriptors = JGeometry.getOracleDescriptors(conn);
+        conn.putDescriptor(JGEOMETRY_CACHE_KEY, descriptors);
+        return descriptors;
+    }
+
+    public StructDescriptor getGeometryDescriptor()
+    {
+        return geometryDescriptor;
+    }
+
+    public StructDescriptor getPointDescriptor()
+    {
+        return pointDescriptor;
+    }
+
+    public ArrayDescriptor getElemInfoDescriptor()
+    {
+        return elemInfoDescriptor;
+    }
+
+    public ArrayDescriptor getOrdinatesDescriptor()
+    {
+        return ordinatesDescriptor;
+    }
+}
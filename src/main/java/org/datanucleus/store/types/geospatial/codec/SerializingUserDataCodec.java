@@ -0,0 +1,71 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * UserDataCodec using Java serialization, which writes the same bytes as the default user data column of
+ * serialised objects, so it can read existing user data.
+ */
+public class SerializingUserDataCodec implements UserDataCodec
+{
+    public byte[] encode(Object userData)
+    {
+        try
+        {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ObjectOutputStream oos = new ObjectOutputStream(baos);
+            oos.writeObject(userData);
+            oos.close();
+            return baos.toByteArray();
+        }
+        catch (IOException ioe)
+        {
+            throw new IllegalArgumentException("User data cannot be serialized : " + userData.getClass().getName(), ioe);
+        }
+    }
+
+    public Object decode(byte[] bytes)
+    {
+        try
+        {
+            ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes));
+            try
+            {
+                return ois.readObject();
+            }
+            finally
+            {
+                ois.close();
+            }
+        }
+        catch (IOException ioe)
+        {
+            throw new IllegalArgumentException("User data cannot be deserialized", ioe);
+        }
+        catch (ClassNotFoundException cnfe)
+        {
+            throw new IllegalArgumentException("User data cannot be deserialized", cnfe);
+        }
+    }
+}
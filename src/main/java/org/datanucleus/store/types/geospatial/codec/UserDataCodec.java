@@ -0,0 +1,40 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.codec;
+
+/**
+ * Codec for the user data of geometries, as stored in the user data column of a geometry field. Implementations
+ * must be thread-safe and have a public no-arg constructor, since one instance is shared by all values of a field.
+ * Both methods may throw IllegalArgumentException when the value cannot be encoded or decoded.
+ */
+public interface UserDataCodec
+{
+    /**
+     * Encodes user data.
+     * @param userData The user data, not null
+     * @return The encoded user data
+     */
+    byte[] encode(Object userData);
+
+    /**
+     * Decodes user data encoded by {@link #encode(Object)}.
+     * @param bytes The encoded user data
+     * @return The user data
+     */
+    Object decode(byte[] bytes);
+}
@@ -0,0 +1,229 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.codec;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.impl.CoordinateArraySequence;
+import com.vividsolutions.jts.io.ByteOrderValues;
+
+/**
+ * CoordinateSequence reading its points straight from a WKB buffer. Single ordinates (and so the envelope) are read
+ * from the buffer as requested, without creating any Coordinate. A single Coordinate (e.g. for the closure check of
+ * a LinearRing) is read as a copy, as CoordinateSequence allows. The Coordinate array is only decoded when all
+ * Coordinates are requested or an ordinate is changed, since JTS expects changes to those Coordinates to show in the
+ * sequence; from then on the sequence behaves like a CoordinateArraySequence and releases the buffer.
+ * The buffer is shared by all sequences of a geometry and must not be changed.
+ */
+public class WkbCoordinateSequence implements CoordinateSequence, Serializable
+{
+    private static final long serialVersionUID = 4915093165287412570L;
+
+    private byte[] buffer;
+
+    /** Offset of the first point in the buffer. */
+    private final int offset;
+
+    private final int size;
+
+    /** Number of ordinates of the points of the sequence, 2 or 3 (Z). */
+    private final int dimension;
+
+    /** Number of ordinates of the points in the buffer, which may hold a measure the sequence doesn't expose. */
+    private final int stride;
+
+    private final int byteOrder;
+
+    private Coordinate[] coordinates;
+
+    /**
+     * Constructor.
+     * @param buffer The WKB buffer
+     * @param offset Offset of the first point in the buffer
+     * @param size Number of points
+     * @param dimension Number of ordinates of the sequence, 2 or 3
+     * @param stride Number of ordinates of the points in the buffer
+     * @param byteOrder Byte order of the buffer, one of the {@link ByteOrderValues} constants
+     */
+    public WkbCoordinateSequence(byte[] buffer, int offset, int size, int dimension, int stride, int byteOrder)
+    {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.size = size;
+        this.dimension = dimension;
+        this.stride = stride;
+        this.byteOrder = byteOrder;
+    }
+
+    /**
+     * Whether the Coordinates of this sequence have been decoded.
+     * @return Whether the sequence is decoded
+     */
+    public synchronized boolean isDecoded()
+    {
+        return coordinates != null;
+    }
+
+    public int getDimension()
+    {
+        return dimension;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public synchronized Coordinate getCoordinate(int i)
+    {
+        if (coordinates != null)
+        {
+            return coordinates[i];
+        }
+        return new Coordinate(readOrdinate(i, X), readOrdinate(i, Y), dimension > 2 ? readOrdinate(i, Z) : Double.NaN);
+    }
+
+    public Coordinate getCoordinateCopy(int i)
+    {
+        Coordinate coord = new Coordinate();
+        getCoordinate(i, coord);
+        return coord;
+    }
+
+    public void getCoordinate(int index, Coordinate coord)
+    {
+        coord.x = getOrdinate(index, X);
+        coord.y = getOrdinate(index, Y);
+        coord.z = getOrdinate(index, Z);
+    }
+
+    public double getX(int index)
+    {
+        return getOrdinate(index, X);
+    }
+
+    public double getY(int index)
+    {
+        return getOrdinate(index, Y);
+    }
+
+    public synchronized double getOrdinate(int index, int ordinateIndex)
+    {
+        if (coordinates != null)
+        {
+            return coordinates[index].getOrdinate(ordinateIndex);
+        }
+        if (ordinateIndex >= dimension)
+        {
+            return Double.NaN;
+        }
+        return readOrdinate(index, ordinateIndex);
+    }
+
+    public void setOrdinate(int index, int ordinateIndex, double value)
+    {
+        decode()[index].setOrdinate(ordinateIndex, value);
+    }
+
+    public Coordinate[] toCoordinateArray()
+    {
+        return decode();
+    }
+
+    public synchronized Envelope expandEnvelope(Envelope env)
+    {
+        if (coordinates != null)
+        {
+            for (int i = 0; i < coordinates.length; i++)
+            {
+                env.expandToInclude(coordinates[i]);
+            }
+        }
+        else
+        {
+            for (int i = 0; i < size; i++)
+            {
+                env.expandToInclude(readOrdinate(i, X), readOrdinate(i, Y));
+            }
+        }
+        return env;
+    }
+
+    public synchronized Object clone()
+    {
+        if (coordinates == null)
+        {
+            // The buffer is never changed, so the clone can share it
+            return new WkbCoordinateSequence(buffer, offset, size, dimension, stride, byteOrder);
+        }
+        return new CoordinateArraySequence(coordinates, dimension).clone();
+    }
+
+    public String toString()
+    {
+        return new CoordinateArraySequence(decode(), dimension).toString();
+    }
+
+    /**
+     * Serialized as a plain CoordinateArraySequence, so that the buffer isn't written.
+     * @return The sequence to serialize
+     * @throws ObjectStreamException Never
+     */
+    protected Object writeReplace() throws ObjectStreamException
+    {
+        return new CoordinateArraySequence(decode(), dimension);
+    }
+
+    private synchronized Coordinate[] decode()
+    {
+        if (coordinates == null)
+        {
+            Coordinate[] coords = new Coordinate[size];
+            for (int i = 0; i < size; i++)
+            {
+                coords[i] = new Coordinate(readOrdinate(i, X), readOrdinate(i, Y), dimension > 2 ? readOrdinate(i, Z) : Double.NaN);
+            }
+            coordinates = coords;
+            buffer = null;
+        }
+        return coordinates;
+    }
+
+    private double readOrdinate(int index, int ordinateIndex)
+    {
+        int pos = offset + (index * stride + ordinateIndex) * 8;
+        long bits;
+        if (byteOrder == ByteOrderValues.BIG_ENDIAN)
+        {
+            bits = ((long) (buffer[pos] & 0xff) << 56) | ((long) (buffer[pos + 1] & 0xff) << 48) | ((long) (buffer[pos + 2] & 0xff) << 40) |
+                ((long) (buffer[pos + 3] & 0xff) << 32) | ((long) (buffer[pos + 4] & 0xff) << 24) | ((long) (buffer[pos + 5] & 0xff) << 16) |
+                ((long) (buffer[pos + 6] & 0xff) << 8) | ((long) (buffer[pos + 7] & 0xff));
+        }
+        else
+        {
+            bits = ((long) (buffer[pos + 7] & 0xff) << 56) | ((long) (buffer[pos + 6] & 0xff) << 48) | ((long) (buffer[pos + 5] & 0xff) << 40) |
+                ((long) (buffer[pos + 4] & 0xff) << 32) | ((long) (buffer[pos + 3] & 0xff) << 24) | ((long) (buffer[pos + 2] & 0xff) << 16) |
+                ((long) (buffer[pos + 1] & 0xff) << 8) | ((long) (buffer[pos] & 0xff));
+        }
+        return Double.longBitsToDouble(bits);
+    }
+}
@@ -0,0 +1,88 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.jdo;
+
+import java.awt.geom.Rectangle2D;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.datanucleus.store.StoreManager;
+
+/**
+ * Cache of the estimated bounds of the geometry fields of a store, shared by all {@link SpatialHelper} instances of the
+ * store. Estimates are kept for the time (in milliseconds) set by the persistence property
+ * "datanucleus.geospatial.boundscachetimetolive" when they are put, after which they are estimated again.
+ */
+public class BoundsCache
+{
+    /** Estimated bounds per geometry field, keyed by "class#field". */
+    private final ConcurrentHashMap<String, CachedBounds> entries = new ConcurrentHashMap<String, CachedBounds>();
+
+    /**
+     * Accessor for the cached estimate of the bounds of a field, if it hasn't expired.
+     * @param key The field, as "class#field"
+     * @return The estimate, whose bounds may be <code>null</code>, or <code>null</code> if there is none
+     */
+    public CachedBounds get(String key)
+    {
+        CachedBounds cached = entries.get(key);
+        return (cached != null && cached.expiryTime > System.currentTimeMillis()) ? cached : null;
+    }
+
+    /**
+     * Caches the estimate of the bounds of a field, for the time to live set for the store.
+     * @param key The field, as "class#field"
+     * @param bounds The bounds, <code>null</code> when the datastore has no estimate
+     * @param storeMgr The store manager, whose properties give the time to live
+     */
+    public void put(String key, Rectangle2D bounds, StoreManager storeMgr)
+    {
+        long ttl = storeMgr.getIntProperty(SpatialHelper.BOUNDS_CACHE_TTL_PROPERTY);
+        entries.put(key, new CachedBounds(bounds, System.currentTimeMillis() + ttl));
+    }
+
+    public void remove(String key)
+    {
+        entries.remove(key);
+    }
+
+    public void clear()
+    {
+        entries.clear();
+    }
+
+    /**
+     * Estimated bounds of a geometry field, with the time until which they are used.
+     */
+    public static class CachedBounds
+    {
+        final Rectangle2D bounds;
+
+        final long expiryTime;
+
+        CachedBounds(Rectangle2D bounds, long expiryTime)
+        {
+            this.bounds = bounds;
+            this.expiryTime = expiryTime;
+        }
+
+        public Rectangle2D getBounds()
+        {
+            return bounds;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.jdo;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of the names and WKT descriptions of the Coordinate Reference Systems (CRS) held in one schema of a datastore,
+ * shared by all {@link SpatialHelper} instances of a store. The cache is filled either one srid at a time, as the CRS are
+ * looked up, or with all CRS of the schema at once, after which srids that aren't cached are known not to exist. CRS
+ * definitions hardly ever change, so entries don't expire; {@link #clear()} drops them all.
+ */
+public class CrsMetadataCache
+{
+    /** Marks a srid that the datastore has no value for, since the maps cannot hold <code>null</code>. */
+    private static final String NONE = new String();
+
+    private final ConcurrentHashMap<Integer, String> names = new ConcurrentHashMap<Integer, String>();
+
+    private final ConcurrentHashMap<Integer, String> wkts = new ConcurrentHashMap<Integer, String>();
+
+    /** Whether all CRS of the datastore have been loaded. */
+    private volatile boolean complete = false;
+
+    /**
+     * Checks whether the name of the CRS with the given srid is known, i.e. {@link #getName(int)} doesn't have to ask the datastore.
+     * @param srid The srid
+     * @return <code>true</code> if the name (or its absence) is cached
+     */
+    public boolean containsName(int srid)
+    {
+        return complete || names.containsKey(Integer.valueOf(srid));
+    }
+
+    /**
+     * Checks whether the description of the CRS with the given srid is known, i.e. {@link #getWkt(int)} doesn't have to ask the datastore.
+     * @param srid The srid
+     * @return <code>true</code> if the description (or its absence) is cached
+     */
+    public boolean containsWkt(int srid)
+    {
+        return complete || wkts.containsKey(Integer.valueOf(srid));
+    }
+
+    /**
+     * Accessor for the cached name of the CRS with the given srid.
+     * @param srid The srid
+     * @return The name, <code>null</code> if the CRS has none or isn't cached
+     */
+    public String getName(int srid)
+    {
+        return valueOf(names.get(Integer.valueOf(srid)));
+    }
+
+    /**
+     * Accessor for the cached description in WKT of the CRS with the given srid.
+     * @param srid The srid
+     * @return The description, <code>null</code> if the CRS has none or isn't cached
+     */
+    public String getWkt(int srid)
+    {
+        return valueOf(wkts.get(Integer.valueOf(srid)));
+    }
+
+    public void putName(int srid, String name)
+    {
+        names.put(Integer.valueOf(srid), name != null ? name : NONE);
+    }
+
+    public void putWkt(int srid, String wkt)
+    {
+        wkts.put(Integer.valueOf(srid), wkt != null ? wkt : NONE);
+    }
+
+    /**
+     * Marks the cache as holding all CRS of the datastore, so that a srid not in the cache is known not to exist.
+     */
+    public void setComplete()
+    {
+        complete = true;
+    }
+
+    public boolean isComplete()
+    {
+        return complete;
+    }
+
+    /**
+     * Drops all cached CRS.
+     */
+    public void clear()
+    {
+        complete = false;
+        names.clear();
+        wkts.clear();
+    }
+
+    private static String valueOf(String cached)
+    {
+        return cached == NONE ? null : cached;
+    }
+}
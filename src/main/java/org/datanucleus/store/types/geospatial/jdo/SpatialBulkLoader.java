@@ -0,0 +1,709 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.jdo;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.jdo.PersistenceManager;
+import javax.jdo.datastore.JDOConnection;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.api.jdo.JDOPersistenceManager;
+import org.datanucleus.exceptions.NucleusDataStoreException;
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.metadata.AbstractClassMetaData;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.metadata.FieldPersistenceModifier;
+import org.datanucleus.metadata.IdentityType;
+import org.datanucleus.metadata.RelationType;
+import org.datanucleus.metadata.ValueGenerationStrategy;
+import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.rdbms.mapping.column.ColumnMapping;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.mapping.java.TypeConverterMapping;
+import org.datanucleus.store.rdbms.table.DatastoreClass;
+import org.datanucleus.store.schema.table.SurrogateColumnType;
+import org.datanucleus.store.types.geospatial.codec.JtsGeometryCodec;
+import org.datanucleus.store.types.geospatial.codec.PgCopyBinaryWriter;
+import org.datanucleus.store.types.geospatial.codec.PostGISGeometryCodec;
+import org.datanucleus.store.types.geospatial.rdbms.adapter.OracleSpatialAdapter;
+import org.datanucleus.store.types.geospatial.rdbms.adapter.PostGISAdapter;
+import org.datanucleus.store.types.geospatial.rdbms.adapter.SpatialRDBMSAdapter;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.jts.GeometryMapping;
+import org.datanucleus.util.NucleusLogger;
+import org.postgis.binary.ValueSetter;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.ByteOrderValues;
+
+/**
+ * <p>
+ * Loads large numbers of new objects of a persistable class straight into its table, bypassing the object lifecycle
+ * (no StateManagers, callbacks or level 2 caching). The rows are built from the table and column metadata of the store,
+ * so geometry fields are written in the same form as by the mappings.
+ * </p>
+ * <p>
+ * On PostGIS the rows are streamed with <code>COPY ... FROM STDIN (FORMAT binary)</code>, geometries as EWKB, and the table
+ * is analyzed afterwards so that the planner (and {@link SpatialHelper#estimateBoundsFromDatastoreMetadata}) sees the new
+ * rows. COPY is used when every column holds a geometry, its user data, text, a number or a boolean, with no type converter.
+ * Otherwise, and on other datastores, the rows are inserted with multi-row INSERT statements bound by the mappings of the fields,
+ * or on Oracle with single-row INSERT statements executed in JDBC batches.
+ * </p>
+ * <p>
+ * Only classes whose objects are stored in a single table without version, discriminator, multitenancy or soft-delete column
+ * are supported, with fields that don't relate to other persistable objects and whose values are all bound in the INSERT
+ * statement (e.g not Oracle BLOBs written after the INSERT, see "datanucleus.geospatial.oracle.inlineblob"). Identity values
+ * must either be set on the objects or be generated by the datastore (strategy "identity"). The rows are written using the datastore connection of
+ * the PersistenceManager, so they are part of its transaction when one is active.
+ * </p>
+ */
+public class SpatialBulkLoader
+{
+    /** Default number of rows inserted by one statement (or one JDBC batch) when COPY cannot be used. */
+    public static final int DEFAULT_ROWS_PER_INSERT = 100;
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final int COPY_UNSUPPORTED = -1;
+    private static final int COPY_GEOMETRY = 0;
+    private static final int COPY_USERDATA = 1;
+    private static final int COPY_TEXT = 2;
+    private static final int COPY_BOOL = 3;
+    private static final int COPY_INT2 = 4;
+    private static final int COPY_INT4 = 5;
+    private static final int COPY_INT8 = 6;
+    private static final int COPY_FLOAT4 = 7;
+    private static final int COPY_FLOAT8 = 8;
+
+    protected RDBMSStoreManager storeMgr;
+
+    private int rowsPerInsert = DEFAULT_ROWS_PER_INSERT;
+
+    /**
+     * Creates a new <code>SpatialBulkLoader</code> instance for the given store.
+     * @param storeMgr The Store manager (RDBMS)
+     */
+    public SpatialBulkLoader(RDBMSStoreManager storeMgr)
+    {
+        if (storeMgr == null || storeMgr.isClosed())
+        {
+            throw new IllegalArgumentException("StoreManager is null or closed : " + storeMgr);
+        }
+
+        this.storeMgr = storeMgr;
+    }
+
+    /**
+     * Sets the number of rows inserted by one statement when COPY cannot be used. The number is reduced when the statement
+     * would have more parameters than the datastore allows. On datastores without multi-row INSERT, like Oracle, it is the
+     * number of rows of each JDBC batch.
+     * @param rowsPerInsert Number of rows
+     */
+    public void setRowsPerInsert(int rowsPerInsert)
+    {
+        if (rowsPerInsert < 1)
+        {
+            throw new IllegalArgumentException("rowsPerInsert must be positive : " + rowsPerInsert);
+        }
+        this.rowsPerInsert = rowsPerInsert;
+    }
+
+    /**
+     * Writes the given objects to the table of their class. The objects stay transient. A <code>java.util.stream.Stream</code>
+     * can be loaded by passing its iterator, the objects are then read one at a time.
+     * @param pc The persistable class, the class of all objects
+     * @param instances The objects to write
+     * @param pm The PersistenceManager whose datastore connection is used
+     * @return The number of rows written
+     */
+    public long load(Class pc, Iterator<?> instances, PersistenceManager pm)
+    {
+        ExecutionContext ec = ((JDOPersistenceManager) pm).getExecutionContext();
+        ClassLoaderResolver clr = ec.getClassLoaderResolver();
+        DatastoreClass table = storeMgr.getDatastoreClass(pc.getName(), clr);
+        if (table == null)
+        {
+            throw new NucleusUserException("Class " + pc.getName() + " has no table of its own and cannot be bulk loaded");
+        }
+        List<BulkField> fields = getFields(pc, table, clr);
+        SpatialRDBMSAdapter adapter = (SpatialRDBMSAdapter) storeMgr.getDatastoreAdapter();
+
+        JDOConnection jdoConn = pm.getDataStoreConnection();
+        try
+        {
+            Connection conn = (Connection) jdoConn.getNativeConnection();
+
+            long count;
+            if (adapter instanceof PostGISAdapter && PgCopy.isSupported(conn, fields))
+            {
+                count = PgCopy.copy(conn, table, fields, pc, instances);
+            }
+            else
+            {
+                count = insert(ec, conn, adapter, table, fields, pc, instances);
+            }
+
+            String analyzeStmt = adapter.getAnalyzeTableStatement(table);
+            if (analyzeStmt != null && count > 0)
+            {
+                Statement stmt = conn.createStatement();
+                try
+                {
+                    NucleusLogger.DATASTORE_NATIVE.debug(analyzeStmt);
+                    stmt.execute(analyzeStmt);
+                }
+                finally
+                {
+                    stmt.close();
+                }
+            }
+            return count;
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException("Bulk load of " + pc.getName() + " failed", e);
+        }
+        catch (IOException e)
+        {
+            throw new NucleusDataStoreException("Bulk load of " + pc.getName() + " failed", e);
+        }
+        finally
+        {
+            jdoConn.close();
+        }
+    }
+
+    /**
+     * Collects the fields of the class stored in its table, checking that the class can be bulk loaded.
+     * @param pc The persistable class
+     * @param table The table of the class
+     * @param clr ClassLoader resolver
+     * @return The fields
+     */
+    protected List<BulkField> getFields(Class pc, DatastoreClass table, ClassLoaderResolver clr)
+    {
+        AbstractClassMetaData cmd = storeMgr.getMetaDataManager().getMetaDataForClass(pc, clr);
+        if (table.getSuperDatastoreClass() != null)
+        {
+            throw new NucleusUserException("Class " + pc.getName() + " is stored in several tables and cannot be bulk loaded");
+        }
+        if (cmd.getIdentityType() == IdentityType.DATASTORE &&
+            (cmd.getIdentityMetaData() == null || cmd.getIdentityMetaData().getValueStrategy() != ValueGenerationStrategy.IDENTITY))
+        {
+            throw new NucleusUserException("Class " + pc.getName() + " has datastore identity not generated by the datastore and cannot be bulk loaded");
+        }
+        SurrogateColumnType[] unsupportedColumns = new SurrogateColumnType[] {SurrogateColumnType.VERSION, SurrogateColumnType.DISCRIMINATOR,
+                SurrogateColumnType.MULTITENANCY, SurrogateColumnType.SOFTDELETE};
+        for (int i = 0; i < unsupportedColumns.length; i++)
+        {
+            if (table.getSurrogateMapping(unsupportedColumns[i], false) != null)
+            {
+                throw new NucleusUserException("Class " + pc.getName() + " has a " + unsupportedColumns[i] + " column and cannot be bulk loaded");
+            }
+        }
+
+        List<BulkField> fields = new ArrayList<BulkField>();
+        int[] positions = cmd.getAllMemberPositions();
+        for (int i = 0; i < positions.length; i++)
+        {
+            AbstractMemberMetaData mmd = cmd.getMetaDataForManagedMemberAtAbsolutePosition(positions[i]);
+            if (mmd.getPersistenceModifier() != FieldPersistenceModifier.PERSISTENT)
+            {
+                continue;
+            }
+            if (mmd.getValueStrategy() == ValueGenerationStrategy.IDENTITY)
+            {
+                // Generated by the datastore
+                continue;
+            }
+
+            JavaTypeMapping mapping = table.getMemberMapping(mmd);
+            if (mmd.getValueStrategy() != null || mmd.getRelationType(clr) != RelationType.NONE || mapping == null ||
+                mapping.getNumberOfColumnMappings() == 0)
+            {
+                throw new NucleusUserException("Field " + mmd.getFullFieldName() + " is not stored as plain value of the table and cannot be bulk loaded");
+            }
+            for (int j = 0; j < mapping.getNumberOfColumnMappings(); j++)
+            {
+                if (!mapping.getColumnMapping(j).insertValuesOnInsert())
+                {
+                    // e.g an Oracle BLOB, inserted empty and written by the StateManager after the INSERT
+                    throw new NucleusUserException("Field " + mmd.getFullFieldName() + " has a column written after the INSERT and cannot be bulk loaded" +
+                        (storeMgr.getDatastoreAdapter() instanceof OracleSpatialAdapter ? ", unless " + OracleSpatialAdapter.INLINE_BLOB_PROPERTY + " is true" : ""));
+                }
+            }
+            fields.add(new BulkField(mmd, mapping));
+        }
+        return fields;
+    }
+
+    /**
+     * Inserts the rows with multi-row INSERT statements, binding the values with the mappings of the fields. When the datastore
+     * has no multi-row INSERT, single-row INSERT statements are executed in JDBC batches instead.
+     */
+    private long insert(ExecutionContext ec, Connection conn, SpatialRDBMSAdapter adapter, DatastoreClass table, List<BulkField> fields,
+            Class pc, Iterator<?> instances) throws SQLException
+    {
+        StringBuilder columns = new StringBuilder();
+        StringBuilder rowValues = new StringBuilder("(");
+        int paramsPerRow = 0;
+        for (BulkField field : fields)
+        {
+            for (int i = 0; i < field.mapping.getNumberOfColumnMappings(); i++)
+            {
+                ColumnMapping columnMapping = field.mapping.getColumnMapping(i);
+                if (columns.length() > 0)
+                {
+                    columns.append(", ");
+                    rowValues.append(", ");
+                }
+                columns.append(columnMapping.getColumn().getIdentifier().toString());
+                rowValues.append(columnMapping.getInsertionInputParameter());
+                if (columnMapping.insertValuesOnInsert())
+                {
+                    paramsPerRow++;
+                }
+            }
+        }
+        rowValues.append(")");
+
+        int maxParameters = adapter.getMaxMultiRowInsertParameters();
+        if (maxParameters == 0)
+        {
+            return insertBatched(ec, conn, adapter, table, fields, pc, instances, columns, rowValues);
+        }
+        int maxRows = Math.max(1, Math.min(rowsPerInsert, maxParameters / Math.max(1, paramsPerRow)));
+
+        long count = 0;
+        List<Object> rows = new ArrayList<Object>(maxRows);
+        PreparedStatement fullStmt = null;
+        try
+        {
+            while (instances.hasNext())
+            {
+                rows.add(checkInstance(pc, instances.next()));
+                if (rows.size() == maxRows || !instances.hasNext())
+                {
+                    if (rows.size() == maxRows)
+                    {
+                        if (fullStmt == null)
+                        {
+                            fullStmt = prepareInsert(conn, adapter, table, columns, rowValues, maxRows);
+                        }
+                        executeInsert(ec, fullStmt, fields, rows);
+                    }
+                    else
+                    {
+                        PreparedStatement ps = prepareInsert(conn, adapter, table, columns, rowValues, rows.size());
+                        try
+                        {
+                            executeInsert(ec, ps, fields, rows);
+                        }
+                        finally
+                        {
+                            ps.close();
+                        }
+                    }
+                    count += rows.size();
+                    rows.clear();
+                }
+            }
+        }
+        finally
+        {
+            if (fullStmt != null)
+            {
+                fullStmt.close();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Inserts the rows with a single-row INSERT statement executed in JDBC batches of the number of rows per insert.
+     */
+    private long insertBatched(ExecutionContext ec, Connection conn, SpatialRDBMSAdapter adapter, DatastoreClass table, List<BulkField> fields,
+            Class pc, Iterator<?> instances, StringBuilder columns, StringBuilder rowValues) throws SQLException
+    {
+        long count = 0;
+        int batched = 0;
+        PreparedStatement ps = prepareInsert(conn, adapter, table, columns, rowValues, 1);
+        try
+        {
+            while (instances.hasNext())
+            {
+                bindRow(ec, ps, fields, checkInstance(pc, instances.next()), 1);
+                ps.addBatch();
+                count++;
+                if (++batched == rowsPerInsert)
+                {
+                    ps.executeBatch();
+                    batched = 0;
+                }
+            }
+            if (batched > 0)
+            {
+                ps.executeBatch();
+            }
+        }
+        finally
+        {
+            ps.close();
+        }
+        return count;
+    }
+
+    private PreparedStatement prepareInsert(Connection conn, SpatialRDBMSAdapter adapter, DatastoreClass table, StringBuilder columns,
+            StringBuilder rowValues, int rows) throws SQLException
+    {
+        String stmt = adapter.getMultiRowInsertStatement(table, columns.toString(), rowValues.toString(), rows);
+        if (NucleusLogger.DATASTORE_NATIVE.isDebugEnabled())
+        {
+            NucleusLogger.DATASTORE_NATIVE.debug("Bulk load of " + rows + " rows : " + adapter.getMultiRowInsertStatement(table, columns.toString(), rowValues.toString(), 1));
+        }
+        return conn.prepareStatement(stmt);
+    }
+
+    private void executeInsert(ExecutionContext ec, PreparedStatement ps, List<BulkField> fields, List<Object> rows) throws SQLException
+    {
+        int param = 1;
+        for (Object row : rows)
+        {
+            param = bindRow(ec, ps, fields, row, param);
+        }
+        ps.executeUpdate();
+    }
+
+    /**
+     * Binds the values of one row, starting at the given parameter.
+     * @return The parameter following those of the row
+     */
+    private int bindRow(ExecutionContext ec, PreparedStatement ps, List<BulkField> fields, Object row, int param)
+    {
+        for (BulkField field : fields)
+        {
+            int[] indexes = new int[field.parameterCount];
+            for (int i = 0; i < indexes.length; i++)
+            {
+                indexes[i] = param++;
+            }
+            field.mapping.setObject(ec, ps, indexes, field.getValue(row));
+        }
+        return param;
+    }
+
+    private static Object checkInstance(Class pc, Object instance)
+    {
+        if (instance == null || instance.getClass() != pc)
+        {
+            throw new NucleusUserException("Cannot bulk load " + instance + " as " + pc.getName() + ", objects must be of the class loaded");
+        }
+        return instance;
+    }
+
+    /**
+     * A field written by the loader, with its mapping and the means to read its value from an object.
+     */
+    protected static class BulkField
+    {
+        final AbstractMemberMetaData mmd;
+
+        final JavaTypeMapping mapping;
+
+        /** Number of columns of the field whose value is a statement parameter. */
+        final int parameterCount;
+
+        /** How each column of the field is written by COPY, one of the COPY_XXX constants. */
+        int[] copyTypes;
+
+        private final AccessibleObject accessor;
+
+        BulkField(AbstractMemberMetaData mmd, JavaTypeMapping mapping)
+        {
+            this.mmd = mmd;
+            this.mapping = mapping;
+
+            int count = 0;
+            for (int i = 0; i < mapping.getNumberOfColumnMappings(); i++)
+            {
+                if (mapping.getColumnMapping(i).insertValuesOnInsert())
+                {
+                    count++;
+                }
+            }
+            parameterCount = count;
+
+            Member member = mmd.getMemberRepresented();
+            if (!(member instanceof Field) && !(member instanceof Method))
+            {
+                throw new NucleusUserException("Field " + mmd.getFullFieldName() + " cannot be read and cannot be bulk loaded");
+            }
+            accessor = (AccessibleObject) member;
+            accessor.setAccessible(true);
+        }
+
+        Object getValue(Object pc)
+        {
+            try
+            {
+                if (accessor instanceof Field)
+                {
+                    return ((Field) accessor).get(pc);
+                }
+                return ((Method) accessor).invoke(pc);
+            }
+            catch (Exception e)
+            {
+                throw new NucleusUserException("Cannot read field " + mmd.getFullFieldName() + " of " + pc, e);
+            }
+        }
+    }
+
+    /**
+     * Loading with PostgreSQL's COPY. Kept apart so that the PostgreSQL and PostGIS drivers are only needed when it is used.
+     */
+    private static class PgCopy
+    {
+        /**
+         * Checks whether the connection supports COPY and every column can be written by it, setting how each is written.
+         */
+        static boolean isSupported(Connection conn, List<BulkField> fields)
+        {
+            for (BulkField field : fields)
+            {
+                field.copyTypes = new int[field.mapping.getNumberOfColumnMappings()];
+                for (int i = 0; i < field.copyTypes.length; i++)
+                {
+                    field.copyTypes[i] = getCopyType(field.mapping, i);
+                    if (field.copyTypes[i] == COPY_UNSUPPORTED)
+                    {
+                        NucleusLogger.DATASTORE_PERSIST.debug("Column of field " + field.mmd.getFullFieldName() + " cannot be written by COPY, using INSERT");
+                        return false;
+                    }
+                }
+            }
+
+            try
+            {
+                return conn.isWrapperFor(PGConnection.class);
+            }
+            catch (SQLException e)
+            {
+                return false;
+            }
+        }
+
+        static int getCopyType(JavaTypeMapping mapping, int index)
+        {
+            if (mapping instanceof GeometryMapping)
+            {
+                return index == 0 ? COPY_GEOMETRY : COPY_USERDATA;
+            }
+            else if (mapping instanceof org.datanucleus.store.types.geospatial.rdbms.mapping.pg.GeometryMapping)
+            {
+                return COPY_GEOMETRY;
+            }
+            else if (mapping instanceof TypeConverterMapping || mapping.getNumberOfColumnMappings() != 1)
+            {
+                return COPY_UNSUPPORTED;
+            }
+
+            Class type = mapping.getJavaType();
+            int jdbcType = mapping.getColumnMapping(0).getJDBCType();
+            if (type == String.class)
+            {
+                boolean text = jdbcType == Types.CHAR || jdbcType == Types.VARCHAR || jdbcType == Types.LONGVARCHAR || jdbcType == Types.CLOB;
+                return text ? COPY_TEXT : COPY_UNSUPPORTED;
+            }
+            else if (type == Boolean.class || type == boolean.class)
+            {
+                return jdbcType == Types.BOOLEAN || jdbcType == Types.BIT ? COPY_BOOL : COPY_UNSUPPORTED;
+            }
+
+            boolean integral = type == Integer.class || type == int.class || type == Long.class || type == long.class || type == Short.class ||
+                type == short.class || type == Byte.class || type == byte.class;
+            boolean floating = type == Double.class || type == double.class || type == Float.class || type == float.class;
+            if (integral && jdbcType == Types.SMALLINT)
+            {
+                return COPY_INT2;
+            }
+            else if (integral && jdbcType == Types.INTEGER)
+            {
+                return COPY_INT4;
+            }
+            else if (integral && jdbcType == Types.BIGINT)
+            {
+                return COPY_INT8;
+            }
+            else if ((integral || floating) && jdbcType == Types.REAL)
+            {
+                return COPY_FLOAT4;
+            }
+            else if ((integral || floating) && (jdbcType == Types.DOUBLE || jdbcType == Types.FLOAT))
+            {
+                return COPY_FLOAT8;
+            }
+            return COPY_UNSUPPORTED;
+        }
+
+        static long copy(Connection conn, DatastoreClass table, List<BulkField> fields, Class pc, Iterator<?> instances) throws SQLException, IOException
+        {
+            StringBuilder columns = new StringBuilder();
+            int fieldCount = 0;
+            for (BulkField field : fields)
+            {
+                for (int i = 0; i < field.mapping.getNumberOfColumnMappings(); i++)
+                {
+                    columns.append(fieldCount++ > 0 ? ", " : "").append(field.mapping.getColumnMapping(i).getColumn().getIdentifier().toString());
+                }
+            }
+            String stmt = "COPY " + table.toString() + " (" + columns + ") FROM STDIN (FORMAT binary)";
+            NucleusLogger.DATASTORE_NATIVE.debug(stmt);
+
+            CopyIn copyIn = conn.unwrap(PGConnection.class).getCopyAPI().copyIn(stmt);
+            long count = 0;
+            try
+            {
+                PgCopyBinaryWriter writer = new PgCopyBinaryWriter(new BufferedOutputStream(new CopyInOutputStream(copyIn), COPY_BUFFER_SIZE));
+                while (instances.hasNext())
+                {
+                    Object row = checkInstance(pc, instances.next());
+                    writer.startRow(fieldCount);
+                    for (BulkField field : fields)
+                    {
+                        Object value = field.getValue(row);
+                        for (int i = 0; i < field.copyTypes.length; i++)
+                        {
+                            writeValue(writer, field, field.copyTypes[i], value);
+                        }
+                    }
+                    count++;
+                }
+                writer.finish();
+                copyIn.endCopy();
+            }
+            finally
+            {
+                if (copyIn.isActive())
+                {
+                    copyIn.cancelCopy();
+                }
+            }
+            return count;
+        }
+
+        static void writeValue(PgCopyBinaryWriter writer, BulkField field, int copyType, Object value) throws IOException
+        {
+            if (value == null)
+            {
+                writer.writeNull();
+            }
+            else if (copyType == COPY_GEOMETRY)
+            {
+                if (value instanceof Geometry)
+                {
+                    Geometry geom = (Geometry) value;
+                    writer.writeBytes(JtsGeometryCodec.writeWkb(geom, JtsGeometryCodec.getOutputDimension(geom), ByteOrderValues.LITTLE_ENDIAN, true));
+                }
+                else
+                {
+                    writer.writeBytes(PostGISGeometryCodec.writeBinary((org.postgis.Geometry) value, ValueSetter.NDR.NUMBER));
+                }
+            }
+            else if (copyType == COPY_USERDATA)
+            {
+                writer.writeBytes(((GeometryMapping) field.mapping).getUserDataBytes(((Geometry) value).getUserData()));
+            }
+            else if (copyType == COPY_TEXT)
+            {
+                writer.writeText((String) value);
+            }
+            else if (copyType == COPY_BOOL)
+            {
+                writer.writeBool(((Boolean) value).booleanValue());
+            }
+            else if (copyType == COPY_INT2)
+            {
+                writer.writeInt2(((Number) value).shortValue());
+            }
+            else if (copyType == COPY_INT4)
+            {
+                writer.writeInt4(((Number) value).intValue());
+            }
+            else if (copyType == COPY_INT8)
+            {
+                writer.writeInt8(((Number) value).longValue());
+            }
+            else if (copyType == COPY_FLOAT4)
+            {
+                writer.writeFloat4(((Number) value).floatValue());
+            }
+            else
+            {
+                writer.writeFloat8(((Number) value).doubleValue());
+            }
+        }
+    }
+
+    /**
+     * Stream passing the bytes written to a COPY operation.
+     */
+    private static class CopyInOutputStream extends OutputStream
+    {
+        private final CopyIn copyIn;
+
+        CopyInOutputStream(CopyIn copyIn)
+        {
+            this.copyIn = copyIn;
+        }
+
+        public void write(int b) throws IOException
+        {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            try
+            {
+                copyIn.writeToCopy(b, off, len);
+            }
+            catch (SQLException e)
+            {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+    }
+}
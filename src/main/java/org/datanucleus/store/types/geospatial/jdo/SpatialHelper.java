@@ -19,7 +19,13 @@ package org.datanucleus.store.types.geospatial.jdo;
 
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.jdo.JDOCanRetryException;
 import javax.jdo.PersistenceManager;
@@ -30,8 +36,10 @@ import org.datanucleus.metadata.AbstractClassMetaData;
 import org.datanucleus.metadata.AbstractMemberMetaData;
 import org.datanucleus.metadata.MetaDataUtils;
 import org.datanucleus.store.types.geospatial.rdbms.adapter.SpatialRDBMSAdapter;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.mysql.MySQLSpatialColumnMapping;
 import org.datanucleus.ClassLoaderResolver;
 import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.rdbms.mapping.column.ColumnMapping;
 import org.datanucleus.store.rdbms.table.Column;
 import org.datanucleus.store.rdbms.table.Table;
 import org.datanucleus.util.NucleusLogger;
@@ -49,8 +57,30 @@ import org.datanucleus.util.NucleusLogger;
  */
 public class SpatialHelper
 {
+    /** Name of the persistence property setting how long (in milliseconds) estimated bounds are cached. **/
+    public static final String BOUNDS_CACHE_TTL_PROPERTY = "datanucleus.geospatial.boundscachetimetolive";
+
+    /** Name of the persistence property setting whether all CRS are loaded from the datastore on the first CRS lookup. **/
+    public static final String CRS_PRELOAD_PROPERTY = "datanucleus.geospatial.crspreload";
+
+    /** Maximum number of times the distance of the search of {@link #findNearest} is doubled. */
+    private static final int MAX_NEAREST_SEARCH_DOUBLINGS = 32;
+
+    /**
+     * CRS caches of the stores, keyed by the schema holding the CRS metadata, shared by all helpers of a store.
+     * The schema is that of the tables of the classes the CRS are looked up for, and is "" when they have none.
+     */
+    private static final Map<RDBMSStoreManager, ConcurrentHashMap<String, CrsMetadataCache>> CRS_CACHES =
+        Collections.synchronizedMap(new WeakHashMap<RDBMSStoreManager, ConcurrentHashMap<String, CrsMetadataCache>>());
+
+    /** Caches of estimated bounds of the stores, shared by all helpers of a store. */
+    private static final Map<RDBMSStoreManager, BoundsCache> BOUNDS_CACHES = Collections.synchronizedMap(new WeakHashMap<RDBMSStoreManager, BoundsCache>());
+
     protected RDBMSStoreManager storeMgr;
 
+    /** Estimated bounds per geometry field, shared by all helpers of the store. */
+    protected final BoundsCache boundsCache;
+
     /**
      * Creates a new <code>SpatialHelper</code> instance for the given PMF.
      * @param storeMgr The Store manager (RDBMS)
@@ -63,6 +93,26 @@ public class SpatialHelper
         }
 
         this.storeMgr = storeMgr;
+        this.boundsCache = getBoundsCache(storeMgr);
+    }
+
+    /**
+     * Accessor for the cache of estimated bounds of a store, which is shared by all helpers of the store.
+     * @param storeMgr The Store manager
+     * @return The cache
+     */
+    private static BoundsCache getBoundsCache(RDBMSStoreManager storeMgr)
+    {
+        synchronized (BOUNDS_CACHES)
+        {
+            BoundsCache cache = BOUNDS_CACHES.get(storeMgr);
+            if (cache == null)
+            {
+                cache = new BoundsCache();
+                BOUNDS_CACHES.put(storeMgr, cache);
+            }
+            return cache;
+        }
     }
 
     /**
@@ -93,7 +143,7 @@ public class SpatialHelper
 
     /**
      * Returns the srid from datastore metadata for the given geometry field. 
-     * Will return <code>null</code>, if the datastore doesn't support such an operation (e.g. MySQL) or if there is no metadata in the
+     * Will return <code>null</code>, if the datastore doesn't support such an operation (e.g. MySQL before 8.0) or if there is no metadata in the
      * datastore available for the given class and field name.
      * @param pc The persistable class
      * @param fieldName Name of the geometry field
@@ -104,25 +154,33 @@ public class SpatialHelper
     {
         checkValid(pc, fieldName);
 
-        Integer srid = (Integer) new QueryExecutor(pm.currentTransaction())
+        Table table = getTable(pc);
+        Column column = getColumn(pc, fieldName);
+        final String stmt = getAdapter().getRetrieveSridStatement(table, column);
+
+        if (stmt == null)
+            return null;
+
+        Object srid = new QueryExecutor(pm.currentTransaction())
         {
             Query getQuery()
             {
-                Query q = pm.newQuery(pc);
-                q.setResult("Spatial.sridFromMetadata( " + fieldName + " )");
+                Query q = pm.newQuery(Query.SQL, stmt);
                 q.setUnique(true);
-                q.setRange(0, 1);
                 return q;
             }
         }.execute();
 
-        return srid;
+        return (srid instanceof Number) ? Integer.valueOf(((Number) srid).intValue()) : null;
     }
 
     /**
      * Returns the (estimated) spatial extent, also called <i>bounding box</i> from datastore metadata for the given geometry field. 
-     * Will return <code>null</code>, if the datastore doesn't support such an operation (e.g. MySQL) or if there is no metadata in the datastore available 
-     * for the given class and field name.
+     * The extent is estimated from statistics on PostGIS (so the table has to be analyzed) and from the spatial index on Oracle, without reading
+     * the geometries. MySQL keeps no such metadata, so there the extent is calculated once and then extended with the geometries written
+     * by this process. Estimates are cached for the time set by the persistence property "datanucleus.geospatial.boundscachetimetolive"
+     * (5 minutes by default), see also {@link #invalidateBounds(Class, String)}.
+     * Will return <code>null</code>, if there is no metadata in the datastore available for the given class and field name.
      * @param pc The persistable class
      * @param fieldName Name of the geometry field
      * @param pm <code>PersistenceManager</code> instance that should be used to access the datastore
@@ -132,30 +190,87 @@ public class SpatialHelper
     {
         checkValid(pc, fieldName);
 
-        Rectangle2D bounds = null;
-        try
+        String key = pc.getName() + "#" + fieldName;
+        BoundsCache.CachedBounds cached = boundsCache.get(key);
+        Rectangle2D bounds;
+        if (cached != null)
+        {
+            bounds = cached.getBounds();
+        }
+        else
         {
-            bounds = (Rectangle2D) new QueryExecutor(pm.currentTransaction())
+            try
             {
-                Query getQuery()
-                {
-                    Query q = pm.newQuery(pc);
-                    q.setResult("Spatial.rectangle2DFromMetadata( " + fieldName + " )");
-                    q.setUnique(true);
-                    q.setRange(0, 1);
-                    return q;
-                }
-            }.execute();
+                Table table = getTable(pc);
+                Column column = getColumn(pc, fieldName);
+                final String stmt = getAdapter().getEstimateBoundsStatement(table, column);
+                bounds = (stmt != null) ? executeBoundsStatement(stmt, pm) : calculateBoundsInDatastore(pc, fieldName, pm);
+            }
+            catch (JDOCanRetryException e)
+            {
+                // TODO: I18n
+                NucleusLogger.QUERY.info("estimateBoundsFromDatastoreMetadata() failed", e);
+                return null;
+            }
+
+            boundsCache.put(key, bounds, storeMgr);
         }
-        catch (JDOCanRetryException e)
+
+        Rectangle2D writtenExtent = getWrittenExtent(pc, fieldName);
+        if (writtenExtent != null)
         {
-            // TODO: I18n
-            NucleusLogger.QUERY.info("estimateBoundsFromDatastoreMetadata() failed", e);
+            bounds = (bounds == null) ? writtenExtent : bounds.createUnion(writtenExtent);
         }
 
         return bounds;
     }
 
+    /**
+     * Removes the cached estimate of the spatial extent of the given geometry field, e.g after a bulk load.
+     * @param pc The persistable class
+     * @param fieldName Name of the geometry field
+     */
+    public void invalidateBounds(Class pc, String fieldName)
+    {
+        boundsCache.remove(pc.getName() + "#" + fieldName);
+    }
+
+    /**
+     * Removes all cached estimates of spatial extents of the store.
+     */
+    public void invalidateBounds()
+    {
+        boundsCache.clear();
+    }
+
+    /**
+     * Writes many new objects of the given class straight to its table, with COPY on PostGIS and INSERT statements
+     * otherwise, and removes the cached estimates of the extents of its geometry fields. See {@link SpatialBulkLoader}
+     * for the classes supported.
+     * @param pc The persistable class, the class of all objects
+     * @param instances The objects to write
+     * @param pm <code>PersistenceManager</code> instance whose datastore connection is used
+     * @return The number of rows written
+     */
+    public long bulkLoad(Class pc, Iterator<?> instances, PersistenceManager pm)
+    {
+        long count = new SpatialBulkLoader(storeMgr).load(pc, instances, pm);
+        String[] fieldNames = getGeometryColumnBackedFields(pc);
+        for (int i = 0; i < fieldNames.length; i++)
+        {
+            invalidateBounds(pc, fieldNames[i]);
+        }
+        return count;
+    }
+
+    /**
+     * Calculates the spatial extent of the given geometry field from all its values, which requires a scan of the table.
+     * Will return <code>null</code>, if the datastore doesn't support such an operation or if there are no values.
+     * @param pc The persistable class
+     * @param fieldName Name of the geometry field
+     * @param pm <code>PersistenceManager</code> instance that should be used to access the datastore
+     * @return The bbox or <code>null</code>.
+     */
     public Rectangle2D calculateBoundsInDatastore(final Class pc, final String fieldName, final PersistenceManager pm)
     {
         checkValid(pc, fieldName);
@@ -167,18 +282,50 @@ public class SpatialHelper
         if (stmt == null)
             return null;
 
-        Rectangle2D bounds = (Rectangle2D) new QueryExecutor(pm.currentTransaction())
+        return executeBoundsStatement(stmt, pm);
+    }
+
+    protected Rectangle2D executeBoundsStatement(final String stmt, final PersistenceManager pm)
+    {
+        Object result = new QueryExecutor(pm.currentTransaction())
         {
             Query getQuery()
             {
                 Query q = pm.newQuery(Query.SQL, stmt);
-                q.setResultClass(String.class);
                 q.setUnique(true);
                 return q;
             }
         }.execute();
 
-        return bounds;
+        // One row of minimum x, minimum y, maximum x and maximum y, which are null if there are no bounds
+        if (!(result instanceof Object[]))
+        {
+            return null;
+        }
+        Object[] row = (Object[]) result;
+        for (int i = 0; i < 4; i++)
+        {
+            if (!(row[i] instanceof Number))
+            {
+                return null;
+            }
+        }
+        double minX = ((Number) row[0]).doubleValue();
+        double minY = ((Number) row[1]).doubleValue();
+        return new Rectangle2D.Double(minX, minY, ((Number) row[2]).doubleValue() - minX, ((Number) row[3]).doubleValue() - minY);
+    }
+
+    /**
+     * Returns the extent of the geometries written to the given field by this process, where the mapping keeps one (MySQL).
+     * @param pc The persistable class
+     * @param fieldName Name of the geometry field
+     * @return The extent or <code>null</code>.
+     */
+    protected Rectangle2D getWrittenExtent(Class pc, String fieldName)
+    {
+        ClassLoaderResolver clr = storeMgr.getNucleusContext().getClassLoaderResolver(getClass().getClassLoader());
+        ColumnMapping columnMapping = storeMgr.getDatastoreClass(pc.getName(), clr).getMemberMapping(fieldName).getColumnMappings()[0];
+        return (columnMapping instanceof MySQLSpatialColumnMapping) ? ((MySQLSpatialColumnMapping) columnMapping).getWrittenExtent() : null;
     }
 
     /**
@@ -193,23 +340,22 @@ public class SpatialHelper
     public String getCrsWktForSrid(Class pc, int srid, final PersistenceManager pm)
     {
         Table table = getTable(pc);
-        final String stmt = getAdapter().getRetrieveCrsWktStatement(table, srid);
+        CrsMetadataCache cache = getCrsMetadataCache(table);
+        if (!cache.containsWkt(srid) && storeMgr.getBooleanProperty(CRS_PRELOAD_PROPERTY))
+        {
+            preloadCrsMetadata(pc, pm);
+        }
+        if (!cache.containsWkt(srid))
+        {
+            final String stmt = getAdapter().getRetrieveCrsWktStatement(table, srid);
 
-        if (stmt == null)
-            return null;
+            if (stmt == null)
+                return null;
 
-        String crsWKT = (String) new QueryExecutor(pm.currentTransaction())
-        {
-            Query getQuery()
-            {
-                Query q = pm.newQuery(Query.SQL, stmt);
-                q.setResultClass(String.class);
-                q.setUnique(true);
-                return q;
-            }
-        }.execute();
+            cache.putWkt(srid, executeCrsStatement(stmt, pm));
+        }
 
-        return crsWKT;
+        return cache.getWkt(srid);
     }
 
     /**
@@ -224,12 +370,119 @@ public class SpatialHelper
     public String getCrsNameForSrid(Class pc, int srid, final PersistenceManager pm)
     {
         Table table = getTable(pc);
-        final String stmt = getAdapter().getRetrieveCrsNameStatement(table, srid);
+        CrsMetadataCache cache = getCrsMetadataCache(table);
+        if (!cache.containsName(srid) && storeMgr.getBooleanProperty(CRS_PRELOAD_PROPERTY))
+        {
+            preloadCrsMetadata(pc, pm);
+        }
+        if (!cache.containsName(srid))
+        {
+            final String stmt = getAdapter().getRetrieveCrsNameStatement(table, srid);
 
-        if (stmt == null)
-            return null;
+            if (stmt == null)
+                return null;
+
+            cache.putName(srid, executeCrsStatement(stmt, pm));
+        }
+
+        return cache.getName(srid);
+    }
+
+    /**
+     * Loads the names and descriptions of all Coordinate Reference Systems (CRS) of the datastore into the CRS cache of the store,
+     * so that later lookups by {@link #getCrsNameForSrid(Class, int, PersistenceManager)} and {@link #getCrsWktForSrid(Class, int, PersistenceManager)}
+     * don't access the datastore. With the persistence property "datanucleus.geospatial.crspreload" this is done on the first lookup.
+     * Does nothing if the CRS have been loaded already, or if the datastore doesn't support such an operation (e.g. MySQL).
+     * @param pc A persistable class, whose table determines the schema of the CRS metadata where that matters
+     * @param pm <code>PersistenceManager</code> instance that should be used to access the datastore
+     * @return <code>true</code> if all CRS are cached
+     */
+    public boolean preloadCrsMetadata(Class pc, final PersistenceManager pm)
+    {
+        Table table = getTable(pc);
+        CrsMetadataCache cache = getCrsMetadataCache(table);
+        synchronized (cache)
+        {
+            if (cache.isComplete())
+                return true;
+
+            final String stmt = getAdapter().getRetrieveAllCrsStatement(table);
+
+            if (stmt == null)
+                return false;
+
+            List rows = (List) new QueryExecutor(pm.currentTransaction())
+            {
+                Query getQuery()
+                {
+                    return pm.newQuery(Query.SQL, stmt);
+                }
+            }.execute();
+
+            Iterator iter = rows.iterator();
+            while (iter.hasNext())
+            {
+                Object[] row = (Object[]) iter.next();
+                int srid = ((Number) row[0]).intValue();
+                cache.putName(srid, (String) row[1]);
+                cache.putWkt(srid, (String) row[2]);
+            }
+            cache.setComplete();
+            NucleusLogger.DATASTORE.debug("Loaded " + rows.size() + " coordinate reference systems from the datastore");
+            return true;
+        }
+    }
+
+    /**
+     * Drops the cached names and descriptions of the Coordinate Reference Systems of the store, in all schemas, e.g. after adding a CRS to the datastore.
+     */
+    public void invalidateCrsMetadata()
+    {
+        for (CrsMetadataCache cache : getCrsMetadataCaches().values())
+        {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Accessor for the CRS cache of the schema of a table, which is shared by all helpers of the store.
+     * @param table The table whose schema holds the CRS metadata
+     * @return The cache
+     */
+    protected CrsMetadataCache getCrsMetadataCache(Table table)
+    {
+        String schemaName = (table.getSchemaName() != null) ? table.getSchemaName() : "";
+        ConcurrentHashMap<String, CrsMetadataCache> caches = getCrsMetadataCaches();
+        CrsMetadataCache cache = caches.get(schemaName);
+        if (cache == null)
+        {
+            CrsMetadataCache newCache = new CrsMetadataCache();
+            cache = caches.putIfAbsent(schemaName, newCache);
+            if (cache == null)
+            {
+                cache = newCache;
+            }
+        }
+        return cache;
+    }
+
+    private ConcurrentHashMap<String, CrsMetadataCache> getCrsMetadataCaches()
+    {
+        synchronized (CRS_CACHES)
+        {
+            ConcurrentHashMap<String, CrsMetadataCache> caches = CRS_CACHES.get(storeMgr);
+            if (caches == null)
+            {
+                caches = new ConcurrentHashMap<String, CrsMetadataCache>();
+                CRS_CACHES.put(storeMgr, caches);
+            }
+            return caches;
+        }
+    }
 
-        String crsName = (String) new QueryExecutor(pm.currentTransaction())
+    protected String executeCrsStatement(final String stmt, final PersistenceManager pm)
+    {
+        return (String) new QueryExecutor(pm.currentTransaction())
         {
             Query getQuery()
             {
@@ -239,8 +492,97 @@ public class SpatialHelper
                 return q;
             }
         }.execute();
+    }
 
-        return crsName;
+    /**
+     * Returns the <code>k</code> objects of the given class whose geometry is nearest to the given geometry, nearest first.
+     * When the datastore can order by distance using the spatial index of the field (see
+     * {@link SpatialRDBMSAdapter#supportsIndexedKnnOrdering(Table, Column)}), a single query ordered by "Spatial.knnDistance" and limited
+     * to <code>k</code> objects is used. Otherwise objects within a distance of the geometry are queried, starting with
+     * <code>searchDistance</code> and doubling it until <code>k</code> objects are found or all objects are within the distance, so that
+     * every query can use the spatial index. The distance is doubled at most 32 times, after which the objects found are returned,
+     * even if fewer than <code>k</code>.
+     * @param pc The persistable class
+     * @param fieldName Name of the geometry field
+     * @param geometry The geometry to find the nearest objects to, of the same type as the field
+     * @param k Number of objects wanted
+     * @param searchDistance The distance to start the expanding search with, ideally one that holds about <code>k</code> objects
+     * @param pm <code>PersistenceManager</code> instance that should be used to access the datastore
+     * @return List of at most <code>k</code> objects, nearest first
+     */
+    public List findNearest(final Class pc, final String fieldName, final Object geometry, final int k, double searchDistance, final PersistenceManager pm)
+    {
+        checkValid(pc, fieldName);
+        if (geometry == null)
+        {
+            throw new NullPointerException("geometry = " + geometry);
+        }
+        if (k <= 0)
+        {
+            return new ArrayList();
+        }
+
+        String geometryParam = geometry.getClass().getName() + " geom";
+        if (getAdapter().supportsIndexedKnnOrdering(getTable(pc), getColumn(pc, fieldName)))
+        {
+            Query q = pm.newQuery(pc);
+            q.declareParameters(geometryParam);
+            q.setFilter(fieldName + " != null");
+            q.setOrdering("Spatial.knnDistance(" + fieldName + ", geom) ascending");
+            q.setRange(0, k);
+            return executeToList(q, new Object[] {geometry});
+        }
+
+        if (searchDistance <= 0)
+        {
+            throw new IllegalArgumentException("searchDistance must be positive : " + searchDistance);
+        }
+
+        long count = -1;
+        double distance = searchDistance;
+        for (int doublings = 0; ; doublings++)
+        {
+            Query q = pm.newQuery(pc);
+            q.declareParameters(geometryParam + ", double distance");
+            q.setFilter("Spatial.dwithin(" + fieldName + ", geom, distance)");
+            q.setOrdering("Spatial.distance(" + fieldName + ", geom) ascending");
+            q.setRange(0, k);
+            List results = executeToList(q, new Object[] {geometry, Double.valueOf(distance)});
+
+            // Objects outside the distance are further away than all objects found, so the nearest k are within it
+            if (results.size() >= k)
+            {
+                return results;
+            }
+
+            if (count < 0)
+            {
+                Query countQuery = pm.newQuery(pc);
+                countQuery.setFilter(fieldName + " != null");
+                countQuery.setResult("count(this)");
+                countQuery.setUnique(true);
+                try
+                {
+                    count = ((Number) countQuery.execute()).longValue();
+                }
+                finally
+                {
+                    countQuery.closeAll();
+                }
+            }
+            if (results.size() >= count)
+            {
+                return results;
+            }
+            if (doublings == MAX_NEAREST_SEARCH_DOUBLINGS)
+            {
+                // e.g objects whose geometries have no distance, like empty ones
+                NucleusLogger.QUERY.warn("findNearest() found " + results.size() + " of " + k + " objects within " + distance + " of " + geometry +
+                    ", giving up");
+                return results;
+            }
+            distance *= 2;
+        }
     }
 
     protected Integer getIntegerValueForExtensionFromMetadata(Class pc, String memberName, String extensionKey)
@@ -358,9 +700,21 @@ public class SpatialHelper
         }.execute();
     }
 
+    private List executeToList(Query q, Object[] params)
+    {
+        try
+        {
+            return new ArrayList((Collection) q.executeWithArray(params));
+        }
+        finally
+        {
+            q.closeAll();
+        }
+    }
+
     /**
      * Abstract helper class to execute queries. Applies the <i>Template Method</i> pattern. 
-     * TODO Doesn't close the query after use.
+     * The query is closed after use, so results that are collections are copied first.
      */
     protected abstract class QueryExecutor
     {
@@ -374,15 +728,23 @@ public class SpatialHelper
         Object execute()
         {
             Object result = null;
+            Query q = null;
             boolean isActive = tx.isActive();
             try
             {
                 if (!isActive)
                     tx.begin();
-                result = getQuery().execute();
+                q = getQuery();
+                result = q.execute();
+                if (result instanceof Collection)
+                {
+                    result = new ArrayList((Collection) result);
+                }
             }
             finally
             {
+                if (q != null)
+                    q.closeAll();
                 if (!isActive)
                     tx.rollback();
             }
@@ -0,0 +1,499 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.query.inmemory;
+
+import java.util.List;
+
+import org.datanucleus.exceptions.NucleusException;
+import org.datanucleus.store.query.QueryUtils;
+import org.datanucleus.store.query.expression.Expression;
+import org.datanucleus.store.query.expression.InvokeExpression;
+import org.datanucleus.store.query.expression.Literal;
+import org.datanucleus.store.query.expression.ParameterExpression;
+import org.datanucleus.store.query.expression.PrimaryExpression;
+import org.datanucleus.store.query.inmemory.InMemoryExpressionEvaluator;
+import org.datanucleus.store.query.inmemory.InvocationEvaluator;
+import org.datanucleus.store.types.geospatial.codec.JtsGeometryCodec;
+import org.datanucleus.util.Localiser;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.MultiLineString;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.io.ByteOrderValues;
+import com.vividsolutions.jts.simplify.TopologyPreservingSimplifier;
+
+/**
+ * Evaluator for the methods of JTS geometries, such as "{geomExpr}.intersects(geomExpr2)" or "{geomExpr}.getArea()",
+ * and (through {@link SpatialFunction}) of their "Spatial.intersects(geomExpr, geomExpr2)" forms. The results follow
+ * the datastores rather than JTS where they differ: positions (getGeometryN, getPointN, getInteriorRingN) count from 1
+ * and a method with a null geometry argument returns null.
+ * When one side of a predicate is constant, i.e. a parameter or a literal, its prepared form is used, so that the
+ * predicate is evaluated against each candidate with indexed segment tests (see {@link PreparedGeometryCache}).
+ */
+public class GeometryMethod implements InvocationEvaluator
+{
+    /*
+     * (non-Javadoc)
+     * @see
+     * org.datanucleus.query.evaluator.memory.InvocationEvaluator#evaluate(org.datanucleus.query.expression
+     * .InvokeExpression, org.datanucleus.query.evaluator.memory.InMemoryExpressionEvaluator)
+     */
+    public Object evaluate(InvokeExpression expr, Object invokedValue, InMemoryExpressionEvaluator eval)
+    {
+        List<Expression> args = expr.getArguments();
+        Object[] argValues = getArgumentValues(expr.getOperation(), args, eval);
+        boolean argConstant = (args != null && !args.isEmpty() && isConstant(args.get(0)));
+        return invoke(expr.getOperation(), invokedValue, isConstant(expr.getLeft()), argValues, argConstant, eval);
+    }
+
+    /**
+     * Evaluates a method on a geometry.
+     * @param method Name of the method
+     * @param value The geometry the method is invoked on
+     * @param valueConstant Whether the geometry is constant for the query execution
+     * @param args Values of the arguments of the method
+     * @param argConstant Whether the first argument is constant for the query execution
+     * @param execution Key of the query execution, for caching the prepared constant geometries
+     * @return The result of the method
+     */
+    static Object invoke(String method, Object value, boolean valueConstant, Object[] args, boolean argConstant, Object execution)
+    {
+        if (value == null)
+        {
+            return null;
+        }
+        else if (!(value instanceof Geometry))
+        {
+            throw new NucleusException(Localiser.msg("021011", method, value.getClass().getName()));
+        }
+        Geometry geom = (Geometry) value;
+
+        if (isPredicate(method))
+        {
+            checkArguments(method, args, 1);
+            Geometry other = getGeometryArgument(method, args[0]);
+            if (other == null)
+            {
+                return null;
+            }
+            else if (argConstant)
+            {
+                // "a.contains(b)" is "b.within(a)", so evaluate the converse predicate with the prepared constant
+                return evaluatePredicate(getConversePredicate(method), PreparedGeometryCache.getPreparedGeometry(execution, other), geom);
+            }
+            else if (valueConstant)
+            {
+                return evaluatePredicate(method, PreparedGeometryCache.getPreparedGeometry(execution, geom), other);
+            }
+            return evaluatePredicate(method, geom, other);
+        }
+        else if ("equals".equals(method) || "relate".equals(method) || "distance".equals(method) || "knnDistance".equals(method) ||
+            "bboxTest".equals(method) || "intersection".equals(method) || "difference".equals(method) || "symDifference".equals(method) ||
+            "isWithinDistance".equals(method) || "clip".equals(method))
+        {
+            if ("relate".equals(method) && args.length == 2)
+            {
+                Geometry other = getGeometryArgument(method, args[0]);
+                return (other == null || args[1] == null) ? null : Boolean.valueOf(geom.relate(other, (String) args[1]));
+            }
+            else if ("isWithinDistance".equals(method))
+            {
+                checkArguments(method, args, 2);
+                Geometry other = getGeometryArgument(method, args[0]);
+                return (other == null || args[1] == null) ? null : Boolean.valueOf(geom.isWithinDistance(other, ((Number) args[1]).doubleValue()));
+            }
+
+            checkArguments(method, args, 1);
+            Geometry other = getGeometryArgument(method, args[0]);
+            if (other == null)
+            {
+                return null;
+            }
+            else if ("equals".equals(method))
+            {
+                return Boolean.valueOf(geom.equalsTopo(other));
+            }
+            else if ("relate".equals(method))
+            {
+                return geom.relate(other).toString();
+            }
+            else if ("distance".equals(method) || "knnDistance".equals(method))
+            {
+                return Double.valueOf(geom.distance(other));
+            }
+            else if ("bboxTest".equals(method))
+            {
+                return Boolean.valueOf(geom.getEnvelopeInternal().intersects(other.getEnvelopeInternal()));
+            }
+            else if ("intersection".equals(method))
+            {
+                return geom.intersection(other);
+            }
+            else if ("difference".equals(method))
+            {
+                return geom.difference(other);
+            }
+            else if ("symDifference".equals(method))
+            {
+                return geom.symDifference(other);
+            }
+            // Clip to the bounding box of the viewport
+            return geom.intersection(geom.getFactory().toGeometry(other.getEnvelopeInternal()));
+        }
+        else if ("union".equals(method))
+        {
+            if (args.length == 0)
+            {
+                return geom.union();
+            }
+            checkArguments(method, args, 1);
+            Geometry other = getGeometryArgument(method, args[0]);
+            return (other == null) ? null : geom.union(other);
+        }
+        else if ("buffer".equals(method) || "simplify".equals(method))
+        {
+            checkArguments(method, args, 1);
+            if (args[0] == null)
+            {
+                return null;
+            }
+            double distance = ((Number) args[0]).doubleValue();
+            return "buffer".equals(method) ? geom.buffer(distance) : TopologyPreservingSimplifier.simplify(geom, distance);
+        }
+        else if ("getGeometryN".equals(method) || "getPointN".equals(method) || "getInteriorRingN".equals(method))
+        {
+            checkArguments(method, args, 1);
+            if (args[0] == null)
+            {
+                return null;
+            }
+            return getNthGeometry(method, geom, ((Number) args[0]).intValue());
+        }
+
+        checkArguments(method, args, 0);
+        if ("getEnvelope".equals(method))
+        {
+            return geom.getEnvelope();
+        }
+        else if ("getDimension".equals(method))
+        {
+            return Integer.valueOf(geom.getDimension());
+        }
+        else if ("getBoundary".equals(method))
+        {
+            return geom.getBoundary();
+        }
+        else if ("getSRID".equals(method))
+        {
+            return Integer.valueOf(geom.getSRID());
+        }
+        else if ("isSimple".equals(method))
+        {
+            return Boolean.valueOf(geom.isSimple());
+        }
+        else if ("isEmpty".equals(method))
+        {
+            return Boolean.valueOf(geom.isEmpty());
+        }
+        else if ("toText".equals(method))
+        {
+            return geom.toText();
+        }
+        else if ("toBinary".equals(method))
+        {
+            return JtsGeometryCodec.writeWkb(geom, ByteOrderValues.BIG_ENDIAN, false);
+        }
+        else if ("getGeometryType".equals(method))
+        {
+            return geom.getGeometryType();
+        }
+        else if ("convexHull".equals(method))
+        {
+            return geom.convexHull();
+        }
+        else if ("getLength".equals(method))
+        {
+            return Double.valueOf(geom.getLength());
+        }
+        else if ("getArea".equals(method))
+        {
+            return Double.valueOf(geom.getArea());
+        }
+        else if ("getNumPoints".equals(method))
+        {
+            return Integer.valueOf(geom.getNumPoints());
+        }
+        else if ("getCentroid".equals(method))
+        {
+            return geom.getCentroid();
+        }
+        else if ("getPointOnSurface".equals(method))
+        {
+            return geom.getInteriorPoint();
+        }
+        else if ("getNumGeometries".equals(method))
+        {
+            return Integer.valueOf(geom.getNumGeometries());
+        }
+        else if (geom instanceof Point && ("getX".equals(method) || "getY".equals(method)))
+        {
+            return Double.valueOf("getX".equals(method) ? ((Point) geom).getX() : ((Point) geom).getY());
+        }
+        else if (geom instanceof LineString)
+        {
+            LineString line = (LineString) geom;
+            if ("isRing".equals(method))
+            {
+                return Boolean.valueOf(line.isRing());
+            }
+            else if ("isClosed".equals(method))
+            {
+                return Boolean.valueOf(line.isClosed());
+            }
+            else if ("getStartPoint".equals(method))
+            {
+                return line.getStartPoint();
+            }
+            else if ("getEndPoint".equals(method))
+            {
+                return line.getEndPoint();
+            }
+        }
+        else if (geom instanceof MultiLineString && "isClosed".equals(method))
+        {
+            return Boolean.valueOf(((MultiLineString) geom).isClosed());
+        }
+        else if (geom instanceof Polygon)
+        {
+            if ("getExteriorRing".equals(method))
+            {
+                return ((Polygon) geom).getExteriorRing();
+            }
+            else if ("getNumInteriorRing".equals(method))
+            {
+                return Integer.valueOf(((Polygon) geom).getNumInteriorRing());
+            }
+        }
+        throw new NucleusException(Localiser.msg("021011", method, value.getClass().getName()));
+    }
+
+    /**
+     * Accessor for the values of the arguments of a method.
+     * @param method Name of the method
+     * @param args The argument expressions
+     * @param eval The evaluator of the query
+     * @return The values
+     */
+    static Object[] getArgumentValues(String method, List<Expression> args, InMemoryExpressionEvaluator eval)
+    {
+        if (args == null)
+        {
+            return new Object[0];
+        }
+
+        Object[] argValues = new Object[args.size()];
+        for (int i = 0; i < argValues.length; i++)
+        {
+            Expression argExpr = args.get(i);
+            if (argExpr instanceof PrimaryExpression)
+            {
+                argValues[i] = eval.getValueForPrimaryExpression((PrimaryExpression) argExpr);
+            }
+            else if (argExpr instanceof ParameterExpression)
+            {
+                argValues[i] = QueryUtils.getValueForParameterExpression(eval.getParameterValues(), (ParameterExpression) argExpr);
+            }
+            else if (argExpr instanceof Literal)
+            {
+                argValues[i] = ((Literal) argExpr).getLiteral();
+            }
+            else if (argExpr instanceof InvokeExpression)
+            {
+                argValues[i] = eval.getValueForInvokeExpression((InvokeExpression) argExpr);
+            }
+            else
+            {
+                throw new NucleusException(method + "(arg) where arg is instanceof " + argExpr.getClass().getName() + " not supported");
+            }
+        }
+        return argValues;
+    }
+
+    /**
+     * Checks whether an expression has the same value for all candidates of a query execution.
+     * @param expr The expression
+     * @return Whether the expression is a parameter or a literal
+     */
+    static boolean isConstant(Expression expr)
+    {
+        return expr instanceof ParameterExpression || expr instanceof Literal;
+    }
+
+    static boolean isPredicate(String method)
+    {
+        return "intersects".equals(method) || "contains".equals(method) || "within".equals(method) || "covers".equals(method) ||
+            "coveredBy".equals(method) || "overlaps".equals(method) || "touches".equals(method) || "crosses".equals(method) ||
+            "disjoint".equals(method);
+    }
+
+    static String getConversePredicate(String method)
+    {
+        if ("contains".equals(method))
+        {
+            return "within";
+        }
+        else if ("within".equals(method))
+        {
+            return "contains";
+        }
+        else if ("covers".equals(method))
+        {
+            return "coveredBy";
+        }
+        else if ("coveredBy".equals(method))
+        {
+            return "covers";
+        }
+        // The other predicates are symmetric
+        return method;
+    }
+
+    static Boolean evaluatePredicate(String method, PreparedGeometry prepared, Geometry other)
+    {
+        boolean result;
+        if ("intersects".equals(method))
+        {
+            result = prepared.intersects(other);
+        }
+        else if ("contains".equals(method))
+        {
+            result = prepared.contains(other);
+        }
+        else if ("within".equals(method))
+        {
+            result = prepared.within(other);
+        }
+        else if ("covers".equals(method))
+        {
+            result = prepared.covers(other);
+        }
+        else if ("coveredBy".equals(method))
+        {
+            result = prepared.coveredBy(other);
+        }
+        else if ("overlaps".equals(method))
+        {
+            result = prepared.overlaps(other);
+        }
+        else if ("touches".equals(method))
+        {
+            result = prepared.touches(other);
+        }
+        else if ("crosses".equals(method))
+        {
+            result = prepared.crosses(other);
+        }
+        else
+        {
+            result = prepared.disjoint(other);
+        }
+        return Boolean.valueOf(result);
+    }
+
+    private static Boolean evaluatePredicate(String method, Geometry geom, Geometry other)
+    {
+        boolean result;
+        if ("intersects".equals(method))
+        {
+            result = geom.intersects(other);
+        }
+        else if ("contains".equals(method))
+        {
+            result = geom.contains(other);
+        }
+        else if ("within".equals(method))
+        {
+            result = geom.within(other);
+        }
+        else if ("covers".equals(method))
+        {
+            result = geom.covers(other);
+        }
+        else if ("coveredBy".equals(method))
+        {
+            result = geom.coveredBy(other);
+        }
+        else if ("overlaps".equals(method))
+        {
+            result = geom.overlaps(other);
+        }
+        else if ("touches".equals(method))
+        {
+            result = geom.touches(other);
+        }
+        else if ("crosses".equals(method))
+        {
+            result = geom.crosses(other);
+        }
+        else
+        {
+            result = geom.disjoint(other);
+        }
+        return Boolean.valueOf(result);
+    }
+
+    private static Geometry getNthGeometry(String method, Geometry geom, int position)
+    {
+        int index = position - 1;
+        if ("getGeometryN".equals(method))
+        {
+            return (index >= 0 && index < geom.getNumGeometries()) ? geom.getGeometryN(index) : null;
+        }
+        else if ("getPointN".equals(method) && geom instanceof LineString)
+        {
+            LineString line = (LineString) geom;
+            return (index >= 0 && index < line.getNumPoints()) ? line.getPointN(index) : null;
+        }
+        else if ("getInteriorRingN".equals(method) && geom instanceof Polygon)
+        {
+            Polygon polygon = (Polygon) geom;
+            return (index >= 0 && index < polygon.getNumInteriorRing()) ? polygon.getInteriorRingN(index) : null;
+        }
+        throw new NucleusException(Localiser.msg("021011", method, geom.getClass().getName()));
+    }
+
+    private static Geometry getGeometryArgument(String method, Object arg)
+    {
+        if (arg == null || arg instanceof Geometry)
+        {
+            return (Geometry) arg;
+        }
+        throw new NucleusException(method + "(arg) where arg is instanceof " + arg.getClass().getName() + " not supported");
+    }
+
+    private static void checkArguments(String method, Object[] args, int count)
+    {
+        if (args.length != count)
+        {
+            throw new NucleusException("Should have " + count + " argument(s) to Geometry." + method + "(...)");
+        }
+    }
+}
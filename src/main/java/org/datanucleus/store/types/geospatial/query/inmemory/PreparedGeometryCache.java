@@ -0,0 +1,73 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.query.inmemory;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+
+/**
+ * Cache of the prepared forms of the constant geometries (parameters and literals) of the in-memory executions of
+ * spatial queries. A geometry is prepared the first time a predicate on it is evaluated and then reused for all the
+ * other candidates of the execution. The geometries are cached by identity per execution, the key of an execution being
+ * its expression evaluator, so that a geometry changed between two executions is prepared again. Entries go once the
+ * evaluator of their execution is garbage collected.
+ */
+public class PreparedGeometryCache
+{
+    private static final Map<Object, Map<Geometry, PreparedGeometry>> PREPARED_GEOMETRIES = new WeakHashMap<Object, Map<Geometry, PreparedGeometry>>();
+
+    private PreparedGeometryCache()
+    {
+    }
+
+    /**
+     * Accessor for the prepared form of a constant geometry of a query execution.
+     * @param execution Key of the query execution, normally its expression evaluator
+     * @param geom The geometry
+     * @return The prepared geometry
+     */
+    public static PreparedGeometry getPreparedGeometry(Object execution, Geometry geom)
+    {
+        Map<Geometry, PreparedGeometry> preparedGeoms;
+        synchronized (PREPARED_GEOMETRIES)
+        {
+            preparedGeoms = PREPARED_GEOMETRIES.get(execution);
+            if (preparedGeoms == null)
+            {
+                preparedGeoms = new IdentityHashMap<Geometry, PreparedGeometry>();
+                PREPARED_GEOMETRIES.put(execution, preparedGeoms);
+            }
+        }
+
+        synchronized (preparedGeoms)
+        {
+            PreparedGeometry prepared = preparedGeoms.get(geom);
+            if (prepared == null)
+            {
+                prepared = PreparedGeometryFactory.prepare(geom);
+                preparedGeoms.put(geom, prepared);
+            }
+            return prepared;
+        }
+    }
+}
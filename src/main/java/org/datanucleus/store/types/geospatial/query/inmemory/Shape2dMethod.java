@@ -0,0 +1,168 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.query.inmemory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.datanucleus.exceptions.NucleusException;
+import org.datanucleus.store.query.expression.InvokeExpression;
+import org.datanucleus.store.query.inmemory.InMemoryExpressionEvaluator;
+import org.datanucleus.store.query.inmemory.InvocationEvaluator;
+import org.datanucleus.util.Localiser;
+
+/**
+ * Evaluator for the methods of the java.awt.geom shapes and points, such as "{rectExpr}.intersects(rectExpr2)",
+ * "{pointExpr}.distance(x, y)" or "{lineExpr}.getX1()". The method of the shape is invoked itself, so that the
+ * result is exactly that of Java; numeric arguments are widened to the parameter types of the method. The
+ * candidate methods of a class are looked up once per class, method name and number of arguments.
+ */
+public class Shape2dMethod implements InvocationEvaluator
+{
+    /** Public methods of the shape classes, keyed by class, method name and number of arguments. */
+    private static final ConcurrentHashMap<String, Method[]> METHODS = new ConcurrentHashMap<String, Method[]>();
+
+    /*
+     * (non-Javadoc)
+     * @see
+     * org.datanucleus.query.evaluator.memory.InvocationEvaluator#evaluate(org.datanucleus.query.expression
+     * .InvokeExpression, org.datanucleus.query.evaluator.memory.InMemoryExpressionEvaluator)
+     */
+    public Object evaluate(InvokeExpression expr, Object invokedValue, InMemoryExpressionEvaluator eval)
+    {
+        String method = expr.getOperation();
+        Object[] argValues = GeometryMethod.getArgumentValues(method, expr.getArguments(), eval);
+        if (invokedValue == null)
+        {
+            // NPE likely better
+            return null;
+        }
+        return invoke(method, invokedValue, argValues);
+    }
+
+    /**
+     * Invokes a method on a shape.
+     * @param method Name of the method
+     * @param value The shape
+     * @param args Values of the arguments
+     * @return The result of the method
+     */
+    static Object invoke(String method, Object value, Object[] args)
+    {
+        Method m = getMethod(value.getClass(), method, args);
+        if (m == null)
+        {
+            throw new NucleusException(Localiser.msg("021011", method, value.getClass().getName()));
+        }
+
+        Class[] paramTypes = m.getParameterTypes();
+        Object[] callArgs = new Object[args.length];
+        for (int i = 0; i < args.length; i++)
+        {
+            // Reflection only widens the primitive wrappers, so other numbers (e.g. BigDecimal) are converted
+            callArgs[i] = (paramTypes[i] == double.class ? Double.valueOf(((Number) args[i]).doubleValue()) : args[i]);
+        }
+
+        try
+        {
+            return m.invoke(value, callArgs);
+        }
+        catch (InvocationTargetException e)
+        {
+            throw new NucleusException("Invocation of " + method + " on " + value.getClass().getName() + " failed", e.getTargetException());
+        }
+        catch (IllegalAccessException e)
+        {
+            throw new NucleusException("Invocation of " + method + " on " + value.getClass().getName() + " failed", e);
+        }
+    }
+
+    private static Method getMethod(Class cls, String name, Object[] args)
+    {
+        String key = cls.getName() + "." + name + "/" + args.length;
+        Method[] methods = METHODS.get(key);
+        if (methods == null)
+        {
+            List<Method> candidates = new ArrayList<Method>();
+            Method[] all = cls.getMethods();
+            for (int i = 0; i < all.length; i++)
+            {
+                if (all[i].getName().equals(name) && all[i].getParameterTypes().length == args.length)
+                {
+                    candidates.add(all[i]);
+                }
+            }
+            methods = candidates.toArray(new Method[candidates.size()]);
+            METHODS.put(key, methods);
+        }
+
+        for (int i = 0; i < methods.length; i++)
+        {
+            Class[] paramTypes = methods[i].getParameterTypes();
+            boolean matches = true;
+            for (int j = 0; j < paramTypes.length && matches; j++)
+            {
+                matches = isAssignable(paramTypes[j], args[j]);
+            }
+            if (matches)
+            {
+                return methods[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a value can be passed for a parameter by reflection, allowing the widening conversions
+     * of the primitive types.
+     * @param type Type of the parameter
+     * @param value The value
+     * @return Whether the value can be passed
+     */
+    private static boolean isAssignable(Class type, Object value)
+    {
+        if (!type.isPrimitive())
+        {
+            return value == null || type.isInstance(value);
+        }
+        else if (type == double.class)
+        {
+            return value instanceof Number;
+        }
+        else if (type == float.class)
+        {
+            return value instanceof Float || value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+        }
+        else if (type == long.class)
+        {
+            return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+        }
+        else if (type == int.class)
+        {
+            return value instanceof Integer || value instanceof Short || value instanceof Byte;
+        }
+        else if (type == boolean.class)
+        {
+            return value instanceof Boolean;
+        }
+        return false;
+    }
+}
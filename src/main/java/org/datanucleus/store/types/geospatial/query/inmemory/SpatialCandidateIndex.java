@@ -0,0 +1,699 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.query.inmemory;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.datanucleus.api.jdo.JDOQuery;
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.store.query.Query;
+import org.datanucleus.store.query.QueryUtils;
+import org.datanucleus.store.query.compiler.QueryCompilation;
+import org.datanucleus.store.query.expression.DyadicExpression;
+import org.datanucleus.store.query.expression.Expression;
+import org.datanucleus.store.query.expression.InvokeExpression;
+import org.datanucleus.store.query.expression.Literal;
+import org.datanucleus.store.query.expression.ParameterExpression;
+import org.datanucleus.store.query.expression.PrimaryExpression;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import com.vividsolutions.jts.index.strtree.STRtree;
+
+/**
+ * Index of the JTS geometries of a field of a collection of candidates for in-memory queries, as a packed STRtree of
+ * their envelopes. DataNucleus evaluates the filter of an in-memory query against every candidate, so the index is
+ * meant to be built once for a snapshot of candidates and then used to reduce the candidates of each query to those
+ * that can match before they're given to {@link javax.jdo.Query#setCandidates(Collection)}, e.g.
+ * <pre>
+ * SpatialCandidateIndex index = new SpatialCandidateIndex(features, "geom");
+ * ...
+ * Query q = pm.newQuery(Feature.class, "geom.intersects(:area) &amp;&amp; type == :type");
+ * q.setCandidates(index.filter(q, params));
+ * List results = (List) q.executeWithMap(params);
+ * </pre>
+ * {@link #filter(Query, Map)} recognises the spatial predicates of the field of the index against a geometry parameter
+ * at the top level of the filter, and returns the candidates whose envelope is hit, in their original order. The query
+ * then evaluates the predicates exactly on those only. The index also answers spatial joins between two candidate sets,
+ * see {@link #join(SpatialCandidateIndex, String, double)}.
+ * <p>
+ * Exact predicates are expensive, so they can be evaluated in parallel, see {@link #setParallelism(ForkJoinPool, int)}.
+ * {@link #filter(Query, Map)} then evaluates the recognised predicates exactly on the envelope hits, spread across the
+ * pool, and returns only the candidates matching them (the query evaluating them again on those only). The candidates
+ * are split in ranges whose results are put together in the original order, so results don't depend on the
+ * scheduling. Below the threshold, or without a pool, filtering stays sequential and leaves the exact predicates to the query.
+ * </p>
+ * The geometries are read when the index is built, through the getter of the field if it has one (so that fields of
+ * persistent objects are loaded) or else the field itself. The index must be rebuilt when they change.
+ */
+public class SpatialCandidateIndex
+{
+    /** Node capacity of the tree, the default of JTS. */
+    private static final int NODE_CAPACITY = 10;
+
+    /** Number of candidates a parallel task evaluates without splitting further. */
+    private static final int TASK_SIZE = 256;
+
+    private final String fieldName;
+
+    private final List candidates;
+
+    private final Geometry[] geometries;
+
+    private final STRtree tree;
+
+    /** Pool for evaluating predicates in parallel, null when they're evaluated sequentially. */
+    private ForkJoinPool pool;
+
+    /** Minimum number of envelope hits evaluated in parallel. */
+    private int parallelThreshold;
+
+    /**
+     * Constructor, building the index.
+     * @param candidates The candidates
+     * @param fieldName Name of the field holding the geometry of the candidates
+     * @throws NucleusUserException If the field cannot be read or doesn't hold JTS geometries
+     */
+    public SpatialCandidateIndex(Collection candidates, String fieldName)
+    {
+        this.fieldName = fieldName;
+        this.candidates = Collections.unmodifiableList(new ArrayList(candidates));
+        this.geometries = new Geometry[this.candidates.size()];
+        this.tree = new STRtree(NODE_CAPACITY);
+
+        Map<Class, AccessibleObject> accessors = new HashMap<Class, AccessibleObject>();
+        for (int i = 0; i < geometries.length; i++)
+        {
+            Object candidate = this.candidates.get(i);
+            if (candidate == null)
+            {
+                continue;
+            }
+            AccessibleObject accessor = accessors.get(candidate.getClass());
+            if (accessor == null)
+            {
+                accessor = getAccessor(candidate.getClass(), fieldName);
+                accessors.put(candidate.getClass(), accessor);
+            }
+
+            Object value = getValue(accessor, candidate);
+            if (value != null && !(value instanceof Geometry))
+            {
+                throw new NucleusUserException("Field " + fieldName + " of " + candidate.getClass().getName() + " doesn't hold JTS geometries and cannot be indexed");
+            }
+            geometries[i] = (Geometry) value;
+            if (geometries[i] != null && !geometries[i].isEmpty())
+            {
+                tree.insert(geometries[i].getEnvelopeInternal(), Integer.valueOf(i));
+            }
+        }
+        tree.build();
+    }
+
+    public String getFieldName()
+    {
+        return fieldName;
+    }
+
+    /**
+     * Sets whether exact predicates are evaluated in parallel, which is off by default.
+     * @param pool The pool to evaluate them in, e.g. {@link ForkJoinPool#commonPool()}, or null for sequential evaluation
+     * @param threshold Minimum number of envelope hits evaluated in parallel, fewer being evaluated sequentially
+     */
+    public void setParallelism(ForkJoinPool pool, int threshold)
+    {
+        this.pool = pool;
+        this.parallelThreshold = threshold;
+    }
+
+    /**
+     * Accessor for all candidates of the index.
+     * @return The candidates, in their original order
+     */
+    public List getCandidates()
+    {
+        return candidates;
+    }
+
+    /**
+     * Accessor for the candidates whose geometry envelope intersects an envelope.
+     * @param envelope The envelope
+     * @return The candidates, in their original order
+     */
+    public List getCandidates(Envelope envelope)
+    {
+        return getCandidates(getPositions(envelope));
+    }
+
+    /**
+     * Accessor for the candidates for which a spatial predicate holds.
+     * @param predicate The predicate, as a geometry method of the candidates, e.g. "intersects" or "within"
+     * @param geometry The geometry the predicate takes
+     * @return The candidates, in their original order
+     */
+    public List filter(String predicate, Geometry geometry)
+    {
+        if (!GeometryMethod.isPredicate(predicate) && !"equals".equals(predicate) && !"bboxTest".equals(predicate))
+        {
+            throw new NucleusUserException("Filtering with " + predicate + " not supported");
+        }
+        if (geometry == null)
+        {
+            return Collections.EMPTY_LIST;
+        }
+
+        SpatialPredicate spatialPredicate = new SpatialPredicate(predicate, geometry, true, 0, null);
+        List<SpatialPredicate> predicates = Collections.singletonList(spatialPredicate);
+        BitSet positions;
+        if ("disjoint".equals(predicate))
+        {
+            // Every candidate outside of the envelope is disjoint, only those it hits need to be evaluated
+            positions = new BitSet(geometries.length);
+            for (int i = 0; i < geometries.length; i++)
+            {
+                positions.set(i, geometries[i] != null);
+            }
+            BitSet hits = getPositions(spatialPredicate.getWindow());
+            positions.andNot(hits);
+            positions.or(evaluate(hits, predicates));
+        }
+        else
+        {
+            positions = evaluate(getPositions(spatialPredicate.getWindow()), predicates);
+        }
+        return getCandidates(positions);
+    }
+
+    /**
+     * Reduces the candidates to those that can match the filter of a JDOQL query, see {@link #filter(Query, Map)}.
+     * @param query The query
+     * @param parameterValues The parameters the query is executed with
+     * @return The candidates that can match, in their original order
+     */
+    public List filter(javax.jdo.Query query, Map parameterValues)
+    {
+        return filter(((JDOQuery) query).getInternalQuery(), parameterValues);
+    }
+
+    /**
+     * Reduces the candidates to those that can match the filter of a query. The spatial predicates of the field of this
+     * index against a geometry parameter that are at the top level of the filter, e.g. "geom.intersects(:area)",
+     * "Spatial.within(geom, :area)" or "geom.isWithinDistance(:point, 100)", select the candidates whose envelope hits
+     * the envelope of the parameter. When the filter has none, all candidates are returned. When parallel evaluation is
+     * enabled and there are enough envelope hits, only the hits matching the predicates exactly are returned.
+     * @param query The query
+     * @param parameterValues The parameters the query is executed with
+     * @return The candidates that can match, in their original order
+     */
+    public List filter(Query query, Map parameterValues)
+    {
+        query.compile();
+        QueryCompilation compilation = query.getCompilation();
+        if (compilation == null)
+        {
+            return candidates;
+        }
+        return filter(compilation.getExprFilter(), compilation.getCandidateAlias(), parameterValues);
+    }
+
+    /**
+     * Reduces the candidates to those that can match a compiled filter, see {@link #filter(Query, Map)}.
+     * @param filterExpr The filter, or null when there is none
+     * @param candidateAlias Alias of the candidate in the filter
+     * @param parameterValues The parameters the filter is evaluated with
+     * @return The candidates that can match, in their original order
+     */
+    List filter(Expression filterExpr, String candidateAlias, Map parameterValues)
+    {
+        if (filterExpr == null)
+        {
+            return candidates;
+        }
+
+        List<SpatialPredicate> predicates = new ArrayList<SpatialPredicate>();
+        addPredicates(filterExpr, candidateAlias, parameterValues, predicates);
+        if (predicates.isEmpty())
+        {
+            return candidates;
+        }
+
+        BitSet positions = null;
+        for (SpatialPredicate predicate : predicates)
+        {
+            BitSet hits = getPositions(predicate.getWindow());
+            if (positions == null)
+            {
+                positions = hits;
+            }
+            else
+            {
+                positions.and(hits);
+            }
+        }
+        if (pool != null && positions.cardinality() >= parallelThreshold)
+        {
+            positions = evaluate(positions, predicates);
+        }
+        return getCandidates(positions);
+    }
+
+    /**
+     * Spatial join of the candidates of this index with those of another, returning the pairs for which the predicate
+     * holds. The geometry of each candidate of the other index is prepared once and only tested against the candidates
+     * of this index whose envelope it hits.
+     * @param other The index of the other candidates
+     * @param predicate The predicate, as a geometry method of the candidates of this index taking the geometry of the
+     * other candidates, e.g. "intersects", "within" or "isWithinDistance"
+     * @param distance The distance for "isWithinDistance", ignored otherwise
+     * @return The pairs, {candidate, other candidate}, ordered by the other candidates then the candidates
+     */
+    public List<Object[]> join(SpatialCandidateIndex other, String predicate, double distance)
+    {
+        boolean withinDistance = "isWithinDistance".equals(predicate);
+        if (!withinDistance && !GeometryMethod.isPredicate(predicate) && !"equals".equals(predicate) && !"bboxTest".equals(predicate))
+        {
+            throw new NucleusUserException("Spatial join with " + predicate + " not supported");
+        }
+
+        Object execution = new Object();
+        List<Object[]> pairs = new ArrayList<Object[]>();
+        for (int i = 0; i < other.geometries.length; i++)
+        {
+            Geometry otherGeom = other.geometries[i];
+            if (otherGeom == null || otherGeom.isEmpty())
+            {
+                continue;
+            }
+
+            Envelope window = new Envelope(otherGeom.getEnvelopeInternal());
+            Object[] args = new Object[] {otherGeom};
+            if (withinDistance)
+            {
+                window.expandBy(distance);
+                args = new Object[] {otherGeom, Double.valueOf(distance)};
+            }
+            BitSet positions = getPositions(window);
+            for (int j = positions.nextSetBit(0); j >= 0; j = positions.nextSetBit(j + 1))
+            {
+                if (Boolean.TRUE.equals(GeometryMethod.invoke(predicate, geometries[j], false, args, true, execution)))
+                {
+                    pairs.add(new Object[] {candidates.get(j), other.candidates.get(i)});
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Adds the spatial predicates on the field of this index at the top level of an expression.
+     */
+    private void addPredicates(Expression expr, String candidateAlias, Map parameterValues, List<SpatialPredicate> predicates)
+    {
+        if (expr instanceof DyadicExpression)
+        {
+            Expression left = expr.getLeft();
+            Expression right = expr.getRight();
+            if (expr.getOperator() == Expression.OP_AND)
+            {
+                addPredicates(left, candidateAlias, parameterValues, predicates);
+                addPredicates(right, candidateAlias, parameterValues, predicates);
+            }
+            else if (expr.getOperator() == Expression.OP_EQ && right instanceof Literal && Boolean.TRUE.equals(((Literal) right).getLiteral()))
+            {
+                addPredicates(left, candidateAlias, parameterValues, predicates);
+            }
+            else if ((expr.getOperator() == Expression.OP_LT || expr.getOperator() == Expression.OP_LTEQ) && left instanceof InvokeExpression)
+            {
+                // "geom.distance(:point) < 100"
+                InvokeExpression invokeExpr = (InvokeExpression) left;
+                if ("distance".equals(invokeExpr.getOperation()) || "Spatial.distance".equals(invokeExpr.getOperation()))
+                {
+                    Object distance = getConstantValue(right, parameterValues);
+                    if (distance instanceof Number)
+                    {
+                        addPredicate(invokeExpr, "distance", candidateAlias, parameterValues, ((Number) distance).doubleValue(), expr.getOperator(),
+                            predicates);
+                    }
+                }
+            }
+        }
+        else if (expr instanceof InvokeExpression)
+        {
+            InvokeExpression invokeExpr = (InvokeExpression) expr;
+            String method = invokeExpr.getOperation();
+            if (method.startsWith("Spatial."))
+            {
+                method = method.substring(8);
+            }
+
+            if ("isWithinDistance".equals(method) || "dwithin".equals(method))
+            {
+                List<Expression> args = invokeExpr.getArguments();
+                Object distance = getConstantValue(args.get(args.size() - 1), parameterValues);
+                if (distance instanceof Number)
+                {
+                    addPredicate(invokeExpr, "isWithinDistance", candidateAlias, parameterValues, ((Number) distance).doubleValue(), null, predicates);
+                }
+            }
+            else if ((GeometryMethod.isPredicate(method) && !"disjoint".equals(method)) || "equals".equals(method) || "bboxTest".equals(method))
+            {
+                addPredicate(invokeExpr, method, candidateAlias, parameterValues, 0, null, predicates);
+            }
+        }
+    }
+
+    /**
+     * Adds a spatial predicate when it compares the field of this index with a constant geometry.
+     */
+    private void addPredicate(InvokeExpression invokeExpr, String method, String candidateAlias, Map parameterValues, double distance,
+            Expression.Operator distanceOperator, List<SpatialPredicate> predicates)
+    {
+        Expression geomExpr = invokeExpr.getLeft();
+        Expression otherExpr = null;
+        List<Expression> args = invokeExpr.getArguments();
+        if (geomExpr == null)
+        {
+            // "Spatial." method
+            if (args == null || args.size() < 2)
+            {
+                return;
+            }
+            geomExpr = args.get(0);
+            otherExpr = args.get(1);
+        }
+        else if (args != null && !args.isEmpty())
+        {
+            otherExpr = args.get(0);
+        }
+
+        boolean candidateInvoked = true;
+        if (!isIndexedField(geomExpr, candidateAlias))
+        {
+            Expression swap = geomExpr;
+            geomExpr = otherExpr;
+            otherExpr = swap;
+            candidateInvoked = false;
+        }
+        if (isIndexedField(geomExpr, candidateAlias))
+        {
+            Object other = getConstantValue(otherExpr, parameterValues);
+            if (other instanceof Geometry)
+            {
+                predicates.add(new SpatialPredicate(method, (Geometry) other, candidateInvoked, distance, distanceOperator));
+            }
+        }
+    }
+
+    private boolean isIndexedField(Expression expr, String candidateAlias)
+    {
+        if (!(expr instanceof PrimaryExpression))
+        {
+            return false;
+        }
+        List<String> tuples = ((PrimaryExpression) expr).getTuples();
+        if (tuples.size() == 2 && tuples.get(0).equals(candidateAlias))
+        {
+            return tuples.get(1).equals(fieldName);
+        }
+        return tuples.size() == 1 && tuples.get(0).equals(fieldName);
+    }
+
+    private static Object getConstantValue(Expression expr, Map parameterValues)
+    {
+        if (expr instanceof ParameterExpression)
+        {
+            return (parameterValues != null) ? QueryUtils.getValueForParameterExpression(parameterValues, (ParameterExpression) expr) : null;
+        }
+        else if (expr instanceof Literal)
+        {
+            return ((Literal) expr).getLiteral();
+        }
+        return null;
+    }
+
+    private BitSet getPositions(Envelope envelope)
+    {
+        BitSet positions = new BitSet(geometries.length);
+        Iterator iter = tree.query(envelope).iterator();
+        while (iter.hasNext())
+        {
+            positions.set(((Integer) iter.next()).intValue());
+        }
+        return positions;
+    }
+
+    private List getCandidates(BitSet positions)
+    {
+        List hits = new ArrayList(positions.cardinality());
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1))
+        {
+            hits.add(candidates.get(i));
+        }
+        return hits;
+    }
+
+    /**
+     * Evaluates spatial predicates exactly on the candidates at the given positions, in parallel when enabled and there
+     * are enough of them.
+     * @return The positions of the candidates matching all predicates
+     */
+    private BitSet evaluate(BitSet positions, List<SpatialPredicate> predicates)
+    {
+        int[] hits = new int[positions.cardinality()];
+        int count = 0;
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1))
+        {
+            hits[count++] = i;
+        }
+
+        PreparedGeometry[] prepared = new PreparedGeometry[predicates.size()];
+        for (int i = 0; i < prepared.length; i++)
+        {
+            prepared[i] = PreparedGeometryFactory.prepare(predicates.get(i).geometry);
+        }
+
+        boolean[] matches = new boolean[hits.length];
+        EvaluationTask task = new EvaluationTask(hits, matches, 0, hits.length, predicates, prepared);
+        if (pool != null && hits.length >= parallelThreshold)
+        {
+            pool.invoke(task);
+        }
+        else
+        {
+            task.evaluateRange();
+        }
+
+        BitSet results = new BitSet(geometries.length);
+        for (int i = 0; i < hits.length; i++)
+        {
+            if (matches[i])
+            {
+                results.set(hits[i]);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Task evaluating the predicates on a range of candidates, split in halves until small enough. Each task only
+     * writes the results of its own range.
+     */
+    private class EvaluationTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = -2262806612405950521L;
+
+        private final int[] hits;
+
+        private final boolean[] matches;
+
+        private final int start;
+
+        private final int end;
+
+        private final List<SpatialPredicate> predicates;
+
+        private final PreparedGeometry[] prepared;
+
+        EvaluationTask(int[] hits, boolean[] matches, int start, int end, List<SpatialPredicate> predicates, PreparedGeometry[] prepared)
+        {
+            this.hits = hits;
+            this.matches = matches;
+            this.start = start;
+            this.end = end;
+            this.predicates = predicates;
+            this.prepared = prepared;
+        }
+
+        protected void compute()
+        {
+            if (end - start <= TASK_SIZE)
+            {
+                evaluateRange();
+            }
+            else
+            {
+                int middle = (start + end) >>> 1;
+                invokeAll(new EvaluationTask(hits, matches, start, middle, predicates, prepared),
+                    new EvaluationTask(hits, matches, middle, end, predicates, prepared));
+            }
+        }
+
+        void evaluateRange()
+        {
+            for (int i = start; i < end; i++)
+            {
+                Geometry geom = geometries[hits[i]];
+                boolean match = true;
+                for (int j = 0; j < prepared.length && match; j++)
+                {
+                    match = predicates.get(j).matches(geom, prepared[j]);
+                }
+                matches[i] = match;
+            }
+        }
+    }
+
+    /**
+     * Spatial predicate between the geometry of the candidates and a constant geometry.
+     */
+    private static class SpatialPredicate
+    {
+        final String method;
+
+        final Geometry geometry;
+
+        /** Whether the method is invoked on the geometry of the candidate, or else on the constant geometry. */
+        final boolean candidateInvoked;
+
+        final double distance;
+
+        /** Comparison of the distance for the "distance" method. */
+        final Expression.Operator distanceOperator;
+
+        SpatialPredicate(String method, Geometry geometry, boolean candidateInvoked, double distance, Expression.Operator distanceOperator)
+        {
+            this.method = method;
+            this.geometry = geometry;
+            this.candidateInvoked = candidateInvoked;
+            this.distance = distance;
+            this.distanceOperator = distanceOperator;
+        }
+
+        /**
+         * Accessor for the envelope that the envelope of a candidate must intersect for the predicate to hold.
+         * @return The envelope
+         */
+        Envelope getWindow()
+        {
+            Envelope window = new Envelope(geometry.getEnvelopeInternal());
+            window.expandBy(distance);
+            return window;
+        }
+
+        boolean matches(Geometry geom, PreparedGeometry prepared)
+        {
+            if (geom == null)
+            {
+                return false;
+            }
+            else if ("isWithinDistance".equals(method))
+            {
+                return geom.isWithinDistance(geometry, distance);
+            }
+            else if ("distance".equals(method))
+            {
+                double geomDistance = geom.distance(geometry);
+                return (distanceOperator == Expression.OP_LT) ? geomDistance < distance : geomDistance <= distance;
+            }
+            else if ("equals".equals(method))
+            {
+                return geom.equalsTopo(geometry);
+            }
+            else if ("bboxTest".equals(method))
+            {
+                return geom.getEnvelopeInternal().intersects(geometry.getEnvelopeInternal());
+            }
+
+            // "a.contains(b)" is "b.within(a)", the constant being prepared
+            String preparedMethod = candidateInvoked ? GeometryMethod.getConversePredicate(method) : method;
+            return GeometryMethod.evaluatePredicate(preparedMethod, prepared, geom).booleanValue();
+        }
+    }
+
+    private static AccessibleObject getAccessor(Class cls, String fieldName)
+    {
+        String getterName = "get" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+        for (Class c = cls; c != null; c = c.getSuperclass())
+        {
+            try
+            {
+                Method getter = c.getDeclaredMethod(getterName);
+                getter.setAccessible(true);
+                return getter;
+            }
+            catch (NoSuchMethodException nsme)
+            {
+                // Try the superclass
+            }
+        }
+        for (Class c = cls; c != null; c = c.getSuperclass())
+        {
+            try
+            {
+                Field field = c.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                return field;
+            }
+            catch (NoSuchFieldException nsfe)
+            {
+                // Try the superclass
+            }
+        }
+        throw new NucleusUserException("Class " + cls.getName() + " has no field " + fieldName);
+    }
+
+    private static Object getValue(AccessibleObject accessor, Object candidate)
+    {
+        try
+        {
+            if (accessor instanceof Field)
+            {
+                return ((Field) accessor).get(candidate);
+            }
+            return ((Method) accessor).invoke(candidate);
+        }
+        catch (Exception e)
+        {
+            throw new NucleusUserException("Cannot read the geometry of " + candidate, e);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.query.inmemory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.datanucleus.exceptions.NucleusException;
+import org.datanucleus.store.query.expression.Expression;
+import org.datanucleus.store.query.expression.InvokeExpression;
+import org.datanucleus.store.query.inmemory.InMemoryExpressionEvaluator;
+import org.datanucleus.store.query.inmemory.InvocationEvaluator;
+import org.datanucleus.store.types.geospatial.codec.JtsGeometryCodec;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.ParseException;
+
+/**
+ * Evaluator for the static spatial functions on JTS geometries, such as "Spatial.intersects(geomExpr, geomExpr2)" or
+ * "Spatial.area(geomExpr)", which are evaluated as the equivalent method of their first argument by
+ * {@link GeometryMethod}, and for the functions creating a geometry, such as "Spatial.geomFromText(wkt, srid)".
+ */
+public class SpatialFunction implements InvocationEvaluator
+{
+    /** Names of the geometry methods of the functions whose name differs from the method. */
+    private static final Map<String, String> METHOD_NAMES = new HashMap<String, String>();
+
+    static
+    {
+        METHOD_NAMES.put("Spatial.envelope", "getEnvelope");
+        METHOD_NAMES.put("Spatial.dimension", "getDimension");
+        METHOD_NAMES.put("Spatial.boundary", "getBoundary");
+        METHOD_NAMES.put("Spatial.srid", "getSRID");
+        METHOD_NAMES.put("Spatial.asBinary", "toBinary");
+        METHOD_NAMES.put("Spatial.asText", "toText");
+        METHOD_NAMES.put("Spatial.geometryType", "getGeometryType");
+        METHOD_NAMES.put("Spatial.dwithin", "isWithinDistance");
+        METHOD_NAMES.put("Spatial.length", "getLength");
+        METHOD_NAMES.put("Spatial.numPoints", "getNumPoints");
+        METHOD_NAMES.put("Spatial.centroid", "getCentroid");
+        METHOD_NAMES.put("Spatial.area", "getArea");
+        METHOD_NAMES.put("Spatial.pointOnSurface", "getPointOnSurface");
+        METHOD_NAMES.put("Spatial.numGeometries", "getNumGeometries");
+        METHOD_NAMES.put("Spatial.geometryN", "getGeometryN");
+        METHOD_NAMES.put("Spatial.x", "getX");
+        METHOD_NAMES.put("Spatial.y", "getY");
+        METHOD_NAMES.put("Spatial.startPoint", "getStartPoint");
+        METHOD_NAMES.put("Spatial.endPoint", "getEndPoint");
+        METHOD_NAMES.put("Spatial.pointN", "getPointN");
+        METHOD_NAMES.put("Spatial.exteriorRing", "getExteriorRing");
+        METHOD_NAMES.put("Spatial.numInteriorRing", "getNumInteriorRing");
+        METHOD_NAMES.put("Spatial.interiorRingN", "getInteriorRingN");
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see
+     * org.datanucleus.query.evaluator.memory.InvocationEvaluator#evaluate(org.datanucleus.query.expression
+     * .InvokeExpression, org.datanucleus.query.evaluator.memory.InMemoryExpressionEvaluator)
+     */
+    public Object evaluate(InvokeExpression expr, Object invokedValue, InMemoryExpressionEvaluator eval)
+    {
+        String function = expr.getOperation();
+        List<Expression> args = expr.getArguments();
+        Object[] argValues = GeometryMethod.getArgumentValues(function, args, eval);
+        if (argValues.length == 0)
+        {
+            throw new NucleusException("Should have arguments to " + function + "(...)");
+        }
+
+        if (function.endsWith("FromText") || function.endsWith("FromWKB"))
+        {
+            return createGeometry(function, argValues);
+        }
+
+        String method = METHOD_NAMES.get(function);
+        if (method == null)
+        {
+            method = function.substring(function.indexOf('.') + 1);
+        }
+        Object[] methodArgs = new Object[argValues.length - 1];
+        System.arraycopy(argValues, 1, methodArgs, 0, methodArgs.length);
+        boolean argConstant = (args.size() > 1 && GeometryMethod.isConstant(args.get(1)));
+        return GeometryMethod.invoke(method, argValues[0], GeometryMethod.isConstant(args.get(0)), methodArgs, argConstant, eval);
+    }
+
+    private static Geometry createGeometry(String function, Object[] args)
+    {
+        if (args.length != 2)
+        {
+            throw new NucleusException("Should have 2 arguments to " + function + "(...)");
+        }
+        if (args[0] == null || args[1] == null)
+        {
+            return null;
+        }
+
+        Geometry geom;
+        try
+        {
+            geom = function.endsWith("FromText") ? JtsGeometryCodec.readWkt((String) args[0]) : JtsGeometryCodec.readWkb((byte[]) args[0]);
+        }
+        catch (ParseException pe)
+        {
+            throw new NucleusException("Cannot evaluate " + function + "(...) : " + pe.getMessage(), pe);
+        }
+        geom.setSRID(((Number) args[1]).intValue());
+        return geom;
+    }
+}
@@ -20,16 +20,23 @@ package org.datanucleus.store.types.geospatial.rdbms.adapter;
 import java.sql.DatabaseMetaData;
 import java.sql.JDBCType;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
 
 import org.datanucleus.ClassLoaderResolver;
-import org.datanucleus.exceptions.ClassNotResolvedException;
 import org.datanucleus.plugin.PluginManager;
 import org.datanucleus.store.connection.ManagedConnection;
 import org.datanucleus.store.rdbms.adapter.MySQLAdapter;
+import org.datanucleus.store.rdbms.identifier.DatastoreIdentifier;
+import org.datanucleus.store.rdbms.identifier.IdentifierFactory;
+import org.datanucleus.store.rdbms.key.Index;
 import org.datanucleus.store.rdbms.schema.SQLTypeInfo;
 import org.datanucleus.store.rdbms.table.Column;
 import org.datanucleus.store.rdbms.table.Table;
+import org.datanucleus.store.rdbms.table.TableImpl;
 import org.datanucleus.store.schema.StoreSchemaHandler;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.SpatialMappingHelper;
 import org.datanucleus.util.NucleusLogger;
 
 /**
@@ -152,6 +159,110 @@ public class MySQLSpatialAdapter extends MySQLAdapter implements SpatialRDBMSAda
         return typeInfo.getTypeName().equalsIgnoreCase("geometry") || typeInfo.getTypeName().equalsIgnoreCase("geometrycollection");
     }
 
+    /**
+     * Returns the statement to create an index. An index on a geometry column is created as SPATIAL index, which
+     * requires the column to be NOT NULL (see the extension "spatial-index").
+     * @param idx The index
+     * @param factory Identifier factory
+     * @return The statement to create the index
+     */
+    public String getCreateIndexStatement(Index idx, IdentifierFactory factory)
+    {
+        if (idx.getColumns().size() == 1 && isGeometryColumn(idx.getColumns().get(0)))
+        {
+            DatastoreIdentifier indexIdentifier = factory.newTableIdentifier(idx.getName());
+            return "CREATE SPATIAL INDEX " + indexIdentifier + " ON " + idx.getTable().toString() + " (" + idx.getColumns().get(0).getIdentifier() + ")";
+        }
+
+        return super.getCreateIndexStatement(idx, factory);
+    }
+
+    /**
+     * Returns the statement creating a table. The geometry columns marked with "spatial-index" are declared NOT NULL,
+     * and get their SPATIAL index in the same statement.
+     * @param table The table
+     * @param columns The columns of the table
+     * @param props Properties for the table
+     * @param factory Identifier factory
+     * @return The statement creating the table
+     */
+    public String getCreateTableStatement(TableImpl table, Column[] columns, Properties props, IdentifierFactory factory)
+    {
+        List<Column> ddlColumns = new ArrayList<Column>(columns.length);
+        List<Column> indexDefinitions = new ArrayList<Column>();
+        for (Column col : columns)
+        {
+            if (isGeometryColumn(col) && SpatialMappingHelper.hasSpatialIndex(table.getStoreManager(), col))
+            {
+                ddlColumns.add(getSpatialIndexColumn(table, col));
+                if (SpatialDDLHelper.isSpatialIndexCreatedWithColumn(table, col))
+                {
+                    // MySQL accepts index definitions among the column definitions
+                    indexDefinitions.add(SpatialDDLHelper.withSQLDefinition(col,
+                        "SPATIAL INDEX " + SpatialDDLHelper.getSpatialIndexIdentifier(table, col, factory) + " (" + col.getIdentifier() + ")"));
+                }
+            }
+            else
+            {
+                ddlColumns.add(col);
+            }
+        }
+        if (ddlColumns.size() == columns.length && indexDefinitions.isEmpty())
+        {
+            return super.getCreateTableStatement(table, columns, props, factory);
+        }
+
+        ddlColumns.addAll(indexDefinitions);
+        return super.getCreateTableStatement(table, ddlColumns.toArray(new Column[ddlColumns.size()]), props, factory);
+    }
+
+    /**
+     * Returns the statement adding a column. A geometry column marked with "spatial-index" is declared NOT NULL, and
+     * gets its SPATIAL index in the same statement.
+     * @param table The table
+     * @param column The column
+     * @return The statement adding the column
+     */
+    public String getAddColumnStatement(Table table, Column column)
+    {
+        if (!isGeometryColumn(column) || !SpatialMappingHelper.hasSpatialIndex(table.getStoreManager(), column))
+        {
+            return super.getAddColumnStatement(table, column);
+        }
+
+        String stmt = super.getAddColumnStatement(table, getSpatialIndexColumn(table, column));
+        if (SpatialDDLHelper.isSpatialIndexCreatedWithColumn(table, column))
+        {
+            stmt += ", ADD SPATIAL INDEX " + SpatialDDLHelper.getSpatialIndexIdentifier(table, column, table.getStoreManager().getIdentifierFactory()) +
+                " (" + column.getIdentifier() + ")";
+        }
+        return stmt;
+    }
+
+    /**
+     * Returns the column to use in the DDL of a geometry column with a spatial index. MySQL can only index NOT NULL
+     * columns, and (from 8.0) only uses the index when the column is restricted to one SRID, so the column is declared
+     * NOT NULL, with the SRID given by "spatial-srid" if any. DDL specified by the user is kept as is.
+     * @param table The table
+     * @param column The geometry column
+     * @return The column to use in the DDL
+     */
+    private Column getSpatialIndexColumn(Table table, Column column)
+    {
+        if (SpatialDDLHelper.hasColumnDdl(column))
+        {
+            return column;
+        }
+
+        String definition = column.getIdentifier() + " " + column.getTypeInfo().getTypeName() + " NOT NULL";
+        int srid = SpatialMappingHelper.getIntOption(table.getStoreManager(), column, null, SRID_EXTENSION_KEY, -1);
+        if (srid >= 0 && datastoreMajorVersion >= 8)
+        {
+            definition += " SRID " + srid;
+        }
+        return SpatialDDLHelper.withSQLDefinition(column, definition);
+    }
+
     public String getRetrieveCrsNameStatement(Table table, int srid)
     {
         return null;
@@ -162,255 +273,268 @@ public class MySQLSpatialAdapter extends MySQLAdapter implements SpatialRDBMSAda
         return null;
     }
 
+    public String getRetrieveAllCrsStatement(Table table)
+    {
+        return null;
+    }
+
+    public String getReducedFetchFunction(String fetchMode, double tolerance)
+    {
+        if (FETCH_MODE_ENVELOPE.equals(fetchMode))
+        {
+            return "ST_Envelope(?)";
+        }
+        else if (FETCH_MODE_SIMPLIFIED.equals(fetchMode) && (datastoreMajorVersion > 5 || (datastoreMajorVersion == 5 && datastoreMinorVersion >= 7)))
+        {
+            // ST_Simplify was added in MySQL 5.7
+            return "ST_Simplify(?, " + tolerance + ")";
+        }
+        return null;
+    }
+
     public String getCalculateBoundsStatement(Table table, Column column)
     {
-        return "SELECT " + "min(X(PointN(ExteriorRing(Envelope(#column1)),1))), " + "min(Y(PointN(ExteriorRing(Envelope(#column2)),1))), " + "max(X(PointN(ExteriorRing(Envelope(#column3)),1))), " + "max(Y(PointN(ExteriorRing(Envelope(#column4)),1))) " + "FROM #table"
-                .replace("#column", column.getIdentifier().getName())
-                .replace("#table", table.getIdentifier().getName());
+        return ("SELECT " + "min(" + getEnvelopeOrdinate("ST_X", "LEAST", 1) + "), " + "min(" + getEnvelopeOrdinate("ST_Y", "LEAST", 1) + "), " +
+            "max(" + getEnvelopeOrdinate("ST_X", "GREATEST", 3) + "), " + "max(" + getEnvelopeOrdinate("ST_Y", "GREATEST", 3) + ") " + "FROM #table")
+                .replace("#column", column.getIdentifier().toString())
+                .replace("#table", table.toString());
+    }
+
+    /**
+     * Returns the SQL expression for an ordinate of a corner of the envelope of "#column". The envelope is a polygon,
+     * except for a point or a vertical or horizontal line, whose envelope is the geometry itself.
+     * @param ordinateFunction ST_X or ST_Y
+     * @param endPointFunction LEAST or GREATEST, to choose between the end points of a line
+     * @param cornerIndex Index of the corner in the exterior ring of a polygon, 1 for the lower left or 3 for the upper right
+     * @return The SQL expression
+     */
+    private String getEnvelopeOrdinate(String ordinateFunction, String endPointFunction, int cornerIndex)
+    {
+        String envelope = "ST_Envelope(#column)";
+        return "CASE ST_GeometryType(" + envelope + ") " +
+            "WHEN 'POINT' THEN " + ordinateFunction + "(" + envelope + ") " +
+            "WHEN 'LINESTRING' THEN " + endPointFunction + "(" + ordinateFunction + "(ST_StartPoint(" + envelope + ")), " + ordinateFunction + "(ST_EndPoint(" + envelope + "))) " +
+            "ELSE " + ordinateFunction + "(ST_PointN(ST_ExteriorRing(" + envelope + "), " + cornerIndex + ")) END";
+    }
+
+    public String getEstimateBoundsStatement(Table table, Column column)
+    {
+        // MySQL keeps no extent of a column, see SpatialHelper for how it is estimated
+        return null;
+    }
+
+    public String getRetrieveSridStatement(Table table, Column column)
+    {
+        if (datastoreMajorVersion < 8)
+        {
+            return null;
+        }
+        return "SELECT SRS_ID FROM INFORMATION_SCHEMA.ST_GEOMETRY_COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = '" +
+            table.getIdentifier().getName() + "' AND COLUMN_NAME = '" + column.getIdentifier().getName() + "'";
+    }
+
+    public boolean supportsIndexedKnnOrdering(Table table, Column column)
+    {
+        // MySQL never uses a spatial index for ORDER BY
+        return false;
+    }
+
+    public String getMultiRowInsertStatement(Table table, String columns, String rowValues, int rows)
+    {
+        StringBuilder stmt = new StringBuilder("INSERT INTO ").append(table.toString()).append(" (").append(columns).append(") VALUES ");
+        for (int i = 0; i < rows; i++)
+        {
+            stmt.append(i > 0 ? ", " : "").append(rowValues);
+        }
+        return stmt.toString();
+    }
+
+    public int getMaxMultiRowInsertParameters()
+    {
+        // Limit of the placeholders of a prepared statement
+        return 65535;
     }
 
+    public String getAnalyzeTableStatement(Table table)
+    {
+        // ANALYZE TABLE commits the current transaction
+        return null;
+    }
+
+    /** Spatial methods supported by MySQL, resolved by {@link #getSQLMethodClass(String, String, ClassLoaderResolver)}. */
+    private static final SpatialMethodTable METHOD_TABLE = createMethodTable();
+
     /* (non-Javadoc)
      * @see org.datanucleus.store.rdbms.adapter.MySQLAdapter#getSQLMethodClass(java.lang.String, java.lang.String, org.datanucleus.ClassLoaderResolver)
      */
     @Override
     public Class getSQLMethodClass(String className, String methodName, ClassLoaderResolver clr)
     {
-        if (className == null)
+        Class methodClass = METHOD_TABLE.getMethodClass(className, methodName, clr);
+        if (methodClass != null)
         {
-            // Static methods, or functions
-            if ("Spatial.envelope".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEnvelopeMethod.class;
-            if ("Spatial.dimension".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDimensionMethod.class;
-            if ("Spatial.boundary".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBoundaryMethod.class;
-            if ("Spatial.srid".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSridMethod.class;
-            if ("Spatial.isSimple".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsSimpleMethod3.class;
-            if ("Spatial.isEmpty".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsEmptyMethod3.class;
-            if ("Spatial.asBinary".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsBinaryMethod.class;
-            if ("Spatial.asText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsTextMethod.class;
-            if ("Spatial.geometryType".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryTypeMethod.class;
-
-            if ("Spatial.contains".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialContainsMethod.class;
-            if ("Spatial.overlaps".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialOverlapsMethod.class;
-            if ("Spatial.touches".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialTouchesMethod.class;
-            if ("Spatial.crosses".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCrossesMethod.class;
-            if ("Spatial.within".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialWithinMethod.class;
-            if ("Spatial.intersects".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectsMethod.class;
-            if ("Spatial.equals".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEqualsMethod.class;
-            if ("Spatial.disjoint".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDisjointMethod.class;
-            if ("Spatial.relate".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialRelateMethod3.class;
-            if ("Spatial.distance".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDistanceMethod3.class;
-            if ("Spatial.intersection".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectionMethod.class;
-            if ("Spatial.buffer".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBufferMethod.class;
-            if ("Spatial.convexHull".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialConvexHullMethod.class;
-            if ("Spatial.symDifference".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSymDifferenceMethod.class;
-            if ("Spatial.difference".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDifferenceMethod.class;
-            if ("Spatial.union".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialUnionMethod.class;
-
-            if ("Spatial.length".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialLengthMethod.class;
-
-            if ("Spatial.numPoints".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumPointsMethod.class;
-
-            if ("Spatial.centroid".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCentroidMethod.class;
-            if ("Spatial.area".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAreaMethod.class;
-            if ("Spatial.pointOnSurface".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointOnSurfaceMethod.class;
-
-            if ("Spatial.numGeometries".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumGeometriesMethod.class;
-            if ("Spatial.geometryN".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryNMethod.class;
-
-            if ("Spatial.x".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialXMethod.class;
-            if ("Spatial.y".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialYMethod.class;
-
-            if ("Spatial.isRing".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsRingMethod3.class;
-            if ("Spatial.isClosed".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsClosedMethod.class;
-            if ("Spatial.startPoint".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialStartPointMethod.class;
-            if ("Spatial.endPoint".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEndPointMethod.class;
-            if ("Spatial.pointN".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointNMethod.class;
-
-            if ("Spatial.exteriorRing".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialExteriorRingMethod.class;
-            if ("Spatial.numInteriorRing".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumInteriorRingMethod.class;
-            if ("Spatial.interiorRingN".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialInteriorRingNMethod.class;
-
-            if ("Spatial.bboxTest".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBboxTestMethod2.class;
-
-            // Purely static methods
-            if ("MySQL.mbrEqual".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.MySqlMbrEqualMethod.class;
-            if ("MySQL.mbrDisjoint".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.MySqlMbrDisjointMethod.class;
-            if ("MySQL.mbrIntersects".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.MySqlMbrIntersectsMethod.class;
-            if ("MySQL.mbrTouches".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.MySqlMbrTouchesMethod.class;
-            if ("MySQL.mbrWithin".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.MySqlMbrWithinMethod.class;
-            if ("MySQL.mbrContains".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.MySqlMbrContainsMethod.class;
-            if ("MySQL.mbrOverlaps".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.MySqlMbrOverlapsMethod.class;
-
-            if ("Spatial.geomFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromTextMethod.class;
-            if ("Spatial.pointFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointFromTextMethod.class;
-            if ("Spatial.lineFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialLineFromTextMethod.class;
-            if ("Spatial.polyFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPolyFromTextMethod.class;
-            if ("Spatial.mLineFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMLineFromTextMethod.class;
-            if ("Spatial.mPointFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMPointFromTextMethod.class;
-            if ("Spatial.mPolyFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMPolyFromTextMethod.class;
-            if ("Spatial.geomCollFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomCollFromTextMethod.class;
-
-            if ("Spatial.geomFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromWKBMethod.class;
-            if ("Spatial.geomCollFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomCollFromWKBMethod.class;
-            if ("Spatial.pointFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointFromWKBMethod.class;
-            if ("Spatial.mPointFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMPointFromWKBMethod.class;
-            if ("Spatial.lineFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialLineFromWKBMethod.class;
-            if ("Spatial.mLineFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMLineFromWKBMethod.class;
-            if ("Spatial.polyFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPolyFromWKBMethod.class;
-            if ("Spatial.mPolyFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMPolyFromWKBMethod.class;
-
+            return methodClass;
         }
-        else
-        {
-            // Methods invoked on an object
-            Class cls = null;
-            try
-            {
-                cls = clr.classForName(className);
-            }
-            catch (ClassNotResolvedException cnre) {}
-
-            boolean isGeometry = false;
-            boolean isPoint = false;
-            boolean isLineString = false;
-            boolean isLinearRing = false;
-            boolean isMultiLineString = false;
-            boolean isPolygon = false;
-            if (className.startsWith("com.vividsolutions.jts"))
-            {
-                if (com.vividsolutions.jts.geom.Geometry.class.getName().equals(className) || (cls != null && com.vividsolutions.jts.geom.Geometry.class.isAssignableFrom(cls)))
-                {
-                    isGeometry = true;
-                }
-                if (com.vividsolutions.jts.geom.Point.class.getName().equals(className) || (cls != null && com.vividsolutions.jts.geom.Point.class.isAssignableFrom(cls)))
-                {
-                    isPoint = true;
-                }
-                if (com.vividsolutions.jts.geom.LineString.class.getName().equals(className) || (cls != null && com.vividsolutions.jts.geom.LineString.class.isAssignableFrom(cls)))
-                {
-                    isLineString = true;
-                }
-                if (com.vividsolutions.jts.geom.MultiLineString.class.getName().equals(className) || (cls != null && com.vividsolutions.jts.geom.MultiLineString.class.isAssignableFrom(cls)))
-                {
-                    isMultiLineString = true;
-                }
-                if (com.vividsolutions.jts.geom.LinearRing.class.getName().equals(className) || (cls != null && com.vividsolutions.jts.geom.LinearRing.class.isAssignableFrom(cls)))
-                {
-                    isLinearRing = true;
-                }
-                if (com.vividsolutions.jts.geom.Polygon.class.getName().equals(className) || (cls != null && com.vividsolutions.jts.geom.Polygon.class.isAssignableFrom(cls)))
-                {
-                    isPolygon = true;
-                }
-            }
-            else if (className.startsWith("org.postgis"))
-            {
-                if (org.postgis.Geometry.class.getName().equals(className) || (cls != null && org.postgis.Geometry.class.isAssignableFrom(cls)))
-                {
-                    isGeometry = true;
-                }
-                if (org.postgis.Point.class.getName().equals(className) || (cls != null && org.postgis.Point.class.isAssignableFrom(cls)))
-                {
-                    isPoint = true;
-                }
-                if (org.postgis.LineString.class.getName().equals(className) || (cls != null && org.postgis.LineString.class.isAssignableFrom(cls)))
-                {
-                    isLineString = true;
-                }
-                if (org.postgis.MultiLineString.class.getName().equals(className) || (cls != null && org.postgis.MultiLineString.class.isAssignableFrom(cls)))
-                {
-                    isMultiLineString = true;
-                }
-                if (org.postgis.LinearRing.class.getName().equals(className) || (cls != null && org.postgis.LinearRing.class.isAssignableFrom(cls)))
-                {
-                    isLinearRing = true;
-                }
-                if (org.postgis.Polygon.class.getName().equals(className) || (cls != null && org.postgis.Polygon.class.isAssignableFrom(cls)))
-                {
-                    isPolygon = true;
-                }
-            }
-            else if (className.startsWith("oracle.spatial"))
-            {
-                // No obvious way of separating types from the class with Oracle
-                isGeometry = true;
-                isPoint = true;
-                isLineString = true;
-                isLinearRing = true;
-                isMultiLineString = true;
-                isPolygon = true;
-            }
-
-            if (isGeometry)
-            {
-                if ("getEnvelope".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEnvelopeMethod.class;
-                if ("getDimension".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDimensionMethod.class;
-                if ("getBoundary".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBoundaryMethod3.class;
-                if ("getSRID".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSridMethod.class;
-                if ("isSimple".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsSimpleMethod3.class;
-                if ("isEmpty".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsEmptyMethod.class;
-                if ("toText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsTextMethod.class;
-                if ("toBinary".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsBinaryMethod.class;
-                if ("getGeometryType".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryTypeMethod.class;
-
-                if ("contains".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialContainsMethod.class;
-                if ("overlaps".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialOverlapsMethod.class;
-                if ("touches".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialTouchesMethod.class;
-                if ("crosses".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCrossesMethod.class;
-                if ("within".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialWithinMethod.class;
-                if ("intersects".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectsMethod.class;
-                if ("equals".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEqualsMethod.class;
-                if ("disjoint".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDisjointMethod.class;
-                if ("relate".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialRelateMethod.class;
-                if ("distance".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDistanceMethod3.class;
-                if ("intersection".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectionMethod.class;
-                if ("buffer".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBufferMethod.class;
-                if ("convexHull".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialConvexHullMethod.class;
-                if ("symDifference".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSymDifferenceMethod.class;
-                if ("difference".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDifferenceMethod.class;
-                if ("union".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialUnionMethod.class;
-                if ("bboxTest".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBboxTestMethod2.class;
-
-                // Curve
-                if ("getLength".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialLengthMethod.class;
-
-                // LineString
-                if ("getNumPoints".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumPointsMethod.class;
-
-                // Surface
-                if ("getCentroid".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCentroidMethod.class;
-                if ("getArea".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAreaMethod.class;
-                if ("getPointOnSurface".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointOnSurfaceMethod.class;
-
-                // GeomCollection
-                if ("getNumGeometries".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumGeometriesMethod.class;
-                if ("getGeometryN".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryNMethod.class;
-
-                if (isPoint)
-                {
-                    if ("getX".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialXMethod.class;
-                    if ("getY".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialYMethod.class;
-                }
-                if (isLineString)
-                {
-                    if ("isRing".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsRingMethod3.class;
-                    if ("isClosed".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsClosedMethod.class;
-                    if ("getStartPoint".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialStartPointMethod.class;
-                    if ("getEndPoint".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEndPointMethod.class;
-                    if ("getPointN".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointNMethod.class;
-                }
-                if (isMultiLineString || isLinearRing)
-                {
-                    if ("isClosed".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsClosedMethod.class;
-                }
-                if (isPolygon)
-                {
-                    if ("getExteriorRing".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialExteriorRingMethod.class;
-                    if ("getInteriorRingN".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialInteriorRingNMethod.class;
-                    if ("getNumInteriorRing".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumInteriorRingMethod.class;
-                }
-            }
-        }
-
         return super.getSQLMethodClass(className, methodName, clr);
     }
+
+    /**
+     * Creates the table of the spatial methods supported by MySQL.
+     * @return The method table
+     */
+    private static SpatialMethodTable createMethodTable()
+    {
+        SpatialMethodTable.Builder builder = new SpatialMethodTable.Builder();
+        builder.addTypes("com.vividsolutions.jts", "com.vividsolutions.jts.geom");
+        builder.addTypes("org.postgis", "org.postgis");
+        builder.addTypes("oracle.spatial", SpatialMethodTable.ALL);
+
+        // Static methods, or functions
+        builder.addStaticMethod("Spatial.envelope", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEnvelopeMethod.class);
+        builder.addStaticMethod("Spatial.dimension", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDimensionMethod.class);
+        builder.addStaticMethod("Spatial.boundary", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBoundaryMethod.class);
+        builder.addStaticMethod("Spatial.srid", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSridMethod.class);
+        builder.addStaticMethod("Spatial.isSimple", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsSimpleMethod3.class);
+        builder.addStaticMethod("Spatial.isEmpty", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsEmptyMethod3.class);
+        builder.addStaticMethod("Spatial.asBinary", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsBinaryMethod.class);
+        builder.addStaticMethod("Spatial.asText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsTextMethod.class);
+        builder.addStaticMethod("Spatial.geometryType", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryTypeMethod.class);
+
+        builder.addStaticMethod("Spatial.contains", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialContainsMethod.class);
+        builder.addStaticMethod("Spatial.overlaps", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialOverlapsMethod.class);
+        builder.addStaticMethod("Spatial.touches", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialTouchesMethod.class);
+        builder.addStaticMethod("Spatial.crosses", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCrossesMethod.class);
+        builder.addStaticMethod("Spatial.within", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialWithinMethod.class);
+        builder.addStaticMethod("Spatial.intersects", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectsMethod.class);
+        builder.addStaticMethod("Spatial.equals", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEqualsMethod.class);
+        builder.addStaticMethod("Spatial.disjoint", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDisjointMethod.class);
+        builder.addStaticMethod("Spatial.relate", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialRelateMethod3.class);
+        builder.addStaticMethod("Spatial.distance", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDistanceMethod3.class);
+        builder.addStaticMethod("Spatial.dwithin", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDWithinMethod.class);
+        builder.addStaticMethod("Spatial.knnDistance", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDistanceMethod3.class);
+        builder.addStaticMethod("Spatial.intersection", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectionMethod.class);
+        builder.addStaticMethod("Spatial.buffer", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBufferMethod.class);
+        builder.addStaticMethod("Spatial.simplify", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSimplifyMethod.class);
+        builder.addStaticMethod("Spatial.clip", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialClipMethod.class);
+        builder.addStaticMethod("Spatial.convexHull", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialConvexHullMethod.class);
+        builder.addStaticMethod("Spatial.symDifference", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSymDifferenceMethod.class);
+        builder.addStaticMethod("Spatial.difference", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDifferenceMethod.class);
+        builder.addStaticMethod("Spatial.union", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialUnionMethod.class);
+
+        builder.addStaticMethod("Spatial.length", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialLengthMethod.class);
+
+        builder.addStaticMethod("Spatial.numPoints", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumPointsMethod.class);
+
+        builder.addStaticMethod("Spatial.centroid", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCentroidMethod.class);
+        builder.addStaticMethod("Spatial.area", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAreaMethod.class);
+        builder.addStaticMethod("Spatial.pointOnSurface", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointOnSurfaceMethod.class);
+
+        builder.addStaticMethod("Spatial.numGeometries", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumGeometriesMethod.class);
+        builder.addStaticMethod("Spatial.geometryN", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryNMethod.class);
+
+        builder.addStaticMethod("Spatial.x", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialXMethod.class);
+        builder.addStaticMethod("Spatial.y", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialYMethod.class);
+
+        builder.addStaticMethod("Spatial.isRing", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsRingMethod3.class);
+        builder.addStaticMethod("Spatial.isClosed", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsClosedMethod.class);
+        builder.addStaticMethod("Spatial.startPoint", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialStartPointMethod.class);
+        builder.addStaticMethod("Spatial.endPoint", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEndPointMethod.class);
+        builder.addStaticMethod("Spatial.pointN", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointNMethod.class);
+
+        builder.addStaticMethod("Spatial.exteriorRing", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialExteriorRingMethod.class);
+        builder.addStaticMethod("Spatial.numInteriorRing", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumInteriorRingMethod.class);
+        builder.addStaticMethod("Spatial.interiorRingN", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialInteriorRingNMethod.class);
+
+        builder.addStaticMethod("Spatial.bboxTest", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBboxTestMethod2.class);
+
+        // Purely static methods
+        builder.addStaticMethod("MySQL.mbrEqual", org.datanucleus.store.types.geospatial.rdbms.sql.method.MySqlMbrEqualMethod.class);
+        builder.addStaticMethod("MySQL.mbrDisjoint", org.datanucleus.store.types.geospatial.rdbms.sql.method.MySqlMbrDisjointMethod.class);
+        builder.addStaticMethod("MySQL.mbrIntersects", org.datanucleus.store.types.geospatial.rdbms.sql.method.MySqlMbrIntersectsMethod.class);
+        builder.addStaticMethod("MySQL.mbrTouches", org.datanucleus.store.types.geospatial.rdbms.sql.method.MySqlMbrTouchesMethod.class);
+        builder.addStaticMethod("MySQL.mbrWithin", org.datanucleus.store.types.geospatial.rdbms.sql.method.MySqlMbrWithinMethod.class);
+        builder.addStaticMethod("MySQL.mbrContains", org.datanucleus.store.types.geospatial.rdbms.sql.method.MySqlMbrContainsMethod.class);
+        builder.addStaticMethod("MySQL.mbrOverlaps", org.datanucleus.store.types.geospatial.rdbms.sql.method.MySqlMbrOverlapsMethod.class);
+
+        builder.addStaticMethod("Spatial.geomFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromTextMethod.class);
+        builder.addStaticMethod("Spatial.pointFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointFromTextMethod.class);
+        builder.addStaticMethod("Spatial.lineFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialLineFromTextMethod.class);
+        builder.addStaticMethod("Spatial.polyFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPolyFromTextMethod.class);
+        builder.addStaticMethod("Spatial.mLineFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMLineFromTextMethod.class);
+        builder.addStaticMethod("Spatial.mPointFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMPointFromTextMethod.class);
+        builder.addStaticMethod("Spatial.mPolyFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMPolyFromTextMethod.class);
+        builder.addStaticMethod("Spatial.geomCollFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomCollFromTextMethod.class);
+
+        builder.addStaticMethod("Spatial.geomFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromWKBMethod.class);
+        builder.addStaticMethod("Spatial.geomCollFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomCollFromWKBMethod.class);
+        builder.addStaticMethod("Spatial.pointFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointFromWKBMethod.class);
+        builder.addStaticMethod("Spatial.mPointFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMPointFromWKBMethod.class);
+        builder.addStaticMethod("Spatial.lineFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialLineFromWKBMethod.class);
+        builder.addStaticMethod("Spatial.mLineFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMLineFromWKBMethod.class);
+        builder.addStaticMethod("Spatial.polyFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPolyFromWKBMethod.class);
+        builder.addStaticMethod("Spatial.mPolyFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMPolyFromWKBMethod.class);
+
+
+        // Methods invoked on an object
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getEnvelope", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEnvelopeMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getDimension", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDimensionMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getBoundary", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBoundaryMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getSRID", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSridMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "isSimple", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsSimpleMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "isEmpty", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsEmptyMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "toText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsTextMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "toBinary", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsBinaryMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getGeometryType", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryTypeMethod.class);
+
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "contains", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialContainsMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "overlaps", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialOverlapsMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "touches", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialTouchesMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "crosses", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCrossesMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "within", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialWithinMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "intersects", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectsMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "equals", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEqualsMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "disjoint", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDisjointMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "relate", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialRelateMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "distance", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDistanceMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "isWithinDistance", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDWithinMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "intersection", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectionMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "buffer", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBufferMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "convexHull", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialConvexHullMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "symDifference", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSymDifferenceMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "difference", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDifferenceMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "union", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialUnionMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "bboxTest", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBboxTestMethod2.class);
+
+        // Curve
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getLength", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialLengthMethod.class);
+
+        // LineString
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getNumPoints", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumPointsMethod.class);
+
+        // Surface
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getCentroid", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCentroidMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getArea", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAreaMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getPointOnSurface", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointOnSurfaceMethod.class);
+
+        // GeomCollection
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getNumGeometries", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumGeometriesMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getGeometryN", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryNMethod.class);
+
+        builder.addMethod(SpatialMethodTable.POINT, "getX", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialXMethod.class);
+        builder.addMethod(SpatialMethodTable.POINT, "getY", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialYMethod.class);
+
+        builder.addMethod(SpatialMethodTable.LINESTRING, "isRing", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsRingMethod3.class);
+        builder.addMethod(SpatialMethodTable.LINESTRING, "isClosed", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsClosedMethod.class);
+        builder.addMethod(SpatialMethodTable.LINESTRING, "getStartPoint", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialStartPointMethod.class);
+        builder.addMethod(SpatialMethodTable.LINESTRING, "getEndPoint", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEndPointMethod.class);
+        builder.addMethod(SpatialMethodTable.LINESTRING, "getPointN", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointNMethod.class);
+
+        builder.addMethod(SpatialMethodTable.MULTILINESTRING | SpatialMethodTable.LINEARRING, "isClosed", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsClosedMethod.class);
+
+        builder.addMethod(SpatialMethodTable.POLYGON, "getExteriorRing", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialExteriorRingMethod.class);
+        builder.addMethod(SpatialMethodTable.POLYGON, "getInteriorRingN", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialInteriorRingNMethod.class);
+        builder.addMethod(SpatialMethodTable.POLYGON, "getNumInteriorRing", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumInteriorRingMethod.class);
+
+        return builder.build();
+    }
 }
\ No newline at end of file
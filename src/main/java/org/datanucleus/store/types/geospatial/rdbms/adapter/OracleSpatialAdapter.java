@@ -22,16 +22,24 @@ import static org.datanucleus.store.types.geospatial.rdbms.adapter.OracleSpatial
 import java.sql.DatabaseMetaData;
 import java.sql.JDBCType;
 import java.sql.Types;
+import java.util.Properties;
 
 import org.datanucleus.ClassLoaderResolver;
-import org.datanucleus.exceptions.ClassNotResolvedException;
+import org.datanucleus.exceptions.NucleusException;
 import org.datanucleus.plugin.PluginManager;
 import org.datanucleus.store.connection.ManagedConnection;
+import org.datanucleus.metadata.MetaDataUtils;
 import org.datanucleus.store.rdbms.adapter.OracleAdapter;
+import org.datanucleus.store.rdbms.identifier.DatastoreIdentifier;
+import org.datanucleus.store.rdbms.identifier.IdentifierFactory;
+import org.datanucleus.store.rdbms.key.Index;
 import org.datanucleus.store.rdbms.schema.SQLTypeInfo;
 import org.datanucleus.store.rdbms.table.Column;
 import org.datanucleus.store.rdbms.table.Table;
+import org.datanucleus.store.rdbms.table.TableImpl;
 import org.datanucleus.store.schema.StoreSchemaHandler;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.SpatialMappingHelper;
+import org.datanucleus.util.Localiser;
 import org.datanucleus.util.NucleusLogger;
 
 /**
@@ -39,6 +47,30 @@ import org.datanucleus.util.NucleusLogger;
  */
 public class OracleSpatialAdapter extends OracleAdapter implements SpatialRDBMSAdapter
 {
+    /** Key name for the extension enabling fetching of geometries as WKB. **/
+    public static final String WKB_FETCH_EXTENSION_KEY = "oracle-wkb-fetch";
+
+    /** Name of the persistence property enabling fetching of geometries as WKB. **/
+    public static final String WKB_FETCH_PROPERTY = "datanucleus.geospatial.oracle.wkbfetch";
+
+    /**
+     * Name of the persistence property setting whether the BLOB user data of JTS geometries is bound in the INSERT/UPDATE itself,
+     * rather than written by a separate statement afterwards. Enabled by default, which allows statements to be batched.
+     **/
+    public static final String INLINE_BLOB_PROPERTY = "datanucleus.geospatial.oracle.inlineblob";
+
+    /** Key name for the extension giving the bounds of a column with a spatial index, as "minX minY maxX maxY" or "minX minY minZ maxX maxY maxZ". **/
+    public static final String INDEX_BOUNDS_EXTENSION_KEY = "oracle-index-bounds";
+
+    /** Key name for the extension giving the tolerance of a column with a spatial index. **/
+    public static final String INDEX_TOLERANCE_EXTENSION_KEY = "oracle-index-tolerance";
+
+    /** Default bounds of a column with a spatial index, those of geodetic coordinates. **/
+    private static final double[] DEFAULT_INDEX_BOUNDS = new double[] {-180, -90, 180, 90};
+
+    /** Default tolerance of a column with a spatial index, in meters for geodetic coordinates. **/
+    private static final double DEFAULT_INDEX_TOLERANCE = 0.005;
+
     public OracleSpatialAdapter(DatabaseMetaData metadata)
     {
         super(metadata);
@@ -118,226 +150,404 @@ public class OracleSpatialAdapter extends OracleAdapter implements SpatialRDBMSA
         return String.valueOf(c.getTypeInfo().getDataType()).matches(TYPES_SDO_GEOMETRY_PATTERN);
     }
 
-    public String getRetrieveCrsNameStatement(Table table, int srid)
+    /**
+     * Returns the statement to create an index. An index on a geometry column is created as MDSYS.SPATIAL_INDEX,
+     * after registering the bounds of the column (see the extensions "oracle-index-bounds" and
+     * "oracle-index-tolerance") in USER_SDO_GEOM_METADATA unless they are registered already. Both are done in
+     * one PL/SQL block, since DataNucleus executes one statement per index.
+     * @param idx The index
+     * @param factory Identifier factory
+     * @return The statement to create the index
+     */
+    public String getCreateIndexStatement(Index idx, IdentifierFactory factory)
     {
-        return "SELECT CS_NAME FROM MDSYS.CS_SRS WHERE SRID = #srid".replace("#srid", "" + srid);
-    }
+        if (idx.getColumns().size() != 1 || !isGeometryColumn(idx.getColumns().get(0)))
+        {
+            return super.getCreateIndexStatement(idx, factory);
+        }
 
-    public String getRetrieveCrsWktStatement(Table table, int srid)
-    {
-        return "SELECT WKTEXT FROM MDSYS.CS_SRS WHERE SRID = #srid".replace("#srid", "" + srid);
+        return "DECLARE n NUMBER; BEGIN " + getCreateSpatialIndexStatements(idx.getTable(), idx.getColumns().get(0), factory.newTableIdentifier(idx.getName())) +
+            "END;";
     }
 
-    public String getCalculateBoundsStatement(Table table, Column column)
+    /**
+     * Returns the statement creating a table. When geometry columns are marked with "spatial-index", it is a PL/SQL block
+     * that also creates their spatial indexes, since DataNucleus executes one statement per table.
+     * @param table The table
+     * @param columns The columns of the table
+     * @param props Properties for the table
+     * @param factory Identifier factory
+     * @return The statement creating the table
+     */
+    public String getCreateTableStatement(TableImpl table, Column[] columns, Properties props, IdentifierFactory factory)
     {
-        return "SELECT " + "SDO_GEOM.SDO_MIN_MBR_ORDINATE(SDO_AGGR_MBR(#column), 1), " + "SDO_GEOM.SDO_MIN_MBR_ORDINATE(SDO_AGGR_MBR(#column), 2), " + "SDO_GEOM.SDO_MAX_MBR_ORDINATE(SDO_AGGR_MBR(#column), 1), " + "SDO_GEOM.SDO_MAX_MBR_ORDINATE(SDO_AGGR_MBR(#column), 2) " + "FROM #table"
-                .replace("#column", column.getIdentifier().getName())
-                .replace("#table", table.getIdentifier().getName());
+        String stmt = super.getCreateTableStatement(table, columns, props, factory);
+        StringBuilder indexStmts = new StringBuilder();
+        for (Column col : columns)
+        {
+            if (isGeometryColumn(col) && SpatialDDLHelper.isSpatialIndexCreatedWithColumn(table, col))
+            {
+                indexStmts.append(getCreateSpatialIndexStatements(table, col, SpatialDDLHelper.getSpatialIndexIdentifier(table, col, factory)));
+            }
+        }
+        if (indexStmts.length() == 0)
+        {
+            return stmt;
+        }
+
+        return "DECLARE n NUMBER; BEGIN EXECUTE IMMEDIATE '" + stmt.replace("'", "''") + "'; " + indexStmts + "END;";
     }
 
-    /* (non-Javadoc)
-     * @see org.datanucleus.store.rdbms.adapter.OracleAdapter#getSQLMethodClass(java.lang.String, java.lang.String, org.datanucleus.ClassLoaderResolver)
+    /**
+     * Returns the statement adding a column. For a geometry column marked with "spatial-index", it is a PL/SQL block
+     * that also creates its spatial index.
+     * @param table The table
+     * @param column The column
+     * @return The statement adding the column
      */
-    @Override
-    public Class getSQLMethodClass(String className, String methodName, ClassLoaderResolver clr)
+    public String getAddColumnStatement(Table table, Column column)
     {
-        if (className == null)
+        String stmt = super.getAddColumnStatement(table, column);
+        if (!isGeometryColumn(column) || !SpatialDDLHelper.isSpatialIndexCreatedWithColumn(table, column))
         {
-            if ("Spatial.dimension".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDimensionMethod2.class;
-            if ("Spatial.srid".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSridMethod2.class;
-            if ("Spatial.x".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialXMethod2.class;
-            if ("Spatial.y".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialYMethod2.class;
-            if ("Spatial.area".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAreaMethod2.class;
-            if ("Spatial.length".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialLengthMethod2.class;
-            if ("Spatial.distance".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDistanceMethod2.class;
-            if ("Spatial.numPoints".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumPointsMethod2.class;
-            if ("Spatial.numInteriorRing".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumInteriorRingMethod2.class;
-            if ("Spatial.numGeometries".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumGeometriesMethod2.class;
-            if ("Spatial.asBinary".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsBinaryMethod2.class;
-            if ("Spatial.asText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsTextMethod2.class;
-            if ("Spatial.geometryType".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryTypeMethod2.class;
-            if ("Spatial.envelope".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEnvelopeMethod2.class;
-            if ("Spatial.boundary".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBoundaryMethod2.class;
-            if ("Spatial.convexHull".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialConvexHullMethod2.class;
-            if ("Spatial.startPoint".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialStartPointMethod2.class;
-            if ("Spatial.endPoint".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEndPointMethod2.class;
-            if ("Spatial.centroid".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCentroidMethod2.class;
-            if ("Spatial.pointOnSurface".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointOnSurfaceMethod2.class;
-            if ("Spatial.exteriorRing".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialExteriorRingMethod2.class;
-            if ("Spatial.equals".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEqualsMethod2.class;
-            if ("Spatial.disjoint".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDisjointMethod2.class;
-            if ("Spatial.intersects".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectsMethod2.class;
-            if ("Spatial.touches".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialTouchesMethod2.class;
-            if ("Spatial.crosses".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCrossesMethod2.class;
-            if ("Spatial.within".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialWithinMethod2.class;
-            if ("Spatial.contains".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialContainsMethod2.class;
-            if ("Spatial.overlaps".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialOverlapsMethod2.class;
-            if ("Spatial.relate".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialRelateMethod2.class;
-            if ("Spatial.isClosed".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsClosedMethod2.class;
-            if ("Spatial.isEmpty".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsEmptyMethod2.class;
-            if ("Spatial.isRing".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsRingMethod2.class;
-            if ("Spatial.isSimple".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsSimpleMethod2.class;
-            if ("Spatial.buffer".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBufferMethod2.class;
-            if ("Spatial.difference".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDifferenceMethod2.class;
-            if ("Spatial.intersection".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectionMethod2.class;
-            if ("Spatial.union".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialUnionMethod2.class;
-            if ("Spatial.symDifference".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSymDifferenceMethod2.class;
-            if ("Spatial.interiorRingN".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialInteriorRingNMethod2.class;
-            if ("Spatial.pointN".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointNMethod2.class;
-            if ("Spatial.geometryN".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryNMethod2.class;
-
-            if ("Spatial.bboxTest".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBboxTestMethod3.class;
-
-            // Purely static methods
-            if ("Oracle.sdo_elem_info_array".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.OracleSdoElemInfoArrayMethod.class;
-            if ("Oracle.sdo_geometry".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.OracleSdoGeometryMethod.class;
-            if ("Oracle.sdo_ordinate_array".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.OracleSdoOrdinateArrayMethod.class;
-            if ("Oracle.sdo_point_type".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.OracleSdoPointTypeMethod.class;
-
-            if ("Spatial.geomFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromTextMethod2.class;
-            if ("Spatial.pointFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointFromTextMethod2.class;
-            if ("Spatial.lineFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialLineFromTextMethod2.class;
-            if ("Spatial.polyFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPolyFromTextMethod2.class;
-            if ("Spatial.mLineFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMLineFromTextMethod2.class;
-            if ("Spatial.mPointFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMPointFromTextMethod2.class;
-            if ("Spatial.mPolyFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMPolyFromTextMethod2.class;
-            if ("Spatial.geomCollFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomCollFromTextMethod2.class;
-
-            if ("Spatial.geomFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromWKBMethod2.class;
-            if ("Spatial.geomCollFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomCollFromWKBMethod2.class;
-            if ("Spatial.pointFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointFromWKBMethod2.class;
-            if ("Spatial.mPointFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMPointFromWKBMethod2.class;
-            if ("Spatial.lineFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialLineFromWKBMethod2.class;
-            if ("Spatial.mLineFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMLineFromWKBMethod2.class;
-            if ("Spatial.polyFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPolyFromWKBMethod2.class;
-            if ("Spatial.mPolyFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMPolyFromWKBMethod2.class;
+            return stmt;
         }
-        else
+
+        DatastoreIdentifier indexIdentifier = SpatialDDLHelper.getSpatialIndexIdentifier(table, column, table.getStoreManager().getIdentifierFactory());
+        return "DECLARE n NUMBER; BEGIN EXECUTE IMMEDIATE '" + stmt.replace("'", "''") + "'; " + getCreateSpatialIndexStatements(table, column, indexIdentifier) +
+            "END;";
+    }
+
+    /**
+     * Returns the PL/SQL statements creating a spatial index, to go in a block declaring the NUMBER variable "n".
+     * @param table The table
+     * @param column The geometry column
+     * @param indexIdentifier Name of the index
+     * @return The PL/SQL statements
+     */
+    private String getCreateSpatialIndexStatements(Table table, Column column, DatastoreIdentifier indexIdentifier)
+    {
+        String srid = "NULL";
+        String extensionValue = MetaDataUtils.getValueForExtensionRecursively(column.getColumnMetaData(), SRID_EXTENSION_KEY);
+        if (extensionValue != null)
         {
-            // Methods invoked on an object
-            Class cls = null;
             try
             {
-                cls = clr.classForName(className);
+                srid = String.valueOf(Integer.parseInt(extensionValue.trim()));
             }
-            catch (ClassNotResolvedException cnre) {}
-
-            boolean isGeometry = false;
-            boolean isPoint = false;
-            boolean isLineString = false;
-            boolean isMultiLineString = false;
-            boolean isLinearRing = false;
-            boolean isPolygon = false;
-            if (className.startsWith("com.vividsolutions.jts"))
+            catch (NumberFormatException nfe)
             {
-                if (com.vividsolutions.jts.geom.Geometry.class.getName().equals(className) || (cls != null && com.vividsolutions.jts.geom.Geometry.class.isAssignableFrom(cls)))
-                {
-                    isGeometry = true;
-                }
-                if (com.vividsolutions.jts.geom.Point.class.getName().equals(className) || (cls != null && com.vividsolutions.jts.geom.Point.class.isAssignableFrom(cls)))
-                {
-                    isPoint = true;
-                }
-                if (com.vividsolutions.jts.geom.LineString.class.getName().equals(className) || (cls != null && com.vividsolutions.jts.geom.LineString.class.isAssignableFrom(cls)))
-                {
-                    isLineString = true;
-                }
-                if (com.vividsolutions.jts.geom.MultiLineString.class.getName().equals(className) || (cls != null && com.vividsolutions.jts.geom.MultiLineString.class.isAssignableFrom(cls)))
-                {
-                    isMultiLineString = true;
-                }
-                if (com.vividsolutions.jts.geom.LinearRing.class.getName().equals(className) || (cls != null && com.vividsolutions.jts.geom.LinearRing.class.isAssignableFrom(cls)))
+                NucleusLogger.DATASTORE.warn(Localiser.msg("044213", SRID_EXTENSION_KEY, extensionValue), nfe);
+            }
+        }
+
+        String tableName = table.getIdentifier().getName();
+        String columnName = column.getIdentifier().getName();
+        return "SELECT COUNT(*) INTO n FROM USER_SDO_GEOM_METADATA WHERE TABLE_NAME = '" + tableName + "' AND COLUMN_NAME = '" + columnName + "'; " +
+            "IF n = 0 THEN INSERT INTO USER_SDO_GEOM_METADATA (TABLE_NAME, COLUMN_NAME, DIMINFO, SRID) VALUES ('" + tableName + "', '" + columnName + "', " +
+            getDimInfo(column) + ", " + srid + "); END IF; " +
+            "EXECUTE IMMEDIATE 'CREATE INDEX " + indexIdentifier.getFullyQualifiedName(true) + " ON " + table.toString() + " (" + column.getIdentifier() + ") " +
+            "INDEXTYPE IS MDSYS.SPATIAL_INDEX'; ";
+    }
+
+    /**
+     * Returns the SDO_DIM_ARRAY describing the bounds and tolerance of a geometry column.
+     * @param column The column
+     * @return SQL expression of the SDO_DIM_ARRAY
+     */
+    private String getDimInfo(Column column)
+    {
+        double[] bounds = DEFAULT_INDEX_BOUNDS;
+        String extensionValue = MetaDataUtils.getValueForExtensionRecursively(column.getColumnMetaData(), INDEX_BOUNDS_EXTENSION_KEY);
+        if (extensionValue != null)
+        {
+            try
+            {
+                String[] values = extensionValue.trim().split("\\s+");
+                if (values.length != 4 && values.length != 6)
                 {
-                    isLinearRing = true;
+                    throw new NumberFormatException("Expected 4 or 6 values");
                 }
-                if (com.vividsolutions.jts.geom.Polygon.class.getName().equals(className) || (cls != null && com.vividsolutions.jts.geom.Polygon.class.isAssignableFrom(cls)))
+                bounds = new double[values.length];
+                for (int i = 0; i < values.length; i++)
                 {
-                    isPolygon = true;
+                    bounds[i] = Double.parseDouble(values[i]);
                 }
             }
-            else if (className.startsWith("oracle.spatial"))
+            catch (NumberFormatException nfe)
             {
-                // No obvious way of separating types from the class with Oracle
-                isGeometry = true;
-                isPoint = true;
-                isLineString = true;
-                isLinearRing = true;
-                isMultiLineString = true;
-                isPolygon = true;
+                NucleusLogger.DATASTORE.warn(Localiser.msg("044213", INDEX_BOUNDS_EXTENSION_KEY, extensionValue), nfe);
+                bounds = DEFAULT_INDEX_BOUNDS;
             }
+        }
 
-            if (isGeometry)
+        double tolerance = DEFAULT_INDEX_TOLERANCE;
+        extensionValue = MetaDataUtils.getValueForExtensionRecursively(column.getColumnMetaData(), INDEX_TOLERANCE_EXTENSION_KEY);
+        if (extensionValue != null)
+        {
+            try
             {
-                if ("getEnvelope".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEnvelopeMethod2.class;
-                if ("getDimension".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDimensionMethod2.class;
-                if ("getBoundary".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBoundaryMethod2.class;
-                if ("getSRID".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSridMethod2.class;
-                if ("isSimple".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsSimpleMethod2.class;
-                if ("isEmpty".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsEmptyMethod2.class;
-                if ("toText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsTextMethod2.class;
-                if ("toBinary".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsBinaryMethod2.class;
-                if ("getGeometryType".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryTypeMethod2.class;
-
-                if ("contains".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialContainsMethod2.class;
-                if ("overlaps".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialOverlapsMethod2.class;
-                if ("touches".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialTouchesMethod2.class;
-                if ("crosses".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCrossesMethod2.class;
-                if ("within".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialWithinMethod2.class;
-                if ("intersects".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectsMethod2.class;
-                if ("equals".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEqualsMethod2.class;
-                if ("disjoint".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDisjointMethod2.class;
-                if ("relate".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialRelateMethod2.class;
-                if ("distance".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDistanceMethod2.class;
-                if ("intersection".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectionMethod2.class;
-                if ("buffer".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBufferMethod2.class;
-                if ("convexHull".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialConvexHullMethod2.class;
-                if ("symDifference".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSymDifferenceMethod2.class;
-                if ("difference".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDifferenceMethod2.class;
-                if ("union".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialUnionMethod2.class;
-                if ("bboxTest".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBboxTestMethod3.class;
-
-                // Curve
-                if ("getLength".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialLengthMethod2.class;
-
-                // LineString
-                if ("getNumPoints".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumPointsMethod2.class;
-
-                // Surface
-                if ("getCentroid".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCentroidMethod2.class;
-                if ("getArea".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAreaMethod2.class;
-                if ("getPointOnSurface".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointOnSurfaceMethod2.class;
-
-                // GeomCollection
-                if ("getNumGeometries".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumGeometriesMethod2.class;
-                if ("getGeometryN".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryNMethod2.class;
-
-                if (isPoint)
-                {
-                    if ("getX".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialXMethod2.class;
-                    if ("getY".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialYMethod2.class;
-                }
-                if (isLineString)
-                {
-                    if ("isRing".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsRingMethod2.class;
-                    if ("isClosed".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsClosedMethod2.class;
-                    if ("getStartPoint".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialStartPointMethod2.class;
-                    if ("getEndPoint".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEndPointMethod2.class;
-                    if ("getPointN".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointNMethod2.class;
-                }
-                if (isMultiLineString || isLinearRing)
-                {
-                    if ("isClosed".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsClosedMethod2.class;
-                }
-                if (isPolygon)
-                {
-                    if ("getExteriorRing".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialExteriorRingMethod2.class;
-                    if ("getInteriorRingN".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialInteriorRingNMethod2.class;
-                    if ("getNumInteriorRing".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumInteriorRingMethod2.class;
-                }
+                tolerance = Double.parseDouble(extensionValue.trim());
+            }
+            catch (NumberFormatException nfe)
+            {
+                NucleusLogger.DATASTORE.warn(Localiser.msg("044213", INDEX_TOLERANCE_EXTENSION_KEY, extensionValue), nfe);
             }
         }
 
+        String[] dimNames = new String[] {"X", "Y", "Z"};
+        int dims = bounds.length / 2;
+        StringBuilder dimInfo = new StringBuilder("MDSYS.SDO_DIM_ARRAY(");
+        for (int i = 0; i < dims; i++)
+        {
+            if (i > 0)
+            {
+                dimInfo.append(", ");
+            }
+            dimInfo.append("MDSYS.SDO_DIM_ELEMENT('").append(dimNames[i]).append("', ").append(bounds[i]).append(", ").append(bounds[i + dims])
+                .append(", ").append(tolerance).append(")");
+        }
+        return dimInfo.append(")").toString();
+    }
+
+    public String getRetrieveCrsNameStatement(Table table, int srid)
+    {
+        return "SELECT CS_NAME FROM MDSYS.CS_SRS WHERE SRID = #srid".replace("#srid", "" + srid);
+    }
+
+    public String getRetrieveCrsWktStatement(Table table, int srid)
+    {
+        return "SELECT WKTEXT FROM MDSYS.CS_SRS WHERE SRID = #srid".replace("#srid", "" + srid);
+    }
+
+    public String getRetrieveAllCrsStatement(Table table)
+    {
+        return "SELECT SRID, CS_NAME, WKTEXT FROM MDSYS.CS_SRS";
+    }
+
+    public String getReducedFetchFunction(String fetchMode, double tolerance)
+    {
+        if (FETCH_MODE_ENVELOPE.equals(fetchMode))
+        {
+            return "SDO_GEOM.SDO_MBR(?)";
+        }
+        else if (FETCH_MODE_SIMPLIFIED.equals(fetchMode))
+        {
+            return "SDO_UTIL.SIMPLIFY(?, " + tolerance + ")";
+        }
+        return null;
+    }
+
+    public String getCalculateBoundsStatement(Table table, Column column)
+    {
+        return ("SELECT " + "SDO_GEOM.SDO_MIN_MBR_ORDINATE(SDO_AGGR_MBR(#column), 1), " + "SDO_GEOM.SDO_MIN_MBR_ORDINATE(SDO_AGGR_MBR(#column), 2), " + "SDO_GEOM.SDO_MAX_MBR_ORDINATE(SDO_AGGR_MBR(#column), 1), " + "SDO_GEOM.SDO_MAX_MBR_ORDINATE(SDO_AGGR_MBR(#column), 2) " + "FROM #table")
+                .replace("#column", column.getIdentifier().getName())
+                .replace("#table", table.getIdentifier().getName());
+    }
+
+    public String getEstimateBoundsStatement(Table table, Column column)
+    {
+        // SDO_TUNE.EXTENT_OF uses the MBR of the root of the spatial index when there is one
+        return "SELECT SDO_GEOM.SDO_MIN_MBR_ORDINATE(e, 1), SDO_GEOM.SDO_MIN_MBR_ORDINATE(e, 2), SDO_GEOM.SDO_MAX_MBR_ORDINATE(e, 1), " +
+            "SDO_GEOM.SDO_MAX_MBR_ORDINATE(e, 2) FROM (SELECT SDO_TUNE.EXTENT_OF('" + table.getIdentifier().getName() + "', '" +
+            column.getIdentifier().getName() + "') e FROM DUAL)";
+    }
+
+    public String getRetrieveSridStatement(Table table, Column column)
+    {
+        return "SELECT SRID FROM USER_SDO_GEOM_METADATA WHERE TABLE_NAME = '" + table.getIdentifier().getName() + "' AND COLUMN_NAME = '" +
+            column.getIdentifier().getName() + "'";
+    }
+
+    public boolean supportsIndexedKnnOrdering(Table table, Column column)
+    {
+        // SDO_NN needs a spatial index, otherwise the distance of every row is computed (see SpatialKnnDistanceMethod2)
+        return SpatialMappingHelper.hasSpatialIndex(table.getStoreManager(), column);
+    }
+
+    public String getMultiRowInsertStatement(Table table, String columns, String rowValues, int rows)
+    {
+        if (rows != 1)
+        {
+            throw new NucleusException("Oracle has no multi-row INSERT usable for bulk loads, rows are inserted one at a time in JDBC batches");
+        }
+        return "INSERT INTO " + table.toString() + " (" + columns + ") VALUES " + rowValues;
+    }
+
+    public int getMaxMultiRowInsertParameters()
+    {
+        // Oracle has no multi-row VALUES clause, and INSERT ALL evaluates identity columns and sequences once for all rows
+        return 0;
+    }
+
+    public String getAnalyzeTableStatement(Table table)
+    {
+        // DBMS_STATS.GATHER_TABLE_STATS commits the current transaction
+        return null;
+    }
+
+    /** Spatial methods supported by Oracle Spatial, resolved by {@link #getSQLMethodClass(String, String, ClassLoaderResolver)}. */
+    private static final SpatialMethodTable METHOD_TABLE = createMethodTable();
+
+    /* (non-Javadoc)
+     * @see org.datanucleus.store.rdbms.adapter.OracleAdapter#getSQLMethodClass(java.lang.String, java.lang.String, org.datanucleus.ClassLoaderResolver)
+     */
+    @Override
+    public Class getSQLMethodClass(String className, String methodName, ClassLoaderResolver clr)
+    {
+        Class methodClass = METHOD_TABLE.getMethodClass(className, methodName, clr);
+        if (methodClass != null)
+        {
+            return methodClass;
+        }
         return super.getSQLMethodClass(className, methodName, clr);
     }
 
+    /**
+     * Creates the table of the spatial methods supported by Oracle Spatial.
+     * @return The method table
+     */
+    private static SpatialMethodTable createMethodTable()
+    {
+        SpatialMethodTable.Builder builder = new SpatialMethodTable.Builder();
+        builder.addTypes("com.vividsolutions.jts", "com.vividsolutions.jts.geom");
+        builder.addTypes("oracle.spatial", SpatialMethodTable.ALL);
+
+        // Static methods, or functions
+        builder.addStaticMethod("Spatial.dimension", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDimensionMethod2.class);
+        builder.addStaticMethod("Spatial.srid", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSridMethod2.class);
+        builder.addStaticMethod("Spatial.x", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialXMethod2.class);
+        builder.addStaticMethod("Spatial.y", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialYMethod2.class);
+        builder.addStaticMethod("Spatial.area", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAreaMethod2.class);
+        builder.addStaticMethod("Spatial.length", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialLengthMethod2.class);
+        builder.addStaticMethod("Spatial.distance", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDistanceMethod2.class);
+        builder.addStaticMethod("Spatial.dwithin", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDWithinMethod2.class);
+        builder.addStaticMethod("Spatial.knnDistance", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialKnnDistanceMethod2.class);
+        builder.addStaticMethod("Spatial.numPoints", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumPointsMethod2.class);
+        builder.addStaticMethod("Spatial.numInteriorRing", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumInteriorRingMethod2.class);
+        builder.addStaticMethod("Spatial.numGeometries", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumGeometriesMethod2.class);
+        builder.addStaticMethod("Spatial.asBinary", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsBinaryMethod2.class);
+        builder.addStaticMethod("Spatial.asText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsTextMethod2.class);
+        builder.addStaticMethod("Spatial.geometryType", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryTypeMethod2.class);
+        builder.addStaticMethod("Spatial.envelope", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEnvelopeMethod2.class);
+        builder.addStaticMethod("Spatial.boundary", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBoundaryMethod2.class);
+        builder.addStaticMethod("Spatial.convexHull", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialConvexHullMethod2.class);
+        builder.addStaticMethod("Spatial.startPoint", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialStartPointMethod2.class);
+        builder.addStaticMethod("Spatial.endPoint", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEndPointMethod2.class);
+        builder.addStaticMethod("Spatial.centroid", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCentroidMethod2.class);
+        builder.addStaticMethod("Spatial.pointOnSurface", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointOnSurfaceMethod2.class);
+        builder.addStaticMethod("Spatial.exteriorRing", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialExteriorRingMethod2.class);
+        builder.addStaticMethod("Spatial.equals", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEqualsMethod2.class);
+        builder.addStaticMethod("Spatial.disjoint", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDisjointMethod2.class);
+        builder.addStaticMethod("Spatial.intersects", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectsMethod2.class);
+        builder.addStaticMethod("Spatial.touches", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialTouchesMethod2.class);
+        builder.addStaticMethod("Spatial.crosses", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCrossesMethod2.class);
+        builder.addStaticMethod("Spatial.within", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialWithinMethod2.class);
+        builder.addStaticMethod("Spatial.contains", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialContainsMethod2.class);
+        builder.addStaticMethod("Spatial.overlaps", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialOverlapsMethod2.class);
+        builder.addStaticMethod("Spatial.relate", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialRelateMethod2.class);
+        builder.addStaticMethod("Spatial.isClosed", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsClosedMethod2.class);
+        builder.addStaticMethod("Spatial.isEmpty", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsEmptyMethod2.class);
+        builder.addStaticMethod("Spatial.isRing", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsRingMethod2.class);
+        builder.addStaticMethod("Spatial.isSimple", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsSimpleMethod2.class);
+        builder.addStaticMethod("Spatial.buffer", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBufferMethod2.class);
+        builder.addStaticMethod("Spatial.simplify", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSimplifyMethod2.class);
+        builder.addStaticMethod("Spatial.clip", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialClipMethod2.class);
+        builder.addStaticMethod("Spatial.difference", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDifferenceMethod2.class);
+        builder.addStaticMethod("Spatial.intersection", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectionMethod2.class);
+        builder.addStaticMethod("Spatial.union", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialUnionMethod2.class);
+        builder.addStaticMethod("Spatial.symDifference", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSymDifferenceMethod2.class);
+        builder.addStaticMethod("Spatial.interiorRingN", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialInteriorRingNMethod2.class);
+        builder.addStaticMethod("Spatial.pointN", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointNMethod2.class);
+        builder.addStaticMethod("Spatial.geometryN", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryNMethod2.class);
+
+        builder.addStaticMethod("Spatial.bboxTest", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBboxTestMethod3.class);
+
+        // Purely static methods
+        builder.addStaticMethod("Oracle.sdo_elem_info_array", org.datanucleus.store.types.geospatial.rdbms.sql.method.OracleSdoElemInfoArrayMethod.class);
+        builder.addStaticMethod("Oracle.sdo_geometry", org.datanucleus.store.types.geospatial.rdbms.sql.method.OracleSdoGeometryMethod.class);
+        builder.addStaticMethod("Oracle.sdo_ordinate_array", org.datanucleus.store.types.geospatial.rdbms.sql.method.OracleSdoOrdinateArrayMethod.class);
+        builder.addStaticMethod("Oracle.sdo_point_type", org.datanucleus.store.types.geospatial.rdbms.sql.method.OracleSdoPointTypeMethod.class);
+
+        builder.addStaticMethod("Spatial.geomFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromTextMethod2.class);
+        builder.addStaticMethod("Spatial.pointFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointFromTextMethod2.class);
+        builder.addStaticMethod("Spatial.lineFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialLineFromTextMethod2.class);
+        builder.addStaticMethod("Spatial.polyFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPolyFromTextMethod2.class);
+        builder.addStaticMethod("Spatial.mLineFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMLineFromTextMethod2.class);
+        builder.addStaticMethod("Spatial.mPointFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMPointFromTextMethod2.class);
+        builder.addStaticMethod("Spatial.mPolyFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMPolyFromTextMethod2.class);
+        builder.addStaticMethod("Spatial.geomCollFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomCollFromTextMethod2.class);
+
+        builder.addStaticMethod("Spatial.geomFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromWKBMethod2.class);
+        builder.addStaticMethod("Spatial.geomCollFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomCollFromWKBMethod2.class);
+        builder.addStaticMethod("Spatial.pointFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointFromWKBMethod2.class);
+        builder.addStaticMethod("Spatial.mPointFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMPointFromWKBMethod2.class);
+        builder.addStaticMethod("Spatial.lineFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialLineFromWKBMethod2.class);
+        builder.addStaticMethod("Spatial.mLineFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMLineFromWKBMethod2.class);
+        builder.addStaticMethod("Spatial.polyFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPolyFromWKBMethod2.class);
+        builder.addStaticMethod("Spatial.mPolyFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialMPolyFromWKBMethod2.class);
+
+        // Methods invoked on an object
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getEnvelope", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEnvelopeMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getDimension", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDimensionMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getBoundary", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBoundaryMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getSRID", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSridMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "isSimple", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsSimpleMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "isEmpty", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsEmptyMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "toText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsTextMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "toBinary", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsBinaryMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getGeometryType", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryTypeMethod2.class);
+
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "contains", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialContainsMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "overlaps", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialOverlapsMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "touches", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialTouchesMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "crosses", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCrossesMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "within", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialWithinMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "intersects", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectsMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "equals", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEqualsMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "disjoint", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDisjointMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "relate", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialRelateMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "distance", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDistanceMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "isWithinDistance", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDWithinMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "intersection", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectionMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "buffer", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBufferMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "convexHull", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialConvexHullMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "symDifference", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSymDifferenceMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "difference", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDifferenceMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "union", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialUnionMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "bboxTest", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBboxTestMethod3.class);
+
+        // Curve
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getLength", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialLengthMethod2.class);
+
+        // LineString
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getNumPoints", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumPointsMethod2.class);
+
+        // Surface
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getCentroid", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCentroidMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getArea", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAreaMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getPointOnSurface", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointOnSurfaceMethod2.class);
+
+        // GeomCollection
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getNumGeometries", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumGeometriesMethod2.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getGeometryN", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryNMethod2.class);
+
+        builder.addMethod(SpatialMethodTable.POINT, "getX", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialXMethod2.class);
+        builder.addMethod(SpatialMethodTable.POINT, "getY", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialYMethod2.class);
+
+        builder.addMethod(SpatialMethodTable.LINESTRING, "isRing", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsRingMethod2.class);
+        builder.addMethod(SpatialMethodTable.LINESTRING, "isClosed", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsClosedMethod2.class);
+        builder.addMethod(SpatialMethodTable.LINESTRING, "getStartPoint", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialStartPointMethod2.class);
+        builder.addMethod(SpatialMethodTable.LINESTRING, "getEndPoint", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEndPointMethod2.class);
+        builder.addMethod(SpatialMethodTable.LINESTRING, "getPointN", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointNMethod2.class);
+
+        builder.addMethod(SpatialMethodTable.MULTILINESTRING | SpatialMethodTable.LINEARRING, "isClosed", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsClosedMethod2.class);
+
+        builder.addMethod(SpatialMethodTable.POLYGON, "getExteriorRing", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialExteriorRingMethod2.class);
+        builder.addMethod(SpatialMethodTable.POLYGON, "getInteriorRingN", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialInteriorRingNMethod2.class);
+        builder.addMethod(SpatialMethodTable.POLYGON, "getNumInteriorRing", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumInteriorRingMethod2.class);
+
+        return builder.build();
+    }
+
 }
\ No newline at end of file
@@ -17,18 +17,23 @@ Contributors:
  **********************************************************************/
 package org.datanucleus.store.types.geospatial.rdbms.adapter;
 
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.JDBCType;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
 import java.util.Properties;
 
 import org.datanucleus.ClassLoaderResolver;
-import org.datanucleus.exceptions.ClassNotResolvedException;
 import org.datanucleus.metadata.MetaDataUtils;
 import org.datanucleus.plugin.PluginManager;
 import org.datanucleus.store.connection.ManagedConnection;
 import org.datanucleus.store.rdbms.adapter.PostgreSQLAdapter;
+import org.datanucleus.store.rdbms.identifier.DatastoreIdentifier;
 import org.datanucleus.store.rdbms.identifier.IdentifierFactory;
+import org.datanucleus.store.rdbms.key.Index;
 import org.datanucleus.store.rdbms.key.PrimaryKey;
 import org.datanucleus.store.rdbms.schema.SQLTypeInfo;
 import org.datanucleus.store.rdbms.table.Column;
@@ -46,6 +51,18 @@ public class PostGISAdapter extends PostgreSQLAdapter implements SpatialRDBMSAda
     /** Key name for the hasMeasure extension. **/
     public static final String HAS_MEASURE_EXTENSION_KEY = "postgis-hasMeasure";
 
+    /** Key name for the extension enabling EWKB transfer of a geometry field. **/
+    public static final String BINARY_TRANSFER_EXTENSION_KEY = "postgis-binary";
+
+    /** Name of the persistence property enabling EWKB transfer of all geometry fields. **/
+    public static final String BINARY_TRANSFER_PROPERTY = "datanucleus.geospatial.postgis.binary";
+
+    /**
+     * Whether geometry columns are declared with a type modifier, e.g "GEOMETRY(POINT, 4326)", as supported by
+     * PostGIS 2.0 and later. Otherwise they are added using AddGeometryColumn.
+     */
+    protected boolean typmodGeometryColumns = false;
+
     public PostGISAdapter(DatabaseMetaData metadata)
     {
         super(metadata);
@@ -65,6 +82,56 @@ public class PostGISAdapter extends PostgreSQLAdapter implements SpatialRDBMSAda
 
         // Add on any missing JDBC types
         addSQLTypeForJDBCType(handler, mconn, (short) Types.OTHER, PostGISTypeInfo.TYPEINFO_PROTOTYPE, true);
+
+        typmodGeometryColumns = isPostGISExtensionInstalled(mconn);
+        if (typmodGeometryColumns)
+        {
+            // Tables with geometry columns are created with a single CREATE statement, so it can define the PK
+            supportedOptions.add(PRIMARYKEY_IN_CREATE_STATEMENTS);
+        }
+        NucleusLogger.DATASTORE.debug("PostGIS geometry columns are " + (typmodGeometryColumns ? "declared with type modifiers" : "added using AddGeometryColumn"));
+    }
+
+    /**
+     * Checks whether PostGIS is installed as extension, which is only possible with PostGIS 2.0 and later.
+     * PostGIS 2 installed using the legacy scripts is treated as PostGIS 1, which works but is slower.
+     * @param mconn Managed connection to use
+     * @return Whether the PostGIS extension is installed
+     */
+    protected boolean isPostGISExtensionInstalled(ManagedConnection mconn)
+    {
+        if (datastoreMajorVersion < 9 || (datastoreMajorVersion == 9 && datastoreMinorVersion < 1))
+        {
+            // No extensions before PostgreSQL 9.1
+            return false;
+        }
+
+        Statement stmt = null;
+        try
+        {
+            stmt = ((Connection) mconn.getConnection()).createStatement();
+            ResultSet rs = stmt.executeQuery("SELECT extversion FROM pg_catalog.pg_extension WHERE extname = 'postgis'");
+            return rs.next();
+        }
+        catch (SQLException sqle)
+        {
+            NucleusLogger.DATASTORE.warn("Unable to check for the PostGIS extension, so adding geometry columns using AddGeometryColumn", sqle);
+            return false;
+        }
+        finally
+        {
+            if (stmt != null)
+            {
+                try
+                {
+                    stmt.close();
+                }
+                catch (SQLException sqle)
+                {
+                    // Ignore
+                }
+            }
+        }
     }
 
     /* (non-Javadoc)
@@ -148,16 +215,75 @@ public class PostGISAdapter extends PostgreSQLAdapter implements SpatialRDBMSAda
         return "ALTER TABLE " + pk.getTable().toString() + " ADD " + pk;
     }
 
+    /**
+     * Returns the statement to create an index. An index on a geometry column is created as GIST index, since
+     * a B-tree index on a geometry column cannot be used by the spatial operators.
+     * @param idx The index
+     * @param factory Identifier factory
+     * @return The statement to create the index
+     */
+    public String getCreateIndexStatement(Index idx, IdentifierFactory factory)
+    {
+        if (idx.getColumns().size() == 1 && isGeometryColumn(idx.getColumns().get(0)))
+        {
+            return getCreateSpatialIndexStatement(idx.getTable(), idx.getColumns().get(0), factory.newTableIdentifier(idx.getName()));
+        }
+
+        return super.getCreateIndexStatement(idx, factory);
+    }
+
+    /**
+     * Returns the statement to create a spatial index on a geometry column.
+     * @param table The table
+     * @param column The geometry column
+     * @param indexIdentifier Name of the index
+     * @return The statement to create the index
+     */
+    private String getCreateSpatialIndexStatement(Table table, Column column, DatastoreIdentifier indexIdentifier)
+    {
+        return "CREATE INDEX " + indexIdentifier + " ON " + table.toString() + " USING GIST (" + column.getIdentifier() + ")";
+    }
+
+    /**
+     * Returns the statement adding a column. A geometry column marked with "spatial-index" is followed by the statement
+     * creating its spatial index.
+     * @param table The table
+     * @param column The column
+     * @return The statement(s) adding the column
+     */
     public String getAddColumnStatement(Table table, Column column)
     {
         if (isGeometryColumn(column))
         {
-            return getAddGeometryColumnStatement(table, column);
+            String stmt;
+            if (typmodGeometryColumns)
+            {
+                stmt = super.getAddColumnStatement(table, getTypmodColumn(column));
+            }
+            else
+            {
+                stmt = getAddGeometryColumnStatement(table, column);
+            }
+            if (SpatialDDLHelper.isSpatialIndexCreatedWithColumn(table, column))
+            {
+                stmt += ";" + getContinuationString() + getCreateSpatialIndexStatement(table, column,
+                    SpatialDDLHelper.getSpatialIndexIdentifier(table, column, table.getStoreManager().getIdentifierFactory()));
+            }
+            return stmt;
         }
 
         return super.getAddColumnStatement(table, column);
     }
 
+    /**
+     * Returns the statement(s) creating a table. These are followed by the statements creating the spatial indexes of
+     * the geometry columns marked with "spatial-index".
+     * @param table The table
+     * @param columns The columns of the table
+     * @param props Properties for the table (unused)
+     * @param factory Identifier factory
+     * @return The statement(s) creating the table
+     */
     public String getCreateTableStatement(TableImpl table, Column[] columns, Properties props, IdentifierFactory factory)
     {
         boolean hasGeometryColumn = false;
@@ -174,11 +300,18 @@ public class PostGISAdapter extends PostgreSQLAdapter implements SpatialRDBMSAda
             return super.getCreateTableStatement(table, columns, null, factory);
         }
 
-        // TODO See https://github.com/datanucleus/datanucleus-geospatial/issues/14
-        // We could just do below when org.postgis.Version.MAJOR == 1, and create "normally" otherwise, except that in that case
-        // the GEOMETRY column type would need to pass in the type and extent, e.g     COL1 GEOMETRY(POINT, 2)
+        if (typmodGeometryColumns)
+        {
+            // PostGIS 2+ : one CREATE statement, with the type and extent of the geometry columns as type modifiers, e.g COL1 GEOMETRY(POINT, 2)
+            Column[] ddlColumns = new Column[columns.length];
+            for (int i = 0; i < columns.length; ++i)
+            {
+                ddlColumns[i] = isGeometryColumn(columns[i]) ? getTypmodColumn(columns[i]) : columns[i];
+            }
+            return super.getCreateTableStatement(table, ddlColumns, null, factory) + getCreateSpatialIndexStatements(table, columns, factory);
+        }
 
-        // Create empty table first, then add each column individually, because the geometry columns have to be added via SQL function.
+        // PostGIS 1.x : create empty table first, then add each column individually, because the geometry columns have to be added via SQL function.
         StringBuilder createStatements = new StringBuilder();
         createStatements.append("CREATE TABLE ").append(table.toString()).append(" ();").append(getContinuationString());
 
@@ -191,6 +324,28 @@ public class PostGISAdapter extends PostgreSQLAdapter implements SpatialRDBMSAda
         return createStatements.toString();
     }
 
+    /**
+     * Returns the statements creating the spatial indexes of the geometry columns marked with "spatial-index", each
+     * preceded by a separator, to follow the statement creating their table.
+     * @param table The table
+     * @param columns The columns of the table
+     * @param factory Identifier factory
+     * @return The statements, or an empty string when none of the columns is marked
+     */
+    private String getCreateSpatialIndexStatements(Table table, Column[] columns, IdentifierFactory factory)
+    {
+        StringBuilder stmts = new StringBuilder();
+        for (Column col : columns)
+        {
+            if (isGeometryColumn(col) && SpatialDDLHelper.isSpatialIndexCreatedWithColumn(table, col))
+            {
+                stmts.append(";").append(getContinuationString())
+                    .append(getCreateSpatialIndexStatement(table, col, SpatialDDLHelper.getSpatialIndexIdentifier(table, col, factory)));
+            }
+        }
+        return stmts.toString();
+    }
+
     public String getRetrieveCrsWktStatement(Table table, int srid)
     {
         return "SELECT srtext FROM #schema . spatial_ref_sys WHERE srid = #srid".replace("#schema", table.getSchemaName()).replace("#srid","" + srid);
@@ -201,316 +356,369 @@ public class PostGISAdapter extends PostgreSQLAdapter implements SpatialRDBMSAda
         return "SELECT auth_name || ':' || auth_srid FROM #schema . spatial_ref_sys WHERE srid = #srid".replace("#schema", table.getSchemaName()).replace("#srid", "" + srid);
     }
 
-    public String getCalculateBoundsStatement(Table table, Column column)
+    public String getRetrieveAllCrsStatement(Table table)
     {
-        return "SELECT " + "min(xmin(box2d(#column))), " + "min(ymin(box2d(#column))), " + "max(xmax(box2d(#column))), " + "max(ymax(box2d(#column)))" + "FROM #schema . #table"
-                .replace("#schema", table.getSchemaName()).replace("#table", "" + table.getIdentifier().getName())
-                .replace("#column", "" + column.getIdentifier().getName());
+        return "SELECT srid, auth_name || ':' || auth_srid, srtext FROM #schema . spatial_ref_sys".replace("#schema", table.getSchemaName());
     }
 
-    private String getAddGeometryColumnStatement(Table table, Column column)
+    public String getReducedFetchFunction(String fetchMode, double tolerance)
     {
-        int srid = -1;
-        byte dimension = 2;
-        boolean hasMeasure = false;
-
-        String extensionValue = MetaDataUtils.getValueForExtensionRecursively(column.getColumnMetaData(), SRID_EXTENSION_KEY);
-        if (extensionValue != null)
+        if (FETCH_MODE_ENVELOPE.equals(fetchMode))
         {
-            try
-            {
-                srid = Integer.parseInt(extensionValue);
-            }
-            catch (NumberFormatException nfe)
-            {
-                NucleusLogger.DATASTORE.warn(Localiser.msg("044213", SRID_EXTENSION_KEY, extensionValue), nfe);
-            }
+            return "ST_Envelope(?)";
         }
-
-        extensionValue = MetaDataUtils.getValueForExtensionRecursively(column.getColumnMetaData(), DIMENSION_EXTENSION_KEY);
-        if (extensionValue != null)
+        else if (FETCH_MODE_SIMPLIFIED.equals(fetchMode))
         {
-            try
-            {
-                dimension = Byte.parseByte(extensionValue);
-            }
-            catch (NumberFormatException nfe)
-            {
-                NucleusLogger.DATASTORE.warn(Localiser.msg("044213", DIMENSION_EXTENSION_KEY, extensionValue), nfe);
-            }
+            // Unlike ST_Simplify this keeps the type of the geometry and doesn't collapse it
+            return "ST_SimplifyPreserveTopology(?, " + tolerance + ")";
         }
+        return null;
+    }
 
-        extensionValue = MetaDataUtils.getValueForExtensionRecursively(column.getColumnMetaData(), HAS_MEASURE_EXTENSION_KEY);
-        if (extensionValue != null)
-        {
-            try
-            {
-                hasMeasure = Boolean.parseBoolean(extensionValue);
-            }
-            catch (NumberFormatException nfe)
-            {
-                NucleusLogger.DATASTORE.warn(Localiser.msg("044213", HAS_MEASURE_EXTENSION_KEY, extensionValue), nfe);
-            }
-        }
+    public String getCalculateBoundsStatement(Table table, Column column)
+    {
+        return ("SELECT " + "min(xmin(box2d(#column))), " + "min(ymin(box2d(#column))), " + "max(xmax(box2d(#column))), " + "max(ymax(box2d(#column))) " + "FROM #table")
+                .replace("#table", table.toString())
+                .replace("#column", "" + column.getIdentifier().getName());
+    }
 
-        if (hasMeasure)
+    public String getEstimateBoundsStatement(Table table, Column column)
+    {
+        // Estimated from the statistics gathered by ANALYZE, so returns NULL for a table that hasn't been analyzed yet
+        String args = (table.getSchemaName() == null ? "" : "'" + table.getSchemaName() + "', ") + "'" + table.getIdentifier().getName() + "', '" +
+            column.getIdentifier().getName() + "'";
+        return "SELECT xmin(e), ymin(e), xmax(e), ymax(e) FROM (SELECT " + (typmodGeometryColumns ? "ST_EstimatedExtent" : "estimated_extent") +
+            "(" + args + ") AS e) AS extent";
+    }
+
+    public String getRetrieveSridStatement(Table table, Column column)
+    {
+        return "SELECT srid FROM geometry_columns WHERE " + (table.getSchemaName() == null ? "" : "f_table_schema = '" + table.getSchemaName() + "' AND ") +
+            "f_table_name = '" + table.getIdentifier().getName() + "' AND f_geometry_column = '" + column.getIdentifier().getName() + "'";
+    }
+
+    public boolean supportsIndexedKnnOrdering(Table table, Column column)
+    {
+        // Without a GIST index the rows are sorted by distance, which still beats a series of distance queries
+        return true;
+    }
+
+    public String getMultiRowInsertStatement(Table table, String columns, String rowValues, int rows)
+    {
+        StringBuilder stmt = new StringBuilder("INSERT INTO ").append(table.toString()).append(" (").append(columns).append(") VALUES ");
+        for (int i = 0; i < rows; i++)
         {
-            dimension++;
+            stmt.append(i > 0 ? ", " : "").append(rowValues);
         }
+        return stmt.toString();
+    }
+
+    public int getMaxMultiRowInsertParameters()
+    {
+        // Limit of the PostgreSQL JDBC driver before 42.4, later versions allow 65535
+        return 32767;
+    }
+
+    public String getAnalyzeTableStatement(Table table)
+    {
+        return "ANALYZE " + table.toString();
+    }
 
+    private String getAddGeometryColumnStatement(Table table, Column column)
+    {
+        GeometryColumnSpec spec = new GeometryColumnSpec(column);
         return "SELECT AddGeometryColumn( '#schema', '#table', '#column', #srid, '#type', #dimension )"
                 .replace("#schema", table.getSchemaName() == null ? "" : table.getSchemaName())
                 .replace("#table", table.getIdentifier().getName())
                 .replace("#column", column.getIdentifier().getName())
-                .replace("#srid", "" + srid)
-                .replace("#type", column.getTypeInfo().getLocalTypeName().concat(hasMeasure ? "M" : ""))
-                .replace("#dimension", "" + dimension);
+                .replace("#srid", "" + spec.srid)
+                .replace("#type", column.getTypeInfo().getLocalTypeName().concat(spec.hasMeasure ? "M" : ""))
+                .replace("#dimension", "" + spec.dimension);
     }
 
-    public boolean isGeometryColumn(Column column)
+    /**
+     * Returns the column to use in the DDL of a geometry column, declaring its type with type modifiers, e.g
+     * "GEOMETRY(POINTZ, 4326)". DDL specified by the user is kept as is.
+     * @param column The geometry column
+     * @return The column to use in the DDL
+     */
+    private Column getTypmodColumn(Column column)
     {
-        SQLTypeInfo typeInfo = column.getTypeInfo();
-        return (typeInfo == null) ? false : typeInfo.getTypeName().equalsIgnoreCase("geometry");
+        if (SpatialDDLHelper.hasColumnDdl(column))
+        {
+            return column;
+        }
+
+        GeometryColumnSpec spec = new GeometryColumnSpec(column);
+        String type = column.getTypeInfo().getLocalTypeName().toUpperCase();
+        if (spec.dimension == 4)
+        {
+            type += "ZM";
+        }
+        else if (spec.hasMeasure)
+        {
+            type += "M";
+        }
+        else if (spec.dimension == 3)
+        {
+            type += "Z";
+        }
+
+        // An unknown srid is -1 for AddGeometryColumn, and is left out with type modifiers
+        String definition = column.getIdentifier() + " GEOMETRY(" + type + (spec.srid > 0 ? ", " + spec.srid : "") + ")";
+        return SpatialDDLHelper.withSQLDefinition(column, column.isNullable() ? definition : definition + " NOT NULL");
     }
 
-    /* (non-Javadoc)
-     * @see org.datanucleus.store.rdbms.adapter.PostgreSQLAdapter#getSQLMethodClass(java.lang.String, java.lang.String, org.datanucleus.ClassLoaderResolver)
+    /**
+     * Type and extent of a geometry column, as given by the extensions "spatial-srid", "spatial-dimension" and "postgis-hasMeasure".
      */
-    @Override
-    public Class getSQLMethodClass(String className, String methodName, ClassLoaderResolver clr)
+    private static class GeometryColumnSpec
     {
-        if (className == null)
-        {
-            if ("Spatial.envelope".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEnvelopeMethod3.class;
-            if ("Spatial.dimension".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDimensionMethod3.class;
-            if ("Spatial.boundary".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBoundaryMethod3.class;
-            if ("Spatial.srid".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSridMethod3.class;
-            if ("Spatial.isSimple".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsSimpleMethod3.class;
-            if ("Spatial.isEmpty".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsEmptyMethod3.class;
-            if ("Spatial.asBinary".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsBinaryMethod3.class;
-            if ("Spatial.asText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsTextMethod3.class;
-            if ("Spatial.geometryType".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryTypeMethod3.class;
-
-            if ("Spatial.contains".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialContainsMethod3.class;
-            if ("Spatial.overlaps".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialOverlapsMethod3.class;
-            if ("Spatial.touches".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialTouchesMethod3.class;
-            if ("Spatial.crosses".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCrossesMethod3.class;
-            if ("Spatial.within".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialWithinMethod3.class;
-            if ("Spatial.intersects".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectsMethod3.class;
-            if ("Spatial.equals".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEqualsMethod3.class;
-            if ("Spatial.disjoint".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDisjointMethod3.class;
-            if ("Spatial.relate".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialRelateMethod3.class;
-            if ("Spatial.distance".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDistanceMethod3.class;
-            if ("Spatial.intersection".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectionMethod3.class;
-            if ("Spatial.buffer".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBufferMethod3.class;
-            if ("Spatial.convexHull".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialConvexHullMethod3.class;
-            if ("Spatial.symDifference".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSymDifferenceMethod3.class;
-            if ("Spatial.difference".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDifferenceMethod3.class;
-            if ("Spatial.union".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialUnionMethod3.class;
-
-            if ("Spatial.length".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialLengthMethod3.class;
-
-            if ("Spatial.numPoints".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumPointsMethod3.class;
-
-            if ("Spatial.centroid".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCentroidMethod3.class;
-            if ("Spatial.area".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAreaMethod3.class;
-            if ("Spatial.pointOnSurface".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointOnSurfaceMethod3.class;
-
-            if ("Spatial.numGeometries".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumGeometriesMethod3.class;
-            if ("Spatial.geometryN".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryNMethod3.class;
-
-            if ("Spatial.x".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialXMethod3.class;
-            if ("Spatial.y".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialYMethod3.class;
-
-            if ("Spatial.isRing".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsRingMethod3.class;
-            if ("Spatial.isClosed".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsClosedMethod3.class;
-            if ("Spatial.startPoint".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialStartPointMethod3.class;
-            if ("Spatial.endPoint".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEndPointMethod3.class;
-            if ("Spatial.pointN".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointNMethod3.class;
-
-            if ("Spatial.exteriorRing".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialExteriorRingMethod3.class;
-            if ("Spatial.numInteriorRing".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumInteriorRingMethod3.class;
-            if ("Spatial.interiorRingN".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialInteriorRingNMethod3.class;
-
-            if ("Spatial.transform".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomTransformMethod.class;
-
-            if ("Spatial.bboxTest".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBboxTestMethod.class;
-
-            // Purely static methods
-            if ("PostGIS.bboxBelow".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISBboxBelowMethod.class;
-            if ("PostGIS.bboxAbove".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISBboxAboveMethod.class;
-            if ("PostGIS.bboxLeft".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISBboxLeftMethod.class;
-            if ("PostGIS.bboxRight".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISBboxRightMethod.class;
-            if ("PostGIS.bboxOverlapsBelow".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISBboxOverlapsBelowMethod.class;
-            if ("PostGIS.bboxOverlapsAbove".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISBboxOverlapsAboveMethod.class;
-            if ("PostGIS.bboxOverlapsLeft".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISBboxOverlapsLeftMethod.class;
-            if ("PostGIS.bboxOverlapsRight".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISBboxOverlapsRightMethod.class;
-            if ("PostGIS.bboxContains".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISBboxContainsMethod.class;
-            if ("PostGIS.bboxWithin".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISBboxWithinMethod.class;
-            if ("PostGIS.sameAs".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISSameAsMethod.class;
-
-            if ("Spatial.geogFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeographyFromTextMethod.class;
-            if ("Spatial.geomFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromTextMethod3.class;
-            if ("Spatial.pointFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromTextMethod3.class;
-            if ("Spatial.lineFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromTextMethod3.class;
-            if ("Spatial.polyFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromTextMethod3.class;
-            if ("Spatial.mLineFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromTextMethod3.class;
-            if ("Spatial.mPointFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromTextMethod3.class;
-            if ("Spatial.mPolyFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromTextMethod3.class;
-            if ("Spatial.geomCollFromText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromTextMethod3.class;
-
-            if ("Spatial.geogFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeographyFromWKBMethod.class;
-            if ("Spatial.geomFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromWKBMethod3.class;
-            if ("Spatial.geomCollFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromWKBMethod3.class;                    
-            if ("Spatial.pointFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromWKBMethod3.class;
-            if ("Spatial.mPointFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromWKBMethod3.class;
-            if ("Spatial.lineFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromWKBMethod3.class;
-            if ("Spatial.mLineFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromWKBMethod3.class;
-            if ("Spatial.polyFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromWKBMethod3.class;
-            if ("Spatial.mPolyFromWKB".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromWKBMethod3.class;
-        }
-        else
+        int srid = -1;
+
+        /** Number of dimensions, including the measure if any. */
+        byte dimension = 2;
+
+        boolean hasMeasure = false;
+
+        GeometryColumnSpec(Column column)
         {
-            // Methods invoked on an object
-            Class cls = null;
-            try
+            String extensionValue = MetaDataUtils.getValueForExtensionRecursively(column.getColumnMetaData(), SRID_EXTENSION_KEY);
+            if (extensionValue != null)
             {
-                cls = clr.classForName(className);
-            }
-            catch (ClassNotResolvedException cnre) {}
-
-            boolean isGeometry = false;
-            boolean isPoint = false;
-            boolean isLineString = false;
-            boolean isMultiLineString = false;
-            boolean isLinearRing = false;
-            boolean isPolygon = false;
-            if (className.startsWith("com.vividsolutions.jts"))
-            {
-                if (com.vividsolutions.jts.geom.Geometry.class.getName().equals(className) || (cls != null && com.vividsolutions.jts.geom.Geometry.class.isAssignableFrom(cls)))
-                {
-                    isGeometry = true;
-                }
-                if (com.vividsolutions.jts.geom.Point.class.getName().equals(className) || (cls != null && com.vividsolutions.jts.geom.Point.class.isAssignableFrom(cls)))
-                {
-                    isPoint = true;
-                }
-                if (com.vividsolutions.jts.geom.LineString.class.getName().equals(className) || (cls != null && com.vividsolutions.jts.geom.LineString.class.isAssignableFrom(cls)))
+                try
                 {
-                    isLineString = true;
+                    srid = Integer.parseInt(extensionValue);
                 }
-                if (com.vividsolutions.jts.geom.MultiLineString.class.getName().equals(className) || (cls != null && com.vividsolutions.jts.geom.MultiLineString.class.isAssignableFrom(cls)))
+                catch (NumberFormatException nfe)
                 {
-                    isMultiLineString = true;
-                }
-                if (com.vividsolutions.jts.geom.LinearRing.class.getName().equals(className) || (cls != null && com.vividsolutions.jts.geom.LinearRing.class.isAssignableFrom(cls)))
-                {
-                    isLinearRing = true;
-                }
-                if (com.vividsolutions.jts.geom.Polygon.class.getName().equals(className) || (cls != null && com.vividsolutions.jts.geom.Polygon.class.isAssignableFrom(cls)))
-                {
-                    isPolygon = true;
+                    NucleusLogger.DATASTORE.warn(Localiser.msg("044213", SRID_EXTENSION_KEY, extensionValue), nfe);
                 }
             }
-            else if (className.startsWith("org.postgis"))
+
+            extensionValue = MetaDataUtils.getValueForExtensionRecursively(column.getColumnMetaData(), DIMENSION_EXTENSION_KEY);
+            if (extensionValue != null)
             {
-                if (org.postgis.Geometry.class.getName().equals(className) || (cls != null && org.postgis.Geometry.class.isAssignableFrom(cls)))
-                {
-                    isGeometry = true;
-                }
-                if (org.postgis.Point.class.getName().equals(className) || (cls != null && org.postgis.Point.class.isAssignableFrom(cls)))
-                {
-                    isPoint = true;
-                }
-                if (org.postgis.LineString.class.getName().equals(className) || (cls != null && org.postgis.LineString.class.isAssignableFrom(cls)))
-                {
-                    isLineString = true;
-                }
-                if (org.postgis.MultiLineString.class.getName().equals(className) || (cls != null && org.postgis.MultiLineString.class.isAssignableFrom(cls)))
-                {
-                    isMultiLineString = true;
-                }
-                if (org.postgis.LinearRing.class.getName().equals(className) || (cls != null && org.postgis.LinearRing.class.isAssignableFrom(cls)))
+                try
                 {
-                    isLinearRing = true;
+                    dimension = Byte.parseByte(extensionValue);
                 }
-                if (org.postgis.Polygon.class.getName().equals(className) || (cls != null && org.postgis.Polygon.class.isAssignableFrom(cls)))
+                catch (NumberFormatException nfe)
                 {
-                    isPolygon = true;
+                    NucleusLogger.DATASTORE.warn(Localiser.msg("044213", DIMENSION_EXTENSION_KEY, extensionValue), nfe);
                 }
             }
 
-            if (isGeometry)
+            extensionValue = MetaDataUtils.getValueForExtensionRecursively(column.getColumnMetaData(), HAS_MEASURE_EXTENSION_KEY);
+            if (extensionValue != null)
             {
-                if ("getEnvelope".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEnvelopeMethod3.class;
-                if ("getDimension".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDimensionMethod3.class;
-                if ("getBoundary".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBoundaryMethod3.class;
-                if ("getSRID".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSridMethod3.class;
-                if ("isSimple".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsSimpleMethod3.class;
-                if ("isEmpty".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsEmptyMethod3.class;
-                if ("toText".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsTextMethod3.class;
-                if ("toBinary".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsBinaryMethod3.class;
-                if ("getGeometryType".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryTypeMethod3.class;
-
-                if ("contains".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialContainsMethod3.class;
-                if ("overlaps".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialOverlapsMethod3.class;
-                if ("touches".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialTouchesMethod3.class;
-                if ("crosses".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCrossesMethod3.class;
-                if ("within".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialWithinMethod3.class;
-                if ("intersects".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectsMethod3.class;
-                if ("equals".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEqualsMethod3.class;
-                if ("disjoint".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDisjointMethod3.class;
-                if ("relate".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialRelateMethod3.class;
-                if ("distance".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDistanceMethod3.class;
-                if ("intersection".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectionMethod3.class;
-                if ("buffer".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBufferMethod3.class;
-                if ("convexHull".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialConvexHullMethod3.class;
-                if ("symDifference".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSymDifferenceMethod3.class;
-                if ("difference".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDifferenceMethod3.class;
-                if ("union".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialUnionMethod3.class;
-                if ("bboxTest".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBboxTestMethod.class;
-
-                // Curve
-                if ("getLength".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialLengthMethod3.class;
-
-                // LineString
-                if ("getNumPoints".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumPointsMethod3.class;
-
-                // Surface
-                if ("getCentroid".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCentroidMethod3.class;
-                if ("getArea".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAreaMethod3.class;
-                if ("getPointOnSurface".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointOnSurfaceMethod3.class;
-
-                // GeomCollection
-                if ("getGeometryN".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryNMethod3.class;
-                if ("getNumGeometries".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumGeometriesMethod3.class;
-
-                if (isPoint)
-                {
-                    if ("getX".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialXMethod3.class;
-                    if ("getY".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialYMethod3.class;
-                }
-                if (isLineString)
+                try
                 {
-                    if ("isRing".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsRingMethod3.class;
-                    if ("isClosed".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsClosedMethod3.class;
-                    if ("getStartPoint".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialStartPointMethod3.class;
-                    if ("getEndPoint".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEndPointMethod3.class;
-                    if ("getPointN".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointNMethod3.class;
+                    hasMeasure = Boolean.parseBoolean(extensionValue);
                 }
-                if (isMultiLineString || isLinearRing)
+                catch (NumberFormatException nfe)
                 {
-                    if ("isClosed".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsClosedMethod3.class;
-                }
-                if (isPolygon)
-                {
-                    if ("getExteriorRing".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialExteriorRingMethod3.class;
-                    if ("getInteriorRingN".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialInteriorRingNMethod3.class;
-                    if ("getNumInteriorRing".equals(methodName)) return org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumInteriorRingMethod3.class;
+                    NucleusLogger.DATASTORE.warn(Localiser.msg("044213", HAS_MEASURE_EXTENSION_KEY, extensionValue), nfe);
                 }
             }
+
+            if (hasMeasure)
+            {
+                dimension++;
+            }
         }
+    }
+
+    public boolean isGeometryColumn(Column column)
+    {
+        SQLTypeInfo typeInfo = column.getTypeInfo();
+        return (typeInfo == null) ? false : typeInfo.getTypeName().equalsIgnoreCase("geometry");
+    }
 
+    /** Spatial methods supported by PostGIS, resolved by {@link #getSQLMethodClass(String, String, ClassLoaderResolver)}. */
+    private static final SpatialMethodTable METHOD_TABLE = createMethodTable();
+
+    /* (non-Javadoc)
+     * @see org.datanucleus.store.rdbms.adapter.PostgreSQLAdapter#getSQLMethodClass(java.lang.String, java.lang.String, org.datanucleus.ClassLoaderResolver)
+     */
+    @Override
+    public Class getSQLMethodClass(String className, String methodName, ClassLoaderResolver clr)
+    {
+        Class methodClass = METHOD_TABLE.getMethodClass(className, methodName, clr);
+        if (methodClass != null)
+        {
+            return methodClass;
+        }
         return super.getSQLMethodClass(className, methodName, clr);
     }
+
+    /**
+     * Creates the table of the spatial methods supported by PostGIS.
+     * @return The method table
+     */
+    private static SpatialMethodTable createMethodTable()
+    {
+        SpatialMethodTable.Builder builder = new SpatialMethodTable.Builder();
+        builder.addTypes("com.vividsolutions.jts", "com.vividsolutions.jts.geom");
+        builder.addTypes("org.postgis", "org.postgis");
+
+        // Static methods, or functions
+        builder.addStaticMethod("Spatial.envelope", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEnvelopeMethod3.class);
+        builder.addStaticMethod("Spatial.dimension", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDimensionMethod3.class);
+        builder.addStaticMethod("Spatial.boundary", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBoundaryMethod3.class);
+        builder.addStaticMethod("Spatial.srid", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSridMethod3.class);
+        builder.addStaticMethod("Spatial.isSimple", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsSimpleMethod3.class);
+        builder.addStaticMethod("Spatial.isEmpty", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsEmptyMethod3.class);
+        builder.addStaticMethod("Spatial.asBinary", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsBinaryMethod3.class);
+        builder.addStaticMethod("Spatial.asText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsTextMethod3.class);
+        builder.addStaticMethod("Spatial.geometryType", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryTypeMethod3.class);
+
+        builder.addStaticMethod("Spatial.contains", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialContainsMethod3.class);
+        builder.addStaticMethod("Spatial.overlaps", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialOverlapsMethod3.class);
+        builder.addStaticMethod("Spatial.touches", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialTouchesMethod3.class);
+        builder.addStaticMethod("Spatial.crosses", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCrossesMethod3.class);
+        builder.addStaticMethod("Spatial.within", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialWithinMethod3.class);
+        builder.addStaticMethod("Spatial.intersects", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectsMethod3.class);
+        builder.addStaticMethod("Spatial.equals", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEqualsMethod3.class);
+        builder.addStaticMethod("Spatial.disjoint", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDisjointMethod3.class);
+        builder.addStaticMethod("Spatial.covers", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCoversMethod3.class);
+        builder.addStaticMethod("Spatial.coveredBy", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCoveredByMethod3.class);
+        builder.addStaticMethod("Spatial.relate", org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISRelateMethod.class);
+        builder.addStaticMethod("Spatial.distance", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDistanceMethod3.class);
+        builder.addStaticMethod("Spatial.dwithin", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDWithinMethod3.class);
+        builder.addStaticMethod("Spatial.knnDistance", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialKnnDistanceMethod3.class);
+        builder.addStaticMethod("Spatial.intersection", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectionMethod3.class);
+        builder.addStaticMethod("Spatial.buffer", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBufferMethod3.class);
+        builder.addStaticMethod("Spatial.simplify", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSimplifyMethod3.class);
+        builder.addStaticMethod("Spatial.clip", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialClipMethod3.class);
+        builder.addStaticMethod("Spatial.convexHull", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialConvexHullMethod3.class);
+        builder.addStaticMethod("Spatial.symDifference", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSymDifferenceMethod3.class);
+        builder.addStaticMethod("Spatial.difference", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDifferenceMethod3.class);
+        builder.addStaticMethod("Spatial.union", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialUnionMethod3.class);
+
+        builder.addStaticMethod("Spatial.length", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialLengthMethod3.class);
+
+        builder.addStaticMethod("Spatial.numPoints", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumPointsMethod3.class);
+
+        builder.addStaticMethod("Spatial.centroid", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCentroidMethod3.class);
+        builder.addStaticMethod("Spatial.area", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAreaMethod3.class);
+        builder.addStaticMethod("Spatial.pointOnSurface", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointOnSurfaceMethod3.class);
+
+        builder.addStaticMethod("Spatial.numGeometries", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumGeometriesMethod3.class);
+        builder.addStaticMethod("Spatial.geometryN", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryNMethod3.class);
+
+        builder.addStaticMethod("Spatial.x", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialXMethod3.class);
+        builder.addStaticMethod("Spatial.y", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialYMethod3.class);
+
+        builder.addStaticMethod("Spatial.isRing", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsRingMethod3.class);
+        builder.addStaticMethod("Spatial.isClosed", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsClosedMethod3.class);
+        builder.addStaticMethod("Spatial.startPoint", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialStartPointMethod3.class);
+        builder.addStaticMethod("Spatial.endPoint", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEndPointMethod3.class);
+        builder.addStaticMethod("Spatial.pointN", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointNMethod3.class);
+
+        builder.addStaticMethod("Spatial.exteriorRing", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialExteriorRingMethod3.class);
+        builder.addStaticMethod("Spatial.numInteriorRing", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumInteriorRingMethod3.class);
+        builder.addStaticMethod("Spatial.interiorRingN", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialInteriorRingNMethod3.class);
+
+        builder.addStaticMethod("Spatial.transform", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomTransformMethod.class);
+
+        builder.addStaticMethod("Spatial.bboxTest", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBboxTestMethod.class);
+
+        // Purely static methods
+        builder.addStaticMethod("PostGIS.bboxBelow", org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISBboxBelowMethod.class);
+        builder.addStaticMethod("PostGIS.bboxAbove", org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISBboxAboveMethod.class);
+        builder.addStaticMethod("PostGIS.bboxLeft", org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISBboxLeftMethod.class);
+        builder.addStaticMethod("PostGIS.bboxRight", org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISBboxRightMethod.class);
+        builder.addStaticMethod("PostGIS.bboxOverlapsBelow", org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISBboxOverlapsBelowMethod.class);
+        builder.addStaticMethod("PostGIS.bboxOverlapsAbove", org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISBboxOverlapsAboveMethod.class);
+        builder.addStaticMethod("PostGIS.bboxOverlapsLeft", org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISBboxOverlapsLeftMethod.class);
+        builder.addStaticMethod("PostGIS.bboxOverlapsRight", org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISBboxOverlapsRightMethod.class);
+        builder.addStaticMethod("PostGIS.bboxContains", org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISBboxContainsMethod.class);
+        builder.addStaticMethod("PostGIS.bboxWithin", org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISBboxWithinMethod.class);
+        builder.addStaticMethod("PostGIS.sameAs", org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISSameAsMethod.class);
+
+        builder.addStaticMethod("Spatial.geogFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeographyFromTextMethod.class);
+        builder.addStaticMethod("Spatial.geomFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromTextMethod3.class);
+        builder.addStaticMethod("Spatial.pointFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromTextMethod3.class);
+        builder.addStaticMethod("Spatial.lineFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromTextMethod3.class);
+        builder.addStaticMethod("Spatial.polyFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromTextMethod3.class);
+        builder.addStaticMethod("Spatial.mLineFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromTextMethod3.class);
+        builder.addStaticMethod("Spatial.mPointFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromTextMethod3.class);
+        builder.addStaticMethod("Spatial.mPolyFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromTextMethod3.class);
+        builder.addStaticMethod("Spatial.geomCollFromText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromTextMethod3.class);
+
+        builder.addStaticMethod("Spatial.geogFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeographyFromWKBMethod.class);
+        builder.addStaticMethod("Spatial.geomFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromWKBMethod3.class);
+        builder.addStaticMethod("Spatial.geomCollFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromWKBMethod3.class);
+        builder.addStaticMethod("Spatial.pointFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromWKBMethod3.class);
+        builder.addStaticMethod("Spatial.mPointFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromWKBMethod3.class);
+        builder.addStaticMethod("Spatial.lineFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromWKBMethod3.class);
+        builder.addStaticMethod("Spatial.mLineFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromWKBMethod3.class);
+        builder.addStaticMethod("Spatial.polyFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromWKBMethod3.class);
+        builder.addStaticMethod("Spatial.mPolyFromWKB", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeomFromWKBMethod3.class);
+
+        // Methods invoked on an object
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getEnvelope", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEnvelopeMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getDimension", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDimensionMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getBoundary", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBoundaryMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getSRID", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSridMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "isSimple", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsSimpleMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "isEmpty", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsEmptyMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "toText", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsTextMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "toBinary", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAsBinaryMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getGeometryType", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryTypeMethod3.class);
+
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "contains", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialContainsMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "overlaps", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialOverlapsMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "touches", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialTouchesMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "crosses", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCrossesMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "within", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialWithinMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "intersects", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectsMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "equals", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEqualsMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "disjoint", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDisjointMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "covers", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCoversMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "coveredBy", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCoveredByMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "relate", org.datanucleus.store.types.geospatial.rdbms.sql.method.PostGISRelateMethod.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "distance", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDistanceMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "isWithinDistance", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDWithinMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "intersection", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIntersectionMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "buffer", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBufferMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "convexHull", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialConvexHullMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "symDifference", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialSymDifferenceMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "difference", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialDifferenceMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "union", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialUnionMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "bboxTest", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialBboxTestMethod.class);
+
+        // Curve
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getLength", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialLengthMethod3.class);
+
+        // LineString
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getNumPoints", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumPointsMethod3.class);
+
+        // Surface
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getCentroid", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialCentroidMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getArea", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialAreaMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getPointOnSurface", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointOnSurfaceMethod3.class);
+
+        // GeomCollection
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getGeometryN", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialGeometryNMethod3.class);
+        builder.addMethod(SpatialMethodTable.GEOMETRY, "getNumGeometries", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumGeometriesMethod3.class);
+
+        builder.addMethod(SpatialMethodTable.POINT, "getX", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialXMethod3.class);
+        builder.addMethod(SpatialMethodTable.POINT, "getY", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialYMethod3.class);
+
+        builder.addMethod(SpatialMethodTable.LINESTRING, "isRing", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsRingMethod3.class);
+        builder.addMethod(SpatialMethodTable.LINESTRING, "isClosed", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsClosedMethod3.class);
+        builder.addMethod(SpatialMethodTable.LINESTRING, "getStartPoint", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialStartPointMethod3.class);
+        builder.addMethod(SpatialMethodTable.LINESTRING, "getEndPoint", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialEndPointMethod3.class);
+        builder.addMethod(SpatialMethodTable.LINESTRING, "getPointN", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialPointNMethod3.class);
+
+        builder.addMethod(SpatialMethodTable.MULTILINESTRING | SpatialMethodTable.LINEARRING, "isClosed", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialIsClosedMethod3.class);
+
+        builder.addMethod(SpatialMethodTable.POLYGON, "getExteriorRing", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialExteriorRingMethod3.class);
+        builder.addMethod(SpatialMethodTable.POLYGON, "getInteriorRingN", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialInteriorRingNMethod3.class);
+        builder.addMethod(SpatialMethodTable.POLYGON, "getNumInteriorRing", org.datanucleus.store.types.geospatial.rdbms.sql.method.SpatialNumInteriorRingMethod3.class);
+
+        return builder.build();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.adapter;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.metadata.ColumnMetaData;
+import org.datanucleus.store.rdbms.identifier.DatastoreIdentifier;
+import org.datanucleus.store.rdbms.identifier.IdentifierFactory;
+import org.datanucleus.store.rdbms.identifier.IdentifierType;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.table.Column;
+import org.datanucleus.store.rdbms.table.Table;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.SpatialMappingHelper;
+import org.datanucleus.util.StringUtils;
+
+/**
+ * Helper class for the DDL of geometry columns generated by the spatial adapters. The adapters adjust the
+ * definition of geometry columns, and add the spatial indexes of the columns marked with "spatial-index", while
+ * generating the statements creating a table or adding a column. This leaves the metadata of the user untouched.
+ */
+public class SpatialDDLHelper
+{
+    /**
+     * Whether a spatial index is to be created with a geometry column, because the column is marked with
+     * "spatial-index" (or "datanucleus.geospatial.spatialindex" is set). When the field of the column declares an
+     * index itself, that index is created instead, as spatial index when it only covers the geometry column.
+     * @param table The table
+     * @param column The geometry column
+     * @return Whether to create a spatial index with the column
+     */
+    public static boolean isSpatialIndexCreatedWithColumn(Table table, Column column)
+    {
+        if (!SpatialMappingHelper.hasSpatialIndex(table.getStoreManager(), column))
+        {
+            return false;
+        }
+
+        JavaTypeMapping mapping = column.getJavaTypeMapping();
+        AbstractMemberMetaData mmd = mapping != null ? mapping.getMemberMetaData() : null;
+        return mmd == null || mmd.getIndexMetaData() == null;
+    }
+
+    /**
+     * Accessor for the name of the spatial index created with a geometry column.
+     * @param table The table
+     * @param column The geometry column
+     * @param factory Identifier factory
+     * @return The name of the index
+     */
+    public static DatastoreIdentifier getSpatialIndexIdentifier(Table table, Column column, IdentifierFactory factory)
+    {
+        return factory.newIdentifier(IdentifierType.INDEX, table.getIdentifier().getName() + "_" + column.getIdentifier().getName() + "_SIDX");
+    }
+
+    /**
+     * Whether the user has specified the DDL of a column, in which case its definition is not adjusted.
+     * @param column The column
+     * @return Whether the column has user-specified DDL
+     */
+    public static boolean hasColumnDdl(Column column)
+    {
+        ColumnMetaData colmd = column.getColumnMetaData();
+        return colmd != null && !StringUtils.isWhitespace(colmd.getColumnDdl());
+    }
+
+    /**
+     * Returns a view of a column with another SQL definition, for the generation of DDL statements. All other
+     * methods are delegated to the column.
+     * @param column The column
+     * @param sqlDefinition SQL definition of the column, or of any other element of a CREATE TABLE statement
+     * @return The view of the column
+     */
+    public static Column withSQLDefinition(final Column column, final String sqlDefinition)
+    {
+        return (Column) Proxy.newProxyInstance(Column.class.getClassLoader(), new Class[] {Column.class}, new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+            {
+                if (method.getName().equals("getSQLDefinition") && method.getParameterTypes().length == 0)
+                {
+                    return sqlDefinition;
+                }
+                try
+                {
+                    return method.invoke(column, args);
+                }
+                catch (InvocationTargetException ite)
+                {
+                    throw ite.getCause();
+                }
+            }
+        });
+    }
+}
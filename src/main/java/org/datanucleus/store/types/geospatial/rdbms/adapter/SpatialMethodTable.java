@@ -0,0 +1,302 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.adapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.exceptions.ClassNotResolvedException;
+
+/**
+ * Table of the SQL methods a spatial adapter supports for the spatial query methods, built once when the adapter
+ * is loaded. Static methods ("Spatial.area" etc) are looked up by name. Methods invoked on an object are looked up by
+ * name and then checked against the kind of geometry (point, polygon ...) of the class they're invoked on. The kind of
+ * a class is worked out from the type packages of the table, and cached per class name since the query compiler asks
+ * for it for every method call of every query.
+ */
+public class SpatialMethodTable
+{
+    /** Kind of any geometry class. */
+    public static final int GEOMETRY = 1;
+
+    public static final int POINT = 2;
+
+    public static final int LINESTRING = 4;
+
+    public static final int MULTILINESTRING = 8;
+
+    public static final int LINEARRING = 16;
+
+    public static final int POLYGON = 32;
+
+    public static final int ALL = GEOMETRY | POINT | LINESTRING | MULTILINESTRING | LINEARRING | POLYGON;
+
+    /** Simple names of the classes of each kind, in the order of the kind bits. */
+    private static final String[] KIND_CLASS_NAMES = new String[] {"Geometry", "Point", "LineString", "MultiLineString", "LinearRing", "Polygon"};
+
+    private final Map<String, Class> staticMethods;
+
+    private final Map<String, MethodEntry> methods;
+
+    private final List<TypePackage> typePackages;
+
+    /** Kinds of the classes methods have been looked up for, keyed by class name. */
+    private final ConcurrentHashMap<String, Integer> kindsByClassName = new ConcurrentHashMap<String, Integer>();
+
+    private SpatialMethodTable(Builder builder)
+    {
+        this.staticMethods = Collections.unmodifiableMap(new HashMap<String, Class>(builder.staticMethods));
+        this.methods = Collections.unmodifiableMap(new HashMap<String, MethodEntry>(builder.methods));
+        this.typePackages = Collections.unmodifiableList(new ArrayList<TypePackage>(builder.typePackages));
+    }
+
+    /**
+     * Accessor for the SQL method class of a spatial query method.
+     * @param className Name of the class the method is invoked on, or <code>null</code> for a static method
+     * @param methodName Name of the method
+     * @param clr ClassLoader resolver
+     * @return The SQL method class, or <code>null</code> when the method isn't in this table
+     */
+    public Class getMethodClass(String className, String methodName, ClassLoaderResolver clr)
+    {
+        if (className == null)
+        {
+            return staticMethods.get(methodName);
+        }
+
+        MethodEntry entry = methods.get(methodName);
+        if (entry == null)
+        {
+            // Not one of ours, so no need to work out the kind of the class
+            return null;
+        }
+        int kinds = getKinds(className, clr);
+        if ((kinds & GEOMETRY) == 0)
+        {
+            return null;
+        }
+        while (entry != null)
+        {
+            if ((entry.kinds & kinds) != 0)
+            {
+                return entry.methodClass;
+            }
+            entry = entry.next;
+        }
+        return null;
+    }
+
+    /**
+     * Accessor for the kinds of geometry of a class, as a combination of the kind constants of this class.
+     * @param className Name of the class
+     * @param clr ClassLoader resolver
+     * @return The kinds, 0 if the class isn't a geometry class of the type packages of this table
+     */
+    public int getKinds(String className, ClassLoaderResolver clr)
+    {
+        Integer cached = kindsByClassName.get(className);
+        if (cached != null)
+        {
+            return cached.intValue();
+        }
+
+        for (TypePackage typePackage : typePackages)
+        {
+            if (className.startsWith(typePackage.prefix))
+            {
+                if (typePackage.packageName == null)
+                {
+                    kindsByClassName.put(className, Integer.valueOf(typePackage.kinds));
+                    return typePackage.kinds;
+                }
+
+                Class cls = null;
+                try
+                {
+                    cls = clr.classForName(className);
+                }
+                catch (ClassNotResolvedException cnre) {}
+
+                int kinds = 0;
+                for (int i = 0; i < KIND_CLASS_NAMES.length; i++)
+                {
+                    String kindClassName = typePackage.packageName + "." + KIND_CLASS_NAMES[i];
+                    if (kindClassName.equals(className) || (cls != null && isSubclass(cls, kindClassName)))
+                    {
+                        kinds |= 1 << i;
+                    }
+                }
+                if (cls != null)
+                {
+                    // Only cache once the class could be loaded, it may not be visible to every resolver
+                    kindsByClassName.put(className, Integer.valueOf(kinds));
+                }
+                return kinds;
+            }
+        }
+
+        kindsByClassName.put(className, Integer.valueOf(0));
+        return 0;
+    }
+
+    /**
+     * Checks whether a class is, extends or implements the class with the given name. The check is made by name so
+     * that the type packages don't need to be visible to the loader of this class.
+     */
+    private static boolean isSubclass(Class cls, String className)
+    {
+        if (cls == null)
+        {
+            return false;
+        }
+        if (cls.getName().equals(className))
+        {
+            return true;
+        }
+        Class[] interfaces = cls.getInterfaces();
+        for (int i = 0; i < interfaces.length; i++)
+        {
+            if (isSubclass(interfaces[i], className))
+            {
+                return true;
+            }
+        }
+        return isSubclass(cls.getSuperclass(), className);
+    }
+
+    /**
+     * Method of a given name, in the order methods were added for the name.
+     */
+    private static class MethodEntry
+    {
+        final int kinds;
+
+        final Class methodClass;
+
+        MethodEntry next;
+
+        MethodEntry(int kinds, Class methodClass)
+        {
+            this.kinds = kinds;
+            this.methodClass = methodClass;
+        }
+    }
+
+    /**
+     * Package of geometry classes, either with a class per kind of geometry or with fixed kinds for all its classes.
+     */
+    private static class TypePackage
+    {
+        final String prefix;
+
+        final String packageName;
+
+        final int kinds;
+
+        TypePackage(String prefix, String packageName, int kinds)
+        {
+            this.prefix = prefix;
+            this.packageName = packageName;
+            this.kinds = kinds;
+        }
+    }
+
+    /**
+     * Builder of a method table. Lookups of methods invoked on an object return the first method added for the name
+     * whose kinds match the class.
+     */
+    public static class Builder
+    {
+        private final Map<String, Class> staticMethods = new HashMap<String, Class>();
+
+        private final Map<String, MethodEntry> methods = new HashMap<String, MethodEntry>();
+
+        private final List<TypePackage> typePackages = new ArrayList<TypePackage>();
+
+        /**
+         * Adds a package of geometry classes with a class per kind (Geometry, Point, LineString, MultiLineString,
+         * LinearRing and Polygon).
+         * @param prefix Prefix of the names of the classes of the package
+         * @param packageName Name of the package of the classes of each kind
+         * @return This builder
+         */
+        public Builder addTypes(String prefix, String packageName)
+        {
+            typePackages.add(new TypePackage(prefix, packageName, 0));
+            return this;
+        }
+
+        /**
+         * Adds a package of geometry classes whose kind cannot be told from the class, so all its classes have the
+         * given kinds.
+         * @param prefix Prefix of the names of the classes of the package
+         * @param kinds The kinds
+         * @return This builder
+         */
+        public Builder addTypes(String prefix, int kinds)
+        {
+            typePackages.add(new TypePackage(prefix, null, kinds));
+            return this;
+        }
+
+        public Builder addStaticMethod(String methodName, Class methodClass)
+        {
+            if (!staticMethods.containsKey(methodName))
+            {
+                staticMethods.put(methodName, methodClass);
+            }
+            return this;
+        }
+
+        /**
+         * Adds a method invoked on an object.
+         * @param kinds Kinds of geometry the method applies to
+         * @param methodName Name of the method
+         * @param methodClass The SQL method class
+         * @return This builder
+         */
+        public Builder addMethod(int kinds, String methodName, Class methodClass)
+        {
+            MethodEntry entry = new MethodEntry(kinds, methodClass);
+            MethodEntry last = methods.get(methodName);
+            if (last == null)
+            {
+                methods.put(methodName, entry);
+            }
+            else
+            {
+                while (last.next != null)
+                {
+                    last = last.next;
+                }
+                last.next = entry;
+            }
+            return this;
+        }
+
+        public SpatialMethodTable build()
+        {
+            return new SpatialMethodTable(this);
+        }
+    }
+}
@@ -32,6 +32,63 @@ public interface SpatialRDBMSAdapter extends DatastoreAdapter
     /** Key name for the dimension extension. **/
     String DIMENSION_EXTENSION_KEY = "spatial-dimension";
 
+    /** Key name for the extension setting the geometry size (in bytes) above which values are streamed. **/
+    String STREAMING_THRESHOLD_EXTENSION_KEY = "spatial-streaming-threshold";
+
+    /** Name of the persistence property setting the geometry size (in bytes) above which values are streamed. **/
+    String STREAMING_THRESHOLD_PROPERTY = "datanucleus.geospatial.streamingthreshold";
+
+    /** Key name for the extension declaring that a geometry column has a spatial index. **/
+    String SPATIAL_INDEX_EXTENSION_KEY = "spatial-index";
+
+    /** Name of the persistence property declaring that all geometry columns have a spatial index. **/
+    String SPATIAL_INDEX_PROPERTY = "datanucleus.geospatial.spatialindex";
+
+    /** Key name for the extension declaring that the points of fetched JTS geometries are decoded on first access. **/
+    String LAZY_DECODING_EXTENSION_KEY = "spatial-lazy-decoding";
+
+    /** Name of the persistence property declaring that the points of fetched JTS geometries are decoded on first access. **/
+    String LAZY_DECODING_PROPERTY = "datanucleus.geospatial.lazydecoding";
+
+    /**
+     * Key name for the extension selecting a reduced form of a geometry column when fetching it, either "envelope" (the bounding box,
+     * only for fields of a generic geometry type) or "simplified" (a simplified outline, see {@link #FETCH_TOLERANCE_EXTENSION_KEY}).
+     **/
+    String FETCH_MODE_EXTENSION_KEY = "spatial-fetch";
+
+    /** Key name for the extension giving the tolerance of the "simplified" fetch mode, in units of the coordinate system. **/
+    String FETCH_TOLERANCE_EXTENSION_KEY = "spatial-fetch-tolerance";
+
+    /** Fetch mode selecting the bounding box of a geometry. **/
+    String FETCH_MODE_ENVELOPE = "envelope";
+
+    /** Fetch mode selecting a simplified outline of a geometry. **/
+    String FETCH_MODE_SIMPLIFIED = "simplified";
+
+    /**
+     * Key name for the extension setting the codec of the user data of JTS geometries, either "compact" or the name of a class
+     * implementing UserDataCodec. Without a codec user data is stored as serialised object.
+     **/
+    String USERDATA_CODEC_EXTENSION_KEY = "spatial-userdata-codec";
+
+    /** Name of the persistence property setting the codec of the user data of JTS geometries. **/
+    String USERDATA_CODEC_PROPERTY = "datanucleus.geospatial.userdatacodec";
+
+    /**
+     * Name of the persistence property making geometry literals of queries always bound as parameters, rather than being put into
+     * the SQL as text, so that the SQL of a query doesn't change with its geometries.
+     **/
+    String BIND_LITERALS_PROPERTY = "datanucleus.geospatial.bindliterals";
+
+    /**
+     * Key name for the extension setting the flatness of the outlines of curved java.awt shapes stored in a geometry column,
+     * i.e. the maximum deviation of the lines replacing the curves, in units of the coordinates.
+     **/
+    String FLATNESS_EXTENSION_KEY = "spatial-flatness";
+
+    /** Name of the persistence property setting the flatness of the outlines of curved java.awt shapes stored in a geometry column. **/
+    String FLATNESS_PROPERTY = "datanucleus.geospatial.flatness";
+
     /**
      * Checks whether the given column is geometry backed by the datastore.
      * @param column Column to check
@@ -55,6 +112,23 @@ public interface SpatialRDBMSAdapter extends DatastoreAdapter
      */
     String getRetrieveCrsNameStatement(Table table, int srid);
 
+    /**
+     * Returns the appropriate SQL statement to retrieve all Coordinate Reference Systems (CRS) known to the datastore, as rows of
+     * srid, name and description in WKT (the values returned by {@link #getRetrieveCrsNameStatement(Table, int)} and
+     * {@link #getRetrieveCrsWktStatement(Table, int)}).
+     * @param table A table
+     * @return SQL statement, <code>null</code> if not available for the datastore
+     */
+    String getRetrieveAllCrsStatement(Table table);
+
+    /**
+     * Returns the SQL function selecting a reduced form of a geometry column.
+     * @param fetchMode The fetch mode, {@link #FETCH_MODE_ENVELOPE} or {@link #FETCH_MODE_SIMPLIFIED}
+     * @param tolerance Tolerance of the simplification, in units of the coordinate system
+     * @return SQL function with "?" for the column, <code>null</code> if not available for the datastore
+     */
+    String getReducedFetchFunction(String fetchMode, double tolerance);
+
     /**
      * Returns the appropriate SQL statement that calculates the bounds of all geometries in the given column.
      * @param table The table
@@ -62,4 +136,55 @@ public interface SpatialRDBMSAdapter extends DatastoreAdapter
      * @return SQL statement, <code>null</code> if not available for the datastore
      */
     String getCalculateBoundsStatement(Table table, Column column);
+
+    /**
+     * Returns the appropriate SQL statement that estimates the bounds of all geometries in the given column from
+     * datastore metadata (such as statistics or the spatial index), without reading the geometries.
+     * The statement returns one row of minimum x, minimum y, maximum x and maximum y.
+     * @param table The table
+     * @param column The column
+     * @return SQL statement, <code>null</code> if not available for the datastore
+     */
+    String getEstimateBoundsStatement(Table table, Column column);
+
+    /**
+     * Returns the appropriate SQL statement to retrieve the srid of the given column from datastore metadata.
+     * @param table The table
+     * @param column The column
+     * @return SQL statement, <code>null</code> if not available for the datastore
+     */
+    String getRetrieveSridStatement(Table table, Column column);
+
+    /**
+     * Returns the SQL statement inserting several rows into the given table at once.
+     * @param table The table
+     * @param columns The comma-separated list of columns
+     * @param rowValues The values of one row, e.g "(?, ?)", repeated for each row
+     * @param rows The number of rows, always 1 when {@link #getMaxMultiRowInsertParameters()} is 0
+     * @return SQL statement
+     */
+    String getMultiRowInsertStatement(Table table, String columns, String rowValues, int rows);
+
+    /**
+     * Accessor for the maximum number of parameters of a statement returned by {@link #getMultiRowInsertStatement}.
+     * @return The maximum number of parameters, or 0 if the datastore has no multi-row INSERT that generates the keys
+     *     of each row, in which case single-row INSERT statements are executed in JDBC batches
+     */
+    int getMaxMultiRowInsertParameters();
+
+    /**
+     * Returns the SQL statement updating the statistics of the given table, e.g after loading many rows.
+     * @param table The table
+     * @return SQL statement, <code>null</code> if not available for the datastore or if it would commit the current transaction
+     */
+    String getAnalyzeTableStatement(Table table);
+
+    /**
+     * Whether ordering by "Spatial.knnDistance" of the given geometry column is evaluated using the spatial index, so
+     * that the nearest geometries can be found with a single query ordered by that distance and limited to the number wanted.
+     * @param table The table
+     * @param column The geometry column
+     * @return <code>true</code> if nearest neighbour ordering uses the spatial index, <code>false</code> otherwise
+     */
+    boolean supportsIndexedKnnOrdering(Table table, Column column);
 }
\ No newline at end of file
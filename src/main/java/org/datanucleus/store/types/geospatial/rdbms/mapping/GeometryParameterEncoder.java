@@ -0,0 +1,42 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.mapping;
+
+import java.sql.PreparedStatement;
+
+/**
+ * Column mapping of a geometry column that can encode a geometry independently of the connection, so that the encoded
+ * form of a query parameter can be kept and bound again by later executions of the query.
+ */
+public interface GeometryParameterEncoder
+{
+    /**
+     * Encodes a geometry into the form bound for it.
+     * @param geometry The geometry, not <code>null</code>
+     * @return The encoded geometry
+     */
+    Object encodeParameter(Object geometry);
+
+    /**
+     * Binds a geometry encoded by {@link #encodeParameter(Object)}.
+     * @param ps PreparedStatement
+     * @param exprIndex Parameter index
+     * @param encoded The encoded geometry
+     */
+    void setEncodedParameter(PreparedStatement ps, int exprIndex, Object encoded);
+}
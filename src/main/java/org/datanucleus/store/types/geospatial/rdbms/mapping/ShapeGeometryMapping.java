@@ -0,0 +1,121 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.mapping;
+
+import java.awt.Shape;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.store.rdbms.mapping.java.SingleFieldMultiMapping;
+import org.datanucleus.store.rdbms.table.Column;
+import org.datanucleus.store.rdbms.table.Table;
+import org.datanucleus.store.types.geospatial.codec.AwtShapeCodec;
+import org.datanucleus.store.types.geospatial.rdbms.adapter.SpatialRDBMSAdapter;
+import org.datanucleus.util.Localiser;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.PrecisionModel;
+
+/**
+ * Mapping storing a java.awt shape or point in a geometry column of the datastore, instead of the numeric columns of the
+ * default mapping of its type, so that the field can be queried with the "Spatial.*" functions using the spatial index of
+ * the column. The value is converted to a JTS geometry (see {@link AwtShapeCodec}), so the column is mapped like that of
+ * a JTS geometry field by the datastore adapter (PostGIS, MySQL or Oracle), including the "spatial-srid" and
+ * "spatial-index" extensions. Curves are flattened with the flatness given by the extension "spatial-flatness" or the
+ * persistence property "datanucleus.geospatial.flatness".
+ * The mapping is selected with the extension "mapping-class" of the field. Supported are fields of the types that can be
+ * rebuilt from their geometry, i.e. points, lines, rectangles, ellipses, polygons, areas and paths; query parameters
+ * compared with such a field have to be JTS geometries.
+ */
+public class ShapeGeometryMapping extends SingleFieldMultiMapping
+{
+    /** Maximum deviation of the lines replacing curves from the curves. */
+    private double flatness = AwtShapeCodec.DEFAULT_FLATNESS;
+
+    /** Factory of the geometries stored, defining their SRID. */
+    private GeometryFactory geometryFactory = new GeometryFactory();
+
+    public void initialize(AbstractMemberMetaData mmd, Table table, ClassLoaderResolver clr)
+    {
+        super.initialize(mmd, table, clr);
+        if (!AwtShapeCodec.isSupportedType(mmd.getType()))
+        {
+            throw new NucleusUserException("Field " + mmd.getFullFieldName() + " of type " + mmd.getTypeName() +
+                " cannot be stored in a geometry column, since values of its type cannot be rebuilt from their outline");
+        }
+        addColumns(Geometry.class.getName());
+
+        Column column = getColumnMapping(0).getColumn();
+        String value = SpatialMappingHelper.getOption(storeMgr, column, SpatialRDBMSAdapter.FLATNESS_PROPERTY,
+            SpatialRDBMSAdapter.FLATNESS_EXTENSION_KEY);
+        if (value != null)
+        {
+            try
+            {
+                flatness = Double.parseDouble(value.trim());
+            }
+            catch (NumberFormatException nfe)
+            {
+                throw new NucleusUserException(Localiser.msg("044213", SpatialRDBMSAdapter.FLATNESS_EXTENSION_KEY, value), nfe);
+            }
+            if (!(flatness > 0))
+            {
+                throw new NucleusUserException(Localiser.msg("044213", SpatialRDBMSAdapter.FLATNESS_EXTENSION_KEY, value));
+            }
+        }
+
+        int srid = SpatialMappingHelper.getIntOption(storeMgr, column, null, SpatialRDBMSAdapter.SRID_EXTENSION_KEY, 0);
+        geometryFactory = new GeometryFactory(new PrecisionModel(), srid);
+    }
+
+    public Class getJavaType()
+    {
+        return mmd != null ? mmd.getType() : Shape.class;
+    }
+
+    public String getJavaTypeForColumnMapping(int index)
+    {
+        return Geometry.class.getName();
+    }
+
+    /**
+     * Any usage of this type as a parameter cannot be used as a String in SQL.
+     * @return false
+     */
+    public boolean representableAsStringLiteralInStatement()
+    {
+        return false;
+    }
+
+    public Object getObject(ExecutionContext ec, ResultSet datastoreResults, int[] exprIndex)
+    {
+        Geometry geom = (Geometry) getColumnMapping(0).getObject(datastoreResults, exprIndex[0]);
+        return AwtShapeCodec.fromGeometry(geom, getJavaType());
+    }
+
+    public void setObject(ExecutionContext ec, PreparedStatement ps, int[] exprIndex, Object value)
+    {
+        Geometry geom = (value != null ? AwtShapeCodec.toGeometry(value, flatness, geometryFactory) : null);
+        getColumnMapping(0).setObject(ps, exprIndex[0], geom);
+    }
+}
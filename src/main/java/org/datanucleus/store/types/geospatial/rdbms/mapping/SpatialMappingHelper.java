@@ -0,0 +1,165 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.mapping;
+
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.metadata.MetaDataUtils;
+import org.datanucleus.store.StoreManager;
+import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.table.Column;
+import org.datanucleus.store.types.geospatial.rdbms.adapter.SpatialRDBMSAdapter;
+import org.datanucleus.util.Localiser;
+import org.datanucleus.util.NucleusLogger;
+
+/**
+ * Helper class for geometry column mappings, resolving options that can be set for the whole store using a
+ * persistence property, and overridden for a field (or column) using a metadata extension.
+ */
+public class SpatialMappingHelper
+{
+    /**
+     * Accessor for a boolean option of a column.
+     * @param storeMgr Store manager
+     * @param column The column (may be null, e.g for query parameters)
+     * @param propertyName Name of the persistence property
+     * @param extensionKey Key of the metadata extension
+     * @return The extension value if set, otherwise the property value if set, otherwise false
+     */
+    public static boolean getBooleanOption(StoreManager storeMgr, Column column, String propertyName, String extensionKey)
+    {
+        String value = getOption(storeMgr, column, propertyName, extensionKey);
+        return value != null && Boolean.parseBoolean(value);
+    }
+
+    /**
+     * Accessor for an integer option of a column.
+     * @param storeMgr Store manager
+     * @param column The column (may be null, e.g for query parameters)
+     * @param propertyName Name of the persistence property
+     * @param extensionKey Key of the metadata extension
+     * @param defaultValue Value to use when the option is not set, or not a valid integer
+     * @return The extension value if set, otherwise the property value if set, otherwise the default
+     */
+    public static int getIntOption(StoreManager storeMgr, Column column, String propertyName, String extensionKey, int defaultValue)
+    {
+        String value = getOption(storeMgr, column, propertyName, extensionKey);
+        if (value != null)
+        {
+            try
+            {
+                return Integer.parseInt(value.trim());
+            }
+            catch (NumberFormatException nfe)
+            {
+                NucleusLogger.DATASTORE.warn(Localiser.msg("044213", extensionKey, value), nfe);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Accessor for the raw value of an option of a column.
+     * @param storeMgr Store manager
+     * @param column The column (may be null, e.g for query parameters)
+     * @param propertyName Name of the persistence property (may be null when the option is an extension only)
+     * @param extensionKey Key of the metadata extension
+     * @return The extension value if set, otherwise the property value, or null if neither is set
+     */
+    public static String getOption(StoreManager storeMgr, Column column, String propertyName, String extensionKey)
+    {
+        if (column != null && column.getColumnMetaData() != null)
+        {
+            String extensionValue = MetaDataUtils.getValueForExtensionRecursively(column.getColumnMetaData(), extensionKey);
+            if (extensionValue != null)
+            {
+                return extensionValue;
+            }
+        }
+        return propertyName != null ? storeMgr.getStringProperty(propertyName) : null;
+    }
+
+    /**
+     * Whether a geometry column has a spatial index, as declared by the extension "spatial-index" of the column
+     * or the persistence property "datanucleus.geospatial.spatialindex".
+     * @param storeMgr Store manager
+     * @param column The column (may be null, e.g for query parameters)
+     * @return Whether the column has a spatial index
+     */
+    public static boolean hasSpatialIndex(StoreManager storeMgr, Column column)
+    {
+        return column != null && getBooleanOption(storeMgr, column, SpatialRDBMSAdapter.SPATIAL_INDEX_PROPERTY,
+            SpatialRDBMSAdapter.SPATIAL_INDEX_EXTENSION_KEY);
+    }
+
+    /**
+     * Accessor for the SQL function selecting a geometry column when fetching it. This is the column itself, unless the
+     * extension "spatial-fetch" of the column asks for a reduced form of the geometry, as bounding box ("envelope") or as
+     * simplified outline ("simplified", with the tolerance given by "spatial-fetch-tolerance"). The reduced form is read
+     * into the type of the field, so the bounding box is only allowed for fields of a generic geometry type. Such a field
+     * usually shares the column with a field holding the full geometry, and is then neither insertable nor updatable.
+     * @param storeMgr Store manager
+     * @param mapping Mapping of the field
+     * @param column The column (may be null, e.g for query parameters)
+     * @return The function, with "?" for the column
+     */
+    public static String getFetchFunction(RDBMSStoreManager storeMgr, JavaTypeMapping mapping, Column column)
+    {
+        String fetchMode = getOption(storeMgr, column, null, SpatialRDBMSAdapter.FETCH_MODE_EXTENSION_KEY);
+        if (fetchMode == null)
+        {
+            return "?";
+        }
+
+        fetchMode = fetchMode.trim();
+        double tolerance = 0;
+        if (SpatialRDBMSAdapter.FETCH_MODE_ENVELOPE.equals(fetchMode))
+        {
+            String typeName = mapping.getJavaType().getSimpleName();
+            if (!typeName.equals("Geometry") && !typeName.equals("JGeometry"))
+            {
+                throw new NucleusUserException("Fetch mode \"" + fetchMode + "\" cannot be used for " + column + " of type " + mapping.getType() +
+                    " since a bounding box is not always of that type");
+            }
+        }
+        else if (SpatialRDBMSAdapter.FETCH_MODE_SIMPLIFIED.equals(fetchMode))
+        {
+            String value = getOption(storeMgr, column, null, SpatialRDBMSAdapter.FETCH_TOLERANCE_EXTENSION_KEY);
+            try
+            {
+                tolerance = Double.parseDouble(value.trim());
+            }
+            catch (RuntimeException re)
+            {
+                throw new NucleusUserException(Localiser.msg("044213", SpatialRDBMSAdapter.FETCH_TOLERANCE_EXTENSION_KEY, value), re);
+            }
+        }
+        else
+        {
+            throw new NucleusUserException(Localiser.msg("044213", SpatialRDBMSAdapter.FETCH_MODE_EXTENSION_KEY, fetchMode));
+        }
+
+        String function = ((SpatialRDBMSAdapter) storeMgr.getDatastoreAdapter()).getReducedFetchFunction(fetchMode, tolerance);
+        if (function == null)
+        {
+            NucleusLogger.DATASTORE.warn("Fetch mode \"" + fetchMode + "\" is not supported by the datastore, so " + column + " is fetched in full");
+            return "?";
+        }
+        return function;
+    }
+}
@@ -22,9 +22,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 
 import oracle.spatial.geometry.JGeometry;
-import oracle.spatial.util.ByteOrder;
 import oracle.spatial.util.GeometryExceptionWithContext;
-import oracle.spatial.util.WKB;
 
 import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
 import org.datanucleus.store.types.geospatial.rdbms.adapter.MySQLSpatialTypeInfo;
@@ -33,14 +31,13 @@ import org.datanucleus.store.rdbms.schema.SQLTypeInfo;
 import org.datanucleus.store.rdbms.table.Column;
 import org.datanucleus.exceptions.NucleusDataStoreException;
 import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.types.geospatial.codec.JGeometryCodec;
 
 /**
  * Mapping for a JGeometry object to MySQL.
  */
 public class JGeometryColumnMapping extends MySQLSpatialColumnMapping
 {
-    private WKB wkbConverter = new WKB(ByteOrder.LITTLE_ENDIAN);
-
     private static final SQLTypeInfo typeInfo;
     static
     {
@@ -64,20 +61,20 @@ public class JGeometryColumnMapping extends MySQLSpatialColumnMapping
         return typeInfo;
     }
 
-    public Object getObject(Object rs, int exprIndex)
+    public Object getObject(ResultSet rs, int exprIndex)
     {
         Object value;
 
         try
         {
-            byte[] mysqlBinary = ((ResultSet) rs).getBytes(exprIndex);
-            if (((ResultSet) rs).wasNull() || mysqlBinary == null)
+            byte[] mysqlBinary = rs.getBytes(exprIndex);
+            if (rs.wasNull() || mysqlBinary == null)
             {
                 value = null;
             }
             else
             {
-                value = wkbConverter.toJGeometry(mysqlBinaryToWkb(mysqlBinary));
+                value = JGeometryCodec.readWkb(mysqlBinaryToWkb(mysqlBinary));
                 ((JGeometry) value).setSRID(mysqlBinaryToSrid(mysqlBinary));
             }
         }
@@ -93,19 +90,20 @@ public class JGeometryColumnMapping extends MySQLSpatialColumnMapping
         return value;
     }
 
-    public void setObject(Object ps, int exprIndex, Object value)
+    public void setObject(PreparedStatement ps, int exprIndex, Object value)
     {
         try
         {
             if (value == null)
             {
-                ((PreparedStatement) ps).setNull(exprIndex, getTypeInfo().getDataType(), getTypeInfo().getTypeName());
+                ps.setNull(exprIndex, getTypeInfo().getDataType(), getTypeInfo().getTypeName());
             }
             else
             {
-                byte[] wkb = wkbConverter.fromJGeometry((JGeometry) value);
-                int srid = ((JGeometry) value).getSRID();
-                ((PreparedStatement) ps).setBytes(exprIndex, wkbToMysqlBinary(wkb, srid));
+                JGeometry geom = (JGeometry) value;
+                byte[] wkb = JGeometryCodec.writeWkb(geom);
+                int srid = geom.getSRID();
+                ps.setBytes(exprIndex, wkbToMysqlBinary(wkb, srid));
             }
         }
         catch (SQLException e)
@@ -117,4 +115,15 @@ public class JGeometryColumnMapping extends MySQLSpatialColumnMapping
             throw new NucleusDataStoreException(failureMessage("setObject", value, e), e);
         }
     }
+
+    protected void extendWrittenExtent(Object value)
+    {
+        double[] mbr = ((JGeometry) value).getMBR();
+        if (mbr != null)
+        {
+            // The MBR holds the minimum ordinates of all dimensions followed by the maximum ordinates
+            int dims = mbr.length / 2;
+            extendWrittenExtent(mbr[0], mbr[1], mbr[dims], mbr[dims + 1]);
+        }
+    }
 }
\ No newline at end of file
@@ -18,41 +18,32 @@
  **********************************************************************/
 package org.datanucleus.store.types.geospatial.rdbms.mapping.jgeom2oracle;
 
+import java.sql.Blob;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
 import oracle.jdbc.OracleConnection;
 import oracle.spatial.geometry.JGeometry;
+import oracle.spatial.util.GeometryExceptionWithContext;
 import oracle.sql.STRUCT;
 
 import org.datanucleus.store.rdbms.table.Column;
-import org.datanucleus.store.types.geospatial.rdbms.adapter.OracleSpatialTypeInfo;
 import org.datanucleus.exceptions.NucleusDataStoreException;
 import org.datanucleus.store.rdbms.RDBMSStoreManager;
-import org.datanucleus.store.rdbms.mapping.column.AbstractColumnMapping;
 import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.types.geospatial.codec.JGeometryCodec;
+import org.datanucleus.store.types.geospatial.codec.SdoGeometryDescriptors;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.oracle.OracleSpatialColumnMapping;
 
 /**
  * Mapping for a JGeometry object to Oracle.
  */
-public class JGeometryColumnMapping extends AbstractColumnMapping
+public class JGeometryColumnMapping extends OracleSpatialColumnMapping
 {
     public JGeometryColumnMapping(JavaTypeMapping mapping, RDBMSStoreManager storeMgr, Column col)
     {
-        super(storeMgr, mapping);
-        column = col;
-        initialize();
-    }
-
-    private void initialize()
-    {
-        initTypeInfo();
-    }
-
-    public int getJDBCType()
-    {
-        return OracleSpatialTypeInfo.TYPES_SDO_GEOMETRY;
+        super(mapping, storeMgr, col);
     }
 
     public Object getObject(ResultSet rs, int exprIndex)
@@ -66,6 +57,12 @@ public class JGeometryColumnMapping extends AbstractColumnMapping
             {
                 value = null;
             }
+            else if (st instanceof Blob)
+            {
+                JGeometry geom = JGeometryCodec.readWkb(readWkb((Blob) st));
+                geom.setSRID(srid);
+                value = geom;
+            }
             else
             {
                 value = JGeometry.load((STRUCT) st);
@@ -75,6 +72,10 @@ public class JGeometryColumnMapping extends AbstractColumnMapping
         {
             throw new NucleusDataStoreException(failureMessage("getObject", exprIndex, e), e);
         }
+        catch (GeometryExceptionWithContext e)
+        {
+            throw new NucleusDataStoreException(failureMessage("getObject", exprIndex, e), e);
+        }
 
         return value;
     }
@@ -89,7 +90,8 @@ public class JGeometryColumnMapping extends AbstractColumnMapping
             }
             else
             {
-                Object obj = JGeometry.store((JGeometry) value, ps.getConnection().unwrap(OracleConnection.class));
+                OracleConnection conn = getOracleConnection(ps);
+                Object obj = JGeometry.store((JGeometry) value, conn, SdoGeometryDescriptors.getJGeometryDescriptors(conn));
                 ps.setObject(exprIndex, obj);
             }
         }
@@ -26,40 +26,62 @@ import java.sql.ResultSet;
 import org.datanucleus.ClassLoaderResolver;
 import org.datanucleus.ClassNameConstants;
 import org.datanucleus.ExecutionContext;
+import org.datanucleus.exceptions.NucleusDataStoreException;
+import org.datanucleus.exceptions.NucleusUserException;
 import org.datanucleus.metadata.AbstractMemberMetaData;
 import org.datanucleus.metadata.MetaDataUtils;
 import org.datanucleus.state.DNStateManager;
 import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.rdbms.mapping.column.BlobColumnMapping;
 import org.datanucleus.store.rdbms.mapping.column.ColumnMapping;
 import org.datanucleus.store.rdbms.mapping.column.ColumnMappingPostSet;
 import org.datanucleus.store.rdbms.mapping.column.OracleBlobColumnMapping;
 import org.datanucleus.store.rdbms.mapping.java.SingleFieldMultiMapping;
+import org.datanucleus.store.rdbms.table.Column;
 import org.datanucleus.store.rdbms.table.Table;
+import org.datanucleus.store.types.geospatial.codec.CompactUserDataCodec;
+import org.datanucleus.store.types.geospatial.codec.JtsGeometryCodec;
+import org.datanucleus.store.types.geospatial.codec.UserDataCodec;
+import org.datanucleus.store.types.geospatial.rdbms.adapter.OracleSpatialAdapter;
+import org.datanucleus.store.types.geospatial.rdbms.adapter.SpatialRDBMSAdapter;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.GeometryParameterEncoder;
 import org.datanucleus.util.NucleusLogger;
 
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.io.ParseException;
-import com.vividsolutions.jts.io.WKTReader;
 
 /**
  * Mapping for JTS Geometry to its datastore representation.
+ * Unless the field has the extension "mapping" set to "no-userdata", the user data of the geometry is stored in a
+ * second column. By default it is stored as serialised object. With a codec set by the extension "spatial-userdata-codec"
+ * or the persistence property "datanucleus.geospatial.userdatacodec" the column is a binary column instead, holding the
+ * user data as encoded by the codec (see {@link UserDataCodec}).
+ * On Oracle the user data column is a BLOB. It is bound in the INSERT/UPDATE like any other value, so that the
+ * statements can be batched, unless the persistence property "datanucleus.geospatial.oracle.inlineblob" is false, in which case
+ * an empty BLOB is inserted and the value written afterwards (see {@link #setValuePostProcessing(DNStateManager)}).
+ * Mappings of query parameters can keep the encoded form of the last geometry bound (see {@link #setCacheParameters(boolean)}).
  */
 public class GeometryMapping extends SingleFieldMultiMapping
 {
-    private static WKTReader wktReader;
-
     private boolean mapUserdataObject = false;
 
+    /** Codec of the user data, or null when the user data is stored as serialised object. */
+    private UserDataCodec userDataCodec;
+
+    /** Whether the encoded form of the last geometry bound is kept for binding it again. */
+    private boolean cacheParameters = false;
+
+    /** The last geometry bound with its encoded form, when parameters are cached. */
+    private volatile CachedParameter cachedParameter;
+
+    /** Copy of this mapping without the user data, shared by the query expressions on this mapping. */
+    private volatile GeometryMapping mappingWithoutUserData;
+
     protected static final Geometry createGeom(String wkt)
     {
-        if (wktReader == null)
-        {
-            wktReader = new WKTReader();
-        }
-
         try
         {
-            return wktReader.read(wkt);
+            return JtsGeometryCodec.readWkt(wkt);
         }
         catch (ParseException e)
         {
@@ -105,7 +127,66 @@ public class GeometryMapping extends SingleFieldMultiMapping
         else
         {
             mapUserdataObject = true;
-            addColumns(ClassNameConstants.JAVA_IO_SERIALIZABLE); // User Data Object
+            userDataCodec = createUserDataCodec(clr);
+            if (userDataCodec == null)
+            {
+                addColumns(ClassNameConstants.JAVA_IO_SERIALIZABLE); // User Data Object
+            }
+            else
+            {
+                addColumns(byte[].class.getName()); // Encoded User Data
+            }
+            bindUserDataInline();
+        }
+    }
+
+    /**
+     * Replaces the Oracle BLOB mapping of the user data column, which inserts an empty BLOB and writes the value with a separate
+     * statement after the INSERT/UPDATE, by a mapping binding the value in the statement itself.
+     */
+    protected void bindUserDataInline()
+    {
+        ColumnMapping userDataMapping = columnMappings[1];
+        if (userDataMapping instanceof OracleBlobColumnMapping && storeMgr.getBooleanProperty(OracleSpatialAdapter.INLINE_BLOB_PROPERTY, true))
+        {
+            Column column = userDataMapping.getColumn();
+            ColumnMapping inlineMapping = new BlobColumnMapping(this, storeMgr, column);
+
+            // The new mapping may have registered itself with this mapping, so set the column mappings explicitly
+            columnMappings = new ColumnMapping[] {columnMappings[0], inlineMapping};
+            column.setColumnMapping(inlineMapping);
+        }
+    }
+
+    /**
+     * Creates the codec of the user data of this field, if one is set.
+     * @param clr ClassLoader resolver
+     * @return The codec, or null when the user data is stored as serialised object
+     */
+    protected UserDataCodec createUserDataCodec(ClassLoaderResolver clr)
+    {
+        String codecName = MetaDataUtils.getValueForExtensionRecursively(mmd, SpatialRDBMSAdapter.USERDATA_CODEC_EXTENSION_KEY);
+        if (codecName == null)
+        {
+            codecName = storeMgr.getStringProperty(SpatialRDBMSAdapter.USERDATA_CODEC_PROPERTY);
+        }
+        if (codecName == null || codecName.trim().length() == 0)
+        {
+            return null;
+        }
+
+        codecName = codecName.trim();
+        if (codecName.equalsIgnoreCase("compact"))
+        {
+            return new CompactUserDataCodec();
+        }
+        try
+        {
+            return (UserDataCodec) clr.classForName(codecName).getDeclaredConstructor().newInstance();
+        }
+        catch (Exception e)
+        {
+            throw new NucleusUserException("Cannot create user data codec \"" + codecName + "\" for field " + mmd.getFullFieldName(), e);
         }
     }
 
@@ -132,6 +213,17 @@ public class GeometryMapping extends SingleFieldMultiMapping
         if (mapUserdataObject)
         {
             Object userData = getColumnMapping(1).getObject(datastoreResults, exprIndex[1]);
+            if (userDataCodec != null && userData != null)
+            {
+                try
+                {
+                    userData = userDataCodec.decode((byte[]) userData);
+                }
+                catch (IllegalArgumentException iae)
+                {
+                    throw new NucleusDataStoreException("Cannot decode user data of field " + mmd.getFullFieldName(), iae);
+                }
+            }
             geom.setUserData(userData);
         }
 
@@ -156,6 +248,17 @@ public class GeometryMapping extends SingleFieldMultiMapping
                 getColumnMapping(1).setObject(ps, exprIndex[1], null);
             }
         }
+        else if (cacheParameters && exprIndex.length == 1 && getColumnMapping(0) instanceof GeometryParameterEncoder)
+        {
+            GeometryParameterEncoder encoder = (GeometryParameterEncoder) getColumnMapping(0);
+            CachedParameter cached = cachedParameter;
+            if (cached == null || !cached.matches(geom))
+            {
+                cached = new CachedParameter((Geometry) geom.clone(), encoder.encodeParameter(geom));
+                cachedParameter = cached;
+            }
+            encoder.setEncodedParameter(ps, exprIndex[0], cached.encoded);
+        }
         else
         {
             getColumnMapping(0).setObject(ps, exprIndex[0], geom);
@@ -164,52 +267,129 @@ public class GeometryMapping extends SingleFieldMultiMapping
                 ColumnMapping mapping = getColumnMapping(1);
                 if (mapping.insertValuesOnInsert())
                 {
-                    getColumnMapping(1).setObject(ps, exprIndex[1], geom.getUserData());
+                    getColumnMapping(1).setObject(ps, exprIndex[1], encodeUserData(geom.getUserData()));
                 }
             }
         }
     }
 
     /**
-     * Oracle specific handling for BLOB/CLOBs (for the userdata), where it inserts an empty BLOB/CLOB and then you put the value in after.
+     * Processing after an INSERT or UPDATE of the field. Passes the geometry to the mapping of the geometry column when it
+     * wants it (see MySQLSpatialColumnMapping). Also Oracle specific handling for BLOB/CLOBs (for the userdata), where it
+     * inserts an empty BLOB/CLOB and then you put the value in after. That is only used when the user data isn't bound inline
+     * (see {@link #bindUserDataInline()}).
      * @param sm StateManager
      */
     public void setValuePostProcessing(DNStateManager sm)
     {
+        Object geom = sm.provideField(mmd.getAbsoluteFieldNumber());
+        if (columnMappings[0] instanceof ColumnMappingPostSet)
+        {
+            // e.g MySQL, keeping the extent of the written geometries
+            ((ColumnMappingPostSet) columnMappings[0]).setPostProcessing(sm, geom);
+        }
+
         if (!mapUserdataObject || !(columnMappings[1] instanceof OracleBlobColumnMapping))
         {
             return;
         }
-        Object geom = sm.provideField(mmd.getAbsoluteFieldNumber());
         if (geom == null || !(geom instanceof Geometry) || ((Geometry) geom).getUserData() == null)
         {
             return;
         }
 
-        // Create the value to put into the BLOB
-        Object value = ((Geometry) geom).getUserData();
+        // Update the BLOB
+        byte[] bytes = getUserDataBytes(((Geometry) geom).getUserData());
+        ((ColumnMappingPostSet)columnMappings[1]).setPostProcessing(sm, bytes);
+    }
+
+    /**
+     * Converts user data to the bytes stored in the user data column, i.e encoded by the codec or else serialized.
+     * @param userData The user data
+     * @return The bytes, <code>null</code> if the user data is <code>null</code>
+     */
+    public byte[] getUserDataBytes(Object userData)
+    {
+        if (userData == null)
+        {
+            return null;
+        }
+        if (userDataCodec != null)
+        {
+            return (byte[]) encodeUserData(userData);
+        }
+
         byte[] bytes = new byte[0];
         try
         {
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
             ObjectOutputStream oos = new ObjectOutputStream(baos);
-            oos.writeObject(value);
+            oos.writeObject(userData);
             bytes = baos.toByteArray();
         }
         catch (IOException e1)
         {
             // Do Nothing
         }
+        return bytes;
+    }
 
-        // Update the BLOB
-        ((ColumnMappingPostSet)columnMappings[1]).setPostProcessing(sm, bytes);
+    /**
+     * Converts user data to the value of the user data column, encoding it when there is a codec.
+     * @param userData The user data
+     * @return The value of the column
+     */
+    protected Object encodeUserData(Object userData)
+    {
+        if (userDataCodec == null || userData == null)
+        {
+            return userData;
+        }
+        try
+        {
+            return userDataCodec.encode(userData);
+        }
+        catch (IllegalArgumentException iae)
+        {
+            throw new NucleusDataStoreException("Cannot encode user data of field " + mmd.getFullFieldName(), iae);
+        }
     }
 
     /**
-     * Convenience method to return a clone of this mapping but without any user-data geometry.
+     * Sets whether the encoded form of the last geometry bound is kept, and bound again as long as the geometries bound are
+     * equal to it. Meant for the mappings of query parameters, which are kept with the compiled query, so that executing it
+     * again with the same geometry doesn't encode the geometry again. Only applies to datastores whose encoding doesn't
+     * depend on the connection (see {@link GeometryParameterEncoder}).
+     * @param cacheParameters Whether to cache the encoded geometry
+     */
+    public void setCacheParameters(boolean cacheParameters)
+    {
+        this.cacheParameters = cacheParameters;
+        this.cachedParameter = null;
+    }
+
+    /**
+     * Convenience method to return a clone of this mapping but without any user-data geometry. The clone is made once and
+     * shared, since every query expression on this mapping asks for it; it must not be changed, see
+     * {@link #newMappingWithoutUserData()} for a clone of its own.
      * @return The cloned mapping without the user-data component
      */
     public GeometryMapping getMappingWithoutUserData()
+    {
+        GeometryMapping geomMapping = mappingWithoutUserData;
+        if (geomMapping == null)
+        {
+            geomMapping = newMappingWithoutUserData();
+            mappingWithoutUserData = geomMapping;
+        }
+        return geomMapping;
+    }
+
+    /**
+     * Convenience method to create a new clone of this mapping but without any user-data geometry.
+     * @return The cloned mapping without the user-data component
+     */
+    public GeometryMapping newMappingWithoutUserData()
     {
         GeometryMapping geomMapping;
         try
@@ -219,6 +399,7 @@ public class GeometryMapping extends SingleFieldMultiMapping
             geomMapping.type = this.type;
             geomMapping.mmd = this.mmd;
             geomMapping.mapUserdataObject = this.mapUserdataObject;
+            geomMapping.userDataCodec = this.userDataCodec;
             geomMapping.table = this.table;
             geomMapping.columnMappings = new ColumnMapping[1];
             geomMapping.columnMappings[0] = this.columnMappings[0]; // Geometry
@@ -230,4 +411,26 @@ public class GeometryMapping extends SingleFieldMultiMapping
         }
         return this;
     }
+
+    /**
+     * A geometry bound as parameter, copied so that later changes of the bound object don't show, with its encoded form.
+     */
+    private static class CachedParameter
+    {
+        final Geometry geometry;
+
+        final Object encoded;
+
+        CachedParameter(Geometry geometry, Object encoded)
+        {
+            this.geometry = geometry;
+            this.encoded = encoded;
+        }
+
+        boolean matches(Geometry geom)
+        {
+            // equalsExact ignores the SRID, which is part of the encoded form
+            return geometry.getSRID() == geom.getSRID() && geometry.equalsExact(geom);
+        }
+    }
 }
\ No newline at end of file
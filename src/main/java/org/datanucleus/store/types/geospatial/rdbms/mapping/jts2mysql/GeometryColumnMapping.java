@@ -17,27 +17,31 @@
  **********************************************************************/
 package org.datanucleus.store.types.geospatial.rdbms.mapping.jts2mysql;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
 import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
 import org.datanucleus.store.types.geospatial.rdbms.adapter.MySQLSpatialTypeInfo;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.GeometryParameterEncoder;
 import org.datanucleus.store.types.geospatial.rdbms.mapping.mysql.MySQLSpatialColumnMapping;
 import org.datanucleus.store.rdbms.schema.SQLTypeInfo;
 import org.datanucleus.store.rdbms.table.Column;
 import org.datanucleus.exceptions.NucleusDataStoreException;
 import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.types.geospatial.codec.ChunkedByteArrayOutputStream;
+import org.datanucleus.store.types.geospatial.codec.JtsGeometryCodec;
 
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.io.ByteOrderValues;
-import com.vividsolutions.jts.io.WKBReader;
-import com.vividsolutions.jts.io.WKBWriter;
 
 /**
  * Mapping for a JTS Geometry object to MySQL.
  */
-public class GeometryColumnMapping extends MySQLSpatialColumnMapping
+public class GeometryColumnMapping extends MySQLSpatialColumnMapping implements GeometryParameterEncoder
 {
     private static final SQLTypeInfo typeInfo;
     static
@@ -64,6 +68,11 @@ public class GeometryColumnMapping extends MySQLSpatialColumnMapping
 
     public Object getObject(ResultSet rs, int exprIndex)
     {
+        if (streamingThreshold >= 0)
+        {
+            return getObjectFromStream(rs, exprIndex);
+        }
+
         Object value;
 
         try
@@ -75,8 +84,7 @@ public class GeometryColumnMapping extends MySQLSpatialColumnMapping
             }
             else
             {
-                WKBReader wkbReader = new WKBReader();
-                value = wkbReader.read(mysqlBinaryToWkb(mysqlBinary));
+                value = lazyDecoding ? JtsGeometryCodec.readWkbLazily(mysqlBinary, SRID_LENGTH) : JtsGeometryCodec.readWkb(mysqlBinary, SRID_LENGTH);
                 ((Geometry) value).setSRID(mysqlBinaryToSrid(mysqlBinary));
             }
         }
@@ -88,6 +96,33 @@ public class GeometryColumnMapping extends MySQLSpatialColumnMapping
         return value;
     }
 
+    protected Object getObjectFromStream(ResultSet rs, int exprIndex)
+    {
+        Object value = null;
+
+        try
+        {
+            InputStream in = rs.getBinaryStream(exprIndex);
+            if (in != null)
+            {
+                try
+                {
+                    value = JtsGeometryCodec.readSridPrefixedWkb(in);
+                }
+                finally
+                {
+                    in.close();
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            throw new NucleusDataStoreException(failureMessage("getObject", exprIndex, e), e);
+        }
+
+        return value;
+    }
+
     public void setObject(PreparedStatement ps, int exprIndex, Object value)
     {
         try
@@ -98,15 +133,52 @@ public class GeometryColumnMapping extends MySQLSpatialColumnMapping
             }
             else
             {
-                WKBWriter wkbWriter = new WKBWriter(2, ByteOrderValues.LITTLE_ENDIAN);
-                byte[] wkb = wkbWriter.write((Geometry) value);
-                int srid = ((Geometry) value).getSRID();
-                ps.setBytes(exprIndex, wkbToMysqlBinary(wkb, srid));
+                Geometry geom = (Geometry) value;
+                if (streamingThreshold >= 0 && JtsGeometryCodec.estimateWkbSize(geom, 2) > streamingThreshold)
+                {
+                    ChunkedByteArrayOutputStream out = new ChunkedByteArrayOutputStream();
+                    JtsGeometryCodec.writeSridPrefixedWkb(geom, 2, ByteOrderValues.LITTLE_ENDIAN, out);
+                    ps.setBinaryStream(exprIndex, out.toInputStream(), (int) out.size());
+                }
+                else
+                {
+                    ps.setBytes(exprIndex, JtsGeometryCodec.writeSridPrefixedWkb(geom, 2, ByteOrderValues.LITTLE_ENDIAN));
+                }
             }
         }
         catch (SQLException e)
         {
             throw new NucleusDataStoreException(failureMessage("setObject", value, e), e);
         }
+        catch (IOException e)
+        {
+            throw new NucleusDataStoreException(failureMessage("setObject", value, e), e);
+        }
+    }
+
+    protected void extendWrittenExtent(Object value)
+    {
+        Envelope envelope = ((Geometry) value).getEnvelopeInternal();
+        if (!envelope.isNull())
+        {
+            extendWrittenExtent(envelope.getMinX(), envelope.getMinY(), envelope.getMaxX(), envelope.getMaxY());
+        }
+    }
+
+    public Object encodeParameter(Object geometry)
+    {
+        return JtsGeometryCodec.writeSridPrefixedWkb((Geometry) geometry, 2, ByteOrderValues.LITTLE_ENDIAN);
+    }
+
+    public void setEncodedParameter(PreparedStatement ps, int exprIndex, Object encoded)
+    {
+        try
+        {
+            ps.setBytes(exprIndex, (byte[]) encoded);
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException(failureMessage("setObject", encoded, e), e);
+        }
     }
 }
\ No newline at end of file
@@ -17,44 +17,32 @@
  **********************************************************************/
 package org.datanucleus.store.types.geospatial.rdbms.mapping.jts2oracle;
 
+import java.sql.Blob;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
-import oracle.jdbc.OracleConnection;
 import oracle.sql.STRUCT;
 
 import org.datanucleus.store.rdbms.table.Column;
-import org.datanucleus.store.types.geospatial.rdbms.adapter.OracleSpatialTypeInfo;
 import org.datanucleus.exceptions.NucleusDataStoreException;
 import org.datanucleus.store.rdbms.RDBMSStoreManager;
-import org.datanucleus.store.rdbms.mapping.column.AbstractColumnMapping;
 import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.types.geospatial.codec.JtsGeometryCodec;
+import org.datanucleus.store.types.geospatial.codec.JtsOracleGeometryCodec;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.oracle.OracleSpatialColumnMapping;
 
 import com.vividsolutions.jts.geom.Geometry;
-import com.vividsolutions.jts.io.oracle.OraReader;
-import com.vividsolutions.jts.io.oracle.OraWriter;
+import com.vividsolutions.jts.io.ParseException;
 
 /**
  * Mapping for a JTS Geometry object to Oracle.
  */
-public class GeometryColumnMapping extends AbstractColumnMapping
+public class GeometryColumnMapping extends OracleSpatialColumnMapping
 {
     public GeometryColumnMapping(JavaTypeMapping mapping, RDBMSStoreManager storeMgr, Column col)
     {
-        super(storeMgr, mapping);
-        column = col;
-        initialize();
-    }
-
-    private void initialize()
-    {
-        initTypeInfo();
-    }
-
-    public int getJDBCType()
-    {
-        return OracleSpatialTypeInfo.TYPES_SDO_GEOMETRY;
+        super(mapping, storeMgr, col);
     }
 
     public Object getObject(ResultSet rs, int exprIndex)
@@ -68,15 +56,25 @@ public class GeometryColumnMapping extends AbstractColumnMapping
             {
                 value = null;
             }
+            else if (st instanceof Blob)
+            {
+                Geometry geom = JtsGeometryCodec.readWkb(readWkb((Blob) st));
+                geom.setSRID(srid);
+                value = geom;
+            }
             else
             {
-                value = new OraReader().read((STRUCT) st);
+                value = JtsOracleGeometryCodec.read((STRUCT) st);
             }
         }
         catch (SQLException e)
         {
             throw new NucleusDataStoreException(failureMessage("getObject", exprIndex, e), e);
         }
+        catch (ParseException e)
+        {
+            throw new NucleusDataStoreException(failureMessage("getObject", exprIndex, e), e);
+        }
 
         return value;
     }
@@ -85,14 +83,13 @@ public class GeometryColumnMapping extends AbstractColumnMapping
     {
         try
         {
-            if (value == null)
+            STRUCT obj = value != null ? JtsOracleGeometryCodec.write((Geometry) value, getOracleConnection(ps)) : null;
+            if (obj == null)
             {
                 ps.setNull(exprIndex, getJDBCType(), getTypeInfo().getTypeName());
             }
             else
             {
-                OracleConnection conn = (OracleConnection) ps.getConnection();
-                Object obj = new OraWriter().write((Geometry) value, conn);
                 ps.setObject(exprIndex, obj);
             }
         }
@@ -17,28 +17,32 @@
  **********************************************************************/
 package org.datanucleus.store.types.geospatial.rdbms.mapping.jts2postgis;
 
+import java.io.InputStream;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
 import org.datanucleus.exceptions.NucleusDataStoreException;
 import org.datanucleus.store.rdbms.RDBMSStoreManager;
-import org.datanucleus.store.rdbms.mapping.column.AbstractColumnMapping;
 import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
 import org.datanucleus.store.rdbms.schema.SQLTypeInfo;
 import org.datanucleus.store.rdbms.table.Column;
+import org.datanucleus.store.types.geospatial.codec.JtsGeometryCodec;
 import org.datanucleus.store.types.geospatial.rdbms.adapter.PostGISTypeInfo;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.GeometryParameterEncoder;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.postgis.PostGISSpatialColumnMapping;
 import org.postgis.PGgeometry;
 import org.postgis.jts.JtsGeometry;
 
 import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.ByteOrderValues;
 import com.vividsolutions.jts.io.ParseException;
-import com.vividsolutions.jts.io.WKTReader;
+import com.vividsolutions.jts.io.WKBReader;
 
 /**
  * Mapping for a JTS Geometry object to PostGIS.
  */
-public class GeometryColumnMapping extends AbstractColumnMapping
+public class GeometryColumnMapping extends PostGISSpatialColumnMapping implements GeometryParameterEncoder
 {
     private static final SQLTypeInfo typeInfo;
     static
@@ -49,14 +53,7 @@ public class GeometryColumnMapping extends AbstractColumnMapping
 
     public GeometryColumnMapping(JavaTypeMapping mapping, RDBMSStoreManager storeMgr, Column col)
     {
-        super(storeMgr, mapping);
-        column = col;
-        initialize();
-    }
-
-    private void initialize()
-    {
-        initTypeInfo();
+        super(mapping, storeMgr, col);
     }
 
     public int getJDBCType()
@@ -75,24 +72,42 @@ public class GeometryColumnMapping extends AbstractColumnMapping
 
         try
         {
+            if (streamingThreshold >= 0 && isBinaryResult(rs, exprIndex))
+            {
+                return getObjectFromStream(rs, exprIndex);
+            }
+
             Object result = rs.getObject(exprIndex);
             if (!rs.wasNull() && result != null)
             {
-                if (result instanceof JtsGeometry)
+                try
                 {
-                    value = ((JtsGeometry) result).getGeometry();
-                }
-                else if (result instanceof PGgeometry)
-                {
-                    try
+                    if (result instanceof byte[])
+                    {
+                        value = lazyDecoding ? JtsGeometryCodec.readWkbLazily((byte[]) result, 0) : JtsGeometryCodec.readWkb((byte[]) result);
+                    }
+                    else if (result instanceof JtsGeometry)
+                    {
+                        value = ((JtsGeometry) result).getGeometry();
+                    }
+                    else if (result instanceof PGgeometry)
                     {
                         value = convertGeometry((PGgeometry) result);
                     }
-                    catch (ParseException e)
+                    else
                     {
-                        throw new NucleusDataStoreException(failureMessage("getObject", result, e), e);
+                        String hexEwkb = getHexEwkb(result);
+                        if (hexEwkb == null)
+                        {
+                            throw new NucleusDataStoreException("Cannot read a geometry from a result of type " + result.getClass().getName());
+                        }
+                        value = lazyDecoding ? JtsGeometryCodec.readWkbLazily(WKBReader.hexToBytes(hexEwkb), 0) : JtsGeometryCodec.readHexWkb(hexEwkb);
                     }
                 }
+                catch (ParseException e)
+                {
+                    throw new NucleusDataStoreException(failureMessage("getObject", result, e), e);
+                }
 
             }
         }
@@ -104,6 +119,33 @@ public class GeometryColumnMapping extends AbstractColumnMapping
         return value;
     }
 
+    protected Object getObjectFromStream(ResultSet rs, int exprIndex)
+    {
+        Object value = null;
+
+        try
+        {
+            InputStream in = rs.getBinaryStream(exprIndex);
+            if (in != null)
+            {
+                try
+                {
+                    value = JtsGeometryCodec.readWkb(in);
+                }
+                finally
+                {
+                    in.close();
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            throw new NucleusDataStoreException(failureMessage("getObject", exprIndex, e), e);
+        }
+
+        return value;
+    }
+
     public void setObject(PreparedStatement ps, int exprIndex, Object value)
     {
         try
@@ -112,6 +154,10 @@ public class GeometryColumnMapping extends AbstractColumnMapping
             {
                 ps.setNull(exprIndex, getTypeInfo().getDataType(), getTypeInfo().getTypeName());
             }
+            else if (binaryTransfer)
+            {
+                setHexEwkb(ps, exprIndex, JtsGeometryCodec.writeHexWkb((Geometry) value, ByteOrderValues.LITTLE_ENDIAN, true));
+            }
             else
             {
                 Object obj = new JtsGeometry((Geometry) value);
@@ -124,26 +170,37 @@ public class GeometryColumnMapping extends AbstractColumnMapping
         }
     }
 
-    private static WKTReader wktReader;
+    public Object encodeParameter(Object geometry)
+    {
+        return JtsGeometryCodec.writeHexWkb((Geometry) geometry, ByteOrderValues.LITTLE_ENDIAN, true);
+    }
+
+    public void setEncodedParameter(PreparedStatement ps, int exprIndex, Object encoded)
+    {
+        try
+        {
+            setHexEwkb(ps, exprIndex, (String) encoded);
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException(failureMessage("setObject", encoded, e), e);
+        }
+    }
 
     private Geometry convertGeometry(PGgeometry pg) throws SQLException, ParseException
     {
         String geometryString = pg.getGeometry().toString();
-        if (wktReader == null)
-        {
-            wktReader = new WKTReader();
-        }
         Geometry geom;
         if (geometryString.indexOf(';') != -1)
         {
             String[] temp = PGgeometry.splitSRID(geometryString);
             int srid = Integer.parseInt(temp[0].substring(5));
-            geom = wktReader.read(temp[1]);
+            geom = JtsGeometryCodec.readWkt(temp[1]);
             geom.setSRID(srid);
         }
         else
         {
-            geom = wktReader.read(geometryString);
+            geom = JtsGeometryCodec.readWkt(geometryString);
         }
         return geom;
     }
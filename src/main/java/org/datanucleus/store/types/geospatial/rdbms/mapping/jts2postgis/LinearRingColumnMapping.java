@@ -49,6 +49,16 @@ public class LinearRingColumnMapping extends LineStringColumnMapping
     }
 
     public void setObject(PreparedStatement ps, int exprIndex, Object value)
+    {
+        super.setObject(ps, exprIndex, toLineString(value));
+    }
+
+    public Object encodeParameter(Object geometry)
+    {
+        return super.encodeParameter(toLineString(geometry));
+    }
+
+    private LineString toLineString(Object value)
     {
         LineString lineString = null;
         if (value != null)
@@ -57,7 +67,7 @@ public class LinearRingColumnMapping extends LineStringColumnMapping
             lineString = new LineString(linearRing.getCoordinateSequence(), linearRing.getFactory());
             lineString.setSRID(linearRing.getSRID());
         }
-        super.setObject(ps, exprIndex, lineString);
+        return lineString;
     }
 
 }
@@ -17,18 +17,31 @@
  **********************************************************************/
 package org.datanucleus.store.types.geospatial.rdbms.mapping.mysql;
 
+import java.awt.geom.Rectangle2D;
 import java.sql.SQLException;
 
+import org.datanucleus.state.DNStateManager;
 import org.datanucleus.store.rdbms.mapping.column.AbstractColumnMapping;
+import org.datanucleus.store.rdbms.mapping.column.ColumnMappingPostSet;
 import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
 import org.datanucleus.store.rdbms.RDBMSStoreManager;
 import org.datanucleus.store.rdbms.table.Column;
+import org.datanucleus.store.types.geospatial.rdbms.adapter.SpatialRDBMSAdapter;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.SpatialMappingHelper;
 
 /**
  * Abstract base class for all MySQL spatial mappings. Contains helper methods that convert WKB (Well Known
  * Binary) data to MySQL spatial objects and vice versa.
+ * The MySQL internal format is the SRID as 4 byte integer followed by the WKB. Where the WKB codec supports it,
+ * the WKB should be read in place starting at {@link #SRID_LENGTH}, and written into a buffer with room for
+ * the SRID which is then filled in using {@link #writeSrid(byte[], int)}, rather than copying the payload.
+ * Mappings of JTS geometries support lazy decoding, enabled with "datanucleus.geospatial.lazydecoding" or the
+ * extension "spatial-lazy-decoding", where fetched geometries keep their points in the fetched bytes until they
+ * are accessed. This doesn't apply to values read through a binary stream.
+ * The extension "spatial-fetch" selects a reduced form of the geometry instead, see
+ * {@link SpatialMappingHelper#getFetchFunction(RDBMSStoreManager, JavaTypeMapping, Column)}.
  */
-public abstract class MySQLSpatialColumnMapping extends AbstractColumnMapping
+public abstract class MySQLSpatialColumnMapping extends AbstractColumnMapping implements ColumnMappingPostSet
 {
     protected static final int SRID_LENGTH = 4;
 
@@ -36,6 +49,18 @@ public abstract class MySQLSpatialColumnMapping extends AbstractColumnMapping
 
     private static final byte NDR = 1; // little endian
 
+    /**
+     * Size (in bytes) above which geometries are written through a binary stream, or -1 when streaming is
+     * disabled. When streaming is enabled, values are also read through a binary stream.
+     */
+    protected int streamingThreshold = -1;
+
+    /** Whether the points of fetched geometries are decoded on first access. */
+    protected boolean lazyDecoding = false;
+
+    /** Extent of the geometries written through this mapping as minX, minY, maxX, maxY, or null if none were written. */
+    private double[] writtenExtent;
+
     public MySQLSpatialColumnMapping(JavaTypeMapping mapping, RDBMSStoreManager storeMgr, Column col)
     {
         super(storeMgr, mapping);
@@ -46,6 +71,77 @@ public abstract class MySQLSpatialColumnMapping extends AbstractColumnMapping
     protected void initialize()
     {
         initTypeInfo();
+
+        streamingThreshold = SpatialMappingHelper.getIntOption(storeMgr, column, SpatialRDBMSAdapter.STREAMING_THRESHOLD_PROPERTY,
+            SpatialRDBMSAdapter.STREAMING_THRESHOLD_EXTENSION_KEY, -1);
+        lazyDecoding = SpatialMappingHelper.getBooleanOption(storeMgr, column, SpatialRDBMSAdapter.LAZY_DECODING_PROPERTY,
+            SpatialRDBMSAdapter.LAZY_DECODING_EXTENSION_KEY);
+
+        if (column != null && "?".equals(column.getWrapperFunction(Column.WRAPPER_FUNCTION_SELECT)))
+        {
+            // Only apply our select function when the user hasn't specified one
+            column.setWrapperFunction(SpatialMappingHelper.getFetchFunction(storeMgr, mapping, column), Column.WRAPPER_FUNCTION_SELECT);
+        }
+    }
+
+    /**
+     * Called after an INSERT or UPDATE of a field written through this mapping, with the value of the field. Extends the
+     * extent of the written geometries, which thus excludes the geometries bound as query parameters.
+     * @param sm StateManager of the object written
+     * @param value The value written
+     */
+    public void setPostProcessing(DNStateManager sm, Object value)
+    {
+        if (value != null)
+        {
+            extendWrittenExtent(value);
+        }
+    }
+
+    /**
+     * Extends the extent of the geometries written through this mapping with the envelope of a written value. Does
+     * nothing unless overridden for the type of the mapping.
+     * @param value The value written, not null
+     */
+    protected void extendWrittenExtent(Object value)
+    {
+    }
+
+    /**
+     * Extends the extent of the geometries written through this mapping with the envelope of a geometry. MySQL
+     * keeps no extent of a column, so this extent serves to keep an estimate of the extent up to date between
+     * scans of the column (see SpatialHelper). It only ever grows, and only covers writes of this process.
+     * @param minX Minimum x of the envelope
+     * @param minY Minimum y of the envelope
+     * @param maxX Maximum x of the envelope
+     * @param maxY Maximum y of the envelope
+     */
+    protected synchronized void extendWrittenExtent(double minX, double minY, double maxX, double maxY)
+    {
+        if (writtenExtent == null)
+        {
+            writtenExtent = new double[] {minX, minY, maxX, maxY};
+        }
+        else
+        {
+            writtenExtent[0] = Math.min(writtenExtent[0], minX);
+            writtenExtent[1] = Math.min(writtenExtent[1], minY);
+            writtenExtent[2] = Math.max(writtenExtent[2], maxX);
+            writtenExtent[3] = Math.max(writtenExtent[3], maxY);
+        }
+    }
+
+    /**
+     * Accessor for the extent of the geometries written through this mapping.
+     * @return The extent, or null if no geometries were written
+     */
+    public synchronized Rectangle2D getWrittenExtent()
+    {
+        if (writtenExtent == null)
+        {
+            return null;
+        }
+        return new Rectangle2D.Double(writtenExtent[0], writtenExtent[1], writtenExtent[2] - writtenExtent[0], writtenExtent[3] - writtenExtent[1]);
     }
 
     /**
@@ -89,7 +185,21 @@ public abstract class MySQLSpatialColumnMapping extends AbstractColumnMapping
     protected byte[] wkbToMysqlBinary(byte[] wkb, int srid) throws SQLException
     {
         byte[] mysqlBinary = new byte[wkb.length + SRID_LENGTH];
-        if (isBigEndian(wkb[0]))
+        System.arraycopy(wkb, 0, mysqlBinary, SRID_LENGTH, wkb.length);
+        writeSrid(mysqlBinary, srid);
+        return mysqlBinary;
+    }
+
+    /**
+     * Writes the SRID header of a spatial object in MySQL binary format, whose WKB is already in place.
+     * The SRID is written with the same endianness as the WKB.
+     * @param mysqlBinary A spatial object in MySQL binary format, with WKB starting at {@link #SRID_LENGTH}.
+     * @param srid The SRID of the spatial object.
+     * @throws SQLException If the object contains invalid data.
+     */
+    protected void writeSrid(byte[] mysqlBinary, int srid) throws SQLException
+    {
+        if (isBigEndian(mysqlBinary[SRID_LENGTH]))
         {
             mysqlBinary[0] = (byte) (srid >> 24);
             mysqlBinary[1] = (byte) (srid >> 16);
@@ -103,8 +213,6 @@ public abstract class MySQLSpatialColumnMapping extends AbstractColumnMapping
             mysqlBinary[1] = (byte) (srid >> 8);
             mysqlBinary[0] = (byte) srid;
         }
-        System.arraycopy(wkb, 0, mysqlBinary, SRID_LENGTH, wkb.length);
-        return mysqlBinary;
     }
 
     private boolean isBigEndian(byte flag) throws SQLException
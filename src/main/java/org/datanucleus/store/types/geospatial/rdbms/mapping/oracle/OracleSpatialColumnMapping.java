@@ -0,0 +1,126 @@
+/**********************************************************************
+ Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+
+ Contributors:
+ ...
+ **********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.mapping.oracle;
+
+import java.sql.Blob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import oracle.jdbc.OracleConnection;
+
+import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.rdbms.mapping.column.AbstractColumnMapping;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.table.Column;
+import org.datanucleus.store.types.geospatial.rdbms.adapter.OracleSpatialAdapter;
+import org.datanucleus.store.types.geospatial.rdbms.adapter.OracleSpatialTypeInfo;
+import org.datanucleus.store.types.geospatial.rdbms.adapter.SpatialRDBMSAdapter;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.SpatialMappingHelper;
+
+/**
+ * Abstract base class for all Oracle SDO_GEOMETRY mappings. Geometries are normally fetched as SDO_GEOMETRY
+ * structs. With the persistence property "datanucleus.geospatial.oracle.wkbfetch", or the extension
+ * "oracle-wkb-fetch" of a field, the column is instead selected through SDO_UTIL.TO_WKBGEOMETRY, so that the
+ * driver doesn't have to materialise a struct and its arrays for every row. WKB has no SRID, so geometries
+ * fetched that way get the SRID given by the "spatial-srid" extension of the column (or none). Oracle cannot
+ * convert geometries with arcs to WKB, so this mode is only suitable for columns holding linear geometries.
+ * The extension "spatial-fetch" selects a reduced form of the geometry instead, see
+ * {@link SpatialMappingHelper#getFetchFunction(RDBMSStoreManager, JavaTypeMapping, Column)}.
+ */
+public abstract class OracleSpatialColumnMapping extends AbstractColumnMapping
+{
+    /** SQL function used to select a geometry column as WKB. */
+    protected static final String SELECT_WKB_FUNCTION = "SDO_UTIL.TO_WKBGEOMETRY(?)";
+
+    /** Whether values of this column are fetched as WKB. */
+    protected boolean wkbFetch = false;
+
+    /** SRID of the geometries fetched as WKB, or 0 when unknown. */
+    protected int srid = 0;
+
+    public OracleSpatialColumnMapping(JavaTypeMapping mapping, RDBMSStoreManager storeMgr, Column col)
+    {
+        super(storeMgr, mapping);
+        column = col;
+        initialize();
+    }
+
+    protected void initialize()
+    {
+        initTypeInfo();
+
+        wkbFetch = SpatialMappingHelper.getBooleanOption(storeMgr, column, OracleSpatialAdapter.WKB_FETCH_PROPERTY,
+            OracleSpatialAdapter.WKB_FETCH_EXTENSION_KEY);
+        if (wkbFetch && column != null)
+        {
+            srid = SpatialMappingHelper.getIntOption(storeMgr, column, null, SpatialRDBMSAdapter.SRID_EXTENSION_KEY, 0);
+        }
+        if (column != null && "?".equals(column.getWrapperFunction(Column.WRAPPER_FUNCTION_SELECT)))
+        {
+            // Only apply our select function when the user hasn't specified one
+            String selectFunction = SpatialMappingHelper.getFetchFunction(storeMgr, mapping, column);
+            if (wkbFetch)
+            {
+                selectFunction = SELECT_WKB_FUNCTION.replace("?", selectFunction);
+            }
+            column.setWrapperFunction(selectFunction, Column.WRAPPER_FUNCTION_SELECT);
+        }
+    }
+
+    public int getJDBCType()
+    {
+        return OracleSpatialTypeInfo.TYPES_SDO_GEOMETRY;
+    }
+
+    /**
+     * Accessor for the Oracle connection of a statement. The connection is unwrapped when it is a proxy, e.g
+     * of a connection pool.
+     * @param ps PreparedStatement
+     * @return The Oracle connection
+     * @throws SQLException If the connection is not an Oracle connection
+     */
+    protected OracleConnection getOracleConnection(PreparedStatement ps) throws SQLException
+    {
+        Connection conn = ps.getConnection();
+        if (conn instanceof OracleConnection)
+        {
+            return (OracleConnection) conn;
+        }
+        return conn.unwrap(OracleConnection.class);
+    }
+
+    /**
+     * Reads the WKB returned by SDO_UTIL.TO_WKBGEOMETRY. The function returns a temporary LOB, which is freed
+     * straight away since the driver would otherwise only free it when the cursor is closed.
+     * @param blob The BLOB holding the WKB
+     * @return The WKB
+     * @throws SQLException If the BLOB cannot be read
+     */
+    protected byte[] readWkb(Blob blob) throws SQLException
+    {
+        try
+        {
+            return blob.getBytes(1, (int) blob.length());
+        }
+        finally
+        {
+            blob.free();
+        }
+    }
+}
@@ -28,9 +28,9 @@ import org.datanucleus.store.rdbms.schema.SQLTypeInfo;
 import org.datanucleus.store.rdbms.table.Column;
 import org.datanucleus.exceptions.NucleusDataStoreException;
 import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.types.geospatial.codec.PostGISGeometryCodec;
 import org.postgis.Geometry;
-import org.postgis.binary.BinaryParser;
-import org.postgis.binary.BinaryWriter;
+import org.postgis.Point;
 import org.postgis.binary.ValueSetter;
 
 /**
@@ -38,10 +38,6 @@ import org.postgis.binary.ValueSetter;
  */
 public class GeometryColumnMapping extends MySQLSpatialColumnMapping
 {
-    protected final BinaryWriter writer = new BinaryWriter();
-
-    protected final BinaryParser parser = new BinaryParser();
-
     private static final SQLTypeInfo typeInfo;
     static
     {
@@ -78,7 +74,7 @@ public class GeometryColumnMapping extends MySQLSpatialColumnMapping
             }
             else
             {
-                value = parser.parse(mysqlBinaryToWkb(mysqlBinary));
+                value = PostGISGeometryCodec.parse(mysqlBinary, SRID_LENGTH);
                 ((Geometry) value).setSrid(mysqlBinaryToSrid(mysqlBinary));
             }
         }
@@ -101,32 +97,9 @@ public class GeometryColumnMapping extends MySQLSpatialColumnMapping
             else
             {
                 Geometry geom = (Geometry) value;
-
-                int srid = geom.getSrid();
-                if (0 < srid || (0 == srid && 2 > org.postgis.Version.MAJOR))
-                {
-                    // hack: BinaryWriter
-                    // must not encode srid
-                    if (1 < org.postgis.Version.MAJOR)
-                    {
-                        geom.srid = 0; // UNKNOWN_SRID is 0
-                        // for postgis 2 and onwards.
-                    }
-                    else
-                    {
-                        // Older versions of postgis-jdbc
-                        // interpreted UNKNOWN_SRID as -1
-                        geom.srid = -1;
-                    }
-
-                    // into binary
-                }
-                byte[] wkb = writer.writeBinary(geom, ValueSetter.NDR.NUMBER);
-                if (srid > 0)
-                {
-                    geom.srid = srid; // revert hack
-                }
-                ps.setBytes(exprIndex, wkbToMysqlBinary(wkb, srid));
+                byte[] mysqlBinary = PostGISGeometryCodec.writeBinaryWithoutSrid(geom, ValueSetter.NDR.NUMBER, SRID_LENGTH);
+                writeSrid(mysqlBinary, geom.getSrid());
+                ps.setBytes(exprIndex, mysqlBinary);
             }
         }
         catch (SQLException e)
@@ -135,4 +108,14 @@ public class GeometryColumnMapping extends MySQLSpatialColumnMapping
         }
     }
 
+    protected void extendWrittenExtent(Object value)
+    {
+        Geometry geom = (Geometry) value;
+        int numPoints = geom.numPoints();
+        for (int i = 0; i < numPoints; i++)
+        {
+            Point point = geom.getPoint(i);
+            extendWrittenExtent(point.x, point.y, point.x, point.y);
+        }
+    }
 }
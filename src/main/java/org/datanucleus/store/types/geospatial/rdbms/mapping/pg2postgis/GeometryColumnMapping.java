@@ -23,18 +23,19 @@ import java.sql.SQLException;
 
 import org.datanucleus.store.rdbms.schema.SQLTypeInfo;
 import org.datanucleus.store.rdbms.table.Column;
+import org.datanucleus.store.types.geospatial.codec.PostGISGeometryCodec;
 import org.datanucleus.store.types.geospatial.rdbms.adapter.PostGISTypeInfo;
 import org.datanucleus.exceptions.NucleusDataStoreException;
 import org.datanucleus.store.rdbms.RDBMSStoreManager;
-import org.datanucleus.store.rdbms.mapping.column.AbstractColumnMapping;
 import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.postgis.PostGISSpatialColumnMapping;
 import org.postgis.Geometry;
 import org.postgis.PGgeometry;
 
 /**
  * Mapping for a PostGIS-JDBC Geometry object to PostGIS.
  */
-public class GeometryColumnMapping extends AbstractColumnMapping
+public class GeometryColumnMapping extends PostGISSpatialColumnMapping
 {
     private static final SQLTypeInfo typeInfo;
     static
@@ -45,14 +46,7 @@ public class GeometryColumnMapping extends AbstractColumnMapping
 
     public GeometryColumnMapping(JavaTypeMapping mapping, RDBMSStoreManager storeMgr, Column col)
     {
-        super(storeMgr, mapping);
-        column = col;
-        initialize();
-    }
-
-    private void initialize()
-    {
-        initTypeInfo();
+        super(mapping, storeMgr, col);
     }
 
     public int getJDBCType()
@@ -76,10 +70,23 @@ public class GeometryColumnMapping extends AbstractColumnMapping
             {
                 value = null;
             }
-            else
+            else if (result instanceof byte[])
+            {
+                value = PostGISGeometryCodec.parse((byte[]) result);
+            }
+            else if (result instanceof PGgeometry)
             {
                 value = ((PGgeometry) result).getGeometry();
             }
+            else
+            {
+                String hexEwkb = getHexEwkb(result);
+                if (hexEwkb == null)
+                {
+                    throw new NucleusDataStoreException("Cannot read a geometry from a result of type " + result.getClass().getName());
+                }
+                value = PostGISGeometryCodec.parse(hexEwkb);
+            }
         }
         catch (SQLException e)
         {
@@ -97,6 +104,10 @@ public class GeometryColumnMapping extends AbstractColumnMapping
             {
                 ps.setNull(exprIndex, getTypeInfo().getDataType(), getTypeInfo().getTypeName());
             }
+            else if (binaryTransfer)
+            {
+                setHexEwkb(ps, exprIndex, PostGISGeometryCodec.writeHexed((Geometry) value));
+            }
             else
             {
                 Object obj = new PGgeometry((Geometry) value);
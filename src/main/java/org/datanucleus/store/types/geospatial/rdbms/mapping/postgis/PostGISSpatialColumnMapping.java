@@ -0,0 +1,182 @@
+/**********************************************************************
+ Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+
+ Contributors:
+ ...
+ **********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.mapping.postgis;
+
+import java.lang.ref.WeakReference;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.rdbms.mapping.column.AbstractColumnMapping;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.table.Column;
+import org.datanucleus.store.types.geospatial.rdbms.adapter.PostGISAdapter;
+import org.datanucleus.store.types.geospatial.rdbms.adapter.SpatialRDBMSAdapter;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.SpatialMappingHelper;
+import org.postgresql.util.PGobject;
+
+/**
+ * Abstract base class for all PostGIS geometry mappings. Decides whether geometry values are transferred in the
+ * driver's text form, or as EWKB (Extended Well Known Binary). Binary transfer is enabled for the whole store
+ * with the persistence property "datanucleus.geospatial.postgis.binary", and can be overridden per field with
+ * the extension "postgis-binary". When enabled the column is selected through ST_AsEWKB, and values are bound
+ * as hex-encoded EWKB, so no WKT is generated or parsed on either side.
+ * Mappings may also support streaming, enabled with "datanucleus.geospatial.streamingthreshold" or the
+ * extension "spatial-streaming-threshold". The column is then selected through ST_AsEWKB too, and decoded
+ * incrementally from the binary stream of the result.
+ * With binary transfer, mappings of JTS geometries also support lazy decoding, enabled with
+ * "datanucleus.geospatial.lazydecoding" or the extension "spatial-lazy-decoding", where fetched geometries keep
+ * their points in the fetched EWKB until they are accessed. This doesn't apply to values read through a binary stream.
+ * The extension "spatial-fetch" selects a reduced form of the geometry instead, see
+ * {@link SpatialMappingHelper#getFetchFunction(RDBMSStoreManager, JavaTypeMapping, Column)}.
+ * Note that JTS does not support the measure ordinate, so binary transfer should not be used for JTS fields
+ * whose column has "postgis-hasMeasure" set.
+ */
+public abstract class PostGISSpatialColumnMapping extends AbstractColumnMapping
+{
+    /** SQL function used to select a geometry column as EWKB. */
+    protected static final String SELECT_EWKB_FUNCTION = "ST_AsEWKB(?)";
+
+    /** Whether values of this column are transferred as EWKB. */
+    protected boolean binaryTransfer = false;
+
+    /** Size (in bytes) above which geometries are streamed, or -1 when streaming is disabled. */
+    protected int streamingThreshold = -1;
+
+    /** Whether the points of fetched geometries are decoded on first access. */
+    protected boolean lazyDecoding = false;
+
+    /** Type of the result last read, so that the metadata of a ResultSet is only looked at for its first row. */
+    private volatile ResultType lastResultType;
+
+    public PostGISSpatialColumnMapping(JavaTypeMapping mapping, RDBMSStoreManager storeMgr, Column col)
+    {
+        super(storeMgr, mapping);
+        column = col;
+        initialize();
+    }
+
+    protected void initialize()
+    {
+        initTypeInfo();
+
+        binaryTransfer = SpatialMappingHelper.getBooleanOption(storeMgr, column, PostGISAdapter.BINARY_TRANSFER_PROPERTY,
+            PostGISAdapter.BINARY_TRANSFER_EXTENSION_KEY);
+        streamingThreshold = SpatialMappingHelper.getIntOption(storeMgr, column, SpatialRDBMSAdapter.STREAMING_THRESHOLD_PROPERTY,
+            SpatialRDBMSAdapter.STREAMING_THRESHOLD_EXTENSION_KEY, -1);
+        lazyDecoding = SpatialMappingHelper.getBooleanOption(storeMgr, column, SpatialRDBMSAdapter.LAZY_DECODING_PROPERTY,
+            SpatialRDBMSAdapter.LAZY_DECODING_EXTENSION_KEY);
+
+        if (column != null && "?".equals(column.getWrapperFunction(Column.WRAPPER_FUNCTION_SELECT)))
+        {
+            // Only apply our select function when the user hasn't specified one
+            String selectFunction = SpatialMappingHelper.getFetchFunction(storeMgr, mapping, column);
+            if (binaryTransfer || streamingThreshold >= 0)
+            {
+                selectFunction = SELECT_EWKB_FUNCTION.replace("?", selectFunction);
+            }
+            column.setWrapperFunction(selectFunction, Column.WRAPPER_FUNCTION_SELECT);
+        }
+    }
+
+    /**
+     * Accessor for whether values of this column are transferred as EWKB.
+     * @return Whether binary transfer is enabled
+     */
+    public boolean isBinaryTransfer()
+    {
+        return binaryTransfer;
+    }
+
+    /**
+     * Whether the result at the given position is binary (i.e selected through ST_AsEWKB). This mapping is also
+     * used to read the results of geometry functions, which are returned as geometry objects. The type is looked up
+     * in the metadata of the ResultSet once, and reused for its following rows.
+     * @param rs ResultSet
+     * @param exprIndex Position in the result
+     * @return Whether the result is bytea
+     * @throws SQLException If the metadata of the result cannot be accessed
+     */
+    protected boolean isBinaryResult(ResultSet rs, int exprIndex) throws SQLException
+    {
+        ResultType resultType = lastResultType;
+        if (resultType == null || resultType.exprIndex != exprIndex || resultType.resultSet.get() != rs)
+        {
+            int type = rs.getMetaData().getColumnType(exprIndex);
+            resultType = new ResultType(rs, exprIndex, type == Types.BINARY || type == Types.VARBINARY || type == Types.LONGVARBINARY);
+            lastResultType = resultType;
+        }
+        return resultType.binary;
+    }
+
+    /**
+     * Type of a position of a ResultSet. The ResultSet is only weakly referenced so that it isn't kept once read.
+     */
+    private static class ResultType
+    {
+        final WeakReference<ResultSet> resultSet;
+
+        final int exprIndex;
+
+        final boolean binary;
+
+        ResultType(ResultSet rs, int exprIndex, boolean binary)
+        {
+            this.resultSet = new WeakReference<ResultSet>(rs);
+            this.exprIndex = exprIndex;
+            this.binary = binary;
+        }
+    }
+
+    /**
+     * Binds a geometry value in hex-encoded EWKB form. The PostGIS geometry input function accepts this form
+     * directly, so this is usable both for INSERT/UPDATE values and for query parameters.
+     * @param ps PreparedStatement
+     * @param exprIndex Parameter index
+     * @param hexEwkb The geometry as hex-encoded EWKB
+     * @throws SQLException If the value cannot be bound
+     */
+    protected void setHexEwkb(PreparedStatement ps, int exprIndex, String hexEwkb) throws SQLException
+    {
+        PGobject obj = new PGobject();
+        obj.setType("geometry");
+        obj.setValue(hexEwkb);
+        ps.setObject(exprIndex, obj);
+    }
+
+    /**
+     * Accessor for the hex-encoded EWKB held by a plain PGobject, as returned by the driver for a geometry
+     * column when no PostGIS type is registered with the connection.
+     * @param result The object returned by the driver
+     * @return The hex-encoded EWKB, or null if the object is not a plain PGobject
+     */
+    protected String getHexEwkb(Object result)
+    {
+        if (result instanceof String)
+        {
+            return (String) result;
+        }
+        else if (result != null && result.getClass() == PGobject.class)
+        {
+            return ((PGobject) result).getValue();
+        }
+        return null;
+    }
+}
@@ -17,6 +17,7 @@ Contributors:
  **********************************************************************/
 package org.datanucleus.store.types.geospatial.rdbms.sql.expression;
 
+import org.datanucleus.store.StoreManager;
 import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
 import org.datanucleus.store.rdbms.sql.SQLStatement;
 import org.datanucleus.store.rdbms.sql.expression.BooleanExpression;
@@ -24,14 +25,22 @@ import org.datanucleus.store.rdbms.sql.expression.BooleanLiteral;
 import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
 
 import org.datanucleus.store.rdbms.sql.expression.SQLLiteral;
+import org.datanucleus.store.types.geospatial.rdbms.adapter.SpatialRDBMSAdapter;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.jts.GeometryMapping;
 
 /**
  * Representation of a Geometry literal.
+ * With the persistence property "datanucleus.geospatial.bindliterals" a literal for a parameter stays a bound parameter even when
+ * asked not to be one, so that the SQL doesn't differ with each geometry and stays usable by statement caches. The mapping of
+ * such a literal then keeps the encoded form of the geometry bound, for later executions of the compiled query.
  */
 public class GeometryLiteral extends GeometryExpression implements SQLLiteral
 {
     private final Object value;
 
+    /** Whether the literal is bound as parameter whenever it has one. */
+    private final boolean bindAlways;
+
     /**
      * Constructor for a Geometry literal with a value.
      * @param stmt the SQL statement
@@ -43,6 +52,17 @@ public class GeometryLiteral extends GeometryExpression implements SQLLiteral
     {
         super(stmt, null, mapping);
         this.parameterName = parameterName;
+        this.bindAlways = isBindAlways(stmt.getRDBMSManager());
+        if (bindAlways && parameterName != null && mapping instanceof GeometryMapping)
+        {
+            // The cached geometry must be specific to this expression, so it needs a copy of the mapping of its own
+            GeometryMapping geomMapping = ((GeometryMapping) mapping).newMappingWithoutUserData();
+            if (geomMapping != mapping)
+            {
+                geomMapping.setCacheParameters(true);
+                this.mapping = geomMapping;
+            }
+        }
 
         if (value == null)
         {
@@ -56,6 +76,17 @@ public class GeometryLiteral extends GeometryExpression implements SQLLiteral
         setStatement();
     }
 
+    /**
+     * Whether the literals of a store are bound as parameter whenever they have one, rendered as "?" even when asked
+     * not to be parameters.
+     * @param storeMgr The store manager
+     * @return Whether "datanucleus.geospatial.bindliterals" is set
+     */
+    static boolean isBindAlways(StoreManager storeMgr)
+    {
+        return storeMgr.getBooleanProperty(SpatialRDBMSAdapter.BIND_LITERALS_PROPERTY);
+    }
+
     /*
      * (non-Javadoc)
      * @see org.datanucleus.store.rdbms.sql.expression.SQLLiteral#getValue()
@@ -71,7 +102,7 @@ public class GeometryLiteral extends GeometryExpression implements SQLLiteral
      */
     public void setNotParameter()
     {
-        if (parameterName == null)
+        if (parameterName == null || bindAlways)
         {
             return;
         }
@@ -0,0 +1,43 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.sql.expression;
+
+import java.util.List;
+
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.SQLTable;
+import org.datanucleus.store.rdbms.sql.expression.ObjectExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+
+/**
+ * Expression representing one of the java.awt.geom shapes that are stored in several numeric columns. Methods
+ * are looked up for the concrete type of the mapping, e.g. java.awt.geom.Rectangle2D$Double.
+ */
+public class Shape2dExpression extends ObjectExpression
+{
+    public Shape2dExpression(SQLStatement stmt, SQLTable table, JavaTypeMapping mapping)
+    {
+        super(stmt, table, mapping);
+    }
+
+    public SQLExpression invoke(String methodName, List args)
+    {
+        return stmt.getRDBMSManager().getSQLExpressionFactory().invokeMethod(stmt, mapping.getJavaType().getName(), methodName, this, args);
+    }
+}
@@ -0,0 +1,56 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.sql.expression;
+
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.expression.SQLLiteral;
+
+/**
+ * Literal representing one of the java.awt.geom shapes. Does nothing much other than store the value; the
+ * methods on the shape use the components of the value as literals.
+ */
+public class Shape2dLiteral extends Shape2dExpression implements SQLLiteral
+{
+    Object value;
+
+    public Shape2dLiteral(SQLStatement stmt, JavaTypeMapping mapping, Object value, String parameterName)
+    {
+        super(stmt, null, mapping);
+        this.parameterName = parameterName;
+        this.value = value;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.datanucleus.store.rdbms.sql.expression.SQLLiteral#getValue()
+     */
+    public Object getValue()
+    {
+        return value;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.datanucleus.store.rdbms.sql.expression.SQLLiteral#setNotParameter()
+     */
+    public void setNotParameter()
+    {
+        parameterName = null;
+    }
+}
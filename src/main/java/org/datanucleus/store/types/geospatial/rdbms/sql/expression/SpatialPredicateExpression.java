@@ -0,0 +1,59 @@
+/**********************************************************************
+Copyright (c) 2009 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+   ...
+ **********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.sql.expression;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.expression.BooleanExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+
+/**
+ * Representation of a call to a spatial predicate function returning an SQL boolean, such as PostGIS'
+ * "ST_Intersects(geom1, geom2)". The call is used as a condition on its own rather than being compared with
+ * a value, since the datastore can only use a spatial index for the call when it is a top-level condition.
+ */
+public class SpatialPredicateExpression extends BooleanExpression
+{
+    /**
+     * Generates statement as "FUNCTION_NAME(arg [,argN])".
+     * @param stmt SQL statement
+     * @param functionName Name of function
+     * @param args The args
+     */
+    public SpatialPredicateExpression(SQLStatement stmt, String functionName, List<SQLExpression> args)
+    {
+        super(stmt, null, stmt.getSQLExpressionFactory().getMappingForType(boolean.class, true));
+
+        st.clearStatement();
+        st.append(functionName).append("(");
+        Iterator<SQLExpression> iter = args.iterator();
+        while (iter.hasNext())
+        {
+            st.append(iter.next());
+            if (iter.hasNext())
+            {
+                st.append(",");
+            }
+        }
+        st.append(")");
+
+        hasClosure = true;
+    }
+}
@@ -0,0 +1,75 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.sql.method;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.expression.NumericExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+
+/**
+ * Method representing calls to the methods "distance(Point2D)" and "distance(x, y)" of a Point or Point2D,
+ * translated into "SQRT((x - px) * (x - px) + (y - py) * (y - py))".
+ */
+public class Point2dDistanceMethod extends Shape2dComponentMethod
+{
+    /*
+     * (non-Javadoc)
+     * @see
+     * org.datanucleus.store.rdbms.sql.method.SQLMethod#getExpression(org.datanucleus.store.rdbms.sql.expression
+     * .SQLExpression, java.util.List)
+     */
+    public SQLExpression getExpression(SQLStatement stmt, SQLExpression expr, List args)
+    {
+        checkArguments(expr, args, "distance", 1, 2);
+        if (!isPoint(expr))
+        {
+            throw new NucleusUserException("distance can only be evaluated in the datastore for points");
+        }
+
+        SQLExpression px;
+        SQLExpression py;
+        if (args.size() == 1)
+        {
+            SQLExpression argExpr = (SQLExpression) args.get(0);
+            if (!isPoint(argExpr))
+            {
+                throw new NucleusUserException("Cannot invoke distance with an argument of type " + argExpr.getJavaTypeMapping().getJavaType().getName());
+            }
+            px = getComponent(stmt, argExpr, X);
+            py = getComponent(stmt, argExpr, Y);
+        }
+        else
+        {
+            px = (SQLExpression) args.get(0);
+            py = (SQLExpression) args.get(1);
+        }
+
+        SQLExpression dx = getComponent(stmt, expr, X).sub(px);
+        SQLExpression dy = getComponent(stmt, expr, Y).sub(py);
+        List<SQLExpression> funcArgs = new ArrayList<SQLExpression>();
+        funcArgs.add(dx.mul(dx).add(dy.mul(dy)));
+
+        JavaTypeMapping m = stmt.getSQLExpressionFactory().getMappingForType(double.class);
+        return new NumericExpression(stmt, m, "SQRT", funcArgs);
+    }
+}
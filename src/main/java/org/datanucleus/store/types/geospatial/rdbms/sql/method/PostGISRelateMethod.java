@@ -0,0 +1,42 @@
+/**********************************************************************
+Copyright (c) 2009 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+   ...
+ **********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.sql.method;
+
+import java.util.List;
+
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+
+/**
+ * Implementation of "Spatial.relate(expr, expr2, expr3)" or "expr.relate(expr2,expr3)" method for PostGIS.
+ * Unlike the other "ST_" predicates, ST_Relate has no implied bounding box test. When the pattern is a constant
+ * that can only match geometries which intersect, an explicit bounding box test is added so that the spatial
+ * index can be used.
+ */
+public class PostGISRelateMethod extends SpatialRelateMethod3
+{
+    protected SQLExpression getRelateExpression(SQLStatement stmt, List<SQLExpression> funcArgs)
+    {
+        Object pattern = SpatialMethodHelper.getConstantValue(funcArgs.get(2));
+        if (pattern instanceof String && SpatialMethodHelper.requiresIntersection((String) pattern))
+        {
+            return SpatialMethodHelper.getBboxFilteredPredicateExpression(stmt, "st_relate", funcArgs);
+        }
+        return SpatialMethodHelper.getPredicateExpression(stmt, "st_relate", funcArgs);
+    }
+}
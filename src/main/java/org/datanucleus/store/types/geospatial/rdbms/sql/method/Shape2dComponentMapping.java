@@ -0,0 +1,62 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.sql.method;
+
+import org.datanucleus.store.rdbms.mapping.column.ColumnMapping;
+import org.datanucleus.store.rdbms.mapping.java.DoubleMapping;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+
+/**
+ * Mapping for a single component (e.g. the x coordinate or the width) of one of the multi-column mappings of
+ * the java.awt shapes. Is actually a wrapper to the real mapping just returning the relevant column mapping.
+ */
+public class Shape2dComponentMapping extends DoubleMapping
+{
+    /** The actual shape mapping. */
+    private final JavaTypeMapping shapeMapping;
+
+    /** The index of the mapping we should return. */
+    private final int mappingIndex;
+
+    /**
+     * @param shapeMapping The mapping of the shape we are getting our data from.
+     * @param mappingIndex The index of the column mapping in the shape mapping we should return (ie. the
+     * mapping we pretend is the only that exists).
+     */
+    public Shape2dComponentMapping(JavaTypeMapping shapeMapping, int mappingIndex)
+    {
+        this.shapeMapping = shapeMapping;
+        this.mappingIndex = mappingIndex;
+    }
+
+    public ColumnMapping[] getColumnMappings()
+    {
+        ColumnMapping[] startColumnMapping = {shapeMapping.getColumnMappings()[mappingIndex]};
+        return startColumnMapping;
+    }
+
+    public ColumnMapping getColumnMapping(int index)
+    {
+        return shapeMapping.getColumnMappings()[mappingIndex];
+    }
+
+    public int getNumberOfColumnMappings()
+    {
+        return 1;
+    }
+}
@@ -0,0 +1,281 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.sql.method;
+
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RectangularShape;
+import java.util.List;
+
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.expression.NumericExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpressionFactory;
+import org.datanucleus.store.rdbms.sql.expression.SQLLiteral;
+import org.datanucleus.store.rdbms.sql.method.SQLMethod;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.Arc2dDoubleMapping;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.Arc2dFloatMapping;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.Ellipse2dDoubleMapping;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.Ellipse2dFloatMapping;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.Line2dDoubleMapping;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.Line2dFloatMapping;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.Point2dDoubleMapping;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.Point2dFloatMapping;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.PointMapping;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.Rectangle2dDoubleMapping;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.Rectangle2dFloatMapping;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.RectangleMapping;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.RoundRectangle2dDoubleMapping;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.RoundRectangle2dFloatMapping;
+
+/**
+ * Abstract implementation of methods on the java.awt shapes that are stored in several numeric columns, i.e.
+ * points, lines, rectangles, ellipses, round rectangles and arcs. The methods are translated into arithmetic
+ * and comparisons on the columns of the components of the shape, written with the bare column on one side so
+ * that the datastore can use an ordinary (B-tree) index on the column. The other side of a comparison may be
+ * a field of another shape, or a literal or parameter, whose components are then used as literals.
+ */
+public abstract class Shape2dComponentMethod implements SQLMethod
+{
+    public static final String X = "x";
+
+    public static final String Y = "y";
+
+    public static final String WIDTH = "width";
+
+    public static final String HEIGHT = "height";
+
+    public static final String X1 = "x1";
+
+    public static final String Y1 = "y1";
+
+    public static final String X2 = "x2";
+
+    public static final String Y2 = "y2";
+
+    /**
+     * Returns the expression for a component of a shape, for a method without arguments.
+     * @param stmt SQL statement
+     * @param expr The shape expression
+     * @param args The arguments of the method
+     * @param methodName Name of the method, for error messages
+     * @param component The component
+     * @return The expression for the component
+     */
+    protected SQLExpression getAccessorExpression(SQLStatement stmt, SQLExpression expr, List args, String methodName, String component)
+    {
+        checkArguments(expr, args, methodName, 0);
+        return getComponent(stmt, expr, component);
+    }
+
+    /**
+     * Checks the target and number of arguments of a method.
+     * @param expr The shape expression
+     * @param args The arguments of the method
+     * @param methodName Name of the method, for error messages
+     * @param counts The allowed numbers of arguments
+     */
+    protected void checkArguments(SQLExpression expr, List args, String methodName, int... counts)
+    {
+        if (expr == null)
+        {
+            throw new NucleusUserException("Cannot invoke " + methodName + " on null object");
+        }
+        int size = (args != null ? args.size() : 0);
+        for (int i = 0; i < counts.length; i++)
+        {
+            if (counts[i] == size)
+            {
+                return;
+            }
+        }
+        throw new NucleusUserException("Cannot invoke " + methodName + " with " + size + " arguments");
+    }
+
+    /**
+     * Returns the expression for a component of a shape. For a field this is the column of the component.
+     * For a literal or parameter it is a literal of the value of the component; a parameter is then no
+     * longer bound, since its value is part of the SQL.
+     * @param stmt SQL statement
+     * @param expr The shape expression
+     * @param component The component
+     * @return The expression for the component
+     */
+    protected SQLExpression getComponent(SQLStatement stmt, SQLExpression expr, String component)
+    {
+        if (expr instanceof SQLLiteral)
+        {
+            SQLLiteral literal = (SQLLiteral) expr;
+            if (expr.getParameterName() != null)
+            {
+                stmt.getQueryGenerator().useParameterExpressionAsLiteral(literal);
+            }
+            Object value = literal.getValue();
+            return getLiteral(stmt, value != null ? Double.valueOf(getComponentValue(value, component)) : null);
+        }
+
+        JavaTypeMapping mapping = expr.getJavaTypeMapping();
+        return new NumericExpression(stmt, expr.getSQLTable(), new Shape2dComponentMapping(mapping, getColumnIndex(mapping, component)));
+    }
+
+    /**
+     * Returns a numeric literal.
+     * @param stmt SQL statement
+     * @param value The value, may be null
+     * @return The literal
+     */
+    protected SQLExpression getLiteral(SQLStatement stmt, Number value)
+    {
+        SQLExpressionFactory exprFactory = stmt.getSQLExpressionFactory();
+        JavaTypeMapping m = exprFactory.getMappingForType(value instanceof Integer ? int.class : double.class, true);
+        return exprFactory.newLiteral(stmt, m, value);
+    }
+
+    protected static boolean isPoint(SQLExpression expr)
+    {
+        JavaTypeMapping m = expr.getJavaTypeMapping();
+        if (m instanceof PointMapping || m instanceof Point2dDoubleMapping || m instanceof Point2dFloatMapping)
+        {
+            return true;
+        }
+        return expr instanceof SQLLiteral && ((SQLLiteral) expr).getValue() instanceof Point2D;
+    }
+
+    protected static boolean isRectangle(SQLExpression expr)
+    {
+        JavaTypeMapping m = expr.getJavaTypeMapping();
+        if (m instanceof RectangleMapping || m instanceof Rectangle2dDoubleMapping || m instanceof Rectangle2dFloatMapping)
+        {
+            return true;
+        }
+        return expr instanceof SQLLiteral && ((SQLLiteral) expr).getValue() instanceof Rectangle2D;
+    }
+
+    protected static boolean isEllipse(SQLExpression expr)
+    {
+        JavaTypeMapping m = expr.getJavaTypeMapping();
+        if (m instanceof Ellipse2dDoubleMapping || m instanceof Ellipse2dFloatMapping)
+        {
+            return true;
+        }
+        return expr instanceof SQLLiteral && ((SQLLiteral) expr).getValue() instanceof Ellipse2D;
+    }
+
+    /**
+     * Accessor for the index of the column mapping of a component in the mapping of a shape.
+     * @param mapping The mapping of the shape
+     * @param component The component
+     * @return The index of the column mapping
+     */
+    private static int getColumnIndex(JavaTypeMapping mapping, String component)
+    {
+        if (mapping instanceof PointMapping || mapping instanceof Point2dDoubleMapping || mapping instanceof Point2dFloatMapping)
+        {
+            return getIndex(mapping, component, X, Y);
+        }
+        else if (mapping instanceof Line2dDoubleMapping || mapping instanceof Line2dFloatMapping)
+        {
+            return getIndex(mapping, component, X1, Y1, X2, Y2);
+        }
+        else if (mapping instanceof Arc2dDoubleMapping || mapping instanceof Arc2dFloatMapping)
+        {
+            // Arcs store their type in the first column
+            return 1 + getIndex(mapping, component, X, Y, WIDTH, HEIGHT);
+        }
+        else if (mapping instanceof RectangleMapping || mapping instanceof Rectangle2dDoubleMapping || mapping instanceof Rectangle2dFloatMapping ||
+                mapping instanceof Ellipse2dDoubleMapping || mapping instanceof Ellipse2dFloatMapping ||
+                mapping instanceof RoundRectangle2dDoubleMapping || mapping instanceof RoundRectangle2dFloatMapping)
+        {
+            return getIndex(mapping, component, X, Y, WIDTH, HEIGHT);
+        }
+        throw new NucleusUserException("Cannot access the " + component + " of a field with mapping " + mapping.getClass().getName());
+    }
+
+    private static int getIndex(JavaTypeMapping mapping, String component, String... components)
+    {
+        for (int i = 0; i < components.length; i++)
+        {
+            if (components[i].equals(component))
+            {
+                return i;
+            }
+        }
+        throw new NucleusUserException("Cannot access the " + component + " of a field of type " + mapping.getJavaType().getName());
+    }
+
+    private static double getComponentValue(Object value, String component)
+    {
+        if (value instanceof Point2D)
+        {
+            Point2D point = (Point2D) value;
+            if (X.equals(component))
+            {
+                return point.getX();
+            }
+            else if (Y.equals(component))
+            {
+                return point.getY();
+            }
+        }
+        else if (value instanceof Line2D)
+        {
+            Line2D line = (Line2D) value;
+            if (X1.equals(component))
+            {
+                return line.getX1();
+            }
+            else if (Y1.equals(component))
+            {
+                return line.getY1();
+            }
+            else if (X2.equals(component))
+            {
+                return line.getX2();
+            }
+            else if (Y2.equals(component))
+            {
+                return line.getY2();
+            }
+        }
+        else if (value instanceof RectangularShape)
+        {
+            RectangularShape shape = (RectangularShape) value;
+            if (X.equals(component))
+            {
+                return shape.getX();
+            }
+            else if (Y.equals(component))
+            {
+                return shape.getY();
+            }
+            else if (WIDTH.equals(component))
+            {
+                return shape.getWidth();
+            }
+            else if (HEIGHT.equals(component))
+            {
+                return shape.getHeight();
+            }
+        }
+        throw new NucleusUserException("Cannot access the " + component + " of a value of type " + value.getClass().getName());
+    }
+}
@@ -0,0 +1,118 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.sql.method;
+
+import java.util.List;
+
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+
+/**
+ * Method representing calls to the methods "contains(Point2D)", "contains(x, y)", "contains(Rectangle2D)" and
+ * "contains(x, y, w, h)" of a Rectangle, Rectangle2D or Ellipse2D (points only). A point is contained in a
+ * rectangle when
+ * <pre>x &lt;= px AND y &lt;= py AND x + width &gt; px AND y + height &gt; py</pre>
+ * and a rectangle when
+ * <pre>x &lt;= rx AND y &lt;= ry AND x + width &gt;= rx + rw AND y + height &gt;= ry + rh</pre>
+ * (with positive sizes). For an ellipse the condition for the bounding box is followed by the exact test
+ * <pre>(2 * (px - x) - w)^2 * h^2 + (2 * (py - y) - h)^2 * w^2 &lt; w^2 * h^2</pre>
+ * which is the test of Ellipse2D without divisions, so that the bounding box can still be served by an index.
+ */
+public class Shape2dContainsMethod extends Shape2dComponentMethod
+{
+    /*
+     * (non-Javadoc)
+     * @see
+     * org.datanucleus.store.rdbms.sql.method.SQLMethod#getExpression(org.datanucleus.store.rdbms.sql.expression
+     * .SQLExpression, java.util.List)
+     */
+    public SQLExpression getExpression(SQLStatement stmt, SQLExpression expr, List args)
+    {
+        checkArguments(expr, args, "contains", 1, 2, 4);
+
+        SQLExpression px;
+        SQLExpression py;
+        SQLExpression pw = null;
+        SQLExpression ph = null;
+        if (args.size() == 1)
+        {
+            SQLExpression argExpr = (SQLExpression) args.get(0);
+            if (isPoint(argExpr))
+            {
+                px = getComponent(stmt, argExpr, X);
+                py = getComponent(stmt, argExpr, Y);
+            }
+            else if (isRectangle(argExpr))
+            {
+                px = getComponent(stmt, argExpr, X);
+                py = getComponent(stmt, argExpr, Y);
+                pw = getComponent(stmt, argExpr, WIDTH);
+                ph = getComponent(stmt, argExpr, HEIGHT);
+            }
+            else
+            {
+                throw new NucleusUserException("Cannot invoke contains with an argument of type " + argExpr.getJavaTypeMapping().getJavaType().getName());
+            }
+        }
+        else
+        {
+            px = (SQLExpression) args.get(0);
+            py = (SQLExpression) args.get(1);
+            if (args.size() == 4)
+            {
+                pw = (SQLExpression) args.get(2);
+                ph = (SQLExpression) args.get(3);
+            }
+        }
+
+        boolean ellipse = isEllipse(expr);
+        if (!ellipse && !isRectangle(expr))
+        {
+            throw new NucleusUserException("contains can only be evaluated in the datastore for rectangles and ellipses");
+        }
+
+        SQLExpression x = getComponent(stmt, expr, X);
+        SQLExpression y = getComponent(stmt, expr, Y);
+        SQLExpression w = getComponent(stmt, expr, WIDTH);
+        SQLExpression h = getComponent(stmt, expr, HEIGHT);
+        if (pw == null)
+        {
+            SQLExpression bbox = x.lteq(px).and(y.lteq(py)).and(x.add(w).gt(px)).and(y.add(h).gt(py));
+            if (!ellipse)
+            {
+                return bbox;
+            }
+
+            SQLExpression two = getLiteral(stmt, Integer.valueOf(2));
+            SQLExpression dx = two.mul(px.sub(x)).sub(w);
+            SQLExpression dy = two.mul(py.sub(y)).sub(h);
+            SQLExpression ww = w.mul(w);
+            SQLExpression hh = h.mul(h);
+            return bbox.and(dx.mul(dx).mul(hh).add(dy.mul(dy).mul(ww)).lt(ww.mul(hh)));
+        }
+        else if (ellipse)
+        {
+            throw new NucleusUserException("Ellipse2D.contains of a rectangle cannot be evaluated in the datastore");
+        }
+
+        SQLExpression zero = getLiteral(stmt, Integer.valueOf(0));
+        return w.gt(zero).and(h.gt(zero)).and(pw.gt(zero)).and(ph.gt(zero))
+            .and(x.lteq(px)).and(y.lteq(py)).and(x.add(w).gteq(px.add(pw))).and(y.add(h).gteq(py.add(ph)));
+    }
+}
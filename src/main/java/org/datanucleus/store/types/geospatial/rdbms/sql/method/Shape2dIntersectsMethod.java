@@ -0,0 +1,79 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.sql.method;
+
+import java.util.List;
+
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+
+/**
+ * Method representing calls to the methods "intersects(Rectangle2D)" and "intersects(x, y, w, h)" of a
+ * Rectangle or Rectangle2D. Two rectangles with positive sizes intersect when
+ * <pre>x &lt; rx + rw AND y &lt; ry + rh AND x + width &gt; rx AND y + height &gt; ry</pre>
+ */
+public class Shape2dIntersectsMethod extends Shape2dComponentMethod
+{
+    /*
+     * (non-Javadoc)
+     * @see
+     * org.datanucleus.store.rdbms.sql.method.SQLMethod#getExpression(org.datanucleus.store.rdbms.sql.expression
+     * .SQLExpression, java.util.List)
+     */
+    public SQLExpression getExpression(SQLStatement stmt, SQLExpression expr, List args)
+    {
+        checkArguments(expr, args, "intersects", 1, 4);
+        if (!isRectangle(expr))
+        {
+            throw new NucleusUserException("intersects can only be evaluated in the datastore for rectangles");
+        }
+
+        SQLExpression rx;
+        SQLExpression ry;
+        SQLExpression rw;
+        SQLExpression rh;
+        if (args.size() == 1)
+        {
+            SQLExpression argExpr = (SQLExpression) args.get(0);
+            if (!isRectangle(argExpr))
+            {
+                throw new NucleusUserException("Cannot invoke intersects with an argument of type " + argExpr.getJavaTypeMapping().getJavaType().getName());
+            }
+            rx = getComponent(stmt, argExpr, X);
+            ry = getComponent(stmt, argExpr, Y);
+            rw = getComponent(stmt, argExpr, WIDTH);
+            rh = getComponent(stmt, argExpr, HEIGHT);
+        }
+        else
+        {
+            rx = (SQLExpression) args.get(0);
+            ry = (SQLExpression) args.get(1);
+            rw = (SQLExpression) args.get(2);
+            rh = (SQLExpression) args.get(3);
+        }
+
+        SQLExpression x = getComponent(stmt, expr, X);
+        SQLExpression y = getComponent(stmt, expr, Y);
+        SQLExpression w = getComponent(stmt, expr, WIDTH);
+        SQLExpression h = getComponent(stmt, expr, HEIGHT);
+        SQLExpression zero = getLiteral(stmt, Integer.valueOf(0));
+        return w.gt(zero).and(h.gt(zero)).and(rw.gt(zero)).and(rh.gt(zero))
+            .and(x.lt(rx.add(rw))).and(y.lt(ry.add(rh))).and(x.add(w).gt(rx)).and(y.add(h).gt(ry));
+    }
+}
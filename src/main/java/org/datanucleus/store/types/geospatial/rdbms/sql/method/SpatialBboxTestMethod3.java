@@ -23,13 +23,15 @@ import java.util.List;
 import org.datanucleus.exceptions.NucleusUserException;
 import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
 import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.expression.BooleanExpression;
 import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
 import org.datanucleus.store.rdbms.sql.expression.StringExpression;
 import org.datanucleus.store.rdbms.sql.expression.StringLiteral;
 import org.datanucleus.store.rdbms.sql.method.SQLMethod;
 
 /**
- * Implementation of "Spatial.bboxTest" method for Oracle.
+ * Implementation of "Spatial.bboxTest" method for Oracle. When either geometry is a column with a spatial index
+ * (see the extension "spatial-index") the SDO_FILTER primary filter is used, which is evaluated using the index.
  */
 public class SpatialBboxTestMethod3 implements SQLMethod
 {
@@ -72,6 +74,13 @@ public class SpatialBboxTestMethod3 implements SQLMethod
             argTol = (SQLExpression) args.get(1);
         }
 
+        // SDO_FILTER compares the bounding boxes held by the spatial index, so doesn't need the tolerance
+        BooleanExpression filterExpr = SpatialMethodHelper.getOracleFilterExpression(stmt, argExpr1, argExpr2);
+        if (filterExpr != null)
+        {
+            return filterExpr;
+        }
+
         StringLiteral mask = new StringLiteral(stmt, null, RELATE_MASK_FOR_BBOXTEST, null);
 
         ArrayList funcArgs = new ArrayList();
@@ -23,12 +23,15 @@ import java.util.List;
 import org.datanucleus.exceptions.NucleusUserException;
 import org.datanucleus.store.types.geospatial.rdbms.sql.expression.GeometryExpression;
 import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.expression.BooleanExpression;
 import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
 import org.datanucleus.store.rdbms.sql.expression.SQLExpressionFactory;
 import org.datanucleus.store.rdbms.sql.method.SQLMethod;
 
 /**
  * Implementation of "Spatial.contains(expr, argExpr)" or "{expr}.contains(argExpr)" method for Oracle.
+ * When either geometry is a column with a spatial index (see the extension "spatial-index") the SDO_RELATE
+ * operator is used, which is evaluated using the index. Otherwise the OGC function is used.
  */
 public class SpatialContainsMethod2 implements SQLMethod
 {
@@ -62,6 +65,14 @@ public class SpatialContainsMethod2 implements SQLMethod
             argExpr2 = (SQLExpression) args.get(1); // Geometry 2
         }
 
+        // The OGC functions cannot use a spatial index, so use SDO_RELATE when either geometry is indexed
+        BooleanExpression relateExpr = SpatialMethodHelper.getOracleRelateExpression(stmt, argExpr1, argExpr2,
+            SpatialMethodHelper.ORACLE_CONTAINS_MASK, SpatialMethodHelper.ORACLE_WITHIN_MASK);
+        if (relateExpr != null)
+        {
+            return relateExpr;
+        }
+
         ArrayList geomFunc1Args = new ArrayList();
         geomFunc1Args.add(argExpr1);
         GeometryExpression geomExpr1 = new GeometryExpression(stmt, null, "geometry.from_sdo_geom", geomFunc1Args, null);
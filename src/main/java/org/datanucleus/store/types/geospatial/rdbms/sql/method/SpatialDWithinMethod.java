@@ -0,0 +1,88 @@
+/**********************************************************************
+Copyright (c) 2009 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+   2013 barisergun75@gmail.com - NUCSPATIAL-28 Adding postgis support
+ **********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.sql.method;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.expression.BooleanExpression;
+import org.datanucleus.store.rdbms.sql.expression.NumericExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+import org.datanucleus.store.rdbms.sql.method.SQLMethod;
+import org.datanucleus.store.types.geospatial.rdbms.sql.expression.GeometryExpression;
+
+/**
+ * Implementation of "Spatial.dwithin(expr, expr2, distance)" or "{expr}.isWithinDistance(expr2, distance)"
+ * method for MySQL. MySQL has no within-distance function, so this is translated to an MBRIntersects test of the
+ * first geometry against the envelope of the second one buffered by the distance, which can use a SPATIAL index,
+ * followed by the exact test ST_Distance(expr, expr2) &lt;= distance.
+ */
+public class SpatialDWithinMethod implements SQLMethod
+{
+    public SQLExpression getExpression(SQLStatement stmt, SQLExpression expr, List args)
+    {
+        if (args == null)
+        {
+            throw new NucleusUserException("Cannot invoke Spatial.dwithin without arguments");
+        }
+        if (expr == null && args.size() != 3)
+        {
+            throw new NucleusUserException("Cannot invoke Spatial.dwithin without 3 arguments");
+        }
+        else if (expr != null && args.size() != 2)
+        {
+            throw new NucleusUserException("Cannot invoke geom.isWithinDistance() without 2 arguments");
+        }
+
+        SQLExpression argExpr1 = expr; // Geometry 1
+        SQLExpression argExpr2 = (SQLExpression) args.get(0); // Geometry 2
+        SQLExpression distExpr = (SQLExpression) args.get(1); // Distance
+        if (expr == null)
+        {
+            // "Spatial." method
+            argExpr1 = (SQLExpression) args.get(0); // Geometry 1
+            argExpr2 = (SQLExpression) args.get(1); // Geometry 2
+            distExpr = (SQLExpression) args.get(2); // Distance
+        }
+
+        ArrayList<SQLExpression> envelopeArgs = new ArrayList<SQLExpression>();
+        envelopeArgs.add(argExpr2);
+        GeometryExpression envelopeExpr = new GeometryExpression(stmt, null, "ST_Envelope", envelopeArgs, null);
+
+        ArrayList<SQLExpression> bufferArgs = new ArrayList<SQLExpression>();
+        bufferArgs.add(envelopeExpr);
+        bufferArgs.add(distExpr);
+        GeometryExpression bufferExpr = new GeometryExpression(stmt, null, "ST_Buffer", bufferArgs, null);
+
+        ArrayList<SQLExpression> mbrArgs = new ArrayList<SQLExpression>();
+        mbrArgs.add(argExpr1);
+        mbrArgs.add(bufferExpr);
+        BooleanExpression mbrExpr = SpatialMethodHelper.getPredicateExpression(stmt, "MBRIntersects", mbrArgs);
+
+        ArrayList<SQLExpression> distanceArgs = new ArrayList<SQLExpression>();
+        distanceArgs.add(argExpr1);
+        distanceArgs.add(argExpr2);
+        JavaTypeMapping m = stmt.getSQLExpressionFactory().getMappingForType(double.class);
+        NumericExpression distanceExpr = new NumericExpression(stmt, m, "ST_Distance", distanceArgs);
+
+        return mbrExpr.and(distanceExpr.le(distExpr));
+    }
+}
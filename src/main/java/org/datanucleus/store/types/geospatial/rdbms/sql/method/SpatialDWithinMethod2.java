@@ -0,0 +1,139 @@
+/**********************************************************************
+Copyright (c) 2009 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+   2013 barisergun75@gmail.com - NUCSPATIAL-28 Adding postgis support
+ **********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.sql.method;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpressionFactory;
+import org.datanucleus.store.rdbms.sql.expression.StringExpression;
+import org.datanucleus.store.rdbms.sql.expression.StringLiteral;
+import org.datanucleus.store.rdbms.sql.method.SQLMethod;
+
+/**
+ * Implementation of "Spatial.dwithin(expr, expr2, distance)" or "{expr}.isWithinDistance(expr2, distance)"
+ * method for Oracle. When either geometry is a column with a spatial index (see the extension "spatial-index")
+ * the SDO_WITHIN_DISTANCE operator is used, with the indexed geometry first since it is evaluated using its index.
+ * Otherwise the SDO_GEOM.WITHIN_DISTANCE function is used, since the operator fails without a spatial index.
+ */
+public class SpatialDWithinMethod2 implements SQLMethod
+{
+    private static final String DISTANCE_PARAM = "distance=";
+
+    /** Tolerance of SDO_GEOM.WITHIN_DISTANCE, as the default tolerance of Oracle Spatial. */
+    private static final double TOLERANCE = 0.005;
+
+    public SQLExpression getExpression(SQLStatement stmt, SQLExpression expr, List args)
+    {
+        if (args == null)
+        {
+            throw new NucleusUserException("Cannot invoke Spatial.dwithin without arguments");
+        }
+        if (expr == null && args.size() != 3)
+        {
+            throw new NucleusUserException("Cannot invoke Spatial.dwithin without 3 arguments");
+        }
+        else if (expr != null && args.size() != 2)
+        {
+            throw new NucleusUserException("Cannot invoke geom.isWithinDistance() without 2 arguments");
+        }
+
+        SQLExpression argExpr1 = expr; // Geometry 1
+        SQLExpression argExpr2 = (SQLExpression) args.get(0); // Geometry 2
+        SQLExpression distExpr = (SQLExpression) args.get(1); // Distance
+        if (expr == null)
+        {
+            // "Spatial." method
+            argExpr1 = (SQLExpression) args.get(0); // Geometry 1
+            argExpr2 = (SQLExpression) args.get(1); // Geometry 2
+            distExpr = (SQLExpression) args.get(2); // Distance
+        }
+
+        if (!SpatialMethodHelper.isSpatiallyIndexedColumn(argExpr1))
+        {
+            if (!SpatialMethodHelper.isSpatiallyIndexedColumn(argExpr2))
+            {
+                return getWithinDistanceFunctionExpression(stmt, argExpr1, argExpr2, distExpr);
+            }
+
+            // The distance is symmetric, so put the indexed geometry first
+            SQLExpression swapExpr = argExpr1;
+            argExpr1 = argExpr2;
+            argExpr2 = swapExpr;
+        }
+
+        JavaTypeMapping m = stmt.getSQLExpressionFactory().getMappingForType(String.class, true);
+        SQLExpression paramsExpr;
+        Object distance = SpatialMethodHelper.getConstantValue(distExpr);
+        if (distance instanceof Number)
+        {
+            paramsExpr = new StringLiteral(stmt, m, DISTANCE_PARAM + new BigDecimal(distance.toString()).toPlainString(), null);
+        }
+        else
+        {
+            // Format the distance independent of the NLS settings of the session, which may use a decimal comma
+            ArrayList<SQLExpression> toCharArgs = new ArrayList<SQLExpression>();
+            toCharArgs.add(distExpr);
+            StringExpression toCharExpr = new StringExpression(stmt, m, "TO_CHAR", toCharArgs);
+
+            ArrayList<SQLExpression> replaceArgs = new ArrayList<SQLExpression>();
+            replaceArgs.add(toCharExpr);
+            replaceArgs.add(new StringLiteral(stmt, m, ",", null));
+            replaceArgs.add(new StringLiteral(stmt, m, ".", null));
+            StringExpression replaceExpr = new StringExpression(stmt, m, "REPLACE", replaceArgs);
+
+            ArrayList<SQLExpression> concatArgs = new ArrayList<SQLExpression>();
+            concatArgs.add(new StringLiteral(stmt, m, DISTANCE_PARAM, null));
+            concatArgs.add(replaceExpr);
+            paramsExpr = new StringExpression(stmt, m, "CONCAT", concatArgs);
+        }
+
+        ArrayList<SQLExpression> funcArgs = new ArrayList<SQLExpression>();
+        funcArgs.add(argExpr1);
+        funcArgs.add(argExpr2);
+        funcArgs.add(paramsExpr);
+
+        StringExpression withinExpr = new StringExpression(stmt, m, "SDO_WITHIN_DISTANCE", funcArgs);
+        return withinExpr.eq(new StringLiteral(stmt, m, "TRUE", null));
+    }
+
+    /**
+     * Returns the expression "SDO_GEOM.WITHIN_DISTANCE(geom1, distance, geom2, tolerance) = 'TRUE'", which needs no spatial
+     * index, so also applies to literals and parameters.
+     */
+    private SQLExpression getWithinDistanceFunctionExpression(SQLStatement stmt, SQLExpression argExpr1, SQLExpression argExpr2,
+            SQLExpression distExpr)
+    {
+        SQLExpressionFactory exprFactory = stmt.getSQLExpressionFactory();
+        JavaTypeMapping m = exprFactory.getMappingForType(String.class, true);
+
+        ArrayList<SQLExpression> funcArgs = new ArrayList<SQLExpression>();
+        funcArgs.add(argExpr1);
+        funcArgs.add(distExpr);
+        funcArgs.add(argExpr2);
+        funcArgs.add(exprFactory.newLiteral(stmt, exprFactory.getMappingForType(double.class), Double.valueOf(TOLERANCE)));
+
+        StringExpression withinExpr = new StringExpression(stmt, m, "SDO_GEOM.WITHIN_DISTANCE", funcArgs);
+        return withinExpr.eq(new StringLiteral(stmt, m, "TRUE", null));
+    }
+}
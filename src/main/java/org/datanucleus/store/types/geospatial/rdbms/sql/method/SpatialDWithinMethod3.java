@@ -0,0 +1,68 @@
+/**********************************************************************
+Copyright (c) 2009 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+   2013 barisergun75@gmail.com - NUCSPATIAL-28 Adding postgis support
+ **********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.sql.method;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+import org.datanucleus.store.rdbms.sql.method.SQLMethod;
+
+/**
+ * Implementation of "Spatial.dwithin(expr, expr2, distance)" or "{expr}.isWithinDistance(expr2, distance)"
+ * method for PostGIS. Uses ST_DWithin, which unlike a comparison of ST_Distance with the distance can use the
+ * spatial index.
+ */
+public class SpatialDWithinMethod3 implements SQLMethod
+{
+    public SQLExpression getExpression(SQLStatement stmt, SQLExpression expr, List args)
+    {
+        if (args == null)
+        {
+            throw new NucleusUserException("Cannot invoke Spatial.dwithin without arguments");
+        }
+        if (expr == null && args.size() != 3)
+        {
+            throw new NucleusUserException("Cannot invoke Spatial.dwithin without 3 arguments");
+        }
+        else if (expr != null && args.size() != 2)
+        {
+            throw new NucleusUserException("Cannot invoke geom.isWithinDistance() without 2 arguments");
+        }
+
+        SQLExpression argExpr1 = expr; // Geometry 1
+        SQLExpression argExpr2 = (SQLExpression) args.get(0); // Geometry 2
+        SQLExpression distExpr = (SQLExpression) args.get(1); // Distance
+        if (expr == null)
+        {
+            // "Spatial." method
+            argExpr1 = (SQLExpression) args.get(0); // Geometry 1
+            argExpr2 = (SQLExpression) args.get(1); // Geometry 2
+            distExpr = (SQLExpression) args.get(2); // Distance
+        }
+
+        ArrayList<SQLExpression> funcArgs = new ArrayList<SQLExpression>();
+        funcArgs.add(argExpr1);
+        funcArgs.add(argExpr2);
+        funcArgs.add(distExpr);
+
+        return SpatialMethodHelper.getPredicateExpression(stmt, "st_dwithin", funcArgs);
+    }
+}
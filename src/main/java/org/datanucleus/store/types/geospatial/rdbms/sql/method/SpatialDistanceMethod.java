@@ -67,6 +67,6 @@ public class SpatialDistanceMethod implements SQLMethod
         funcArgs.add(argExpr2);
 
         JavaTypeMapping m = stmt.getSQLExpressionFactory().getMappingForType(double.class);
-        return new NumericExpression(stmt, m, "Distance", funcArgs);
+        return new NumericExpression(stmt, m, "st_distance", funcArgs);
     }
 }
\ No newline at end of file
@@ -23,7 +23,6 @@ import java.util.List;
 import org.datanucleus.exceptions.NucleusUserException;
 import org.datanucleus.store.rdbms.sql.SQLStatement;
 import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
-import org.datanucleus.store.rdbms.sql.expression.SQLExpressionFactory;
 import org.datanucleus.store.rdbms.sql.method.SQLMethod;
 
 /**
@@ -59,7 +58,6 @@ public class SpatialIntersectsMethod3 implements SQLMethod
         funcArgs.add(argExpr1);
         funcArgs.add(argExpr2);
 
-        SQLExpressionFactory exprFactory = stmt.getSQLExpressionFactory();
-        return SpatialMethodHelper.getBooleanExpression(stmt, "st_intersects", funcArgs, exprFactory);
+        return SpatialMethodHelper.getPredicateExpression(stmt, "st_intersects", funcArgs);
     }
 }
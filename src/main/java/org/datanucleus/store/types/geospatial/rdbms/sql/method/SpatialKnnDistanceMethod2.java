@@ -0,0 +1,103 @@
+/**********************************************************************
+Copyright (c) 2009 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+   2013 barisergun75@gmail.com - NUCSPATIAL-28 Adding postgis support
+ **********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.sql.method;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.SelectStatement;
+import org.datanucleus.store.rdbms.sql.expression.IntegerLiteral;
+import org.datanucleus.store.rdbms.sql.expression.NumericExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+import org.datanucleus.store.rdbms.sql.expression.StringExpression;
+import org.datanucleus.store.rdbms.sql.expression.StringLiteral;
+import org.datanucleus.store.rdbms.sql.method.SQLMethod;
+
+/**
+ * Implementation of "Spatial.knnDistance(expr, expr2)" method for Oracle.
+ * When either geometry is a column with a spatial index (see the extension "spatial-index"), an SDO_NN condition
+ * on that column is added to the query and the distance is SDO_NN_DISTANCE of that condition. Oracle then
+ * returns the rows in order of distance from the spatial index, so that a query ordered by the distance and
+ * limited with a range only visits the nearest rows. Otherwise the distance is computed for every row, as with
+ * "Spatial.distance".
+ */
+public class SpatialKnnDistanceMethod2 implements SQLMethod
+{
+    /** Key of the statement extension holding the last SDO_NN ancillary operator number used in the statement. */
+    private static final String NN_NUMBER_EXTENSION_KEY = "geospatial-sdo-nn-number";
+
+    /** Parameters of SDO_NN. A batch size of 0 lets Oracle fetch neighbours until the range of the query is filled. */
+    private static final String NN_PARAMS = "sdo_batch_size=0";
+
+    public SQLExpression getExpression(SQLStatement stmt, SQLExpression expr, List args)
+    {
+        if (args == null)
+        {
+            throw new NucleusUserException("Cannot invoke Spatial.knnDistance without arguments");
+        }
+        if (args.size() != 2)
+        {
+            throw new NucleusUserException("Cannot invoke Spatial.knnDistance without 2 arguments");
+        }
+
+        SQLExpression argExpr1 = (SQLExpression) args.get(0); // Geometry 1
+        SQLExpression argExpr2 = (SQLExpression) args.get(1); // Geometry 2
+
+        SQLExpression indexedExpr = null;
+        SQLExpression queryExpr = null;
+        if (SpatialMethodHelper.isSpatiallyIndexedColumn(argExpr1))
+        {
+            indexedExpr = argExpr1;
+            queryExpr = argExpr2;
+        }
+        else if (SpatialMethodHelper.isSpatiallyIndexedColumn(argExpr2))
+        {
+            indexedExpr = argExpr2;
+            queryExpr = argExpr1;
+        }
+        if (indexedExpr == null || !(stmt instanceof SelectStatement))
+        {
+            // SDO_NN can only be used in the WHERE clause of a query, on an indexed column
+            return new SpatialDistanceMethod2().getExpression(stmt, expr, args);
+        }
+
+        // Each SDO_NN of a statement needs its own number to link it with its SDO_NN_DISTANCE
+        Integer lastNumber = (Integer) stmt.getValueForExtension(NN_NUMBER_EXTENSION_KEY);
+        int number = lastNumber != null ? lastNumber.intValue() + 1 : 1;
+        stmt.addExtension(NN_NUMBER_EXTENSION_KEY, Integer.valueOf(number));
+
+        JavaTypeMapping stringMapping = stmt.getSQLExpressionFactory().getMappingForType(String.class, true);
+        JavaTypeMapping intMapping = stmt.getSQLExpressionFactory().getMappingForType(int.class, true);
+
+        ArrayList<SQLExpression> nnArgs = new ArrayList<SQLExpression>();
+        nnArgs.add(indexedExpr);
+        nnArgs.add(queryExpr);
+        nnArgs.add(new StringLiteral(stmt, stringMapping, NN_PARAMS, null));
+        nnArgs.add(new IntegerLiteral(stmt, intMapping, Integer.valueOf(number), null));
+        StringExpression nnExpr = new StringExpression(stmt, stringMapping, "SDO_NN", nnArgs);
+        ((SelectStatement) stmt).whereAnd(nnExpr.eq(new StringLiteral(stmt, stringMapping, "TRUE", null)), true);
+
+        ArrayList<SQLExpression> distanceArgs = new ArrayList<SQLExpression>();
+        distanceArgs.add(new IntegerLiteral(stmt, intMapping, Integer.valueOf(number), null));
+        JavaTypeMapping m = stmt.getSQLExpressionFactory().getMappingForType(double.class);
+        return new NumericExpression(stmt, m, "SDO_NN_DISTANCE", distanceArgs);
+    }
+}
@@ -0,0 +1,59 @@
+/**********************************************************************
+Copyright (c) 2009 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+   2013 barisergun75@gmail.com - NUCSPATIAL-28 Adding postgis support
+ **********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.sql.method;
+
+import java.util.List;
+
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.store.query.expression.Expression;
+import org.datanucleus.store.query.expression.Expression.DyadicOperator;
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.expression.NumericExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+import org.datanucleus.store.rdbms.sql.method.SQLMethod;
+
+/**
+ * Implementation of "Spatial.knnDistance(expr, expr2)" method for PostGIS.
+ * Uses the KNN distance operator "&lt;-&gt;", so that a query ordered by it and limited with a range, such as
+ * "ORDER BY geom &lt;-&gt; ? LIMIT 20", is answered by walking the spatial index instead of computing the
+ * distance of every row. With PostGIS 2.2 and later the operator returns the same distance as ST_Distance, with
+ * older versions it returns the distance between the centres of the bounding boxes.
+ */
+public class SpatialKnnDistanceMethod3 implements SQLMethod
+{
+    private static final DyadicOperator KNN_DISTANCE = new Expression.DyadicOperator("<->", 3, false);
+
+    public SQLExpression getExpression(SQLStatement stmt, SQLExpression expr, List args)
+    {
+        if (args == null)
+        {
+            throw new NucleusUserException("Cannot invoke Spatial.knnDistance without arguments");
+        }
+        if (args.size() != 2)
+        {
+            throw new NucleusUserException("Cannot invoke Spatial.knnDistance without 2 arguments");
+        }
+
+        SQLExpression argExpr1 = (SQLExpression) args.get(0); // Geometry 1
+        SQLExpression argExpr2 = (SQLExpression) args.get(1); // Geometry 2
+
+        NumericExpression distanceExpr = new NumericExpression(argExpr1, KNN_DISTANCE, argExpr2);
+        distanceExpr.setJavaTypeMapping(stmt.getSQLExpressionFactory().getMappingForType(double.class));
+        return distanceExpr;
+    }
+}
@@ -17,26 +17,47 @@ Contributors:
  **********************************************************************/
 package org.datanucleus.store.types.geospatial.rdbms.sql.method;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.datanucleus.ClassLoaderResolver;
 import org.datanucleus.store.query.expression.Expression;
+import org.datanucleus.store.query.expression.Expression.DyadicOperator;
 import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
 import org.datanucleus.store.rdbms.sql.SQLStatement;
 import org.datanucleus.store.rdbms.sql.expression.BooleanExpression;
 import org.datanucleus.store.rdbms.sql.expression.CharacterLiteral;
 import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
 import org.datanucleus.store.rdbms.sql.expression.SQLExpressionFactory;
+import org.datanucleus.store.rdbms.sql.expression.SQLLiteral;
 import org.datanucleus.store.rdbms.sql.expression.StringExpression;
+import org.datanucleus.store.rdbms.sql.expression.StringLiteral;
+import org.datanucleus.store.rdbms.table.Column;
+import org.datanucleus.store.types.geospatial.rdbms.adapter.SpatialRDBMSAdapter;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.ShapeGeometryMapping;
+import org.datanucleus.store.types.geospatial.rdbms.mapping.SpatialMappingHelper;
+import org.datanucleus.store.types.geospatial.rdbms.sql.expression.SpatialPredicateExpression;
 
 /**
  * Helper class for creating method handlers.
  */
 public class SpatialMethodHelper
 {
+    private static final DyadicOperator BBOX_OVERLAPS = new Expression.DyadicOperator("&&", 3, false);
+
+    /**
+     * SDO_RELATE mask matching the OGC contains() predicate. Oracle's masks are mutually exclusive so equal
+     * geometries (which contain each other in OGC terms) only match EQUAL.
+     */
+    static final String ORACLE_CONTAINS_MASK = "CONTAINS+COVERS+EQUAL";
+
+    /** SDO_RELATE mask matching the OGC within() predicate, the inverse of {@link #ORACLE_CONTAINS_MASK}. */
+    static final String ORACLE_WITHIN_MASK = "INSIDE+COVEREDBY+EQUAL";
+
     /**
      * Method to return the java type mapping to use for the geometry of the input expression. Uses the java
-     * type represented by the expression to define which Geometry class to use.
+     * type represented by the expression to define which Geometry class to use. For java.awt shapes stored in a
+     * geometry column (see {@link ShapeGeometryMapping}) this is the JTS Geometry.
      * @param clr ClassLoader resolver
      * @param expr The expression
      * @return The mapping to use.
@@ -50,7 +71,11 @@ public class SpatialMethodHelper
 
         String className;
         String geometryPackageName = expr.getJavaTypeMapping().getJavaType().getPackage().getName();
-        if (geometryPackageName.equals("org.postgis"))
+        if (expr.getJavaTypeMapping() instanceof ShapeGeometryMapping)
+        {
+            className = "com.vividsolutions.jts.geom.Geometry";
+        }
+        else if (geometryPackageName.equals("org.postgis"))
         {
             className = geometryPackageName + ".Geometry";
         }
@@ -94,4 +119,174 @@ public class SpatialMethodHelper
         SQLExpression right = new CharacterLiteral(stmt, charMapping, Character.valueOf('1'), null);
         return new BooleanExpression(left, Expression.OP_EQ, right);
     }
-}
\ No newline at end of file
+
+    /**
+     * Accessor for the value of an expression when it is a constant of the query. Parameters don't count as
+     * constants, since the SQL generated for a query is reused with other parameter values.
+     * @param expr The expression
+     * @return The value, or null if the expression is not a constant
+     */
+    public static Object getConstantValue(SQLExpression expr)
+    {
+        if (expr instanceof SQLLiteral)
+        {
+            Object value = ((SQLLiteral) expr).getValue();
+            if (value != null && expr.toSQLText().toSQL().indexOf('?') < 0)
+            {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Convenience accessor for a boolean expression for a spatial predicate function returning an SQL boolean,
+     * such as the PostGIS "ST_" predicates. The function call is used as condition on its own, since PostGIS
+     * only applies the bounding box test (and so the spatial index) that these functions imply when the call
+     * is a top-level condition, not when it is compared with a value.
+     * @param stmt The statement that this is part of
+     * @param funcName Function name
+     * @param funcArgs Args to the function
+     * @return The boolean expression
+     */
+    public static BooleanExpression getPredicateExpression(SQLStatement stmt, String funcName, List<SQLExpression> funcArgs)
+    {
+        return new SpatialPredicateExpression(stmt, funcName, funcArgs);
+    }
+
+    /**
+     * Convenience accessor for a boolean expression for a spatial predicate function which has no implied
+     * bounding box test, preceded by an explicit bounding box overlap test ("&&") of the first two args, which
+     * can use the spatial index. Only valid for predicates that cannot hold for geometries whose bounding boxes
+     * don't overlap.
+     * @param stmt The statement that this is part of
+     * @param funcName Function name
+     * @param funcArgs Args to the function
+     * @return The boolean expression
+     */
+    public static BooleanExpression getBboxFilteredPredicateExpression(SQLStatement stmt, String funcName, List<SQLExpression> funcArgs)
+    {
+        BooleanExpression bboxExpr = new BooleanExpression(funcArgs.get(0), BBOX_OVERLAPS, funcArgs.get(1));
+        bboxExpr.setJavaTypeMapping(stmt.getSQLExpressionFactory().getMappingForType(boolean.class, false));
+        return bboxExpr.and(getPredicateExpression(stmt, funcName, funcArgs));
+    }
+
+    /**
+     * Whether a DE-9IM pattern can only match geometries which intersect, i.e whether it requires a non-empty
+     * intersection of the interiors and/or boundaries of the geometries.
+     * @param pattern The DE-9IM pattern
+     * @return Whether the geometries must intersect
+     */
+    public static boolean requiresIntersection(String pattern)
+    {
+        if (pattern.length() != 9)
+        {
+            return false;
+        }
+
+        // Interior/Interior, Interior/Boundary, Boundary/Interior and Boundary/Boundary
+        int[] cells = new int[] {0, 1, 3, 4};
+        for (int i = 0; i < cells.length; i++)
+        {
+            char c = Character.toUpperCase(pattern.charAt(cells[i]));
+            if (c == 'T' || c == '0' || c == '1' || c == '2')
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the expression is a geometry column which has a spatial index, as declared by the extension
+     * "spatial-index" of the column or the persistence property "datanucleus.geospatial.spatialindex".
+     * @param expr The expression
+     * @return Whether the expression is a spatially indexed column
+     */
+    public static boolean isSpatiallyIndexedColumn(SQLExpression expr)
+    {
+        JavaTypeMapping mapping = expr.getJavaTypeMapping();
+        if (expr.getSQLTable() == null || mapping == null || mapping.getNumberOfColumnMappings() != 1)
+        {
+            return false;
+        }
+
+        Column column = mapping.getColumnMapping(0).getColumn();
+        return column != null && SpatialMappingHelper.getBooleanOption(expr.getSQLStatement().getRDBMSManager(), column,
+            SpatialRDBMSAdapter.SPATIAL_INDEX_PROPERTY, SpatialRDBMSAdapter.SPATIAL_INDEX_EXTENSION_KEY);
+    }
+
+    /**
+     * Convenience accessor for a boolean expression for an Oracle spatial operator, such as
+     * "SDO_RELATE(geom1, geom2, 'mask=INSIDE') = 'TRUE'". Spatial operators are evaluated using the spatial
+     * index of their first argument, and fail when that column has no spatial index.
+     * @param stmt The statement that this is part of
+     * @param operator Name of the operator
+     * @param indexedExpr The spatially indexed column
+     * @param queryExpr The geometry to test the column against
+     * @param params The parameter string of the operator, or null if none
+     * @return The boolean expression
+     */
+    public static BooleanExpression getOracleOperatorExpression(SQLStatement stmt, String operator, SQLExpression indexedExpr,
+            SQLExpression queryExpr, String params)
+    {
+        JavaTypeMapping m = stmt.getSQLExpressionFactory().getMappingForType(String.class, true);
+
+        List<SQLExpression> funcArgs = new ArrayList<SQLExpression>();
+        funcArgs.add(indexedExpr);
+        funcArgs.add(queryExpr);
+        if (params != null)
+        {
+            funcArgs.add(new StringLiteral(stmt, m, params, null));
+        }
+
+        StringExpression operatorExpr = new StringExpression(stmt, m, operator, funcArgs);
+        return operatorExpr.eq(new StringLiteral(stmt, m, "TRUE", null));
+    }
+
+    /**
+     * Convenience accessor for an Oracle "SDO_RELATE" expression for the relationship "geom1 mask geom2",
+     * using the spatial index of whichever of the geometries is a spatially indexed column.
+     * @param stmt The statement that this is part of
+     * @param geomExpr1 The first geometry
+     * @param geomExpr2 The second geometry
+     * @param mask The mask of the relationship of the first geometry to the second geometry
+     * @param inverseMask The mask of the relationship of the second geometry to the first geometry
+     * @return The boolean expression, or null if neither geometry is a spatially indexed column
+     */
+    public static BooleanExpression getOracleRelateExpression(SQLStatement stmt, SQLExpression geomExpr1, SQLExpression geomExpr2,
+            String mask, String inverseMask)
+    {
+        if (isSpatiallyIndexedColumn(geomExpr1))
+        {
+            return getOracleOperatorExpression(stmt, "SDO_RELATE", geomExpr1, geomExpr2, "mask=" + mask);
+        }
+        else if (isSpatiallyIndexedColumn(geomExpr2))
+        {
+            return getOracleOperatorExpression(stmt, "SDO_RELATE", geomExpr2, geomExpr1, "mask=" + inverseMask);
+        }
+        return null;
+    }
+
+    /**
+     * Convenience accessor for an Oracle "SDO_FILTER" primary filter expression, which is true when the
+     * bounding boxes of the geometries interact, using the spatial index of whichever of the geometries is
+     * a spatially indexed column.
+     * @param stmt The statement that this is part of
+     * @param geomExpr1 The first geometry
+     * @param geomExpr2 The second geometry
+     * @return The boolean expression, or null if neither geometry is a spatially indexed column
+     */
+    public static BooleanExpression getOracleFilterExpression(SQLStatement stmt, SQLExpression geomExpr1, SQLExpression geomExpr2)
+    {
+        if (isSpatiallyIndexedColumn(geomExpr1))
+        {
+            return getOracleOperatorExpression(stmt, "SDO_FILTER", geomExpr1, geomExpr2, null);
+        }
+        else if (isSpatiallyIndexedColumn(geomExpr2))
+        {
+            return getOracleOperatorExpression(stmt, "SDO_FILTER", geomExpr2, geomExpr1, null);
+        }
+        return null;
+    }
+}
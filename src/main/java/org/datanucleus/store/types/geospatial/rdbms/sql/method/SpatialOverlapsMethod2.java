@@ -23,12 +23,16 @@ import java.util.List;
 import org.datanucleus.exceptions.NucleusUserException;
 import org.datanucleus.store.types.geospatial.rdbms.sql.expression.GeometryExpression;
 import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.expression.BooleanExpression;
 import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
 import org.datanucleus.store.rdbms.sql.expression.SQLExpressionFactory;
 import org.datanucleus.store.rdbms.sql.method.SQLMethod;
 
 /**
  * Implementation of "Spatial.overlaps(expr1, expr2)" or "{expr}.overlaps(expr2)" method for Oracle.
+ * Oracle has no operator for this relationship, so when either geometry is a column with a spatial index (see
+ * the extension "spatial-index") the OGC function is preceded by the SDO_FILTER primary filter, which is
+ * evaluated using the index.
  */
 public class SpatialOverlapsMethod2 implements SQLMethod
 {
@@ -62,6 +66,9 @@ public class SpatialOverlapsMethod2 implements SQLMethod
             argExpr2 = (SQLExpression) args.get(1); // Geometry 2
         }
 
+        // The OGC functions cannot use a spatial index, so add a primary filter when either geometry is indexed
+        BooleanExpression filterExpr = SpatialMethodHelper.getOracleFilterExpression(stmt, argExpr1, argExpr2);
+
         ArrayList geomFunc1Args = new ArrayList();
         geomFunc1Args.add(argExpr1);
         GeometryExpression geomExpr1 = new GeometryExpression(stmt, null, "geometry.from_sdo_geom", geomFunc1Args, null);
@@ -74,6 +81,7 @@ public class SpatialOverlapsMethod2 implements SQLMethod
         funcArgs.add(geomExpr1);
         funcArgs.add(geomExpr2);
         SQLExpressionFactory exprFactory = stmt.getSQLExpressionFactory();
-        return SpatialMethodHelper.getBooleanExpression(stmt, "overlap", funcArgs, exprFactory);
+        BooleanExpression ogcExpr = SpatialMethodHelper.getBooleanExpression(stmt, "overlap", funcArgs, exprFactory);
+        return filterExpr != null ? filterExpr.and(ogcExpr) : ogcExpr;
     }
 }
\ No newline at end of file
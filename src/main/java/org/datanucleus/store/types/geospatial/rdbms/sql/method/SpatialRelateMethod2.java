@@ -23,12 +23,17 @@ import java.util.List;
 import org.datanucleus.exceptions.NucleusUserException;
 import org.datanucleus.store.types.geospatial.rdbms.sql.expression.GeometryExpression;
 import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.expression.BooleanExpression;
 import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
 import org.datanucleus.store.rdbms.sql.expression.SQLExpressionFactory;
 import org.datanucleus.store.rdbms.sql.method.SQLMethod;
 
 /**
  * Implementation of "Spatial.relate(expr, expr2, expr3)" or "expr.relate(expr2,expr3)" method for Oracle.
+ * Oracle has no operator for arbitrary patterns, so when the pattern is a constant that can only match
+ * geometries which intersect and either geometry is a column with a spatial index (see the extension
+ * "spatial-index"), the OGC function is preceded by the SDO_FILTER primary filter, which is evaluated using the
+ * index.
  */
 public class SpatialRelateMethod2 implements SQLMethod
 {
@@ -54,7 +59,7 @@ public class SpatialRelateMethod2 implements SQLMethod
 
         SQLExpression argExpr1 = expr; // Geometry 1
         SQLExpression argExpr2 = (SQLExpression) args.get(0); // Geometry 2
-        SQLExpression argExpr3 = (SQLExpression) args.get(2); // Pattern
+        SQLExpression argExpr3 = (SQLExpression) args.get(1); // Pattern
         if (expr == null)
         {
             // "Spatial." method
@@ -63,6 +68,14 @@ public class SpatialRelateMethod2 implements SQLMethod
             argExpr3 = (SQLExpression) args.get(2); // Pattern
         }
 
+        // The OGC functions cannot use a spatial index, so add a primary filter when it cannot change the result
+        BooleanExpression filterExpr = null;
+        Object pattern = SpatialMethodHelper.getConstantValue(argExpr3);
+        if (pattern instanceof String && SpatialMethodHelper.requiresIntersection((String) pattern))
+        {
+            filterExpr = SpatialMethodHelper.getOracleFilterExpression(stmt, argExpr1, argExpr2);
+        }
+
         ArrayList geomFunc1Args = new ArrayList();
         geomFunc1Args.add(argExpr1);
         GeometryExpression geomExpr1 = new GeometryExpression(stmt, null, "geometry.from_sdo_geom", geomFunc1Args, null);
@@ -77,6 +90,7 @@ public class SpatialRelateMethod2 implements SQLMethod
         funcArgs.add(argExpr3);
 
         SQLExpressionFactory exprFactory = stmt.getSQLExpressionFactory();
-        return SpatialMethodHelper.getBooleanExpression(stmt, "relate", funcArgs, exprFactory);
+        BooleanExpression ogcExpr = SpatialMethodHelper.getBooleanExpression(stmt, "relate", funcArgs, exprFactory);
+        return filterExpr != null ? filterExpr.and(ogcExpr) : ogcExpr;
     }
 }
\ No newline at end of file
@@ -27,7 +27,8 @@ import org.datanucleus.store.rdbms.sql.expression.SQLExpressionFactory;
 import org.datanucleus.store.rdbms.sql.method.SQLMethod;
 
 /**
- * Implementation of "Spatial.relate(expr, expr2, expr3)" or "expr.relate(expr2,expr3)" method for Postgresql.
+ * Implementation of "Spatial.relate(expr, expr2, expr3)" or "expr.relate(expr2,expr3)" method for MySQL.
+ * PostGIS uses {@link PostGISRelateMethod}.
  */
 public class SpatialRelateMethod3 implements SQLMethod
 {
@@ -62,6 +63,17 @@ public class SpatialRelateMethod3 implements SQLMethod
         funcArgs.add(argExpr2);
         funcArgs.add(argExpr3);
 
+        return getRelateExpression(stmt, funcArgs);
+    }
+
+    /**
+     * Creates the expression for the relate call.
+     * @param stmt The statement that this is part of
+     * @param funcArgs The geometries and the pattern
+     * @return The expression
+     */
+    protected SQLExpression getRelateExpression(SQLStatement stmt, List<SQLExpression> funcArgs)
+    {
         SQLExpressionFactory exprFactory = stmt.getSQLExpressionFactory();
         return SpatialMethodHelper.getBooleanExpression(stmt, "st_relate", funcArgs, exprFactory);
     }
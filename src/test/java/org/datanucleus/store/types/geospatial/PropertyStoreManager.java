@@ -0,0 +1,80 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.datanucleus.PropertyStore;
+import org.datanucleus.store.StoreManager;
+
+/**
+ * Store manager for tests, only providing the persistence properties. These are held in a DataNucleus
+ * {@link PropertyStore}, so they are stored and looked up the way the store managers of DataNucleus do.
+ */
+public class PropertyStoreManager extends PropertyStore
+{
+    /**
+     * Creates a store manager with the given persistence properties.
+     * @param properties The properties, keyed by name as a user would specify them
+     * @return The store manager
+     */
+    public static StoreManager newStoreManager(Map<String, Object> properties)
+    {
+        final PropertyStoreManager propertyStore = new PropertyStoreManager();
+        Iterator<Map.Entry<String, Object>> iter = properties.entrySet().iterator();
+        while (iter.hasNext())
+        {
+            Map.Entry<String, Object> entry = iter.next();
+            propertyStore.setPropertyInternal(entry.getKey(), entry.getValue());
+        }
+
+        return (StoreManager) Proxy.newProxyInstance(StoreManager.class.getClassLoader(), new Class[] {StoreManager.class}, new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+            {
+                if (method.getName().equals("isClosed"))
+                {
+                    return Boolean.FALSE;
+                }
+
+                Method propertyMethod;
+                try
+                {
+                    propertyMethod = PropertyStore.class.getMethod(method.getName(), method.getParameterTypes());
+                }
+                catch (NoSuchMethodException nsme)
+                {
+                    throw new UnsupportedOperationException(method.getName());
+                }
+                try
+                {
+                    return propertyMethod.invoke(propertyStore, args);
+                }
+                catch (InvocationTargetException ite)
+                {
+                    throw ite.getCause();
+                }
+            }
+        });
+    }
+}
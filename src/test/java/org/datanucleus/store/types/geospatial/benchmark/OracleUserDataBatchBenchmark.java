@@ -0,0 +1,197 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.benchmark;
+
+import java.sql.Blob;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import oracle.jdbc.OracleConnection;
+
+import org.datanucleus.store.types.geospatial.codec.CompactUserDataCodec;
+import org.datanucleus.store.types.geospatial.codec.JtsOracleGeometryCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+/**
+ * Compares persisting JTS geometries with user data on Oracle the way the mapping does with and without
+ * "datanucleus.geospatial.oracle.inlineblob": binding the user data BLOB in the INSERT and batching the statements
+ * (as DataNucleus does with "datanucleus.rdbms.statementBatchLimit", default 50), or inserting an empty BLOB and
+ * writing the value by selecting the row for update afterwards, which rules out batching.
+ * Needs an Oracle database, given by the system properties "benchmark.url", "benchmark.user" and "benchmark.password".
+ * Run with <code>mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="OracleUserDataBatchBenchmark -jvmArgs -Dbenchmark.url=..."</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class OracleUserDataBatchBenchmark
+{
+    private static final String TABLE = "BENCH_FEATURE";
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"50"})
+    public int batchSize;
+
+    Connection conn;
+
+    Geometry[] geometries;
+
+    byte[] userData;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException
+    {
+        conn = DriverManager.getConnection(System.getProperty("benchmark.url"), System.getProperty("benchmark.user"),
+            System.getProperty("benchmark.password"));
+        conn.setAutoCommit(false);
+
+        GeometryFactory factory = new GeometryFactory();
+        geometries = new Geometry[rows];
+        for (int i = 0; i < rows; i++)
+        {
+            double x = 8 + (i % 1000) * 0.001;
+            double y = 47 + (i / 1000) * 0.001;
+            geometries[i] = factory.createPolygon(new Coordinate[] {new Coordinate(x, y), new Coordinate(x + 0.0005, y),
+                    new Coordinate(x + 0.0005, y + 0.0005), new Coordinate(x, y + 0.0005), new Coordinate(x, y)});
+            geometries[i].setSRID(4326);
+        }
+
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put("name", "feature");
+        data.put("category", Integer.valueOf(3));
+        userData = new CompactUserDataCodec().encode(data);
+    }
+
+    @Setup(Level.Iteration)
+    public void createTable() throws SQLException
+    {
+        Statement stmt = conn.createStatement();
+        try
+        {
+            try
+            {
+                stmt.execute("DROP TABLE " + TABLE);
+            }
+            catch (SQLException sqle)
+            {
+                // Table doesn't exist yet
+            }
+            stmt.execute("CREATE TABLE " + TABLE + " (ID NUMBER PRIMARY KEY, GEOM MDSYS.SDO_GEOMETRY, USERDATA BLOB)");
+        }
+        finally
+        {
+            stmt.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException
+    {
+        conn.close();
+    }
+
+    @Benchmark
+    public void inlineBatched() throws SQLException
+    {
+        OracleConnection oraConn = conn.unwrap(OracleConnection.class);
+        PreparedStatement ps = conn.prepareStatement("INSERT INTO " + TABLE + " (ID, GEOM, USERDATA) VALUES (?, ?, ?)");
+        try
+        {
+            for (int i = 0; i < rows; i++)
+            {
+                ps.setInt(1, i);
+                ps.setObject(2, JtsOracleGeometryCodec.write(geometries[i], oraConn));
+                ps.setBytes(3, userData);
+                ps.addBatch();
+                if ((i + 1) % batchSize == 0)
+                {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+        finally
+        {
+            ps.close();
+        }
+        conn.commit();
+    }
+
+    @Benchmark
+    public void postProcessed() throws SQLException
+    {
+        OracleConnection oraConn = conn.unwrap(OracleConnection.class);
+        PreparedStatement insert = conn.prepareStatement("INSERT INTO " + TABLE + " (ID, GEOM, USERDATA) VALUES (?, ?, EMPTY_BLOB())");
+        PreparedStatement select = conn.prepareStatement("SELECT USERDATA FROM " + TABLE + " WHERE ID = ? FOR UPDATE");
+        try
+        {
+            for (int i = 0; i < rows; i++)
+            {
+                insert.setInt(1, i);
+                insert.setObject(2, JtsOracleGeometryCodec.write(geometries[i], oraConn));
+                insert.executeUpdate();
+
+                select.setInt(1, i);
+                ResultSet rs = select.executeQuery();
+                try
+                {
+                    rs.next();
+                    Blob blob = rs.getBlob(1);
+                    blob.setBytes(1, userData);
+                }
+                finally
+                {
+                    rs.close();
+                }
+            }
+        }
+        finally
+        {
+            select.close();
+            insert.close();
+        }
+        conn.commit();
+    }
+}
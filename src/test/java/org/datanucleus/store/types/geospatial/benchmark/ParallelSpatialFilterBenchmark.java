@@ -0,0 +1,130 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.datanucleus.store.types.geospatial.query.inmemory.SpatialCandidateIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+/**
+ * Measures how the exact evaluation of a spatial filter over in-memory candidates scales with the number of threads
+ * of the pool of {@link SpatialCandidateIndex#setParallelism(ForkJoinPool, int)}: the candidates are polygons spread
+ * over a square, filtered by intersection with a star shaped polygon covering most of it. One thread is sequential.
+ * Run with <code>mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=ParallelSpatialFilterBenchmark</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelSpatialFilterBenchmark
+{
+    @Param({"500000"})
+    public int candidates;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    public int threads;
+
+    SpatialCandidateIndex index;
+
+    Geometry area;
+
+    ForkJoinPool pool;
+
+    public static class Feature
+    {
+        final Geometry geom;
+
+        Feature(Geometry geom)
+        {
+            this.geom = geom;
+        }
+    }
+
+    @Setup
+    public void setup()
+    {
+        GeometryFactory factory = new GeometryFactory();
+        Random random = new Random(42);
+        List<Feature> features = new ArrayList<Feature>(candidates);
+        for (int i = 0; i < candidates; i++)
+        {
+            features.add(new Feature(createPolygon(factory, random.nextDouble() * 1000, random.nextDouble() * 1000, 2, 16, random)));
+        }
+        area = createPolygon(factory, 500, 500, 500, 20000, random);
+
+        index = new SpatialCandidateIndex(features, "geom");
+        if (threads > 1)
+        {
+            pool = new ForkJoinPool(threads);
+            index.setParallelism(pool, 1000);
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        if (pool != null)
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public Object filter()
+    {
+        return index.filter("intersects", area);
+    }
+
+    /**
+     * Creates a star shaped polygon, whose radius varies randomly between half and all of the given radius.
+     */
+    private static Geometry createPolygon(GeometryFactory factory, double x, double y, double radius, int vertices, Random random)
+    {
+        Coordinate[] coords = new Coordinate[vertices + 1];
+        for (int i = 0; i < vertices; i++)
+        {
+            double angle = 2 * Math.PI * i / vertices;
+            double r = radius * (0.5 + random.nextDouble() / 2);
+            coords[i] = new Coordinate(x + r * Math.cos(angle), y + r * Math.sin(angle));
+        }
+        coords[vertices] = coords[0];
+        return factory.createPolygon(coords);
+    }
+}
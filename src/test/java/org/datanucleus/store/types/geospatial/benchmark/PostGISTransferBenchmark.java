@@ -0,0 +1,125 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.postgis.PGgeometry;
+import org.postgis.binary.BinaryParser;
+import org.postgis.jts.JtsGeometry;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.io.ByteOrderValues;
+import com.vividsolutions.jts.io.WKBReader;
+import com.vividsolutions.jts.io.WKBWriter;
+import com.vividsolutions.jts.io.WKTReader;
+
+/**
+ * Compares the client side cost of the text and EWKB transfer paths of the PostGIS mappings, for a polygon
+ * with the given number of vertices. The text path reproduces what the mappings do with the driver's value,
+ * the binary path what they do with the result of ST_AsEWKB.
+ * Run with <code>mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=PostGISTransferBenchmark</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PostGISTransferBenchmark
+{
+    @Param({"10", "1000", "100000"})
+    public int vertices;
+
+    Geometry geometry;
+
+    String hexEwkb;
+
+    byte[] ewkb;
+
+    @Setup
+    public void setup()
+    {
+        Coordinate[] coords = new Coordinate[vertices + 1];
+        for (int i = 0; i < vertices; i++)
+        {
+            double angle = 2 * Math.PI * i / vertices;
+            coords[i] = new Coordinate(8.5 + Math.cos(angle), 47.3 + Math.sin(angle));
+        }
+        coords[vertices] = coords[0];
+
+        geometry = new GeometryFactory().createPolygon(coords);
+        geometry.setSRID(4326);
+        ewkb = new WKBWriter(2, ByteOrderValues.LITTLE_ENDIAN, true).write(geometry);
+        hexEwkb = WKBWriter.toHex(ewkb);
+    }
+
+    @Benchmark
+    public Object readJtsText() throws Exception
+    {
+        // Driver parses the hex value into a PGgeometry, which the mapping then converts via WKT
+        String geometryString = new PGgeometry(hexEwkb).getGeometry().toString();
+        String[] temp = PGgeometry.splitSRID(geometryString);
+        Geometry geom = new WKTReader().read(temp[1]);
+        geom.setSRID(Integer.parseInt(temp[0].substring(5)));
+        return geom;
+    }
+
+    @Benchmark
+    public Object readJtsBinary() throws Exception
+    {
+        return new WKBReader().read(ewkb);
+    }
+
+    @Benchmark
+    public Object readPgText() throws Exception
+    {
+        return new PGgeometry(hexEwkb).getGeometry();
+    }
+
+    @Benchmark
+    public Object readPgBinary() throws Exception
+    {
+        return new BinaryParser().parse(ewkb);
+    }
+
+    @Benchmark
+    public Object writeJtsText() throws Exception
+    {
+        return new JtsGeometry(geometry).getValue();
+    }
+
+    @Benchmark
+    public Object writeJtsBinary() throws Exception
+    {
+        return WKBWriter.toHex(new WKBWriter(2, ByteOrderValues.LITTLE_ENDIAN, true).write(geometry));
+    }
+}
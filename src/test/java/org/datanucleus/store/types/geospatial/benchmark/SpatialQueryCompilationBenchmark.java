@@ -0,0 +1,101 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ClassLoaderResolverImpl;
+import org.datanucleus.store.types.geospatial.rdbms.adapter.PostGISAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the spatial method resolution done by the JDOQL compiler of DataNucleus for a query with a dozen spatial
+ * predicates, e.g. "geom.intersects(:a) &amp;&amp; geom.within(:b) &amp;&amp; ... &amp;&amp; polygon.getNumInteriorRing() == 0", where
+ * the compiler asks the adapter for the SQL method class of every method call. The calls include a method of a
+ * non spatial class, which the adapter passes on to DataNucleus.
+ * Needs a PostGIS database for creating the adapter, given by the system properties "benchmark.url", "benchmark.user"
+ * and "benchmark.password".
+ * Run with <code>mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="SpatialQueryCompilationBenchmark -jvmArgs -Dbenchmark.url=..."</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpatialQueryCompilationBenchmark
+{
+    /** Class and name of the methods called by the query, null class for static methods. */
+    private static final String[][] METHOD_CALLS = new String[][] {
+        {"com.vividsolutions.jts.geom.Geometry", "intersects"},
+        {"com.vividsolutions.jts.geom.Geometry", "within"},
+        {"com.vividsolutions.jts.geom.Geometry", "touches"},
+        {"com.vividsolutions.jts.geom.Geometry", "distance"},
+        {"com.vividsolutions.jts.geom.Polygon", "getArea"},
+        {"com.vividsolutions.jts.geom.Geometry", "getSRID"},
+        {null, "Spatial.dwithin"},
+        {"com.vividsolutions.jts.geom.LineString", "isClosed"},
+        {"com.vividsolutions.jts.geom.LineString", "getNumPoints"},
+        {"com.vividsolutions.jts.geom.Point", "getX"},
+        {"com.vividsolutions.jts.geom.Point", "getY"},
+        {"com.vividsolutions.jts.geom.Polygon", "getNumInteriorRing"},
+        {"java.lang.String", "startsWith"}};
+
+    PostGISAdapter adapter;
+
+    ClassLoaderResolver clr;
+
+    @Setup
+    public void setup() throws SQLException
+    {
+        Connection conn = DriverManager.getConnection(System.getProperty("benchmark.url"), System.getProperty("benchmark.user"),
+            System.getProperty("benchmark.password"));
+        try
+        {
+            adapter = new PostGISAdapter(conn.getMetaData());
+        }
+        finally
+        {
+            conn.close();
+        }
+        clr = new ClassLoaderResolverImpl();
+    }
+
+    @Benchmark
+    public void resolveMethods(Blackhole bh)
+    {
+        for (int i = 0; i < METHOD_CALLS.length; i++)
+        {
+            bh.consume(adapter.getSQLMethodClass(METHOD_CALLS[i][0], METHOD_CALLS[i][1], clr));
+        }
+    }
+}
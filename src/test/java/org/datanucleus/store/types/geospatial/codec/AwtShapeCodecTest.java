@@ -0,0 +1,117 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.codec;
+
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.PrecisionModel;
+
+/**
+ * Tests for the conversion of java.awt shapes to JTS geometries and back by {@link AwtShapeCodec}.
+ */
+public class AwtShapeCodecTest
+{
+    private final GeometryFactory factory = new GeometryFactory(new PrecisionModel(), 4326);
+
+    @Test
+    public void testPoint()
+    {
+        Geometry geom = AwtShapeCodec.toGeometry(new Point2D.Double(1.5, 2.5), AwtShapeCodec.DEFAULT_FLATNESS, factory);
+        Assert.assertTrue(geom instanceof Point);
+        Assert.assertEquals(geom.getSRID(), 4326);
+        Assert.assertEquals(AwtShapeCodec.fromGeometry(geom, Point2D.Double.class), new Point2D.Double(1.5, 2.5));
+        Assert.assertEquals(AwtShapeCodec.fromGeometry(geom, java.awt.Point.class), new java.awt.Point(2, 3));
+    }
+
+    @Test
+    public void testEllipseIsFlattened()
+    {
+        Ellipse2D ellipse = new Ellipse2D.Double(1.3, 2.7, 10.1, 4.9);
+        Geometry geom = AwtShapeCodec.toGeometry(ellipse, 0.01, factory);
+        Assert.assertTrue(geom instanceof com.vividsolutions.jts.geom.Polygon);
+        Assert.assertTrue(geom.getNumPoints() > 20);
+        Assert.assertEquals(geom.getArea(), Math.PI * 10.1 * 4.9 / 4, 0.1);
+
+        // The outline goes through the extreme points, so the ellipse is rebuilt from the bounding box
+        Assert.assertEquals(AwtShapeCodec.fromGeometry(geom, Ellipse2D.Double.class), ellipse);
+    }
+
+    @Test
+    public void testAreaWithHole()
+    {
+        Area area = new Area(new Rectangle(0, 0, 10, 10));
+        area.subtract(new Area(new Rectangle(2, 2, 3, 3)));
+        Geometry geom = AwtShapeCodec.toGeometry(area, AwtShapeCodec.DEFAULT_FLATNESS, factory);
+        Assert.assertTrue(geom instanceof com.vividsolutions.jts.geom.Polygon);
+        Assert.assertEquals(((com.vividsolutions.jts.geom.Polygon) geom).getNumInteriorRing(), 1);
+        Assert.assertEquals(geom.getArea(), 91.0, 0.0);
+
+        Area rebuilt = (Area) AwtShapeCodec.fromGeometry(geom, Area.class);
+        Assert.assertTrue(rebuilt.equals(area));
+    }
+
+    @Test
+    public void testLineAndPolygon()
+    {
+        Geometry geom = AwtShapeCodec.toGeometry(new Line2D.Double(0, 0, 3, 4), AwtShapeCodec.DEFAULT_FLATNESS, factory);
+        Assert.assertTrue(geom instanceof LineString);
+        Line2D line = (Line2D) AwtShapeCodec.fromGeometry(geom, Line2D.Double.class);
+        Assert.assertEquals(line.getP2(), new Point2D.Double(3, 4));
+
+        Polygon polygon = new Polygon(new int[] {0, 10, 10}, new int[] {0, 0, 10}, 3);
+        geom = AwtShapeCodec.toGeometry(polygon, AwtShapeCodec.DEFAULT_FLATNESS, factory);
+        Assert.assertEquals(geom.getArea(), 50.0, 0.0);
+        Polygon rebuilt = (Polygon) AwtShapeCodec.fromGeometry(geom, Polygon.class);
+        Assert.assertEquals(rebuilt.npoints, 3);
+        Assert.assertEquals(rebuilt.getBounds(), polygon.getBounds());
+    }
+
+    @Test
+    public void testPathWithOpenAndClosedSubpaths()
+    {
+        Path2D path = new Path2D.Double();
+        path.append(new Rectangle(0, 0, 1, 1), false);
+        path.append(new Line2D.Double(5, 5, 6, 6), false);
+        Geometry geom = AwtShapeCodec.toGeometry(path, AwtShapeCodec.DEFAULT_FLATNESS, factory);
+        Assert.assertEquals(geom.getGeometryType(), "GeometryCollection");
+        Assert.assertEquals(geom.getNumGeometries(), 2);
+    }
+
+    @Test
+    public void testSupportedTypes()
+    {
+        Assert.assertTrue(AwtShapeCodec.isSupportedType(Rectangle.class));
+        Assert.assertTrue(AwtShapeCodec.isSupportedType(Point2D.Float.class));
+        Assert.assertTrue(AwtShapeCodec.isSupportedType(Path2D.Double.class));
+        Assert.assertFalse(AwtShapeCodec.isSupportedType(Arc2D.Double.class));
+    }
+}
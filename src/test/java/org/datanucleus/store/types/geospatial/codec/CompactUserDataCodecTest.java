@@ -0,0 +1,68 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.codec;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link CompactUserDataCodec}.
+ */
+public class CompactUserDataCodecTest
+{
+    @Test
+    public void testRoundTripMap()
+    {
+        Map<String, Object> nested = new HashMap<String, Object>();
+        nested.put("level", Integer.valueOf(3));
+        Map<String, Object> userData = new LinkedHashMap<String, Object>();
+        userData.put("name", "Zürich");
+        userData.put("population", Long.valueOf(402762L));
+        userData.put("area", Double.valueOf(87.88));
+        userData.put("capital", Boolean.FALSE);
+        userData.put("none", null);
+        userData.put("tags", Arrays.asList("city", "canton"));
+        userData.put("admin", nested);
+
+        CompactUserDataCodec codec = new CompactUserDataCodec();
+        byte[] bytes = codec.encode(userData);
+        Object decoded = codec.decode(bytes);
+        Assert.assertEquals(decoded, userData);
+
+        // Written back unchanged without being decoded
+        Assert.assertSame(codec.encode(codec.decode(bytes)), bytes);
+    }
+
+    @Test
+    public void testOtherUserDataIsSerialized()
+    {
+        CompactUserDataCodec codec = new CompactUserDataCodec();
+        Date date = new Date(1234567890L);
+        Assert.assertEquals(codec.decode(codec.encode(date)), date);
+
+        Map<String, Object> userData = new HashMap<String, Object>();
+        userData.put("since", date);
+        Assert.assertEquals(codec.decode(codec.encode(userData)), userData);
+    }
+}
@@ -0,0 +1,158 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.codec;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.io.ByteOrderValues;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKBWriter;
+
+/**
+ * Tests for {@link JtsGeometryCodec}.
+ */
+public class JtsGeometryCodecTest
+{
+    private static final String POLYGON = "POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0), (2 2, 2 4, 4 4, 4 2, 2 2))";
+
+    @Test
+    public void testReadWkbAtOffset() throws ParseException
+    {
+        Geometry geom = JtsGeometryCodec.readWkt(POLYGON);
+        byte[] wkb = new WKBWriter(2, ByteOrderValues.BIG_ENDIAN).write(geom);
+        byte[] buffer = new byte[wkb.length + 4];
+        System.arraycopy(wkb, 0, buffer, 4, wkb.length);
+
+        Assert.assertTrue(geom.equalsExact(JtsGeometryCodec.readWkb(buffer, 4)));
+    }
+
+    @Test(expectedExceptions = ParseException.class)
+    public void testReadTruncatedWkbAtOffset() throws ParseException
+    {
+        byte[] wkb = new WKBWriter(2, ByteOrderValues.LITTLE_ENDIAN).write(JtsGeometryCodec.readWkt(POLYGON));
+        JtsGeometryCodec.readWkb(Arrays.copyOf(wkb, wkb.length - 8), 0);
+    }
+
+    @Test
+    public void testWriteSridPrefixedWkb() throws ParseException
+    {
+        Geometry geom = JtsGeometryCodec.readWkt(POLYGON);
+        geom.setSRID(4326);
+
+        byte[] mysqlBinary = JtsGeometryCodec.writeSridPrefixedWkb(geom, 2, ByteOrderValues.LITTLE_ENDIAN);
+        Assert.assertEquals(ByteOrderValues.getInt(mysqlBinary, ByteOrderValues.LITTLE_ENDIAN), 4326);
+
+        byte[] wkb = new WKBWriter(2, ByteOrderValues.LITTLE_ENDIAN).write(geom);
+        Assert.assertEquals(Arrays.copyOfRange(mysqlBinary, 4, mysqlBinary.length), wkb);
+        Assert.assertTrue(geom.equalsExact(JtsGeometryCodec.readWkb(mysqlBinary, 4)));
+    }
+
+    @Test
+    public void testStreamSridPrefixedWkb() throws IOException, ParseException
+    {
+        Geometry geom = JtsGeometryCodec.readWkt(POLYGON);
+        geom.setSRID(4326);
+
+        // Small chunks, so that values span chunk boundaries
+        ChunkedByteArrayOutputStream out = new ChunkedByteArrayOutputStream(7);
+        JtsGeometryCodec.writeSridPrefixedWkb(geom, 2, ByteOrderValues.BIG_ENDIAN, out);
+        Assert.assertEquals(out.size(), JtsGeometryCodec.writeSridPrefixedWkb(geom, 2, ByteOrderValues.BIG_ENDIAN).length);
+
+        Geometry read = JtsGeometryCodec.readSridPrefixedWkb(out.toInputStream());
+        Assert.assertEquals(read.getSRID(), 4326);
+        Assert.assertTrue(geom.equalsExact(read));
+    }
+
+    @Test
+    public void testWriteEwkbIncludesSrid() throws ParseException
+    {
+        Geometry geom = JtsGeometryCodec.readWkt("POINT (8.5 47.3)");
+        geom.setSRID(4326);
+
+        Geometry read = JtsGeometryCodec.readWkb(JtsGeometryCodec.writeWkb(geom, ByteOrderValues.LITTLE_ENDIAN, true));
+        Assert.assertEquals(read.getSRID(), 4326);
+        Assert.assertTrue(geom.equalsExact(read));
+    }
+
+    @Test
+    public void testReadWkbLazily() throws ParseException
+    {
+        String[] wkts = new String[] {POLYGON, "POINT (1 2)", "LINESTRING (0 0, 1 1, 2 0)", "MULTIPOLYGON (((0 0, 1 0, 1 1, 0 0)), ((5 5, 6 5, 6 6, 5 5)))",
+                "GEOMETRYCOLLECTION (POINT (1 2), LINESTRING (0 0, 1 1))"};
+        for (int i = 0; i < wkts.length; i++)
+        {
+            Geometry geom = JtsGeometryCodec.readWkt(wkts[i]);
+            geom.setSRID(4326);
+            Geometry lazy = JtsGeometryCodec.readWkbLazily(JtsGeometryCodec.writeWkb(geom, ByteOrderValues.BIG_ENDIAN, true), 0);
+            Assert.assertEquals(lazy.getSRID(), 4326, wkts[i]);
+            Assert.assertTrue(geom.equalsExact(lazy), wkts[i]);
+        }
+    }
+
+    @Test
+    public void testLazyEnvelopeDoesNotDecode() throws ParseException
+    {
+        Geometry geom = JtsGeometryCodec.readWkt("LINESTRING (0 0, 10 5, 3 -2)");
+        byte[] buffer = JtsGeometryCodec.writeSridPrefixedWkb(geom, 2, ByteOrderValues.LITTLE_ENDIAN);
+        Geometry lazy = JtsGeometryCodec.readWkbLazily(buffer, 4);
+
+        Assert.assertEquals(lazy.getEnvelopeInternal(), geom.getEnvelopeInternal());
+        WkbCoordinateSequence seq = (WkbCoordinateSequence) ((LineString) lazy).getCoordinateSequence();
+        Assert.assertFalse(seq.isDecoded());
+
+        lazy.getCoordinates()[0].x = 1;
+        Assert.assertTrue(seq.isDecoded());
+        Assert.assertEquals(seq.getX(0), 1.0);
+    }
+
+    @Test
+    public void testLazyPolygonEnvelopeDoesNotDecode() throws ParseException
+    {
+        String[] wkts = new String[] {POLYGON, "MULTIPOLYGON (((0 0, 10 0, 10 10, 0 10, 0 0), (2 2, 4 2, 4 4, 2 4, 2 2)), ((20 20, 30 20, 30 30, 20 20)))"};
+        for (int i = 0; i < wkts.length; i++)
+        {
+            Geometry geom = JtsGeometryCodec.readWkt(wkts[i]);
+            Geometry lazy = JtsGeometryCodec.readWkbLazily(JtsGeometryCodec.writeWkb(geom, ByteOrderValues.LITTLE_ENDIAN, false), 0);
+
+            Assert.assertEquals(lazy.getEnvelopeInternal(), geom.getEnvelopeInternal(), wkts[i]);
+            for (int j = 0; j < lazy.getNumGeometries(); j++)
+            {
+                Polygon polygon = (Polygon) lazy.getGeometryN(j);
+                Assert.assertFalse(((WkbCoordinateSequence) polygon.getExteriorRing().getCoordinateSequence()).isDecoded(), wkts[i]);
+                for (int k = 0; k < polygon.getNumInteriorRing(); k++)
+                {
+                    Assert.assertFalse(((WkbCoordinateSequence) polygon.getInteriorRingN(k).getCoordinateSequence()).isDecoded(), wkts[i]);
+                }
+            }
+        }
+    }
+
+    @Test(expectedExceptions = ParseException.class)
+    public void testReadTruncatedWkbLazily() throws ParseException
+    {
+        byte[] wkb = new WKBWriter(2, ByteOrderValues.LITTLE_ENDIAN).write(JtsGeometryCodec.readWkt(POLYGON));
+        JtsGeometryCodec.readWkbLazily(Arrays.copyOf(wkb, wkb.length - 8), 0);
+    }
+}
@@ -0,0 +1,80 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.codec;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.ParseException;
+
+/**
+ * Tests for the SDO element encoding and decoding of {@link JtsOracleGeometryCodec}.
+ */
+public class JtsOracleGeometryCodecTest
+{
+    @Test
+    public void testPolygonRingOrientation() throws ParseException
+    {
+        // Exterior ring clockwise and hole counterclockwise, which Oracle wants the other way round
+        Geometry geom = JtsGeometryCodec.readWkt("POLYGON ((0 0, 0 10, 10 10, 10 0, 0 0), (2 2, 4 2, 4 4, 2 4, 2 2))");
+
+        JtsOracleGeometryCodec.Encoder encoder = JtsOracleGeometryCodec.encode(geom, 2);
+        Assert.assertEquals(encoder.elemInfo, new int[] {1, 1003, 1, 11, 2003, 1});
+        Assert.assertEquals(encoder.ordinates, new double[] {0, 0, 10, 0, 10, 10, 0, 10, 0, 0, 2, 2, 2, 4, 4, 4, 4, 2, 2, 2});
+
+        Geometry decoded = JtsOracleGeometryCodec.decode(3, 2, encoder.elemInfo, encoder.ordinates);
+        Assert.assertTrue(geom.equalsTopo(decoded));
+    }
+
+    @Test
+    public void testRoundTripCollections() throws ParseException
+    {
+        String[] wkts = new String[] {"MULTIPOINT ((1 2), (3 4), (5 6))", "MULTILINESTRING ((0 0, 1 1), (2 2, 3 3, 4 4))",
+                "MULTIPOLYGON (((0 0, 10 0, 10 10, 0 10, 0 0)), ((20 20, 30 20, 30 30, 20 30, 20 20)))",
+                "GEOMETRYCOLLECTION (POINT (1 2), LINESTRING (0 0, 1 1), POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0)))"};
+        int[] types = new int[] {5, 6, 7, 4};
+        for (int i = 0; i < wkts.length; i++)
+        {
+            Geometry geom = JtsGeometryCodec.readWkt(wkts[i]);
+            JtsOracleGeometryCodec.Encoder encoder = JtsOracleGeometryCodec.encode(geom, 2);
+            Geometry decoded = JtsOracleGeometryCodec.decode(types[i], 2, encoder.elemInfo, encoder.ordinates);
+            Assert.assertTrue(geom.equalsExact(decoded), wkts[i]);
+        }
+    }
+
+    @Test
+    public void testDecodeRectangle() throws ParseException
+    {
+        Geometry decoded = JtsOracleGeometryCodec.decode(3, 2, new int[] {1, 1003, 3}, new double[] {0, 0, 10, 5});
+        Assert.assertTrue(JtsGeometryCodec.readWkt("POLYGON ((0 0, 10 0, 10 5, 0 5, 0 0))").equalsExact(decoded));
+    }
+
+    @Test
+    public void testDecode3D()
+    {
+        Geometry decoded = JtsOracleGeometryCodec.decode(2, 3, new int[] {1, 2, 1}, new double[] {0, 0, 1, 5, 5, 2});
+        Assert.assertEquals(decoded.getCoordinates()[1].z, 2.0);
+    }
+
+    @Test
+    public void testDecodeArcIsNotSupported()
+    {
+        Assert.assertNull(JtsOracleGeometryCodec.decode(2, 2, new int[] {1, 2, 2}, new double[] {0, 0, 1, 1, 2, 0}));
+    }
+}
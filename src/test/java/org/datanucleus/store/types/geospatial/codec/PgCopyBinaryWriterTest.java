@@ -0,0 +1,74 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link PgCopyBinaryWriter}.
+ */
+public class PgCopyBinaryWriterTest
+{
+    @Test
+    public void testRows() throws IOException
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PgCopyBinaryWriter writer = new PgCopyBinaryWriter(baos);
+        writer.startRow(3);
+        writer.writeInt4(42);
+        writer.writeText("\u00e4");
+        writer.writeNull();
+        writer.startRow(3);
+        writer.writeInt4(-1);
+        writer.writeText(null);
+        writer.writeBytes(new byte[] {1, 2});
+        writer.finish();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        byte[] signature = new byte[11];
+        in.readFully(signature);
+        Assert.assertEquals(signature, new byte[] {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0});
+        Assert.assertEquals(in.readInt(), 0);
+        Assert.assertEquals(in.readInt(), 0);
+
+        Assert.assertEquals(in.readShort(), 3);
+        Assert.assertEquals(in.readInt(), 4);
+        Assert.assertEquals(in.readInt(), 42);
+        Assert.assertEquals(in.readInt(), 2);
+        Assert.assertEquals(in.readUnsignedByte(), 0xc3);
+        Assert.assertEquals(in.readUnsignedByte(), 0xa4);
+        Assert.assertEquals(in.readInt(), -1);
+
+        Assert.assertEquals(in.readShort(), 3);
+        Assert.assertEquals(in.readInt(), 4);
+        Assert.assertEquals(in.readInt(), -1);
+        Assert.assertEquals(in.readInt(), -1);
+        Assert.assertEquals(in.readInt(), 2);
+        Assert.assertEquals(in.readByte(), 1);
+        Assert.assertEquals(in.readByte(), 2);
+
+        Assert.assertEquals(in.readShort(), -1);
+        Assert.assertEquals(in.available(), 0);
+    }
+}
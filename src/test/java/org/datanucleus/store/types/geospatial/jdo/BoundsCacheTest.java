@@ -0,0 +1,67 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.jdo;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Collections;
+
+import org.datanucleus.store.StoreManager;
+import org.datanucleus.store.types.geospatial.PropertyStoreManager;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link BoundsCache}.
+ */
+public class BoundsCacheTest
+{
+    private static final String KEY = "mydomain.Feature#geom";
+
+    @Test
+    public void testEstimateIsCachedForTimeToLive()
+    {
+        StoreManager storeMgr = PropertyStoreManager.newStoreManager(
+            Collections.<String, Object>singletonMap("datanucleus.geospatial.boundsCacheTimeToLive", "60000"));
+        BoundsCache cache = new BoundsCache();
+        Assert.assertNull(cache.get(KEY));
+
+        // The second estimate of the field within the time to live is served from the cache
+        Rectangle2D bounds = new Rectangle2D.Double(0, 0, 10, 10);
+        cache.put(KEY, bounds, storeMgr);
+        Assert.assertNotNull(cache.get(KEY));
+        Assert.assertEquals(cache.get(KEY).getBounds(), bounds);
+
+        // No estimate is cached too, so the datastore isn't asked again
+        cache.put(KEY, null, storeMgr);
+        Assert.assertNotNull(cache.get(KEY));
+        Assert.assertNull(cache.get(KEY).getBounds());
+
+        cache.remove(KEY);
+        Assert.assertNull(cache.get(KEY));
+    }
+
+    @Test
+    public void testEstimateExpires()
+    {
+        StoreManager storeMgr = PropertyStoreManager.newStoreManager(
+            Collections.<String, Object>singletonMap("datanucleus.geospatial.boundsCacheTimeToLive", "0"));
+        BoundsCache cache = new BoundsCache();
+        cache.put(KEY, new Rectangle2D.Double(0, 0, 10, 10), storeMgr);
+        Assert.assertNull(cache.get(KEY));
+    }
+}
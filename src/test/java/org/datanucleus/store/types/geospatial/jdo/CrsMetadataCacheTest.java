@@ -0,0 +1,69 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.jdo;
+
+import java.util.Collections;
+
+import org.datanucleus.store.StoreManager;
+import org.datanucleus.store.types.geospatial.PropertyStoreManager;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link CrsMetadataCache}.
+ */
+public class CrsMetadataCacheTest
+{
+    @Test
+    public void testUnknownSridIsCached()
+    {
+        CrsMetadataCache cache = new CrsMetadataCache();
+        Assert.assertFalse(cache.containsName(4326));
+
+        cache.putName(4326, "EPSG:4326");
+        cache.putName(1, null);
+        Assert.assertTrue(cache.containsName(1));
+        Assert.assertNull(cache.getName(1));
+        Assert.assertEquals(cache.getName(4326), "EPSG:4326");
+        Assert.assertFalse(cache.containsWkt(4326));
+    }
+
+    @Test
+    public void testCompleteCache()
+    {
+        CrsMetadataCache cache = new CrsMetadataCache();
+        cache.putWkt(4326, "GEOGCS[\"WGS 84\"]");
+        cache.setComplete();
+        Assert.assertTrue(cache.containsWkt(2));
+        Assert.assertNull(cache.getWkt(2));
+
+        cache.clear();
+        Assert.assertFalse(cache.containsWkt(4326));
+    }
+
+    @Test
+    public void testPreloadProperty()
+    {
+        StoreManager storeMgr = PropertyStoreManager.newStoreManager(Collections.<String, Object>emptyMap());
+        Assert.assertFalse(storeMgr.getBooleanProperty(SpatialHelper.CRS_PRELOAD_PROPERTY));
+
+        // As the SpatialHelper looks it up on the first CRS lookup
+        storeMgr = PropertyStoreManager.newStoreManager(Collections.<String, Object>singletonMap("datanucleus.geospatial.crsPreload", "true"));
+        Assert.assertTrue(storeMgr.getBooleanProperty(SpatialHelper.CRS_PRELOAD_PROPERTY));
+    }
+}
@@ -0,0 +1,70 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.query.inmemory;
+
+import org.datanucleus.store.types.geospatial.codec.JtsGeometryCodec;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.ParseException;
+
+/**
+ * Tests for the in-memory evaluation of the methods of JTS geometries by {@link GeometryMethod}.
+ */
+public class GeometryMethodTest
+{
+    @Test
+    public void testPreparedPredicates() throws ParseException
+    {
+        Geometry polygon = JtsGeometryCodec.readWkt("POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0))");
+        Geometry[] candidates = new Geometry[] {JtsGeometryCodec.readWkt("POINT (5 5)"), JtsGeometryCodec.readWkt("POINT (10 5)"),
+                JtsGeometryCodec.readWkt("POINT (15 5)"), JtsGeometryCodec.readWkt("LINESTRING (5 5, 15 5)")};
+        String[] predicates = new String[] {"intersects", "contains", "within", "covers", "coveredBy", "overlaps", "touches", "crosses", "disjoint"};
+        Object execution = new Object();
+        for (int i = 0; i < predicates.length; i++)
+        {
+            for (int j = 0; j < candidates.length; j++)
+            {
+                Object expected = GeometryMethod.invoke(predicates[i], candidates[j], false, new Object[] {polygon}, false, execution);
+                Assert.assertEquals(GeometryMethod.invoke(predicates[i], candidates[j], false, new Object[] {polygon}, true, execution), expected,
+                    predicates[i] + " with constant argument");
+                expected = GeometryMethod.invoke(predicates[i], polygon, false, new Object[] {candidates[j]}, false, execution);
+                Assert.assertEquals(GeometryMethod.invoke(predicates[i], polygon, true, new Object[] {candidates[j]}, false, execution), expected,
+                    predicates[i] + " with constant geometry");
+            }
+        }
+    }
+
+    @Test
+    public void testPositionsCountFromOne() throws ParseException
+    {
+        Geometry line = JtsGeometryCodec.readWkt("LINESTRING (0 0, 1 1, 2 2)");
+        Assert.assertEquals(((Geometry) GeometryMethod.invoke("getPointN", line, false, new Object[] {Integer.valueOf(1)}, false, null)).toText(),
+            "POINT (0 0)");
+        Assert.assertNull(GeometryMethod.invoke("getPointN", line, false, new Object[] {Integer.valueOf(4)}, false, null));
+    }
+
+    @Test
+    public void testNullArgument() throws ParseException
+    {
+        Geometry point = JtsGeometryCodec.readWkt("POINT (5 5)");
+        Assert.assertNull(GeometryMethod.invoke("intersects", point, false, new Object[] {null}, true, null));
+        Assert.assertNull(GeometryMethod.invoke("distance", point, false, new Object[] {null}, false, null));
+    }
+}
@@ -0,0 +1,71 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.query.inmemory;
+
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.math.BigDecimal;
+
+import org.datanucleus.exceptions.NucleusException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the in-memory evaluation of the methods of the java.awt.geom shapes by {@link Shape2dMethod}.
+ */
+public class Shape2dMethodTest
+{
+    @Test
+    public void testRectangleMethods()
+    {
+        Rectangle2D rect = new Rectangle2D.Double(0, 0, 10, 5);
+        Assert.assertEquals(Shape2dMethod.invoke("contains", rect, new Object[] {Long.valueOf(2), Double.valueOf(3)}), Boolean.TRUE);
+        Assert.assertEquals(Shape2dMethod.invoke("contains", rect, new Object[] {new Point2D.Float(10, 3)}), Boolean.FALSE);
+        Assert.assertEquals(Shape2dMethod.invoke("intersects", rect, new Object[] {new Rectangle2D.Float(9, 4, 2, 2)}), Boolean.TRUE);
+        Assert.assertEquals(Shape2dMethod.invoke("getMaxX", rect, new Object[0]), Double.valueOf(10));
+        Assert.assertEquals(Shape2dMethod.invoke("getCenterY", rect, new Object[0]), Double.valueOf(2.5));
+    }
+
+    @Test
+    public void testEllipseContains()
+    {
+        Ellipse2D ellipse = new Ellipse2D.Double(0, 0, 10, 10);
+        Assert.assertEquals(Shape2dMethod.invoke("contains", ellipse, new Object[] {Double.valueOf(5), Double.valueOf(5)}), Boolean.TRUE);
+        // Within the bounding box but outside the ellipse
+        Assert.assertEquals(Shape2dMethod.invoke("contains", ellipse, new Object[] {Double.valueOf(0.5), Double.valueOf(0.5)}), Boolean.FALSE);
+    }
+
+    @Test
+    public void testPointAndLineMethods()
+    {
+        Point2D point = new Point2D.Double(0, 0);
+        Assert.assertEquals(Shape2dMethod.invoke("distance", point, new Object[] {new BigDecimal("3"), Integer.valueOf(4)}), Double.valueOf(5));
+
+        Line2D line = new Line2D.Double(0, 0, 10, 0);
+        Assert.assertEquals(Shape2dMethod.invoke("ptSegDist", line, new Object[] {new Point2D.Double(12, 0)}), Double.valueOf(2));
+        Assert.assertEquals(Shape2dMethod.invoke("getX2", line, new Object[0]), Double.valueOf(10));
+    }
+
+    @Test(expectedExceptions = NucleusException.class)
+    public void testUnknownMethod()
+    {
+        Shape2dMethod.invoke("contains", new Point2D.Double(0, 0), new Object[] {new Point2D.Double(0, 0)});
+    }
+}
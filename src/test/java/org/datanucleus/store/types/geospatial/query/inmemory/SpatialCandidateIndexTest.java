@@ -0,0 +1,223 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.query.inmemory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.datanucleus.store.query.compiler.ExpressionCompiler;
+import org.datanucleus.store.query.compiler.JDOQLParser;
+import org.datanucleus.store.query.expression.Expression;
+import org.datanucleus.store.types.geospatial.codec.JtsGeometryCodec;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.ParseException;
+
+/**
+ * Tests for {@link SpatialCandidateIndex}.
+ */
+public class SpatialCandidateIndexTest
+{
+    public static class Feature
+    {
+        private final String name;
+
+        private final Geometry geom;
+
+        public Feature(String name, String wkt) throws ParseException
+        {
+            this.name = name;
+            this.geom = (wkt != null) ? JtsGeometryCodec.readWkt(wkt) : null;
+        }
+
+        public String toString()
+        {
+            return name;
+        }
+    }
+
+    private static List<Feature> createGrid() throws ParseException
+    {
+        List<Feature> features = new ArrayList<Feature>();
+        for (int x = 0; x < 10; x++)
+        {
+            for (int y = 0; y < 10; y++)
+            {
+                features.add(new Feature(x + "/" + y, "POINT (" + x + " " + y + ")"));
+            }
+        }
+        features.add(new Feature("none", null));
+        return features;
+    }
+
+    @Test
+    public void testEnvelopeHitsKeepOrder() throws ParseException
+    {
+        List<Feature> features = createGrid();
+        SpatialCandidateIndex index = new SpatialCandidateIndex(features, "geom");
+
+        List hits = index.getCandidates(new Envelope(2.5, 4.5, 7.5, 8.5));
+        Assert.assertEquals(hits.toString(), "[3/8, 4/8]");
+        Assert.assertEquals(index.getCandidates().size(), features.size());
+    }
+
+    @Test
+    public void testParallelFilterMatchesSequential() throws ParseException
+    {
+        SpatialCandidateIndex index = new SpatialCandidateIndex(createGrid(), "geom");
+        Geometry area = JtsGeometryCodec.readWkt("POLYGON ((0 0, 9 0, 0 9, 0 0))");
+        String[] predicates = new String[] {"intersects", "within", "coveredBy", "touches", "disjoint"};
+
+        List[] sequential = new List[predicates.length];
+        for (int i = 0; i < predicates.length; i++)
+        {
+            sequential[i] = index.filter(predicates[i], area);
+        }
+        Assert.assertEquals(sequential[0].size(), 55);
+        Assert.assertEquals(sequential[4].size(), 45);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            index.setParallelism(pool, 0);
+            for (int i = 0; i < predicates.length; i++)
+            {
+                Assert.assertEquals(index.filter(predicates[i], area), sequential[i], predicates[i]);
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testJoin() throws ParseException
+    {
+        SpatialCandidateIndex points = new SpatialCandidateIndex(createGrid(), "geom");
+        List<Feature> areas = new ArrayList<Feature>();
+        areas.add(new Feature("a", "POLYGON ((0.5 0.5, 2.5 0.5, 2.5 1.5, 0.5 1.5, 0.5 0.5))"));
+        areas.add(new Feature("b", "POLYGON ((8.5 8.5, 9.5 8.5, 9.5 9.5, 8.5 9.5, 8.5 8.5))"));
+        SpatialCandidateIndex areaIndex = new SpatialCandidateIndex(areas, "geom");
+
+        List<Object[]> pairs = points.join(areaIndex, "within", 0);
+        Assert.assertEquals(pairs.size(), 3);
+        Assert.assertEquals(pairs.get(0)[0].toString() + pairs.get(0)[1], "1/1a");
+        Assert.assertEquals(pairs.get(1)[0].toString() + pairs.get(1)[1], "2/1a");
+        Assert.assertEquals(pairs.get(2)[0].toString() + pairs.get(2)[1], "9/9b");
+
+        Assert.assertEquals(points.join(areaIndex, "isWithinDistance", 0.5).size(), 8 + 3);
+    }
+
+    @Test
+    public void testFilterQueryPrunesCandidates() throws ParseException
+    {
+        SpatialCandidateIndex index = new SpatialCandidateIndex(createGrid(), "geom");
+        Map<String, Object> params = createParameters();
+
+        String area = "[3/3, 3/4, 4/3, 4/4]";
+        Assert.assertEquals(filter(index, "geom.intersects(:area)", params).toString(), area);
+        Assert.assertEquals(filter(index, "this.geom.within(:area)", params).toString(), area);
+        Assert.assertEquals(filter(index, "geom.intersects(:area) == true", params).toString(), area);
+        Assert.assertEquals(filter(index, "name != null && geom.intersects(:area) && name != 'x'", params).toString(), area);
+
+        // Spatial methods, with the indexed field as first or second argument
+        Assert.assertEquals(filter(index, "Spatial.within(geom, :area)", params).toString(), area);
+        Assert.assertEquals(filter(index, "Spatial.contains(:area, geom)", params).toString(), area);
+        Assert.assertEquals(filter(index, "Spatial.intersects(:area, this.geom)", params).toString(), area);
+
+        // Envelope of the point expanded by the distance
+        String nearPoint = "[4/4, 4/5, 4/6, 5/4, 5/5, 5/6, 6/4, 6/5, 6/6]";
+        Assert.assertEquals(filter(index, "geom.distance(:point) < 1", params).toString(), nearPoint);
+        Assert.assertEquals(filter(index, "Spatial.distance(geom, :point) <= :distance", params).toString(), nearPoint);
+        Assert.assertEquals(filter(index, "geom.isWithinDistance(:point, 1)", params).toString(), nearPoint);
+        Assert.assertEquals(filter(index, "Spatial.dwithin(geom, :point, :distance)", params).toString(), nearPoint);
+
+        // Predicates at the top level of the filter all apply
+        Assert.assertEquals(filter(index, "geom.intersects(:area) && geom.isWithinDistance(:point, 1)", params).toString(), "[4/4]");
+    }
+
+    @Test
+    public void testFilterQueryKeepsCandidates() throws ParseException
+    {
+        List<Feature> features = createGrid();
+        SpatialCandidateIndex index = new SpatialCandidateIndex(features, "geom");
+        Map<String, Object> params = createParameters();
+
+        String[] filters = new String[] {
+            "geom.intersects(:area) || name == 'x'",
+            "!geom.intersects(:area)",
+            "!(geom.intersects(:area) && name != null)",
+            "geom.intersects(:area) == false",
+            "geom.disjoint(:area)",
+            "Spatial.disjoint(geom, :area)",
+            "geom.distance(:point) > 1",
+            "geom.intersects(:unknown)",
+            "other.intersects(:area)",
+            "name == 'x'"};
+        for (int i = 0; i < filters.length; i++)
+        {
+            Assert.assertEquals(filter(index, filters[i], params), features, filters[i]);
+        }
+        Assert.assertEquals(index.filter(null, "this", params), features);
+    }
+
+    @Test
+    public void testParallelFilterQueryEvaluatesExactly() throws ParseException
+    {
+        SpatialCandidateIndex index = new SpatialCandidateIndex(createGrid(), "geom");
+        Map<String, Object> params = createParameters();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            index.setParallelism(pool, 0);
+            Assert.assertEquals(filter(index, "geom.distance(:point) < 1", params).toString(), "[5/5]");
+            Assert.assertEquals(filter(index, "geom.distance(:point) <= 1", params).toString(), "[4/5, 5/4, 5/5, 5/6, 6/5]");
+            Assert.assertEquals(filter(index, "Spatial.contains(:area, geom) && geom.isWithinDistance(:point, 1.5)", params).toString(), "[4/4]");
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    private static Map<String, Object> createParameters() throws ParseException
+    {
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("area", JtsGeometryCodec.readWkt("POLYGON ((2.5 2.5, 4.5 2.5, 4.5 4.5, 2.5 4.5, 2.5 2.5))"));
+        params.put("point", JtsGeometryCodec.readWkt("POINT (5 5)"));
+        params.put("distance", Double.valueOf(1));
+        return params;
+    }
+
+    /**
+     * Compiles a JDOQL filter and reduces the candidates of the index with it.
+     */
+    private static List filter(SpatialCandidateIndex index, String filter, Map<String, Object> params)
+    {
+        Expression filterExpr = new ExpressionCompiler().compileExpression(new JDOQLParser().parse(filter));
+        return index.filter(filterExpr, "this", params);
+    }
+}
@@ -0,0 +1,45 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.mapping;
+
+import java.util.Collections;
+
+import org.datanucleus.store.StoreManager;
+import org.datanucleus.store.types.geospatial.PropertyStoreManager;
+import org.datanucleus.store.types.geospatial.rdbms.adapter.SpatialRDBMSAdapter;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link SpatialMappingHelper}.
+ */
+public class SpatialMappingHelperTest
+{
+    @Test
+    public void testStreamingThresholdProperty()
+    {
+        StoreManager storeMgr = PropertyStoreManager.newStoreManager(Collections.<String, Object>emptyMap());
+        Assert.assertEquals(SpatialMappingHelper.getIntOption(storeMgr, null, SpatialRDBMSAdapter.STREAMING_THRESHOLD_PROPERTY,
+            SpatialRDBMSAdapter.STREAMING_THRESHOLD_EXTENSION_KEY, -1), -1);
+
+        // A threshold of 0 alone makes the mappings read every binary result through its stream
+        storeMgr = PropertyStoreManager.newStoreManager(Collections.<String, Object>singletonMap("datanucleus.geospatial.streamingThreshold", "0"));
+        Assert.assertEquals(SpatialMappingHelper.getIntOption(storeMgr, null, SpatialRDBMSAdapter.STREAMING_THRESHOLD_PROPERTY,
+            SpatialRDBMSAdapter.STREAMING_THRESHOLD_EXTENSION_KEY, -1), 0);
+    }
+}
@@ -0,0 +1,40 @@
+/**********************************************************************
+Copyright (c) 2006 Thomas Marti, Stefan Schmid and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.sql.expression;
+
+import java.util.Collections;
+
+import org.datanucleus.store.types.geospatial.PropertyStoreManager;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link GeometryLiteral}.
+ */
+public class GeometryLiteralTest
+{
+    @Test
+    public void testBindLiteralsProperty()
+    {
+        Assert.assertFalse(GeometryLiteral.isBindAlways(PropertyStoreManager.newStoreManager(Collections.<String, Object>emptyMap())));
+
+        // Literals for parameters then stay rendered as "?"
+        Assert.assertTrue(GeometryLiteral.isBindAlways(PropertyStoreManager.newStoreManager(
+            Collections.<String, Object>singletonMap("datanucleus.geospatial.bindLiterals", "true"))));
+    }
+}
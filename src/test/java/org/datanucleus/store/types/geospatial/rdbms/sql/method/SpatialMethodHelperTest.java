@@ -0,0 +1,99 @@
+/**********************************************************************
+Copyright (c) 2009 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+   ...
+ **********************************************************************/
+package org.datanucleus.store.types.geospatial.rdbms.sql.method;
+
+import java.util.Arrays;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.vividsolutions.jts.geom.Dimension;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.IntersectionMatrix;
+import com.vividsolutions.jts.geom.Location;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKTReader;
+
+/**
+ * Tests for {@link SpatialMethodHelper}.
+ */
+public class SpatialMethodHelperTest
+{
+    @Test
+    public void testRequiresIntersection()
+    {
+        Assert.assertTrue(SpatialMethodHelper.requiresIntersection("T*F**F***")); // within
+        Assert.assertTrue(SpatialMethodHelper.requiresIntersection("FT*******")); // touches
+        Assert.assertTrue(SpatialMethodHelper.requiresIntersection("****1****"));
+        Assert.assertFalse(SpatialMethodHelper.requiresIntersection("FF*FF****")); // disjoint
+        Assert.assertFalse(SpatialMethodHelper.requiresIntersection("**T******"));
+        Assert.assertFalse(SpatialMethodHelper.requiresIntersection("T*"));
+    }
+
+    @Test
+    public void testOracleMasksMatchEqualGeometries() throws ParseException
+    {
+        assertContainsMask("POLYGON((0 0, 10 0, 10 10, 0 10, 0 0))", "POLYGON((0 0, 10 0, 10 10, 0 10, 0 0))", "EQUAL");
+        assertContainsMask("POINT(1 1)", "POINT(1 1)", "EQUAL");
+        assertContainsMask("LINESTRING(0 0, 5 5)", "LINESTRING(0 0, 5 5)", "EQUAL");
+        assertContainsMask("POLYGON((0 0, 10 0, 10 10, 0 10, 0 0))", "POLYGON((2 2, 4 2, 4 4, 2 4, 2 2))", "CONTAINS");
+        assertContainsMask("POLYGON((0 0, 10 0, 10 10, 0 10, 0 0))", "POLYGON((0 0, 4 0, 4 4, 0 4, 0 0))", "COVERS");
+    }
+
+    /**
+     * Asserts that the OGC contains/within predicates hold for the two geometries and that the SDO_RELATE masks
+     * used for them include the relationship Oracle would report.
+     */
+    private static void assertContainsMask(String containerWkt, String containedWkt, String expected) throws ParseException
+    {
+        WKTReader reader = new WKTReader();
+        Geometry container = reader.read(containerWkt);
+        Geometry contained = reader.read(containedWkt);
+        Assert.assertTrue(container.contains(contained));
+        Assert.assertTrue(contained.within(container));
+
+        String relationship = getOracleRelationship(container, contained);
+        Assert.assertEquals(relationship, expected);
+        Assert.assertTrue(Arrays.asList(SpatialMethodHelper.ORACLE_CONTAINS_MASK.split("\\+")).contains(relationship));
+        String inverse = getOracleRelationship(contained, container);
+        Assert.assertTrue(Arrays.asList(SpatialMethodHelper.ORACLE_WITHIN_MASK.split("\\+")).contains(inverse));
+    }
+
+    /**
+     * Classifies the pair the way SDO_RELATE does, where the relationships are mutually exclusive.
+     * Only the relationships implied by the OGC contains/within predicates are distinguished.
+     */
+    private static String getOracleRelationship(Geometry g1, Geometry g2)
+    {
+        if (g1.equalsTopo(g2))
+        {
+            return "EQUAL";
+        }
+        IntersectionMatrix matrix = g1.relate(g2);
+        boolean boundariesIntersect = matrix.get(Location.BOUNDARY, Location.BOUNDARY) != Dimension.FALSE;
+        if (g1.contains(g2))
+        {
+            return boundariesIntersect ? "COVERS" : "CONTAINS";
+        }
+        if (g1.within(g2))
+        {
+            return boundariesIntersect ? "COVEREDBY" : "INSIDE";
+        }
+        return null;
+    }
+}